@@ -0,0 +1,329 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+
+import com.sun.management.ThreadMXBean;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Porte de regression des allocations d'un tick de jeu : octets alloues par
+ * tick par le thread de simulation et par le thread de rendu, compares au
+ * budget versionne (allocation-budget.properties).
+ *
+ * =========================================================================
+ * SCENARIO
+ * =========================================================================
+ * Une partie normale (vagues, tirs automatiques du joueur), graine fixe,
+ * sans entree clavier ; le joueur est remis en vie entre deux ticks. Elle
+ * est jouee WARMUP_PASSES fois pour chauffer la JIT (l'analyse
+ * d'echappement change les allocations), puis PASSES fois a l'identique
+ * pour la mesure, et la porte compare la MEDIANE des passes. Apres cette
+ * chauffe les passes d'une meme JVM sont identiques ; d'une JVM a l'autre
+ * la mediane varie encore d'environ +-4 % (choix de compilation de la
+ * JIT), d'ou la marge minimale du budget.
+ *
+ * Deux threads en alternance, comme dans le jeu :
+ *  simulation : updateGame puis buildWorldList (thread de jeu)
+ *  rendu      : drawFrame dans une image de la taille de l'ecran (EDT)
+ * Chaque thread compte ses propres octets (ThreadMXBean
+ * .getThreadAllocatedBytes), hors synchronisation entre les deux.
+ *
+ * =========================================================================
+ * SITES D'ALLOCATION
+ * =========================================================================
+ * Apres la mesure, une passe de plus sous enregistrement JFR (allocations
+ * dans un nouveau TLAB ou hors TLAB, avec pile), ramene au premier
+ * appelant du jeu et au type alloue. Les octets par tick d'un site sont
+ * estimes par sa part des echantillons ; la tache gradle fixe un petit
+ * TLAB pour en avoir assez.
+ *
+ * Code de sortie 1 si un budget est depasse (gradle check echoue).
+ * --update reecrit le budget : mediane + marge, la marge etant tiree de
+ * l'ecart entre passes (SPREAD_FACTOR x (max - min) / mediane, au moins
+ * MIN_MARGIN).
+ */
+public final class AllocationGate {
+
+    private static final long   SEED          = 42;
+    private static final int    WARMUP_PASSES = 3;
+    private static final int    PASSES        = 5;
+    private static final double MIN_MARGIN    = 0.15;
+    private static final double SPREAD_FACTOR = 3;
+    private static final int    TOP           = 10;
+
+    /** Une minute de jeu : vagues 1 et 2 (corps a corps et distance). */
+    private static final int DEFAULT_TICKS = 3600;
+
+    private final GamePanel gp;
+    private final Graphics2D g2;
+    private final ThreadMXBean mx = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long overhead;
+
+    // Alternance simulation -> rendu -> simulation
+    private final Semaphore renderGo = new Semaphore(0), renderDone = new Semaphore(0);
+    private final Thread renderThread;
+    private volatile boolean stopping;
+
+    private long simBytes, renderBytes; // renderBytes : thread de rendu, lu apres renderDone
+
+    private AllocationGate() {
+        gp = new GamePanel();
+        gp.offline = true;
+        g2 = new BufferedImage(gp.screenWidth, gp.screenHeight, BufferedImage.TYPE_INT_RGB).createGraphics();
+
+        mx.setThreadAllocatedMemoryEnabled(true);
+        long a = allocated(), b = allocated();
+        overhead = b - a; // cout de la mesure elle-meme
+
+        renderThread = new Thread(this::renderLoop, "alloc-render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    private long allocated() {
+        return mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // =========================================================================
+    // Scenario
+    // =========================================================================
+
+    /** Joue ticks ticks de la partie de reference ; octets comptes depuis zero. */
+    private void play(int ticks) {
+        gp.gameState = GameState.PLAYING;
+        gp.resetGame();
+        gp.seedRun(SEED);
+        simBytes = renderBytes = 0;
+
+        Player p = gp.player;
+        for (int i = 0; i < ticks; i++) {
+            p.hp = p.maxHp;
+            p.alive = true;
+
+            long a = allocated();
+            gp.updateGame();
+            gp.buildWorldList();
+            simBytes += allocated() - a - overhead;
+
+            renderGo.release();
+            renderDone.acquireUninterruptibly();
+        }
+    }
+
+    private void renderLoop() {
+        while (true) {
+            renderGo.acquireUninterruptibly();
+            if (stopping) return;
+            long a = allocated();
+            gp.drawFrame(g2);
+            renderBytes += allocated() - a - overhead;
+            renderDone.release();
+        }
+    }
+
+    private void stop() {
+        stopping = true;
+        renderGo.release();
+        g2.dispose();
+    }
+
+    // =========================================================================
+    // Sites (JFR)
+    // =========================================================================
+
+    /** Octets echantillonnes par site ("Classe.methode:ligne  type"), par thread. */
+    private static final class Sites {
+        final Map<String, Long> bytes = new HashMap<>();
+        long total;
+
+        void add(String site, long weight) {
+            bytes.merge(site, weight, Long::sum);
+            total += weight;
+        }
+
+        void print(String name, long bytesPerTick) {
+            List<Map.Entry<String, Long>> top = new ArrayList<>(bytes.entrySet());
+            top.sort((x, y) -> Long.compare(y.getValue(), x.getValue()));
+            System.out.println("  Sites (" + name + ", " + total / 1024 + " Ko echantillonnes) :");
+            for (int i = 0; i < Math.min(TOP, top.size()); i++) {
+                double share = top.get(i).getValue() / (double) total;
+                System.out.println(String.format("    %5.1f %%  %7.0f o/tick  %s", share * 100,
+                                                 share * bytesPerTick, top.get(i).getKey()));
+            }
+        }
+    }
+
+    private static Recording startRecording() {
+        Recording r = new Recording();
+        r.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+        r.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+        r.start();
+        return r;
+    }
+
+    private Sites[] readSites(Recording r) throws IOException {
+        Path file = Files.createTempFile("alloc-gate", ".jfr");
+        try {
+            r.dump(file);
+            Sites sim = new Sites(), render = new Sites();
+            long simId = Thread.currentThread().getId(), renderId = renderThread.getId();
+            for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+                if (e.getThread() == null || e.getStackTrace() == null) continue;
+                long id = e.getThread().getJavaThreadId();
+                Sites s = id == simId ? sim : id == renderId ? render : null;
+                if (s == null) continue;
+                long weight = e.getEventType().getName().endsWith("InNewTLAB") ? e.getLong("tlabSize")
+                                                                                : e.getLong("allocationSize");
+                String site = site(e.getStackTrace().getFrames());
+                if (site != null) s.add(site + "  " + e.getClass("objectClass").getName(), weight);
+            }
+            return new Sites[] { sim, render };
+        } finally {
+            r.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Premier appelant dans le jeu (hors AllocationGate), ou null. */
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame f : frames) {
+            String type = f.getMethod().getType().getName();
+            if (!type.startsWith("projetCROMBEZ.")) continue;
+            if (type.equals(AllocationGate.class.getName())) return null; // synchronisation de la porte
+            return type.substring("projetCROMBEZ.".length()) + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+        }
+        return null;
+    }
+
+    // =========================================================================
+    // Budget
+    // =========================================================================
+
+    private static Properties load(File f) throws IOException {
+        Properties p = new Properties();
+        try (InputStream in = new FileInputStream(f)) {
+            p.load(in);
+        }
+        return p;
+    }
+
+    /** Octets par tick de chaque passe mesuree, pour un thread. */
+    private static final class Passes {
+        final String name;
+        final long[] perTick = new long[PASSES];
+
+        Passes(String name) { this.name = name; }
+
+        long median() {
+            long[] v = perTick.clone();
+            Arrays.sort(v);
+            return v[PASSES / 2];
+        }
+
+        /** (max - min) / mediane. */
+        double spread() {
+            long min = Long.MAX_VALUE, max = 0;
+            for (long v : perTick) { min = Math.min(min, v); max = Math.max(max, v); }
+            return (max - min) / (double) Math.max(1, median());
+        }
+
+        long budget() {
+            return (long) Math.ceil(median() * (1 + Math.max(MIN_MARGIN, SPREAD_FACTOR * spread())));
+        }
+
+        boolean check(Properties budget) {
+            String b = budget.getProperty(name);
+            String passes = Arrays.toString(perTick);
+            if (b == null) {
+                System.out.println(String.format("[AllocationGate] %-10s : %7d o/tick (mediane de %s, pas de budget)",
+                                                 name, median(), passes));
+                return true;
+            }
+            long limit = Long.parseLong(b.trim());
+            boolean ok = median() <= limit;
+            System.out.println(String.format("[AllocationGate] %-10s : %7d o/tick (mediane de %s, ecart %.1f %%), budget %7d  %s",
+                                             name, median(), passes, spread() * 100, limit, ok ? "ok" : "DEPASSE"));
+            return ok;
+        }
+    }
+
+    /** Reecrit le budget (sans date : le fichier est versionne). */
+    private static void update(File f, int ticks, Passes... threads) throws IOException {
+        StringBuilder text = new StringBuilder()
+            .append("# Octets alloues par tick (AllocationGate) : mediane de ").append(PASSES).append(" passes + marge\n")
+            .append("# (").append(Math.round(MIN_MARGIN * 100)).append(" % au moins, ").append((int) SPREAD_FACTOR)
+            .append(" x l'ecart entre passes sinon)\n")
+            .append("# Mise a jour : gradle :benchmarks:allocationGate -PallocUpdate\n")
+            .append("ticks=").append(ticks).append('\n');
+        for (Passes t : threads) {
+            text.append(String.format("# %s : mediane %d, ecart %.1f %%%n", t.name, t.median(), t.spread() * 100));
+            text.append(t.name).append('=').append(t.budget()).append('\n');
+        }
+        Files.write(f.toPath(), text.toString().getBytes(StandardCharsets.US_ASCII));
+        System.out.println("[AllocationGate] Budget mis a jour : " + f);
+    }
+
+    /**
+     * Arguments : fichier de budget [--update]. Le nombre de ticks est lu
+     * dans le budget (DEFAULT_TICKS sinon).
+     */
+    public static void main(String[] args) throws IOException {
+        File budgetFile = new File(args.length > 0 ? args[0] : "allocation-budget.properties");
+        boolean updating = args.length > 1 && args[1].equals("--update");
+        Properties budget = budgetFile.exists() ? load(budgetFile) : new Properties();
+        int ticks = Integer.parseInt(budget.getProperty("ticks", Integer.toString(DEFAULT_TICKS)).trim());
+
+        AllocationGate gate = new AllocationGate();
+        for (int i = 0; i < WARMUP_PASSES; i++) gate.play(ticks);
+
+        Passes sim = new Passes("simulation"), render = new Passes("render");
+        for (int i = 0; i < PASSES; i++) {
+            gate.play(ticks);
+            sim.perTick[i]    = gate.simBytes / ticks;
+            render.perTick[i] = gate.renderBytes / ticks;
+        }
+
+        // Sites : passe supplementaire, hors mesure (JFR alloue lui-meme sur
+        // les threads enregistres et gonfle leurs octets d'environ 40 %)
+        Recording r = startRecording();
+        gate.play(ticks);
+        r.stop();
+        long simSampled = gate.simBytes / ticks, renderSampled = gate.renderBytes / ticks;
+        Sites[] sites = gate.readSites(r);
+        gate.stop();
+
+        System.out.println("[AllocationGate] " + ticks + " ticks x " + PASSES + " passes, graine " + SEED
+                           + ", vague " + gate.gp.enemyManager.getWave()
+                           + ", " + gate.gp.enemyManager.enemies.size() + " ennemis en fin de partie");
+        boolean ok = sim.check(budget);
+        ok &= render.check(budget);
+        sites[0].print("simulation", simSampled);
+        sites[1].print("render", renderSampled);
+
+        if (updating) {
+            update(budgetFile, ticks, sim, render);
+            ok = true;
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
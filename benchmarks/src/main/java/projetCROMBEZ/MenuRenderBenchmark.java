@@ -0,0 +1,71 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cout du rendu de chaque ecran de menu hors ecran (java.awt.headless=true),
+ * en ns par frame, avec et sans lissage des formes.
+ *
+ * Chaque frame passe par GamePanel.renderOffscreen (drawFrame, comme a
+ * l'ecran) dans une image de la taille reelle de l'ecran. La pause est
+ * dessinee par-dessus une partie vide (le cout du monde : RenderBenchmark).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuRenderBenchmark {
+
+    @Param({ "MENU", "DIFFICULTY", "OPTIONS", "SHOP", "LEADERBOARD", "PAUSED" })
+    public GameState screen;
+
+    @Param({ "true", "false" })
+    public boolean antialias;
+
+    private GamePanel gp;
+    private BufferedImage image;
+    private Graphics2D g2;
+
+    @Setup(Level.Trial)
+    public void openScreen() {
+        gp = new GamePanel();
+        gp.antialiasing = antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF;
+        gp.gameState = GameState.PLAYING;
+        gp.resetGame();
+        gp.seedRun(42);
+        gp.gameState = screen;
+
+        image = new BufferedImage(gp.screenWidth, gp.screenHeight, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void dispose() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public int render() {
+        gp.renderOffscreen(g2);
+        return image.getRGB(0, 0);
+    }
+}
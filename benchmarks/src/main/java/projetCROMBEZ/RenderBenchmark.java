@@ -0,0 +1,198 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cout du rendu Java2D hors ecran (java.awt.headless=true), dans une image
+ * de la taille reelle de l'ecran (screenWidth x screenHeight).
+ *
+ * =========================================================================
+ * MESURES
+ * =========================================================================
+ *  frame        : GamePanel.renderOffscreen en jeu (liste d'affichage du
+ *                 monde puis drawFrame -> drawGame, textes de l'overlay),
+ *                 N ennemis des trois types et N projectiles
+ *  xxxEnemies   : N ennemis d'un seul type (emit, tri, rejeu : le chemin
+ *                 de draw, en une seule liste comme dans le jeu)
+ *  xxxShots     : N projectiles du joueur / des ennemis (Projectile.draw)
+ *  playerHud    : fleche et HUD du joueur (Player.draw)
+ *
+ * Score principal : ns par frame (un appel). Le compteur secondaire
+ * "entities" donne les ns par entite dessinee (score / N).
+ *
+ * Le parametre antialias mesure chaque cas avec et sans lissage des formes
+ * (le jeu dessine avec). Les ecrans de menu : MenuRenderBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int entities;
+
+    @Param({ "true", "false" })
+    public boolean antialias;
+
+    /** Entites dessinees par la mesure (ns par entite en mode AverageTime). */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Drawn {
+        public long entities;
+    }
+
+    private GamePanel gp;
+    private BufferedImage image;
+    private Graphics2D g2;
+    private final DisplayList dl = new DisplayList();
+
+    private final List<Enemy> melee = new ArrayList<>(), ranged = new ArrayList<>(),
+                              tanks = new ArrayList<>(), bosses = new ArrayList<>();
+    private final List<Projectile> playerShots = new ArrayList<>(), enemyShots = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void buildWorld() {
+        gp = new GamePanel();
+        gp.antialiasing = antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF;
+        gp.gameState = GameState.PLAYING;
+        gp.resetGame();
+        gp.seedRun(42);
+
+        SimRandom rand = new SimRandom(42);
+        int w = gp.screenWidth, h = gp.screenHeight;
+        for (int i = 0; i < entities; i++) {
+            melee.add(new MeleeEnemy(rand.nextDouble() * w, rand.nextDouble() * h));
+            ranged.add(new RangedEnemy(rand.nextDouble() * w, rand.nextDouble() * h));
+            tanks.add(new TankEnemy(rand.nextDouble() * w, rand.nextDouble() * h));
+            bosses.add(new BossEnemy(rand.nextDouble() * w, rand.nextDouble() * h));
+            playerShots.add(shot(rand, w, h, true));
+            enemyShots.add(shot(rand, w, h, false));
+        }
+
+        // Monde de la frame : types melanges, moitie de tirs ennemis
+        List<Enemy> world = gp.enemyManager.enemies;
+        world.clear();
+        gp.projectiles.clear();
+        for (int i = 0; i < entities; i++) {
+            switch (i % 3) {
+                case 0:  world.add(melee.get(i));  break;
+                case 1:  world.add(ranged.get(i)); break;
+                default: world.add(tanks.get(i));  break;
+            }
+            gp.projectiles.add(i % 2 == 0 ? playerShots.get(i) : enemyShots.get(i));
+        }
+        gp.player.x = w / 2.0;
+        gp.player.y = h / 2.0;
+
+        image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, gp.antialiasing);
+    }
+
+    private static Projectile shot(SimRandom rand, int w, int h, boolean fromPlayer) {
+        double a = rand.nextDouble() * 2 * Math.PI;
+        double x = rand.nextDouble() * w, y = rand.nextDouble() * h;
+        return new Projectile(x, y, x + Math.cos(a), y + Math.sin(a), 15, fromPlayer);
+    }
+
+    @TearDown(Level.Trial)
+    public void dispose() {
+        g2.dispose();
+    }
+
+    // =========================================================================
+    // Benchmarks
+    // =========================================================================
+
+    /** Frame complete en jeu : N ennemis, N projectiles, joueur et HUD. */
+    @Benchmark
+    public int frame(Drawn d) {
+        gp.renderOffscreen(g2);
+        d.entities += 2L * entities + 1;
+        return image.getRGB(0, 0);
+    }
+
+    @Benchmark
+    public int meleeEnemies(Drawn d) {
+        return drawEnemies(melee, d);
+    }
+
+    @Benchmark
+    public int rangedEnemies(Drawn d) {
+        return drawEnemies(ranged, d);
+    }
+
+    @Benchmark
+    public int tankEnemies(Drawn d) {
+        return drawEnemies(tanks, d);
+    }
+
+    @Benchmark
+    public int bossEnemies(Drawn d) {
+        return drawEnemies(bosses, d);
+    }
+
+    @Benchmark
+    public int playerShots(Drawn d) {
+        return drawShots(playerShots, d);
+    }
+
+    @Benchmark
+    public int enemyShots(Drawn d) {
+        return drawShots(enemyShots, d);
+    }
+
+    /** Player.draw : fleche puis HUD (barre de vie, or). */
+    @Benchmark
+    public int playerHud(Drawn d) {
+        gp.player.draw(g2);
+        d.entities++;
+        return image.getRGB(10, 10);
+    }
+
+    // =========================================================================
+    // Emission + rejeu d'une liste
+    // =========================================================================
+
+    private int drawEnemies(List<Enemy> list, Drawn d) {
+        dl.reset();
+        for (Enemy e : list) e.emit(dl);
+        return replay(list.size(), d);
+    }
+
+    private int drawShots(List<Projectile> list, Drawn d) {
+        dl.reset();
+        for (Projectile p : list) p.emit(dl);
+        return replay(list.size(), d);
+    }
+
+    private int replay(int n, Drawn d) {
+        dl.finish();
+        dl.replay(g2);
+        d.entities += n;
+        return dl.size();
+    }
+}
@@ -0,0 +1,210 @@
+package projetCROMBEZ;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Chemins chauds d'un tick de simulation, sur un monde synthetique de
+ * 10 a 10 000 ennemis (et autant de projectiles du joueur).
+ *
+ * =========================================================================
+ * MONDE
+ * =========================================================================
+ * Un vrai GamePanel (sans fenetre), graine fixe : ennemis des trois types
+ * repartis sur tout l'ecran, projectiles du joueur en vol dans toutes les
+ * directions, joueur au centre. Un ennemi sur deux est deja blesse (un
+ * tir l'acheve) : les impacts comptent des morts. L'etat est restaure au debut de chaque
+ * iteration (positions, vie, projectiles) : d'un commit a l'autre, chaque
+ * benchmark part du meme monde.
+ *
+ * Les benchmarks qui modifient le monde le gardent stable d'un appel a
+ * l'autre, au plus pres du jeu :
+ *  - enemyManagerUpdate : apparitions et tirs ennemis retires, ennemis
+ *    remis a leur position de depart et joueur soigne apres l'appel (le
+ *    nombre d'ennemis et leur repartition ne derivent pas : ils ne
+ *    s'empilent pas sur le joueur)
+ *  - playerHits         : projectiles touches et ennemis blesses restaures
+ *    apres l'appel, chiffres de degats et particules vides ; chaque appel
+ *    resout les memes impacts (degats, vol de vie, chiffres, morts)
+ *  - projectileUpdate   : les projectiles sortis de l'ecran sont remplaces
+ *    (recycles) comme le feraient de nouveaux tirs
+ *  - moveToward         : cible alternee entre deux points eloignes (les
+ *    ennemis oscillent au lieu de converger)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int entities;
+
+    /** Degats d'un tir du joueur (et vie des ennemis deja blesses). */
+    private static final int SHOT_DAMAGE = 15;
+
+    private GamePanel gp;
+    private List<Enemy> enemies;
+    private List<Projectile> projectiles;
+
+    /** Etat initial (restaure a chaque iteration). */
+    private final List<Enemy> allEnemies = new ArrayList<>();
+    private final List<Projectile> allProjectiles = new ArrayList<>();
+    private double[] enemyXY, projectileState;
+    private int[] enemyHp;
+    private int recycle;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void buildWorld() {
+        gp = new GamePanel();
+        gp.gameState = GameState.PLAYING;
+        gp.resetGame();
+        gp.seedRun(42);
+        enemies     = gp.enemyManager.enemies;
+        projectiles = gp.projectiles;
+
+        SimRandom rand = new SimRandom(42);
+        int w = gp.screenWidth, h = gp.screenHeight;
+        for (int i = 0; i < entities; i++) {
+            double x = rand.nextDouble() * w, y = rand.nextDouble() * h;
+            switch (rand.nextInt(3)) {
+                case 0:  allEnemies.add(new MeleeEnemy(x, y));  break;
+                case 1:  allEnemies.add(new RangedEnemy(x, y)); break;
+                default: allEnemies.add(new TankEnemy(x, y));   break;
+            }
+            if (i % 2 == 1) allEnemies.get(i).hp = SHOT_DAMAGE;
+            double a = rand.nextDouble() * 2 * Math.PI;
+            double px = rand.nextDouble() * w, py = rand.nextDouble() * h;
+            allProjectiles.add(new Projectile(px, py, px + Math.cos(a), py + Math.sin(a), SHOT_DAMAGE, true));
+        }
+
+        enemyXY = new double[entities * 2];
+        enemyHp = new int[entities];
+        projectileState = new double[entities * 4];
+        for (int i = 0; i < entities; i++) {
+            Enemy e = allEnemies.get(i);
+            enemyXY[2 * i] = e.x; enemyXY[2 * i + 1] = e.y;
+            enemyHp[i] = e.hp;
+            Projectile p = allProjectiles.get(i);
+            projectileState[4 * i]     = p.x;  projectileState[4 * i + 1] = p.y;
+            projectileState[4 * i + 2] = p.dx; projectileState[4 * i + 3] = p.dy;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetWorld() {
+        enemies.clear();
+        projectiles.clear();
+        for (int i = 0; i < entities; i++) {
+            resetEnemy(i);
+            enemies.add(allEnemies.get(i));
+            resetProjectile(i);
+            projectiles.add(allProjectiles.get(i));
+        }
+        Player p = gp.player;
+        p.reset();
+        p.x = gp.screenWidth / 2.0;
+        p.y = gp.screenHeight / 2.0;
+        gp.runStats.reset();
+        recycle = 0;
+    }
+
+    /** Ennemi i a sa position et sa vie de depart. */
+    private void resetEnemy(int i) {
+        Enemy e = allEnemies.get(i);
+        e.x = enemyXY[2 * i]; e.y = enemyXY[2 * i + 1];
+        e.hp = enemyHp[i];
+        e.alive = true;
+        e.invincibleTimer = 0;
+    }
+
+    private Projectile resetProjectile(int i) {
+        Projectile p = allProjectiles.get(i);
+        p.x  = projectileState[4 * i];     p.y  = projectileState[4 * i + 1];
+        p.dx = projectileState[4 * i + 2]; p.dy = projectileState[4 * i + 3];
+        p.alive = true;
+        return p;
+    }
+
+    // =========================================================================
+    // Benchmarks
+    // =========================================================================
+
+    /** EnemyManager.update : deplacement, attaques et tirs de chaque ennemi. */
+    @Benchmark
+    public int enemyManagerUpdate() {
+        gp.enemyManager.update(gp.player, projectiles);
+        int n = enemies.size();
+        if (n > entities) enemies.subList(entities, n).clear();
+        if (projectiles.size() > entities) projectiles.subList(entities, projectiles.size()).clear();
+        // Monde de depart : ennemis a leur place, joueur en vie
+        for (int i = 0; i < entities; i++) {
+            Enemy e = allEnemies.get(i);
+            e.x = enemyXY[2 * i]; e.y = enemyXY[2 * i + 1];
+        }
+        gp.player.hp = gp.player.maxHp;
+        return n;
+    }
+
+    /** Boucle projectiles du joueur -> ennemis de GamePanel.updateGame. */
+    @Benchmark
+    public int playerHits() {
+        gp.resolvePlayerHits();
+        int gold = gp.player.gold;
+        // Memes impacts a l'appel suivant : tirs et ennemis touches restaures
+        for (int i = 0; i < entities; i++) {
+            allProjectiles.get(i).alive = true;
+            Enemy e = allEnemies.get(i);
+            if (e.hp != enemyHp[i] || !e.alive) resetEnemy(i);
+        }
+        gp.damageNumbers.clear();
+        ParticleSystem.getInstance().clear();
+        return gold;
+    }
+
+    /** Player.findClosestEnemy : cible du tir automatique. */
+    @Benchmark
+    public Enemy findClosestEnemy() {
+        return gp.player.findClosestEnemy(enemies);
+    }
+
+    /** Projectile.update de chaque projectile puis removeIf des morts. */
+    @Benchmark
+    public int projectileUpdate() {
+        int w = gp.screenWidth, h = gp.screenHeight;
+        for (Projectile p : projectiles) p.update(w, h);
+        projectiles.removeIf(p -> !p.alive);
+        // Nouveaux tirs a la place des projectiles sortis (les morts, recycles)
+        while (projectiles.size() < entities) {
+            if (!allProjectiles.get(recycle).alive) projectiles.add(resetProjectile(recycle));
+            recycle = (recycle + 1) % entities;
+        }
+        return projectiles.size();
+    }
+
+    /** Enemy.moveToward de chaque ennemi (cible alternee). */
+    @Benchmark
+    public double moveToward() {
+        flip = !flip;
+        double tx = flip ? -1000 : gp.screenWidth + 1000, ty = gp.screenHeight / 2.0;
+        for (Enemy e : enemies) e.moveToward(tx, ty);
+        return enemies.get(0).x;
+    }
+}
@@ -0,0 +1,103 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Tampon de rendu interne de GamePanel.
+ *
+ * Le jeu est dessine dans ce tampon a la resolution interne, puis le
+ * tampon est agrandi vers l'ecran en un seul drawImage. Le contenu est
+ * conserve d'une frame a l'autre : les ecrans retenus ne redessinent
+ * que leurs zones sales.
+ *
+ * Le type d'image est choisi par {@link BufferKind} (mesure par
+ * {@link PipelineProbe} ou force dans les options) : VolatileImage
+ * (memoire video), image compatible, ou BufferedImage. Sans configuration
+ * graphique (headless, composant non affiche), une BufferedImage est
+ * toujours utilisee. Si le contenu de la VolatileImage est perdu
+ * (changement de mode, veille...), l'appelant doit tout redessiner.
+ */
+public class BackBuffer {
+
+    private final int transparency = Transparency.OPAQUE;
+
+    private VolatileImage   volatileImage;
+    private BufferedImage   bufferedImage;
+    private GraphicsConfiguration config;
+
+    private int width, height;
+
+    /** Type d'image demande (AUTO est traite comme VOLATILE). */
+    private BufferKind kind = BufferKind.VOLATILE;
+
+    /** Change le type d'image ; le tampon sera recree au prochain ensure(). */
+    public void setKind(BufferKind k) {
+        if (k == BufferKind.AUTO) k = BufferKind.VOLATILE;
+        if (k == kind) return;
+        kind = k;
+        if (volatileImage != null) volatileImage.flush();
+        volatileImage = null;
+        bufferedImage = null;
+    }
+
+    public BufferKind getKind() { return kind; }
+
+    /**
+     * Prepare un tampon de taille w x h pour la configuration gc.
+     *
+     * @return true si le contenu precedent est invalide (tampon recree
+     *         ou restaure) : toute la frame doit etre redessinee
+     */
+    public boolean ensure(GraphicsConfiguration gc, int w, int h) {
+        boolean sizeChanged = (w != width || h != height || gc != config);
+        width  = w;
+        height = h;
+        config = gc;
+
+        if (gc == null || kind != BufferKind.VOLATILE) {
+            volatileImage = null;
+            if (bufferedImage == null || sizeChanged) {
+                bufferedImage = (gc == null || kind == BufferKind.BUFFERED)
+                        ? new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB)
+                        : gc.createCompatibleImage(w, h, transparency);
+                return true;
+            }
+            return false;
+        }
+
+        bufferedImage = null;
+        if (volatileImage == null || sizeChanged) {
+            if (volatileImage != null) volatileImage.flush();
+            volatileImage = gc.createCompatibleVolatileImage(w, h, transparency);
+            volatileImage.validate(gc);
+            return true;
+        }
+        int status = volatileImage.validate(gc);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            volatileImage.flush();
+            volatileImage = gc.createCompatibleVolatileImage(w, h, transparency);
+            return true;
+        }
+        return status == VolatileImage.IMAGE_RESTORED;
+    }
+
+    /** Contexte de dessin dans le tampon (a liberer par l'appelant). */
+    public Graphics2D createGraphics() {
+        return volatileImage != null ? volatileImage.createGraphics() : bufferedImage.createGraphics();
+    }
+
+    /** true si le contenu a ete perdu pendant le dessin (a refaire). */
+    public boolean contentsLost() {
+        return volatileImage != null && volatileImage.contentsLost();
+    }
+
+    public Image image() { return volatileImage != null ? volatileImage : bufferedImage; }
+
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+}
@@ -1,6 +1,9 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -79,7 +82,7 @@ public class BossEnemy extends Enemy {
     public BossEnemy(double spawnX, double spawnY) {
         // HP=1000 | damage=25 | speed=1.2 | size=70 | orange fonc
         super(spawnX, spawnY, 1000, 25, 1.2, 70, new Color(200, 100, 0));
-        this.hpBarColor = new Color(255, 140, 0);
+        setHpBarColor(new Color(255, 140, 0));
     }
 
     // -------------------------------------------------------------------------
@@ -150,8 +153,8 @@ public class BossEnemy extends Enemy {
     private void shootRadial(List<Projectile> projectiles, int count) {
         for (int i = 0; i < count; i++) {
             double angle = 2 * Math.PI / count * i;
-            double tx = x + Math.cos(angle) * 200;
-            double ty = y + Math.sin(angle) * 200;
+            double tx = x + StrictMath.cos(angle) * 200;
+            double ty = y + StrictMath.sin(angle) * 200;
             projectiles.add(new Projectile(x, y, tx, ty, 12, false));
         }
     }
@@ -163,7 +166,8 @@ public class BossEnemy extends Enemy {
      * @param player Rfrence au joueur pour calculer la direction
      */
     private void triggerCharge(Player player) {
-        double dist = Math.sqrt(Math.pow(player.x - x, 2) + Math.pow(player.y - y, 2));
+        double px = player.x - x, py = player.y - y;
+        double dist = Math.sqrt(px * px + py * py);
         if (dist > 0) {
             chargeDX = (player.x - x) / dist * 9; // vitesse de charge
             chargeDY = (player.y - y) / dist * 9;
@@ -173,89 +177,118 @@ public class BossEnemy extends Enemy {
         chargeCooldown = 200; // attend ~3.3s avant prochaine charge
     }
 
+    // -------------------------------------------------------------------------
+    // Sauvegarde (WorldSnapshot)
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(attackCooldown);
+        out.writeInt(shootCooldown);
+        out.writeInt(phase);
+        out.writeBoolean(charging);
+        out.writeDouble(chargeDX);
+        out.writeDouble(chargeDY);
+        out.writeInt(chargeTimer);
+        out.writeInt(chargeCooldown);
+        out.writeDouble(rotationAngle);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        attackCooldown = in.readInt();
+        shootCooldown  = in.readInt();
+        phase          = in.readInt();
+        charging       = in.readBoolean();
+        chargeDX       = in.readDouble();
+        chargeDY       = in.readDouble();
+        chargeTimer    = in.readInt();
+        chargeCooldown = in.readInt();
+        rotationAngle  = in.readDouble();
+    }
+
     // -------------------------------------------------------------------------
     // Rendu
     // -------------------------------------------------------------------------
 
+    /** Matriaux du boss (enregistrs une seule fois). */
+    private static final int MAT_CHARGE      = Material.fill(new Color(255, 200, 0));
+    private static final int MAT_OUTLINE     = Material.stroke(new Color(100, 40, 0), 2.5f);
+    private static final int MAT_EYE_1       = Material.fill(new Color(255, 200, 100));
+    private static final int MAT_EYE_2       = Material.fill(new Color(255, 0, 0));
+    private static final int MAT_PUPIL       = Material.fill(Color.black);
+    private static final Font LABEL_FONT     = new Font("Arial", Font.BOLD, 11);
+    private static final int MAT_LABEL_1     = Material.text(Color.orange, LABEL_FONT);
+    private static final int MAT_LABEL_2     = Material.text(new Color(255, 80, 0), LABEL_FONT);
+
+    /** Barre de vie en bas de l'cran (position fixe pour un cran de 1216px). */
+    private static final int BAR_W = 400, BAR_H = 22, BAR_X = 408, BAR_Y = 790;
+    private static final int MAT_BAR_BACK    = Material.fill(new Color(40, 40, 40));
+    private static final int MAT_BAR_FILL    = Material.paint(new GradientPaint(
+            BAR_X, BAR_Y,         new Color(255, 140, 0),
+            BAR_X + BAR_W, BAR_Y, new Color(200, 0, 0)));
+    private static final int MAT_BAR_BORDER  = Material.stroke(Color.white, 2f);
+    private static final int MAT_BAR_TEXT    = Material.text(Color.white, new Font("Arial", Font.BOLD, 13));
+
+    /** Nombre de sommets de l'toile (une pointe + un creux par branche). */
+    private static final int STAR_VERTICES = 16;
+
+    /** Sommets de l'toile, rutiliss d'un tick  l'autre. */
+    private final int[] px = new int[STAR_VERTICES], py = new int[STAR_VERTICES];
+
     @Override
-    public void draw(Graphics2D g2) {
+    public void emit(DisplayList dl) {
         // --- Aura pulsante autour du boss ---
-        float auraAlpha = (phase == 2) ? 100 : 60;
-        Color auraColor = (phase == 2) ? new Color(255, 80, 0, (int)auraAlpha)
-                                       : new Color(200, 100, 0, (int)auraAlpha);
-        g2.setColor(auraColor);
-        int auraSize = size + 20 + (int)(Math.sin(rotationAngle * 3) * 5); // lgre pulsation
-        g2.fillOval((int)x - auraSize / 2, (int)y - auraSize / 2, auraSize, auraSize);
+        int auraSize = size + 20 + (int)(Math.sin(rotationAngle * 3) * 5); // lgre pulsation
+        GlowSprite aura = phase == 2 ? GlowSprite.BOSS_2 : GlowSprite.BOSS_1;
+        aura.emit(dl, DisplayList.LAYER_AURA, (int)x, (int)y, auraSize);
 
-        // --- toile  8 branches ---
-        Polygon star = buildStar8((int)x, (int)y, size / 2, size / 4, rotationAngle);
+        // --- toile  8 branches ---
+        buildStar8((int)x, (int)y, size / 2, size / 4, rotationAngle);
+        int v = dl.addVertices(px, py, STAR_VERTICES);
 
         // Corps de l'toile (flash blanc si hit, orange si charge)
-        Color bodyColor = charging ? new Color(255, 200, 0) : color;
-        g2.setColor(getDrawColor(bodyColor));
-        g2.fillPolygon(star);
+        int bodyMat = charging ? MAT_CHARGE : bodyMaterial;
+        dl.fillPolygon(DisplayList.LAYER_BODY, getDrawMaterial(bodyMat), v, STAR_VERTICES);
 
         // Contour sombre
-        g2.setColor(new Color(100, 40, 0));
-        g2.setStroke(new BasicStroke(2.5f));
-        g2.drawPolygon(star);
-        g2.setStroke(new BasicStroke(1f));
+        dl.drawPolygon(DisplayList.LAYER_OUTLINE, MAT_OUTLINE, v, STAR_VERTICES);
 
         // oeil central (rouge en phase 2)
         int eyeSize = 16;
-        g2.setColor(phase == 2 ? new Color(255, 0, 0) : new Color(255, 200, 100));
-        g2.fillOval((int)x - eyeSize/2, (int)y - eyeSize/2, eyeSize, eyeSize);
-        g2.setColor(Color.black);
-        g2.fillOval((int)x - 5, (int)y - 5, 10, 10); // pupille
+        dl.fillOval(DisplayList.LAYER_DETAIL, phase == 2 ? MAT_EYE_2 : MAT_EYE_1,
+                    (int)x - eyeSize/2, (int)y - eyeSize/2, eyeSize, eyeSize);
+        dl.fillOval(DisplayList.LAYER_DETAIL_TOP, MAT_PUPIL, (int)x - 5, (int)y - 5, 10, 10); // pupille
 
         // Label "BOSS" au-dessus
-        g2.setFont(new Font("Arial", Font.BOLD, 11));
-        g2.setColor(phase == 2 ? new Color(255, 80, 0) : Color.orange);
-        FontMetrics fm = g2.getFontMetrics();
-        String label = "BOSS" + (phase == 2 ? " PHASE 2" : "");
-        g2.drawString(label, (int)x - fm.stringWidth(label) / 2, (int)y - size / 2 - 14);
+        dl.text(DisplayList.LAYER_LABEL, phase == 2 ? MAT_LABEL_2 : MAT_LABEL_1,
+                phase == 2 ? "BOSS PHASE 2" : "BOSS", (int)x, (int)y - size / 2 - 14, true);
 
         // --- Barre de vie spciale en bas de l'cran ---
-        drawHpBar(g2);
+        emitHpBar(dl);
     }
 
     /**
-     * Dessine une grande barre de vie du boss en bas de l'cran (au lieu d'au-dessus).
+     * met une grande barre de vie du boss en bas de l'cran (au lieu d'au-dessus).
      * Plus lisible pour un boss qui occupe beaucoup d'espace.
      */
     @Override
-    protected void drawHpBar(Graphics2D g2) {
-        int barWidth  = 400;
-        int barHeight = 22;
-        int barX = 408; // centr horizontalement pour un cran de 1216px
-        int barY = 790; // proche du bas
-
+    protected void emitHpBar(DisplayList dl) {
         // Fond
-        g2.setColor(new Color(40, 40, 40));
-        g2.fillRect(barX, barY, barWidth, barHeight);
-
-        // Vie restante avec dgrad orangererouge
-        int currentWidth = (int) (barWidth * ((double) hp / maxHp));
-        GradientPaint grad = new GradientPaint(
-                barX, barY,      new Color(255, 140, 0),
-                barX + barWidth, barY, new Color(200, 0, 0)
-        );
-        g2.setPaint(grad);
-        g2.fillRect(barX, barY, currentWidth, barHeight);
-        g2.setPaint(null); // reset
+        dl.fillRect(DisplayList.LAYER_BAR_BACK, MAT_BAR_BACK, BAR_X, BAR_Y, BAR_W, BAR_H);
+
+        // Vie restante avec dgrad orange -> rouge
+        int currentWidth = (int) (BAR_W * ((double) hp / maxHp));
+        dl.fillRect(DisplayList.LAYER_BAR_FILL, MAT_BAR_FILL, BAR_X, BAR_Y, currentWidth, BAR_H);
 
         // Contour
-        g2.setColor(Color.white);
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawRect(barX, barY, barWidth, barHeight);
-        g2.setStroke(new BasicStroke(1f));
+        dl.drawRect(DisplayList.LAYER_BAR_BORDER, MAT_BAR_BORDER, BAR_X, BAR_Y, BAR_W, BAR_H);
 
         // Texte centr
-        g2.setFont(new Font("Arial", Font.BOLD, 13));
-        g2.setColor(Color.white);
-        FontMetrics fm = g2.getFontMetrics();
-        String txt = "BOSS  " + hp + " / " + maxHp;
-        g2.drawString(txt, barX + barWidth / 2 - fm.stringWidth(txt) / 2, barY + 15);
+        dl.text(DisplayList.LAYER_LABEL, MAT_BAR_TEXT, "BOSS  " + hp + " / " + maxHp,
+                BAR_X + BAR_W / 2, BAR_Y + 15, true);
     }
 
     // -------------------------------------------------------------------------
@@ -263,28 +296,22 @@ public class BossEnemy extends Enemy {
     // -------------------------------------------------------------------------
 
     /**
-     * Construit une toile  8 branches en alternant un rayon extrieur
-     * et un rayon intrieur pour crer les pointes.
+     * Remplit px/py avec une toile  8 branches en alternant un rayon
+     * extrieur et un rayon intrieur pour crer les pointes.
      *
      * @param cx           Centre X
      * @param cy           Centre Y
      * @param outerRadius  Rayon des pointes
      * @param innerRadius  Rayon des creux entre pointes
      * @param angleOffset  Rotation initiale en radians
-     * @return Polygone en toile
      */
-    private Polygon buildStar8(int cx, int cy, int outerRadius, int innerRadius, double angleOffset) {
-        int points = 8;
-        int totalVertices = points * 2; // une pointe + un creux par branche
-        int[] xp = new int[totalVertices];
-        int[] yp = new int[totalVertices];
-
-        for (int i = 0; i < totalVertices; i++) {
+    private void buildStar8(int cx, int cy, int outerRadius, int innerRadius, double angleOffset) {
+        int points = STAR_VERTICES / 2;
+        for (int i = 0; i < STAR_VERTICES; i++) {
             double angle = angleOffset + i * Math.PI / points;
             int radius = (i % 2 == 0) ? outerRadius : innerRadius;
-            xp[i] = cx + (int) (radius * Math.cos(angle));
-            yp[i] = cy + (int) (radius * Math.sin(angle));
+            px[i] = cx + (int) (radius * Math.cos(angle));
+            py[i] = cy + (int) (radius * Math.sin(angle));
         }
-        return new Polygon(xp, yp, totalVertices);
     }
 }
@@ -0,0 +1,31 @@
+package projetCROMBEZ;
+
+/**
+ * Type d'image utilise pour le tampon de rendu interne ({@link BackBuffer}).
+ */
+public enum BufferKind {
+
+    /** Meilleur type mesure par la sonde (VOLATILE si aucune mesure). */
+    AUTO("Auto"),
+
+    /** VolatileImage : memoire video, acceleree par le pipeline. */
+    VOLATILE("Volatile"),
+
+    /** Image compatible avec l'ecran (image geree, copie acceleree en cache). */
+    COMPATIBLE("Compatible"),
+
+    /** BufferedImage TYPE_INT_RGB : dessin logiciel, un envoi par frame. */
+    BUFFERED("Memoire");
+
+    // Libelle affiche dans les options
+    private final String label;
+
+    BufferKind(String label) {
+        this.label = label;
+    }
+
+    /** Retourne le nom lisible pour l'affichage a l'ecran. */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,165 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.util.Arrays;
+
+/**
+ * Chiffres de degats flottants au-dessus des ennemis touches.
+ *
+ * =========================================================================
+ * STOCKAGE
+ * =========================================================================
+ * Anneau de CAPACITY entrees en tableaux primitifs : un nouveau chiffre
+ * prend la case suivante et, si l'anneau est plein, remplace le plus
+ * ancien (aucune allocation pendant la partie).
+ *
+ * Plusieurs impacts sur le meme ennemi a moins de MERGE_FRAMES d'intervalle
+ * s'additionnent dans le meme chiffre au lieu d'en empiler de nouveaux.
+ *
+ * =========================================================================
+ * RENDU
+ * =========================================================================
+ * Chaque chiffre est compose de glyphes copies depuis un {@link GlyphAtlas}
+ * (un style normal, un style critique suivi d'un "!"). Le fondu de fin de
+ * vie choisit une ligne pre-rendue de l'atlas plutot qu'un alpha dynamique.
+ *
+ * Thread de jeu uniquement.
+ */
+public final class DamageNumbers {
+
+    // =========================================================================
+    // Parametres
+    // =========================================================================
+
+    static final int CAPACITY = 128;
+
+    /** Duree de vie d'un chiffre (frames). */
+    static final int LIFE = 45;
+
+    /** Fenetre de fusion des impacts sur un meme ennemi (frames). */
+    static final int MERGE_FRAMES = 12;
+
+    /** Vitesse de montee (px / frame). */
+    private static final float RISE = 0.8f;
+
+    static final int STYLE_NORMAL = 0, STYLE_CRIT = 1;
+
+    private static final int CH_BANG = GlyphAtlas.indexOf('!');
+
+    // =========================================================================
+    // Etat
+    // =========================================================================
+
+    private final GlyphAtlas atlas;
+
+    /** Cle de tri des copies d'atlas (une seule : une seule passe). */
+    private final int material;
+
+    private final float[]  nx    = new float[CAPACITY], ny = new float[CAPACITY];
+    private final int[]    value = new int[CAPACITY];
+    private final int[]    age   = new int[CAPACITY];
+    private final byte[]   style = new byte[CAPACITY];
+    /** Ennemi source (fusion) ; null une fois la case liberee. */
+    private final Object[] owner = new Object[CAPACITY];
+
+    /** Prochaine case ecrite. */
+    private int head;
+
+    /** Tampon des chiffres d'un nombre (du moins significatif au plus significatif). */
+    private final int[] digits = new int[10];
+
+    /**
+     * @param baseFont police du jeu (null = Arial)
+     */
+    public DamageNumbers(Font baseFont) {
+        Font normal = baseFont != null ? baseFont.deriveFont(16f) : new Font("Arial", Font.PLAIN, 16);
+        Font crit   = baseFont != null ? baseFont.deriveFont(Font.BOLD, 22f) : new Font("Arial", Font.BOLD, 22);
+        atlas = new GlyphAtlas(new Font[] { normal, crit },
+                               new Color[] { Color.white, new Color(238, 130, 238) });
+        material = Material.fill(Color.white);
+        Arrays.fill(age, LIFE);
+    }
+
+    // =========================================================================
+    // Emission
+    // =========================================================================
+
+    /**
+     * Affiche dmg au-dessus de l'ennemi e, ou l'ajoute au chiffre recent
+     * du meme ennemi. Un impact critique passe le chiffre en style critique.
+     */
+    public void add(Enemy e, int dmg, boolean crit) {
+        if (dmg <= 0) return;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (owner[i] == e && age[i] < MERGE_FRAMES) {
+                value[i] += dmg;
+                age[i] = 0;
+                if (crit) style[i] = STYLE_CRIT;
+                return;
+            }
+        }
+        int i = head;
+        head = (head + 1) % CAPACITY;
+        nx[i]    = (float) e.x;
+        ny[i]    = (float) (e.y - e.size / 2.0);
+        value[i] = dmg;
+        age[i]   = 0;
+        style[i] = crit ? (byte) STYLE_CRIT : (byte) STYLE_NORMAL;
+        owner[i] = e;
+    }
+
+    /** Fait monter et vieillir les chiffres d'une frame. */
+    public void update() {
+        for (int i = 0; i < CAPACITY; i++) {
+            if (age[i] >= LIFE) continue;
+            ny[i] -= RISE;
+            if (++age[i] >= LIFE) owner[i] = null;
+        }
+    }
+
+    /** Supprime tous les chiffres (nouvelle partie). */
+    public void clear() {
+        Arrays.fill(age, LIFE);
+        Arrays.fill(owner, null);
+        head = 0;
+    }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    /** Emet les chiffres vivants (couche LAYER_LABEL), centres sur leur position. */
+    public void emit(DisplayList dl) {
+        int L = DisplayList.LAYER_LABEL;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (age[i] >= LIFE) continue;
+            int s = style[i];
+
+            // Decomposition du nombre et largeur totale
+            int n = 0, v = value[i], width = 0;
+            do { digits[n] = v % 10; width += atlas.advance(s, digits[n]); n++; v /= 10; } while (v > 0);
+            if (s == STYLE_CRIT) width += atlas.advance(s, CH_BANG);
+
+            // Fondu sur le dernier tiers de la vie
+            int remaining = LIFE - age[i], fadeStart = LIFE / 3;
+            int fade = remaining >= fadeStart ? 0
+                     : Math.min(GlyphAtlas.FADES - 1, (fadeStart - remaining) * GlyphAtlas.FADES / fadeStart);
+
+            int cw = atlas.cellWidth(s), cellH = atlas.cellHeight(s);
+            int sy = atlas.sourceY(s, fade);
+            int x = Math.round(nx[i]) - width / 2, y = Math.round(ny[i]) - cellH;
+            for (int k = n - 1; k >= 0; k--) {
+                x = glyph(dl, L, s, digits[k], x, y, cw, cellH, sy);
+            }
+            if (s == STYLE_CRIT) glyph(dl, L, s, CH_BANG, x, y, cw, cellH, sy);
+        }
+    }
+
+    /** Copie un glyphe et retourne l'abscisse du suivant. */
+    private int glyph(DisplayList dl, int layer, int s, int ch, int x, int y, int cw, int cellH, int sy) {
+        int sx = atlas.sourceX(s, ch);
+        dl.image(layer, material, atlas.image(), x, y, cw, cellH, sx, sy, cw, cellH);
+        return x + atlas.advance(s, ch);
+    }
+}
@@ -0,0 +1,406 @@
+package projetCROMBEZ;
+
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.awt.Font;
+import java.util.Arrays;
+
+/**
+ * Liste d'affichage compacte d'une frame de jeu.
+ *
+ * =========================================================================
+ * PRINCIPE
+ * =========================================================================
+ * Le thread de jeu n'appelle plus Graphics2D directement : chaque entite
+ * emet des commandes primitives (rectangle, polygone, ovale, image, texte)
+ * accompagnees d'une couche et d'une cle de materiau ({@link Material}).
+ *
+ * A la fin de l'emission, {@link #finish()} trie les commandes par
+ * (couche, materiau) pour regrouper les etats identiques. L'EDT rejoue
+ * ensuite la liste en une seule passe avec {@link #replay(Graphics2D)},
+ * en ne changeant la couleur / le trait / la police que lorsque le
+ * materiau change. Java2D peut ainsi garder son pipeline valide entre
+ * deux commandes au lieu de le revalider a chaque setColor.
+ *
+ * =========================================================================
+ * COUCHES
+ * =========================================================================
+ * La couche remplace l'ordre de dessin d'origine (ennemi par ennemi) :
+ * tous les corps, puis tous les contours, puis toutes les barres de vie...
+ * Les couches "ordonnees" (fond, joueur, HUD) ignorent le materiau dans
+ * le tri et conservent l'ordre d'emission (fond puis remplissage puis
+ * bordure d'une meme barre, par exemple).
+ *
+ * =========================================================================
+ * STOCKAGE
+ * =========================================================================
+ * Tableaux primitifs reutilises d'une frame a l'autre (aucune allocation
+ * une fois la capacite atteinte). Chaque commande occupe STRIDE entiers
+ * dans {@code data} ; les sommets des polygones sont dans un pool separe.
+ */
+public class DisplayList {
+
+    // =========================================================================
+    // Types de commandes
+    // =========================================================================
+
+    static final byte FILL_RECT = 0;
+    static final byte DRAW_RECT = 1;
+    static final byte FILL_POLY = 2;
+    static final byte DRAW_POLY = 3;
+    static final byte FILL_OVAL = 4;
+    static final byte DRAW_OVAL = 5;
+    static final byte LINE      = 6;
+    static final byte IMAGE     = 7;
+    static final byte TEXT      = 8;
+
+    // =========================================================================
+    // Couches (de la plus basse a la plus haute)
+    // =========================================================================
+
+    public static final int LAYER_BACKGROUND  = 0;
+    public static final int LAYER_GLOW        = 1;
+    public static final int LAYER_PROJECTILE  = 2;
+    public static final int LAYER_AURA        = 3;
+    public static final int LAYER_BODY        = 4;
+    public static final int LAYER_OUTLINE     = 5;
+    public static final int LAYER_DETAIL      = 6;
+    public static final int LAYER_DETAIL_TOP  = 7;
+    public static final int LAYER_PARTICLE    = 8;
+    public static final int LAYER_PLAYER      = 9;
+    public static final int LAYER_BAR_BACK    = 10;
+    public static final int LAYER_BAR_FILL    = 11;
+    public static final int LAYER_BAR_BORDER  = 12;
+    public static final int LAYER_LABEL       = 13;
+    public static final int LAYER_HUD         = 14;
+
+    /** Couches dont l'ordre d'emission doit etre conserve. */
+    private static final boolean[] ORDERED = new boolean[LAYER_HUD + 1];
+    static {
+        ORDERED[LAYER_BACKGROUND] = true;
+        ORDERED[LAYER_PLAYER]     = true;
+        ORDERED[LAYER_HUD]        = true;
+    }
+
+    /** Nombre d'entiers par commande dans {@link #data}. */
+    static final int STRIDE = 8;
+
+    // =========================================================================
+    // Commandes
+    // =========================================================================
+
+    int    count;
+    byte[] kind     = new byte[256];
+    byte[] layer    = new byte[256];
+    int[]  material = new int[256];
+    int[]  data     = new int[256 * STRIDE];
+    /** Index dans {@link #refs} (texte, image), -1 sinon. */
+    int[]  ref      = new int[256];
+
+    /** Cles de tri : couche | materiau | numero d'emission. */
+    long[] order    = new long[256];
+
+    /** Pool de sommets des polygones. */
+    int[] vx = new int[1024], vy = new int[1024];
+    int   vertexCount;
+
+    /** Objets references (String, Image). */
+    Object[] refs = new Object[64];
+    int      refCount;
+
+    // =========================================================================
+    // Statistiques
+    // =========================================================================
+
+    /** Changements d'etat lors du dernier replay (ordre trie). */
+    public int stateChanges;
+
+    /** Changements d'etat qu'aurait provoque l'ordre d'emission brut. */
+    public int unsortedStateChanges;
+
+    /**
+     * Incremente a chaque reset : (liste, generation) identifie un contenu.
+     * Permet aux consommateurs de ne pas retraiter une liste deja vue.
+     */
+    int generation;
+
+    /** Tampons de rejeu des polygones (EDT uniquement). */
+    private int[] scratchX = new int[16], scratchY = new int[16];
+
+    // =========================================================================
+    // Cycle de vie
+    // =========================================================================
+
+    /** Vide la liste (les tableaux sont conserves). */
+    public void reset() {
+        count = 0;
+        vertexCount = 0;
+        Arrays.fill(refs, 0, refCount, null);
+        refCount = 0;
+        stateChanges = 0;
+        unsortedStateChanges = 0;
+        generation++;
+    }
+
+    /**
+     * Termine l'emission : calcule les statistiques d'ordre brut puis trie
+     * les commandes. Appele sur le thread de jeu.
+     */
+    public void finish() {
+        unsortedStateChanges = countUnsortedChanges();
+        for (int i = 0; i < count; i++) {
+            int l = layer[i];
+            long key = ((long) l << 56) | (long) i;
+            if (!ORDERED[l]) key |= ((long) material[i] & 0xFFFFFF) << 32;
+            order[i] = key;
+        }
+        Arrays.sort(order, 0, count);
+    }
+
+    /** Nombre de commandes emises. */
+    public int size() { return count; }
+
+    /**
+     * Position, dans l'ordre trie, de la premiere commande dont la couche
+     * est >= layer (count si aucune). Valide apres {@link #finish()}.
+     */
+    public int sortedStart(int layer) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if ((int) (order[mid] >>> 56) < layer) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // =========================================================================
+    // Emission
+    // =========================================================================
+
+    public void fillRect(int layer, int mat, int x, int y, int w, int h) {
+        int i = add(FILL_RECT, layer, mat);
+        set(i, x, y, w, h);
+    }
+
+    public void drawRect(int layer, int mat, int x, int y, int w, int h) {
+        int i = add(DRAW_RECT, layer, mat);
+        set(i, x, y, w, h);
+    }
+
+    public void fillOval(int layer, int mat, int x, int y, int w, int h) {
+        int i = add(FILL_OVAL, layer, mat);
+        set(i, x, y, w, h);
+    }
+
+    public void drawOval(int layer, int mat, int x, int y, int w, int h) {
+        int i = add(DRAW_OVAL, layer, mat);
+        set(i, x, y, w, h);
+    }
+
+    public void line(int layer, int mat, int x1, int y1, int x2, int y2) {
+        int i = add(LINE, layer, mat);
+        set(i, x1, y1, x2, y2);
+    }
+
+    /**
+     * Copie n sommets dans le pool et retourne leur position.
+     * Le resultat est passe a {@link #fillPolygon} / {@link #drawPolygon},
+     * ce qui permet de remplir et de contourer le meme polygone sans copie.
+     */
+    public int addVertices(int[] xs, int[] ys, int n) {
+        if (vertexCount + n > vx.length) {
+            int cap = Math.max(vx.length * 2, vertexCount + n);
+            vx = Arrays.copyOf(vx, cap);
+            vy = Arrays.copyOf(vy, cap);
+        }
+        int start = vertexCount;
+        System.arraycopy(xs, 0, vx, start, n);
+        System.arraycopy(ys, 0, vy, start, n);
+        vertexCount += n;
+        return start;
+    }
+
+    public void fillPolygon(int layer, int mat, int vertices, int n) {
+        int i = add(FILL_POLY, layer, mat);
+        set(i, vertices, n, 0, 0);
+    }
+
+    public void drawPolygon(int layer, int mat, int vertices, int n) {
+        int i = add(DRAW_POLY, layer, mat);
+        set(i, vertices, n, 0, 0);
+    }
+
+    /**
+     * Dessine la zone source (sx, sy, sw, sh) de l'image dans le rectangle
+     * destination (dx, dy, dw, dh). Le materiau sert uniquement au tri.
+     */
+    public void image(int layer, int mat, Image img, int dx, int dy, int dw, int dh,
+                      int sx, int sy, int sw, int sh) {
+        int i = add(IMAGE, layer, mat);
+        set(i, dx, dy, dw, dh);
+        int b = i * STRIDE;
+        data[b + 4] = sx; data[b + 5] = sy; data[b + 6] = sw; data[b + 7] = sh;
+        ref[i] = addRef(img);
+    }
+
+    /**
+     * Texte a la position (x, y) de la ligne de base.
+     * Si centered, x designe le centre horizontal (mesure faite au rejeu).
+     */
+    public void text(int layer, int mat, String s, int x, int y, boolean centered) {
+        int i = add(TEXT, layer, mat);
+        set(i, x, y, centered ? 1 : 0, 0);
+        ref[i] = addRef(s);
+    }
+
+    private int add(byte k, int l, int mat) {
+        if (count == kind.length) grow();
+        int i = count++;
+        kind[i]     = k;
+        layer[i]    = (byte) l;
+        material[i] = mat;
+        ref[i]      = -1;
+        return i;
+    }
+
+    private void set(int i, int a, int b, int c, int d) {
+        int o = i * STRIDE;
+        data[o] = a; data[o + 1] = b; data[o + 2] = c; data[o + 3] = d;
+    }
+
+    private int addRef(Object o) {
+        if (refCount == refs.length) refs = Arrays.copyOf(refs, refs.length * 2);
+        refs[refCount] = o;
+        return refCount++;
+    }
+
+    private void grow() {
+        int cap = kind.length * 2;
+        kind     = Arrays.copyOf(kind, cap);
+        layer    = Arrays.copyOf(layer, cap);
+        material = Arrays.copyOf(material, cap);
+        ref      = Arrays.copyOf(ref, cap);
+        order    = Arrays.copyOf(order, cap);
+        data     = Arrays.copyOf(data, cap * STRIDE);
+    }
+
+    // =========================================================================
+    // Rejeu (EDT)
+    // =========================================================================
+
+    /**
+     * Rejoue toutes les commandes dans l'ordre trie.
+     * Les changements d'etat effectifs sont comptes dans {@link #stateChanges}.
+     */
+    public void replay(Graphics2D g2) {
+        stateChanges = replay(g2, 0, count);
+    }
+
+    /**
+     * Rejoue les commandes de rang [from, to) dans l'ordre trie.
+     *
+     * @return nombre de changements d'etat effectues
+     */
+    public int replay(Graphics2D g2, int from, int to) {
+        Paint  curPaint  = null;
+        Stroke curStroke = null;
+        Font   curFont   = null;
+        int    curMat    = -1;
+        int    changes   = 0;
+
+        for (int k = from; k < to; k++) {
+            int i = (int) order[k];
+            int mat = material[i];
+            if (mat != curMat) {
+                Material m = Material.get(mat);
+                if (m.paint != null && m.paint != curPaint) { g2.setPaint(m.paint); curPaint = m.paint; changes++; }
+                if (m.stroke != curStroke)                  { g2.setStroke(m.stroke); curStroke = m.stroke; changes++; }
+                if (m.font != null && m.font != curFont)    { g2.setFont(m.font); curFont = m.font; changes++; }
+                curMat = mat;
+            }
+            execute(g2, i);
+        }
+        return changes;
+    }
+
+    /** Execute la commande i avec l'etat courant du Graphics2D. */
+    private void execute(Graphics2D g2, int i) {
+        int o = i * STRIDE;
+        switch (kind[i]) {
+            case FILL_RECT: g2.fillRect(data[o], data[o + 1], data[o + 2], data[o + 3]); break;
+            case DRAW_RECT: g2.drawRect(data[o], data[o + 1], data[o + 2], data[o + 3]); break;
+            case FILL_OVAL: g2.fillOval(data[o], data[o + 1], data[o + 2], data[o + 3]); break;
+            case DRAW_OVAL: g2.drawOval(data[o], data[o + 1], data[o + 2], data[o + 3]); break;
+            case LINE:      g2.drawLine(data[o], data[o + 1], data[o + 2], data[o + 3]); break;
+            case FILL_POLY:
+            case DRAW_POLY: {
+                int start = data[o], n = data[o + 1];
+                if (n > scratchX.length) { scratchX = new int[n]; scratchY = new int[n]; }
+                System.arraycopy(vx, start, scratchX, 0, n);
+                System.arraycopy(vy, start, scratchY, 0, n);
+                if (kind[i] == FILL_POLY) g2.fillPolygon(scratchX, scratchY, n);
+                else                      g2.drawPolygon(scratchX, scratchY, n);
+                break;
+            }
+            case IMAGE: {
+                int dx = data[o], dy = data[o + 1], sx = data[o + 4], sy = data[o + 5];
+                g2.drawImage((Image) refs[ref[i]],
+                             dx, dy, dx + data[o + 2], dy + data[o + 3],
+                             sx, sy, sx + data[o + 6], sy + data[o + 7], null);
+                break;
+            }
+            case TEXT: {
+                String s = (String) refs[ref[i]];
+                int x = data[o];
+                if (data[o + 2] != 0) {
+                    FontMetrics fm = g2.getFontMetrics();
+                    x -= fm.stringWidth(s) / 2;
+                }
+                g2.drawString(s, x, data[o + 1]);
+                break;
+            }
+            default: break;
+        }
+    }
+
+    /**
+     * Compte les changements d'etat d'un parcours dans l'ordre d'emission,
+     * avec les memes regles que {@link #replay}.
+     */
+    private int countUnsortedChanges() {
+        Paint  curPaint  = null;
+        Stroke curStroke = null;
+        Font   curFont   = null;
+        int    changes   = 0;
+        for (int k = 0; k < count; k++) {
+            Material m = Material.get(material[k]);
+            if (m.paint != null && m.paint != curPaint) { curPaint = m.paint; changes++; }
+            if (m.stroke != curStroke)                  { curStroke = m.stroke; changes++; }
+            if (m.font != null && m.font != curFont)    { curFont = m.font; changes++; }
+        }
+        return changes;
+    }
+
+    // =========================================================================
+    // Dessin immediat
+    // =========================================================================
+
+    private static final ThreadLocal<DisplayList> SCRATCH = new ThreadLocal<DisplayList>() {
+        @Override protected DisplayList initialValue() { return new DisplayList(); }
+    };
+
+    /**
+     * Liste temporaire propre au thread appelant, videe a chaque appel.
+     * Sert aux methodes draw(Graphics2D) des entites (emission + rejeu
+     * immediat), utilisees hors de la boucle de jeu.
+     */
+    static DisplayList scratch() {
+        DisplayList dl = SCRATCH.get();
+        dl.reset();
+        return dl;
+    }
+}
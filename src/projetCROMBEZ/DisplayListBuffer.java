@@ -0,0 +1,48 @@
+package projetCROMBEZ;
+
+/**
+ * Triple tampon de listes d'affichage entre le thread de jeu et l'EDT.
+ *
+ *  - Le thread de jeu remplit la liste "ecriture" puis la publie.
+ *  - L'EDT recupere la derniere liste publiee et la rejoue.
+ *
+ * Aucun des deux threads n'attend l'autre : la publication et
+ * l'acquisition se limitent a un echange d'indices sous verrou.
+ * Si l'EDT est en retard, les listes intermediaires sont simplement
+ * ecrasees ; si le jeu est en pause, l'EDT rejoue la derniere liste.
+ */
+public class DisplayListBuffer {
+
+    private final DisplayList[] lists = { new DisplayList(), new DisplayList(), new DisplayList() };
+
+    /** Indices des trois roles. Seul le thread de jeu modifie writeIdx. */
+    private int writeIdx = 0, readyIdx = 1, readIdx = 2;
+
+    /** true si readyIdx contient une liste pas encore lue par l'EDT. */
+    private boolean fresh = false;
+
+    /** Retourne la liste a remplir (videe). Thread de jeu uniquement. */
+    public DisplayList beginWrite() {
+        DisplayList dl = lists[writeIdx];
+        dl.reset();
+        return dl;
+    }
+
+    /** Publie la liste remplie depuis beginWrite(). Thread de jeu uniquement. */
+    public synchronized void publish() {
+        int t = writeIdx; writeIdx = readyIdx; readyIdx = t;
+        fresh = true;
+    }
+
+    /**
+     * Retourne la liste la plus recente pour le rejeu. EDT uniquement.
+     * La liste reste valide jusqu'au prochain appel.
+     */
+    public synchronized DisplayList acquire() {
+        if (fresh) {
+            int t = readIdx; readIdx = readyIdx; readyIdx = t;
+            fresh = false;
+        }
+        return lists[readIdx];
+    }
+}
@@ -1,6 +1,9 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -102,7 +105,8 @@ public abstract class Enemy {
         this.speed = speed;
         this.size = size;
         this.color = color;
-        this.hpBarColor = new Color(220, 50, 50); // rouge par dfaut
+        this.bodyMaterial = Material.fill(color);
+        setHpBarColor(new Color(220, 50, 50)); // rouge par dfaut
     }
 
     // -------------------------------------------------------------------------
@@ -132,6 +136,7 @@ public abstract class Enemy {
 
         hp -= dmg;
         invincibleTimer = INVINCIBLE_DURATION; // active le flash blanc
+        ParticleSystem.getInstance().hitSparks(x, y);
 
         if (hp <= 0) {
             alive = false; // sera retir par EnemyManager
@@ -161,56 +166,113 @@ public abstract class Enemy {
      * @param targetY Coordonne Y de la cible
      */
     protected void moveToward(double targetX, double targetY) {
-        double dist = Math.sqrt(Math.pow(targetX - x, 2) + Math.pow(targetY - y, 2));
+        double tx = targetX - x, ty = targetY - y;
+        double dist = Math.sqrt(tx * tx + ty * ty);
         if (dist > 0) {
             x += (targetX - x) / dist * speed;
             y += (targetY - y) / dist * speed;
         }
     }
 
+    // -------------------------------------------------------------------------
+    // Sauvegarde (WorldSnapshot)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Ecrit l'etat de l'ennemi (champs communs). Les sous-classes
+     * completent avec leurs propres champs en appelant super d'abord.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeInt(maxHp);
+        out.writeInt(hp);
+        out.writeInt(damage);
+        out.writeDouble(speed);
+        out.writeBoolean(alive);
+        out.writeInt(invincibleTimer);
+    }
+
+    /** Relit l'etat ecrit par {@link #writeState}, dans le meme ordre. */
+    public void readState(DataInput in) throws IOException {
+        x               = in.readDouble();
+        y               = in.readDouble();
+        maxHp           = in.readInt();
+        hp              = in.readInt();
+        damage          = in.readInt();
+        speed           = in.readDouble();
+        alive           = in.readBoolean();
+        invincibleTimer = in.readInt();
+    }
+
     // -------------------------------------------------------------------------
     // Rendu commun
     // -------------------------------------------------------------------------
 
+    /** Matriaux partags par toutes les barres de vie et le flash blanc. */
+    protected static final int MAT_FLASH      = Material.fill(Color.white);
+    protected static final int MAT_HP_BACK    = Material.fill(new Color(60, 60, 60));
+    protected static final int MAT_HP_BORDER  = Material.fill(Color.black);
+
+    /** Matriau du corps (driv de {@link #color}). */
+    protected int bodyMaterial;
+
+    /** Matriau de la barre de vie (driv de {@link #hpBarColor}). */
+    protected int hpBarMaterial;
+
+    /**
+     * Change la couleur de la barre de vie et son matriau associ.
+     * A utiliser dans les constructeurs des sous-classes.
+     */
+    protected void setHpBarColor(Color c) {
+        this.hpBarColor    = c;
+        this.hpBarMaterial = Material.fill(c);
+    }
+
     /**
-     * Dessine l'ennemi ( surcharger dans les sous-classes pour une forme custom).
+     * met les commandes de dessin de l'ennemi dans la liste d'affichage
+     * ( surcharger dans les sous-classes pour une forme custom).
      * Version par dfaut : carr + barre de vie.
+     * Appel sur le thread de jeu, une fois par tick.
      */
-    public void draw(Graphics2D g2) {
+    public void emit(DisplayList dl) {
         // Flash blanc si invincible, sinon couleur normale
-        if (invincibleTimer > 0) {
-            invincibleTimer--;
-            g2.setColor(Color.white);
-        } else {
-            g2.setColor(color);
-        }
-        g2.fillRect((int) x - size / 2, (int) y - size / 2, size, size);
+        dl.fillRect(DisplayList.LAYER_BODY, getDrawMaterial(bodyMaterial),
+                    (int) x - size / 2, (int) y - size / 2, size, size);
 
-        drawHpBar(g2);
+        emitHpBar(dl);
     }
 
     /**
-     * Dessine la barre de vie au-dessus de l'ennemi.
+     * Dessin immdiat (mission puis rejeu sur g2).
+     * Utilis hors de la boucle de jeu (outils, captures isoles).
+     */
+    public void draw(Graphics2D g2) {
+        DisplayList dl = DisplayList.scratch();
+        emit(dl);
+        dl.finish();
+        dl.replay(g2);
+    }
+
+    /**
+     * met la barre de vie au-dessus de l'ennemi.
      * La largeur de la barre reflte le ratio HP actuel / HP max.
      */
-    protected void drawHpBar(Graphics2D g2) {
+    protected void emitHpBar(DisplayList dl) {
         int barWidth  = size;
         int barHeight = 5;
         int barX = (int) x - barWidth / 2;
         int barY = (int) y - size / 2 - 10;
 
         // Fond gris
-        g2.setColor(new Color(60, 60, 60));
-        g2.fillRect(barX, barY, barWidth, barHeight);
+        dl.fillRect(DisplayList.LAYER_BAR_BACK, MAT_HP_BACK, barX, barY, barWidth, barHeight);
 
         // Portion de vie restante
         int currentWidth = (int) (barWidth * ((double) hp / maxHp));
-        g2.setColor(hpBarColor);
-        g2.fillRect(barX, barY, currentWidth, barHeight);
+        dl.fillRect(DisplayList.LAYER_BAR_FILL, hpBarMaterial, barX, barY, currentWidth, barHeight);
 
         // Contour
-        g2.setColor(Color.black);
-        g2.drawRect(barX, barY, barWidth, barHeight);
+        dl.drawRect(DisplayList.LAYER_BAR_BORDER, MAT_HP_BORDER, barX, barY, barWidth, barHeight);
     }
 
     // -------------------------------------------------------------------------
@@ -218,19 +280,21 @@ public abstract class Enemy {
     // -------------------------------------------------------------------------
 
     /**
-     * Dtermine la couleur de dessin pour ce frame.
-     * Retourne blanc si l'ennemi est en phase d'invincibilit (flash hit),
-     * sinon retourne la couleur normale passe en paramtre.
-     * Dcrmente aussi le timer d'invincibilit.
+     * Dtermine le matriau de dessin pour ce tick.
+     * Retourne le blanc si l'ennemi est en phase d'invincibilit (flash hit),
+     * sinon retourne le matriau normal pass en paramtre.
+     * Lecture seule : le rendu ne modifie pas la simulation (rejeu sans
+     * rendu, voir ReplayPlayer), le timer est decompte par tickInvincibility.
      *
-     * @param normal Couleur  utiliser hors flash
-     * @return       Couleur effective  appliquer pour ce frame
+     * @param normal Matriau  utiliser hors flash
+     * @return       Matriau effectif  appliquer pour ce tick
      */
-    protected Color getDrawColor(Color normal) {
-        if (invincibleTimer > 0) {
-            invincibleTimer--;
-            return Color.white;
-        }
-        return normal;
+    protected int getDrawMaterial(int normal) {
+        return invincibleTimer > 0 ? MAT_FLASH : normal;
+    }
+
+    /** Decompte l'invincibilite (flash hit) : une fois par tick, en fin de simulation. */
+    public void tickInvincibility() {
+        if (invincibleTimer > 0) invincibleTimer--;
     }
 }
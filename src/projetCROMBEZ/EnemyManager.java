@@ -1,6 +1,9 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
 
@@ -26,7 +29,9 @@ public class EnemyManager {
 
     private GamePanel     gp;
     public  List<Enemy>   enemies = new ArrayList<>();
-    private Random        rand    = new Random();
+
+    /** Flux aleatoire des apparitions (cote, position, type), seme par GamePanel.seedRun. */
+    final SimRandom       rand    = new SimRandom(0);
 
     private int  spawnTimer = 0, spawnRate = 120, wave = 1;
     private int  enemiesSpawnedThisWave = 0, maxEnemiesPerWave;
@@ -35,11 +40,15 @@ public class EnemyManager {
 
     public boolean bossDefeated = false;
 
+    /** false : ni apparitions ni vagues, les ennemis sont places a la main (StressTest). */
+    boolean spawning = true;
+
     // =========================================================================
 
     public EnemyManager(GamePanel gp) {
         this.gp = gp;
         maxEnemiesPerWave = computeMax(1);
+        initMaterials();
     }
 
     public void reset() {
@@ -55,6 +64,36 @@ public class EnemyManager {
 
     // =========================================================================
 
+    /** Ecrit l'etat de la vague (WorldSnapshot) ; les ennemis sont ecrits a part. */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(rand.getState());
+        out.writeInt(wave);
+        out.writeInt(spawnTimer);
+        out.writeInt(spawnRate);
+        out.writeInt(enemiesSpawnedThisWave);
+        out.writeInt(maxEnemiesPerWave);
+        out.writeBoolean(bossSpawned);
+        out.writeBoolean(waitingForNextWave);
+        out.writeInt(waveDelayTimer);
+        out.writeBoolean(bossDefeated);
+    }
+
+    /** Relit l'etat ecrit par {@link #writeState}, dans le meme ordre. */
+    public void readState(DataInput in) throws IOException {
+        rand.setState(in.readLong());
+        wave                   = in.readInt();
+        spawnTimer             = in.readInt();
+        spawnRate              = in.readInt();
+        enemiesSpawnedThisWave = in.readInt();
+        maxEnemiesPerWave      = in.readInt();
+        bossSpawned            = in.readBoolean();
+        waitingForNextWave     = in.readBoolean();
+        waveDelayTimer         = in.readInt();
+        bossDefeated           = in.readBoolean();
+    }
+
+    // =========================================================================
+
     public void update(Player player, List<Projectile> projectiles) {
         enemies.removeIf(e -> !e.alive);
 
@@ -62,6 +101,7 @@ public class EnemyManager {
         if (bossSpawned && !hasBoss()) bossDefeated = true;
 
         for (Enemy e : enemies) e.update(player, projectiles);
+        if (!spawning) return;
 
         if (waitingForNextWave) {
             if (--waveDelayTimer <= 0) nextWave();
@@ -126,6 +166,21 @@ public class EnemyManager {
         e.damage = Math.max(1, (int)(e.damage * s.getDamageMultiplier()));
     }
 
+    /** Types d'ennemis (index des statistiques et des sauvegardes). */
+    public static final int TYPE_MELEE = 0, TYPE_RANGED = 1, TYPE_TANK = 2, TYPE_BOSS = 3;
+    public static final int TYPE_COUNT = 4;
+
+    /** Index du type de l'ennemi (TYPE_*). */
+    public static int typeIndex(Enemy e) {
+        if      (e instanceof BossEnemy)   return TYPE_BOSS;
+        else if (e instanceof TankEnemy)   return TYPE_TANK;
+        else if (e instanceof RangedEnemy) return TYPE_RANGED;
+        else                               return TYPE_MELEE;
+    }
+
+    /** Vague en cours (1 a 5). */
+    public int getWave() { return wave; }
+
     /**
      * Retourne l'or gagne en tuant cet ennemi.
      * Appele depuis GamePanel quand un ennemi passe alive=false.
@@ -151,33 +206,35 @@ public class EnemyManager {
 
     // =========================================================================
 
-    public void draw(Graphics2D g2) {
-        for (Enemy e : enemies) e.draw(g2);
+    /** Materiaux texte (dependent de la police du GamePanel). */
+    private int matWaveText, matCountdown;
 
-        // Indicateur de vague (centree en haut)
+    private void initMaterials() {
         Font wf = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 16f)
                                       : new Font("Arial", Font.BOLD, 16);
-        g2.setFont(wf);
-        g2.setColor(Color.white);
+        Font bf = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 30f)
+                                      : new Font("Arial", Font.BOLD, 30);
+        matWaveText  = Material.text(Color.white, wf);
+        matCountdown = Material.text(new Color(255, 220, 50), bf);
+    }
+
+    /** Emet les ennemis et les indicateurs de vague (thread de jeu). */
+    public void emit(DisplayList dl) {
+        for (Enemy e : enemies) e.emit(dl);
+
+        // Indicateur de vague (centree en haut)
         String wt = (wave == 5 && bossSpawned) ? "BOSS !" : "Vague " + wave + " / 5";
-        FontMetrics fm = g2.getFontMetrics();
-        g2.drawString(wt, gp.screenWidth / 2 - fm.stringWidth(wt) / 2, 25);
+        dl.text(DisplayList.LAYER_LABEL, matWaveText, wt, gp.screenWidth / 2, 25, true);
 
         // Compte a rebours inter-vague
         if (waitingForNextWave) {
-            Font bf = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 30f)
-                                          : new Font("Arial", Font.BOLD, 30);
-            g2.setFont(bf);
-            g2.setColor(new Color(255, 220, 50));
-
             // CORRECTIF : divise waveDelayTimer par 60 pour obtenir les secondes
             // waveDelayTimer = 180 frames -> 3s, 120 -> 2s, 60 -> 1s, 0 -> 0s
             int secondsLeft = (waveDelayTimer + 59) / 60; // arrondi superieur
 
             String msg = "Vague " + (wave + 1) + " dans " + secondsLeft + "...";
-            fm = g2.getFontMetrics();
-            g2.drawString(msg, gp.screenWidth / 2 - fm.stringWidth(msg) / 2,
-                          gp.screenHeight / 2 - 50);
+            dl.text(DisplayList.LAYER_LABEL, matCountdown, msg,
+                    gp.screenWidth / 2, gp.screenHeight / 2 - 50, true);
         }
     }
 
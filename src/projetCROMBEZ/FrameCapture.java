@@ -0,0 +1,191 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Capture des frames affichees (F9), encodees en arriere-plan.
+ *
+ * =========================================================================
+ * PIPELINE
+ * =========================================================================
+ *  thread de rendu : copie du tampon interne (une frame presentee) dans
+ *                    une image libre du pool, mise en file ; aucun
+ *                    encodage, aucune ecriture
+ *  encodeurs       : retirent les frames de la file, les ecrivent,
+ *                    rendent l'image au pool
+ *
+ * Le pool est borne (POOL images) : si aucune image n'est libre, les
+ * encodeurs sont en retard et la frame est perdue (comptee, affichee dans
+ * le HUD). Le rendu n'attend jamais.
+ *
+ * =========================================================================
+ * SORTIE (save/captures/capture-aaaaMMjj-hhmmss/)
+ * =========================================================================
+ *  png : frame-NNNNNN.png (NNNNNN = numero de frame capturee), plusieurs
+ *        encodeurs en parallele
+ *  raw : frames.raw, un seul encodeur (frames dans l'ordre) ; par frame :
+ *        largeur (int) | hauteur (int) | pixels BGR 24 bits
+ *        (la taille peut changer : resolution dynamique)
+ */
+final class FrameCapture {
+
+    static final String DIR = "save/captures";
+
+    private static final int POOL = 8;
+
+    private static final class Frame {
+        BufferedImage image;
+        int seq;
+    }
+
+    /** Fin de capture (une par encodeur). */
+    private static final Frame STOP = new Frame();
+
+    private final File dir;
+    private final boolean raw;
+    private final ArrayBlockingQueue<Frame> free   = new ArrayBlockingQueue<>(POOL);
+    private final ArrayBlockingQueue<Frame> queued;
+    private final AtomicInteger running;
+    private final FileChannel rawOut;
+
+    private int captured;                 // thread de rendu
+    private volatile int dropped;         // ecrit par le thread de rendu seulement
+    private final AtomicInteger written = new AtomicInteger();
+    private volatile boolean stopping;
+
+    private FrameCapture(File dir, boolean raw, int encoders) throws IOException {
+        this.dir = dir;
+        this.raw = raw;
+        for (int i = 0; i < POOL; i++) free.add(new Frame());
+        queued  = new ArrayBlockingQueue<>(POOL + encoders);
+        running = new AtomicInteger(encoders);
+        rawOut  = raw ? FileChannel.open(new File(dir, "frames.raw").toPath(), StandardOpenOption.CREATE,
+                                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                      : null;
+        for (int i = 0; i < encoders; i++) {
+            Thread t = new Thread(this::encodeLoop, "capture-encoder-" + i);
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            t.start();
+        }
+    }
+
+    /**
+     * Demarre une capture dans un nouveau dossier de save/captures.
+     *
+     * @param raw flux brut (un encodeur) plutot que des PNG (un encodeur
+     *            par coeur libre, 4 au plus)
+     */
+    static FrameCapture start(boolean raw) throws IOException {
+        String name = "capture-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File dir = new File(DIR, name);
+        Files.createDirectories(dir.toPath());
+        int encoders = raw ? 1 : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        System.out.println("[FrameCapture] Capture " + (raw ? "brute" : "PNG") + " (" + encoders
+                           + " encodeur(s)) -> " + dir);
+        return new FrameCapture(dir, raw, encoders);
+    }
+
+    // =========================================================================
+    // Thread de rendu
+    // =========================================================================
+
+    /**
+     * Copie la frame presentee (w x h pixels en haut a gauche de src)
+     * dans une image du pool et la confie aux encodeurs. Sans image libre,
+     * la frame est perdue.
+     */
+    void offer(Image src, int w, int h) {
+        if (stopping) return;
+        Frame f = free.poll();
+        if (f == null) { dropped++; return; }
+
+        BufferedImage img = f.image;
+        if (img == null || img.getWidth() != w || img.getHeight() != h) {
+            img = f.image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB); // taille changee (rare)
+        }
+        Graphics2D g = img.createGraphics();
+        g.drawImage(src, 0, 0, null);
+        g.dispose();
+        f.seq = captured++;
+        queued.offer(f); // toujours de la place : POOL + encodeurs
+    }
+
+    /** Frames capturees / perdues (thread de rendu) et ecrites. */
+    int captured() { return captured; }
+    int dropped()  { return dropped; }
+    int written()  { return written.get(); }
+
+    /**
+     * Termine la capture : les frames deja en file sont encore ecrites,
+     * sans attendre (les encodeurs s'arretent ensuite d'eux-memes).
+     */
+    void stop() {
+        stopping = true;
+        for (int i = running.get(); i > 0; i--) queued.offer(STOP);
+    }
+
+    // =========================================================================
+    // Encodeurs
+    // =========================================================================
+
+    private void encodeLoop() {
+        ByteBuffer buf = null;
+        try {
+            while (true) {
+                Frame f = queued.take();
+                if (f == STOP) break;
+                try {
+                    if (raw) buf = writeRaw(f.image, buf);
+                    else     ImageIO.write(f.image, "png", new File(dir, String.format("frame-%06d.png", f.seq)));
+                    written.incrementAndGet();
+                } catch (IOException e) {
+                    System.out.println("[FrameCapture] Ecriture impossible : " + e.getMessage());
+                }
+                free.offer(f);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (running.decrementAndGet() == 0) {
+            if (rawOut != null) {
+                try { rawOut.close(); } catch (IOException e) { /* fin de capture */ }
+            }
+            System.out.println("[FrameCapture] Fin : " + written.get() + " frame(s) ecrite(s), "
+                               + dropped + " perdue(s) -> " + dir);
+        }
+    }
+
+    /** Ajoute la frame au flux brut ; buf est reutilise (agrandi si necessaire). */
+    private ByteBuffer writeRaw(BufferedImage img, ByteBuffer buf) throws IOException {
+        int w = img.getWidth(), h = img.getHeight();
+        int size = 8 + w * h * 3;
+        if (buf == null || buf.capacity() < size) buf = ByteBuffer.allocateDirect(size);
+        buf.clear();
+        buf.putInt(w).putInt(h);
+        int[] px = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < w * h; i++) {
+            int p = px[i];
+            buf.put((byte) p).put((byte) (p >> 8)).put((byte) (p >> 16));
+        }
+        buf.flip();
+        while (buf.hasRemaining()) rawOut.write(buf);
+        return buf;
+    }
+}
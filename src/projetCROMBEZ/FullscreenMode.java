@@ -0,0 +1,33 @@
+package projetCROMBEZ;
+
+/**
+ * Facon d'occuper l'ecran quand le plein ecran est actif.
+ */
+public enum FullscreenMode {
+
+    /** Fenetre sans bordure maximisee (composee par le gestionnaire de fenetres). */
+    BORDERLESS("Sans bordure"),
+
+    /** Plein ecran exclusif (GraphicsDevice.setFullScreenWindow) avec page-flipping. */
+    EXCLUSIVE("Exclusif"),
+
+    /** Plein ecran exclusif + passage au mode d'affichage le plus proche du jeu. */
+    EXCLUSIVE_NATIVE("Exclusif natif");
+
+    // Libelle affiche dans les options
+    private final String label;
+
+    FullscreenMode(String label) {
+        this.label = label;
+    }
+
+    /** Retourne le nom lisible pour l'affichage a l'ecran. */
+    public String getLabel() {
+        return label;
+    }
+
+    /** true pour les modes qui demandent l'ecran en exclusivite. */
+    public boolean isExclusive() {
+        return this != BORDERLESS;
+    }
+}
@@ -3,11 +3,15 @@ package projetCROMBEZ;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * Panneau de jeu principal.
@@ -17,6 +21,40 @@ import javax.swing.JPanel;
  *  - Gold drop quand un ennemi meurt (via EnemyManager.goldForEnemy)
  *  - Application du vol de vie apres chaque impact de projectile
  *  - Etat SHOP dispatche vers ShopScreen
+ *
+ * Rendu du jeu : le thread de jeu construit une {@link DisplayList} apres
+ * chaque mise a jour (buildWorldList), triee par couche et materiau,
+ * puis la publie dans un triple tampon. paintComponent (EDT) ne fait que
+ * rejouer la derniere liste publiee et dessiner les ecrans par-dessus.
+ *
+ * Ecrans de menu (menu, difficulte, options, boutique, pause) : ils sont
+ * construits en widgets retenus (UiRoot). La boucle ne les redessine plus
+ * a chaque frame, seulement au changement d'etat ; ensuite seules les
+ * zones des widgets invalides (survol, achat...) sont redessinees.
+ *
+ * Resolution interne : tout est dessine en coordonnees logiques
+ * (screenWidth x screenHeight) dans un {@link BackBuffer} a l'echelle
+ * choisie (GameSettings.renderScale), puis agrandi en un seul drawImage
+ * vers la zone d'affichage (letterbox centre dans le panneau). En mode
+ * dynamique, {@link ResolutionScaler} baisse l'echelle quand le temps de
+ * dessin depasse le budget. Les evenements souris sont convertis en
+ * coordonnees logiques avant d'etre transmis aux ecrans.
+ *
+ * Plein ecran exclusif : GameSettings fournit une BufferStrategy
+ * (page-flipping si disponible). Les repaint Swing sont alors remplaces
+ * par un rendu actif (present) de la frame complete dans la strategie.
+ *
+ * Determinisme : chaque partie a une graine (runSeed, fixe avec --seed),
+ * dont derivent les flux aleatoires de chaque sous-systeme (seedRun).
+ * La simulation n'utilise ni l'horloge ni Math.sin/cos/atan2 (StrictMath),
+ * et l'ordre de mise a jour est fixe (updateGame) : meme graine, meme
+ * difficulte et memes entrees tick par tick donnent la meme partie,
+ * au bit pres.
+ *
+ * Enregistrement : le clavier est lu une fois par tick de simulation
+ * (masque KeyHandler, copie dans tickKeys) et enregistre par
+ * {@link InputRecorder}. En rejeu ({@link ReplayPlayer}), le masque vient
+ * du fichier et rien n'est sauvegarde.
  */
 public class GamePanel extends JPanel implements Runnable {
 
@@ -43,10 +81,22 @@ public class GamePanel extends JPanel implements Runnable {
     public GameState gameState   = GameState.MENU;
     public boolean   hasActiveGame = false;
 
+    /** Partie interrompue sur disque (save/run.bin), pas encore restauree en memoire. */
+    boolean runOnDisk = false;
+
     public Player           player;
     public EnemyManager     enemyManager;
     public List<Projectile> projectiles = new ArrayList<>();
 
+    /** Chiffres de degats flottants (thread de jeu). */
+    DamageNumbers damageNumbers;
+
+    /** Listes d'affichage du monde (thread de jeu -> EDT). */
+    final DisplayListBuffer worldFrames = new DisplayListBuffer();
+
+    /** Rasteriseur logiciel (cree au premier usage, EDT). */
+    private SoftwareRasterizer rasterizer;
+
     // =========================================================================
     // Ecrans
     // =========================================================================
@@ -56,6 +106,7 @@ public class GamePanel extends JPanel implements Runnable {
     PauseScreen      pauseScreen;
     public OptionsScreen optionsScreen;
     ShopScreen       shopScreen;
+    LeaderboardScreen leaderboardScreen;
 
     // =========================================================================
     // Temps et records
@@ -63,8 +114,96 @@ public class GamePanel extends JPanel implements Runnable {
 
     int survivalTicks = 0;
 
+    /** Graine de la partie en cours (flux aleatoires : voir seedRun). */
+    long runSeed;
+
+    /** Flux des effets d'un tick : (graine ^ SALT) + tick * STEP. */
+    private static final long PARTICLE_SALT = 0x5041525449434c45L, PARTICLE_STEP = 0xbf58476d1ce4e5b9L;
+
+    /** Entrees de la partie en cours (thread de jeu). */
+    final InputRecorder recorder = new InputRecorder();
+
+    /** Rejeu en cours (null = partie jouee au clavier). */
+    volatile ReplayPlayer replay;
+
+    /** Empreinte de l'etat apres le dernier tick (StateHash, thread de jeu). */
+    final StateHash hasher = new StateHash();
+    long stateHash;
+
+    /** Capture des frames presentees (F9, null = inactive) : basculee en jeu, alimentee au rendu. */
+    private volatile FrameCapture capture;
+
+    /** Dernieres secondes de la partie (kill-cam apres GAME_OVER, thread de jeu). */
+    final RewindBuffer rewind;
+
+    /** Tick affiche par la kill-cam (-1 = monde courant), pause en fin de boucle. */
+    private int killCamTick = -1, killCamHold;
+    private boolean killCamManual;
+
+    /** Scenario de charge (StressTest) : rien n'est enregistre ni sauvegarde. */
+    boolean offline = false;
+
+    /** Touches du tick en cours, lues par la simulation (clavier ou rejeu). */
+    private final KeyHandler tickKeys = new KeyHandler();
+
+    /** Lissage des formes de drawFrame (les benchmarks de rendu mesurent aussi sans). */
+    Object antialiasing = RenderingHints.VALUE_ANTIALIAS_ON;
+
+    /** Statistiques de la partie en cours (archivees dans RunHistory a la fin). */
+    final RunStats runStats = new RunStats();
+
     public int bestTimeTicks = 0;
 
+    // =========================================================================
+    // Liste d'affichage (materiaux et statistiques)
+    // =========================================================================
+
+    private int matBackground, matGrid, matTime, matBest;
+    private int matDiffEasy, matDiffNormal, matDiffHard;
+
+    /** Statistiques du dernier rejeu (lues pour l'affichage, EDT). */
+    private int lastListSize, lastStateChanges, lastUnsortedChanges;
+
+    // =========================================================================
+    // Rafraichissement des ecrans retenus
+    // =========================================================================
+
+    /** Etat du dernier repaint demande par la boucle (thread de jeu). */
+    private GameState lastFrameState;
+
+    /** Etat dont l'ecran a ete prepare par onShow (EDT). */
+    private GameState shownState;
+
+    /** Derniere position de la souris en coordonnees logiques (EDT, null avant le premier mouvement). */
+    Point lastMouse;
+
+    // =========================================================================
+    // Resolution interne
+    // =========================================================================
+
+    /** Tampon de rendu a la resolution interne (EDT). */
+    private final BackBuffer backBuffer = new BackBuffer();
+
+    /** Ajustement de l'echelle en mode dynamique (EDT). */
+    private final ResolutionScaler scaler = new ResolutionScaler();
+
+    /**
+     * Zone d'affichage du jeu dans le panneau (letterbox) et facteur
+     * logique -> pixels du panneau. Ecrits par l'EDT, lus aussi par le
+     * thread de jeu (repaintArea).
+     */
+    private volatile int   viewX, viewY, viewW, viewH;
+    private volatile float viewScale = 1f;
+
+    /** Echelle interne effective de la derniere frame (0..1). */
+    private volatile float renderScale = 1f;
+
+    /** Strategie de page-flipping en plein ecran exclusif (null = rendu Swing). */
+    private volatile BufferStrategy flipStrategy;
+
+    /** Un present() est deja poste sur l'EDT. */
+    private final AtomicBoolean presentPending = new AtomicBoolean();
+
     // =========================================================================
     // Constructeur
     // =========================================================================
@@ -88,16 +227,39 @@ public class GamePanel extends JPanel implements Runnable {
             System.out.println("[GamePanel] Police BlueWinter introuvable, utilisation d'Arial.");
         }
 
+        initMaterials();
+        damageNumbers = new DamageNumbers(gameFont);
+
         player       = new Player(this);
         enemyManager = new EnemyManager(this);
+        rewind       = new RewindBuffer(this);
 
         menuScreen       = new MenuScreen(this);
         difficultyScreen = new DifficultyScreen(this);
         optionsScreen    = new OptionsScreen(this, GameState.MENU);
         pauseScreen      = new PauseScreen(this);
         shopScreen       = new ShopScreen(this);
+        leaderboardScreen = new LeaderboardScreen(this);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            SaveManager.save(this);
+            SaveManager.flush(SaveManager.EXIT_FLUSH_MS);
+        }));
+    }
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> SaveManager.save(this)));
+    /** Enregistre les materiaux du fond et du HUD (apres chargement de la police). */
+    private void initMaterials() {
+        matBackground = Material.fill(new Color(20,20,35));
+        matGrid       = Material.fill(new Color(30,30,50));
+
+        Font sf = gameFont!=null?gameFont.deriveFont(14f):new Font("Arial",Font.PLAIN,14);
+        matTime = Material.text(Color.white, sf);
+        matBest = Material.text(new Color(200,200,80), sf);
+
+        Font df = gameFont!=null?gameFont.deriveFont(12f):new Font("Arial",Font.PLAIN,12);
+        matDiffEasy   = Material.text(new Color(80,200,80), df);
+        matDiffNormal = Material.text(new Color(220,180,0), df);
+        matDiffHard   = Material.text(new Color(220,60,60), df);
     }
 
     // =========================================================================
@@ -108,7 +270,27 @@ public class GamePanel extends JPanel implements Runnable {
         player.reset();
         enemyManager.reset();
         projectiles.clear();
-        survivalTicks = 0; hasActiveGame = false;
+        ParticleSystem.getInstance().clear();
+        damageNumbers.clear();
+        runStats.reset();
+        survivalTicks = 0; hasActiveGame = false; runOnDisk = false;
+        rewind.clear();
+
+        GameSettings s = GameSettings.getInstance();
+        seedRun(s.hasFixedSeed() ? s.getFixedSeed() : System.nanoTime() ^ System.identityHashCode(this));
+    }
+
+    /**
+     * Seme les flux aleatoires de la partie a partir d'une seule graine.
+     * Un flux par sous-systeme, dans un ordre fixe (ne pas reordonner :
+     * les graines des parties enregistrees changeraient de sens).
+     */
+    void seedRun(long seed) {
+        runSeed = seed;
+        SimRandom root = new SimRandom(seed);
+        enemyManager.rand.setState(root.nextLong());               // apparitions
+        player.rand.setState(root.nextLong());                     // coups critiques
+        // effets : flux reseme a chaque tick (updateGame)
     }
 
     public void startGameThread() {
@@ -133,18 +315,59 @@ public class GamePanel extends JPanel implements Runnable {
             timer += now - last;
             last = now;
 
-            if (delta >= 1) { update(); repaint(); delta--; count++; }
-            if (timer >= 1_000_000_000) { currentFPS = count; count = 0; timer = 0; }
+            if (delta >= 1) { update(); requestFrame(); delta--; count++; }
+            if (timer >= 1_000_000_000) {
+                currentFPS = count; count = 0; timer = 0;
+                // Ecran retenu : seul le compteur FPS est redessine
+                if (isRetained(gameState)) repaintArea(screenWidth-80, 5, 80, 20);
+            }
         }
     }
 
+    /**
+     * Demande le repaint de la frame : complet en jeu, et dans les ecrans
+     * retenus uniquement lors d'un changement d'etat.
+     */
+    private void requestFrame() {
+        GameState s = gameState;
+        if (!isRetained(s) || s != lastFrameState) repaintFull();
+        lastFrameState = s;
+    }
+
+    /** Repaint complet : Swing, ou present() en plein ecran exclusif. */
+    private void repaintFull() {
+        if (flipStrategy != null) requestPresent();
+        else                      repaint();
+    }
+
+    /** true pour les ecrans construits en widgets retenus (pas de repaint continu). */
+    private static boolean isRetained(GameState s) {
+        return s == GameState.MENU || s == GameState.DIFFICULTY || s == GameState.OPTIONS
+            || s == GameState.SHOP || s == GameState.PAUSED || s == GameState.LEADERBOARD;
+    }
+
+    /**
+     * Repaint d'une zone en coordonnees ecran de jeu.
+     * Point d'entree unique des invalidations de widgets.
+     */
+    void repaintArea(int x, int y, int w, int h) {
+        if (flipStrategy != null) { requestPresent(); return; }
+        float f = viewScale;
+        int x0 = viewX + (int) Math.floor(x * f), y0 = viewY + (int) Math.floor(y * f);
+        int x1 = viewX + (int) Math.ceil((x + w) * f), y1 = viewY + (int) Math.ceil((y + h) * f);
+        // +1 px : l'agrandissement bilineaire deborde d'un pixel interne
+        int m = (int) Math.ceil(1 / renderScale) + 1;
+        repaint(x0 - m, y0 - m, x1 - x0 + 2 * m, y1 - y0 + 2 * m);
+    }
+
     // =========================================================================
     // Mise a jour
     // =========================================================================
 
     public void update() {
-        if (gameState == GameState.PLAYING) updateGame();
+        if (gameState == GameState.PLAYING) simulateTick();
         if (gameState == GameState.PAUSED)  pauseScreen.tick();
+        if (gameState == GameState.GAME_OVER) tickKillCam(); else killCamTick = -1;
 
         if (keyH.escapeJustPressed) {
             keyH.escapeJustPressed = false;
@@ -152,20 +375,148 @@ public class GamePanel extends JPanel implements Runnable {
             else if (gameState == GameState.PAUSED)  { gameState = GameState.PLAYING; }
         }
 
+        if (keyH.captureJustPressed) {
+            keyH.captureJustPressed = false;
+            toggleCapture();
+        }
+
         if (keyH.enterPressed &&
                 (gameState == GameState.GAME_OVER || gameState == GameState.VICTORY)) {
             gameState = GameState.MENU;
         }
+
+        // Retour au menu pendant un rejeu (fin, pause -> menu) : la progression est restauree
+        ReplayPlayer r = replay;
+        if (r != null && gameState == GameState.MENU) {
+            r.stop(this);
+            SaveManager.detectRun(this);
+        }
+
+        // En pause, le monde est fige : la derniere liste publiee est rejouee
+        if (isWorldVisible() && gameState != GameState.PAUSED) buildWorldList();
+    }
+
+    /**
+     * Kill-cam (GAME_OVER) : rejoue les dernieres secondes memorisees par
+     * rewind, un tick par mise a jour, pause sur la mort puis recommence.
+     * Gauche / droite : parcours manuel (la lecture automatique s'arrete).
+     */
+    private void tickKillCam() {
+        if (rewind.isEmpty()) { killCamTick = -1; return; }
+        int first = rewind.firstTick(), last = rewind.lastTick();
+        if (killCamTick < first || killCamTick > last) {
+            killCamTick = first; killCamHold = 0; killCamManual = false;
+        }
+
+        int dir = (keyH.rightPressed ? 1 : 0) - (keyH.leftPressed ? 1 : 0);
+        if (dir != 0) {
+            killCamManual = true;
+            killCamTick = Math.max(first, Math.min(last, killCamTick + 2 * dir));
+        } else if (!killCamManual) {
+            if (killCamTick < last)          killCamTick++;
+            else if (++killCamHold > 2 * FPS) { killCamTick = first; killCamHold = 0; }
+        }
+    }
+
+    /** Demarre ou arrete la capture des frames (les frames en file sont encore ecrites). */
+    private void toggleCapture() {
+        FrameCapture c = capture;
+        if (c != null) {
+            capture = null;
+            c.stop();
+            return;
+        }
+        try {
+            capture = FrameCapture.start(GameSettings.getInstance().isCaptureRaw());
+        } catch (IOException e) {
+            System.out.println("[GamePanel] Capture impossible : " + e.getMessage());
+        }
+    }
+
+    /** true si l'etat courant affiche le monde (en jeu ou en fond d'overlay). */
+    private boolean isWorldVisible() {
+        return gameState == GameState.PLAYING || gameState == GameState.PAUSED
+            || gameState == GameState.GAME_OVER || gameState == GameState.VICTORY;
+    }
+
+    /**
+     * Emet le monde dans une liste d'affichage, la trie et la publie
+     * pour l'EDT. Appele sur le thread de jeu apres chaque mise a jour.
+     */
+    void buildWorldList() {
+        DisplayList dl = worldFrames.beginWrite();
+        emitGame(dl);
+        dl.finish();
+        worldFrames.publish();
+    }
+
+    /**
+     * Entrees du tick (clavier enregistre, ou rejeu) puis un tick de
+     * simulation. Fin du rejeu : retour au menu.
+     */
+    void simulateTick() {
+        int mask;
+        ReplayPlayer r = replay;
+        if (r != null) {
+            mask = r.next(player);
+            if (mask < 0) { gameState = GameState.MENU; return; }
+        } else {
+            mask = keyH.mask();
+            if (survivalTicks == 0) {
+                // Partie precedente abandonnee (menu -> Jouer) : conservee quand meme
+                if (recorder.isActive()) SaveManager.saveReplay(recorder.finish(InputRecorder.OUTCOME_ABANDONED));
+                recorder.begin(this);
+            }
+            recorder.record(this, mask);
+        }
+        tickKeys.setMask(mask);
+        updateGame();
+        if (r != null) r.check(this);
     }
 
-    private void updateGame() {
+    /**
+     * Un tick de simulation. Ordre fixe (determinisme) : projectiles,
+     * ennemis (apparitions comprises), effets, collisions projectiles ->
+     * ennemis dans l'ordre des listes, joueur, invincibilite des ennemis,
+     * empreinte de l'etat, fin de partie. Le rendu (emitGame) ne modifie
+     * rien ici.
+     */
+    void updateGame() {
         survivalTicks++;
+        // Effets : flux ne dependant que de la graine et du tick (meme rendu
+        // apres une image cle, voir ReplayExporter ; hors empreinte)
+        ParticleSystem.getInstance().rand.setState((runSeed ^ PARTICLE_SALT) + survivalTicks * PARTICLE_STEP);
         projectiles.removeIf(p -> !p.alive);
         for (Projectile p : projectiles) p.update(screenWidth, screenHeight);
 
         enemyManager.update(player, projectiles);
+        ParticleSystem.getInstance().update();
+        damageNumbers.update();
+
+        resolvePlayerHits();
+
+        player.update(tickKeys, enemyManager.enemies, projectiles);
+        for (Enemy e : enemyManager.enemies) e.tickInvincibility();
+
+        stateHash = hasher.world(this);
+        if (replay == null) recorder.recordHash(survivalTicks, stateHash);
+        rewind.capture(this);
+
+        if (!player.alive)             endGame(GameState.GAME_OVER);
+        if (enemyManager.bossDefeated) endGame(GameState.VICTORY);
+
+        // Autosauvegarde de la partie (capture en memoire, ecriture en arriere-plan)
+        if (gameState == GameState.PLAYING && replay == null
+                && survivalTicks % (SaveManager.AUTOSAVE_SECONDS * FPS) == 0) {
+            SaveManager.saveRun(this);
+        }
+    }
 
-        // Collisions projectiles joueur -> ennemis
+    /**
+     * Collisions projectiles du joueur -> ennemis, dans l'ordre des listes :
+     * degats, vol de vie, statistiques, or et effets a la mort.
+     */
+    void resolvePlayerHits() {
         for (Projectile proj : projectiles) {
             if (!proj.fromPlayer || !proj.alive) continue;
             for (Enemy e : enemyManager.enemies) {
@@ -178,27 +529,34 @@ public class GamePanel extends JPanel implements Runnable {
                     // Vol de vie : soigne selon les degats reellement infliges
                     int dmgDealt = prevHp - Math.max(0, e.hp);
                     player.applyLifeSteal(dmgDealt);
+                    damageNumbers.add(e, dmgDealt, proj.isCrit);
+                    runStats.onHit(dmgDealt);
 
                     // Or si ennemi mort
                     if (!e.alive) {
-                        player.gold   += EnemyManager.goldForEnemy(e);
+                        int gold = EnemyManager.goldForEnemy(e);
+                        player.gold   += gold;
+                        runStats.onKill(e, gold);
+                        ParticleSystem.getInstance().deathBurst(e.x, e.y, e.size);
                     }
                     break;
                 }
             }
         }
-
-        player.update(keyH, enemyManager.enemies, projectiles);
-
-        if (!player.alive)             endGame(GameState.GAME_OVER);
-        if (enemyManager.bossDefeated) endGame(GameState.VICTORY);
     }
 
     private void endGame(GameState newState) {
+        if (replay != null || offline) { gameState = newState; return; } // rejeu : rien n'est enregistre
+
+        SaveManager.saveReplay(recorder.finish(newState == GameState.VICTORY ? InputRecorder.OUTCOME_VICTORY
+                                                                             : InputRecorder.OUTCOME_GAME_OVER));
         boolean newRecord = false;
         if (survivalTicks > bestTimeTicks) { bestTimeTicks = survivalTicks; newRecord = true; }
         hasActiveGame = false;
+        RunHistory.getInstance().append(GameSettings.getInstance().getDifficulty(), newState == GameState.VICTORY,
+                                        enemyManager.getWave(), survivalTicks, runStats, player);
         SaveManager.save(this);
+        SaveManager.clearRun();
         if (newRecord) System.out.println("[GamePanel] Nouveau record de survie !");
         gameState = newState;
     }
@@ -209,15 +567,183 @@ public class GamePanel extends JPanel implements Runnable {
 
     @Override
     public void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (flipStrategy != null) { requestPresent(); return; } // rendu actif
+        super.paintComponent(g); // fond noir (bandes du letterbox)
+        renderFrame((Graphics2D) g);
+    }
+
+    /**
+     * Active / desactive le rendu actif dans une BufferStrategy
+     * (plein ecran exclusif). Appele par GameSettings (EDT).
+     */
+    void setFlipStrategy(BufferStrategy bs) {
+        flipStrategy = bs;
+        if (bs != null) requestPresent();
+        else            repaint();
+    }
+
+    private void requestPresent() {
+        if (presentPending.compareAndSet(false, true)) SwingUtilities.invokeLater(this::present);
+    }
+
+    /** Dessine la frame complete dans la strategie puis l'affiche (EDT). */
+    private void present() {
+        presentPending.set(false);
+        BufferStrategy bs = flipStrategy;
+        Window w = SwingUtilities.getWindowAncestor(this);
+        if (bs == null || w == null || !isShowing()) return;
+        Point origin = SwingUtilities.convertPoint(this, 0, 0, w);
+        try {
+            do {
+                do {
+                    Graphics2D g = (Graphics2D) bs.getDrawGraphics();
+                    g.translate(origin.x, origin.y);
+                    g.clipRect(0, 0, getWidth(), getHeight());
+                    g.setColor(Color.black);
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    renderFrame(g);
+                    g.dispose();
+                } while (bs.contentsRestored());
+                bs.show();
+            } while (bs.contentsLost());
+        } catch (IllegalStateException e) {
+            // Strategie liberee pendant la sortie du plein ecran : frame ignoree
+        }
+    }
+
+    /** Dessine la frame (tampon interne + agrandissement) dans screen. */
+    private void renderFrame(Graphics2D screen) {
+        updateViewport();
+
+        GameSettings settings = GameSettings.getInstance();
+        boolean continuous = !isRetained(gameState);
+        float scale = scaler.current(settings.getRenderScale() / 100f, settings.isDynamicResolution());
+        int bw = Math.max(1, Math.round(viewW * scale)), bh = Math.max(1, Math.round(viewH * scale));
+        renderScale = bw / (float) viewW;
+
+        // Zone a redessiner, ramenee en coordonnees logiques
+        Rectangle clip = screen.getClipBounds();
+        Rectangle logicalClip = clip == null ? null : toLogical(clip);
+
+        backBuffer.setKind(settings.getEffectiveBufferKind());
+        long start = System.nanoTime();
+        boolean lost;
+        do {
+            boolean full = backBuffer.ensure(getGraphicsConfiguration(), bw, bh);
+            if (full && logicalClip != null && !isFullClip(logicalClip)) {
+                // Tampon neuf : le contenu hors de la zone de clip est a refaire
+                repaintFull();
+            }
+            Graphics2D g2 = backBuffer.createGraphics();
+            g2.scale(bw / (double) screenWidth, bh / (double) screenHeight);
+            if (!full && logicalClip != null) g2.clip(logicalClip);
+            drawFrame(g2);
+            g2.dispose();
+            lost = backBuffer.contentsLost();
+        } while (lost);
+
+        // Capture : copie de la frame dans le pool, encodage sur d'autres threads
+        FrameCapture c = capture;
+        if (c != null) c.offer(backBuffer.image(), bw, bh);
+
+        // Agrandissement vers la zone d'affichage en un seul blit
+        screen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, settings.isSmoothUpscale()
+                ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        screen.drawImage(backBuffer.image(), viewX, viewY, viewW, viewH, null);
+
+        // Indicateur de capture : sur l'ecran seulement, absent des frames capturees
+        if (c != null) drawCaptureIndicator(screen, c);
+
+        // Seules les frames de jeu completes alimentent la resolution dynamique
+        if (continuous) {
+            scaler.update(settings.getRenderScale() / 100f, settings.isDynamicResolution(),
+                          (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /** "REC n | perdues m" en haut a droite de la zone d'affichage (coordonnees du panneau). */
+    private void drawCaptureIndicator(Graphics2D screen, FrameCapture c) {
+        float f = viewScale;
+        screen.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        screen.setColor(Color.red);
+        screen.setFont(gameFont!=null?gameFont.deriveFont(13f*f):new Font("Arial",Font.PLAIN,Math.round(13*f)));
+        screen.drawString("REC " + c.captured() + " | perdues " + c.dropped(),
+                          viewX + Math.round((screenWidth-300)*f), viewY + Math.round(20*f));
+    }
+
+    /**
+     * Calcule la zone d'affichage : le plus grand rectangle au ratio du jeu
+     * qui tient dans le panneau, centre (bandes noires sur les cotes).
+     */
+    private void updateViewport() {
+        int pw = getWidth(), ph = getHeight();
+        if (pw <= 0 || ph <= 0) { pw = screenWidth; ph = screenHeight; }
+        float f = Math.min(pw / (float) screenWidth, ph / (float) screenHeight);
+        int w = Math.max(1, Math.round(screenWidth * f)), h = Math.max(1, Math.round(screenHeight * f));
+        viewX = (pw - w) / 2;
+        viewY = (ph - h) / 2;
+        viewW = w;
+        viewH = h;
+        viewScale = f;
+    }
+
+    /** Convertit un rectangle du panneau en coordonnees logiques (arrondi vers l'exterieur). */
+    private Rectangle toLogical(Rectangle r) {
+        float f = viewScale;
+        int x0 = (int) Math.floor((r.x - viewX) / f) - 1, y0 = (int) Math.floor((r.y - viewY) / f) - 1;
+        int x1 = (int) Math.ceil((r.x + r.width - viewX) / f) + 1;
+        int y1 = (int) Math.ceil((r.y + r.height - viewY) / f) + 1;
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /** Convertit une position du panneau (souris) en coordonnees logiques. */
+    Point toLogical(Point p) {
+        float f = viewScale;
+        return new Point((int) Math.floor((p.x - viewX) / f), (int) Math.floor((p.y - viewY) / f));
+    }
+
+    private boolean isFullClip(Rectangle r) {
+        return r.x <= 0 && r.y <= 0 && r.x + r.width >= screenWidth && r.y + r.height >= screenHeight;
+    }
+
+    /**
+     * Frame complete de l'etat courant dans g2 (coordonnees logiques,
+     * screenWidth x screenHeight) : liste d'affichage puis drawFrame, comme
+     * a l'ecran. Export hors ligne (ReplayExporter) et benchmarks de rendu,
+     * thread appelant.
+     */
+    void renderOffscreen(Graphics2D g2) {
+        buildWorldList();
+        drawFrame(g2);
+    }
 
-        switch (gameState) {
+    /**
+     * Dessine la frame en coordonnees logiques (dans le tampon interne).
+     * Le contexte est deja mis a l'echelle et limite a la zone a redessiner.
+     */
+    void drawFrame(Graphics2D g2) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+
+        // Le tampon conserve la frame precedente : fond noir sous la zone a refaire
+        g2.setColor(Color.black);
+        Rectangle area = g2.getClipBounds();
+        if (area != null) g2.fill(area);
+        else              g2.fillRect(0, 0, screenWidth, screenHeight);
+
+        // Changement d'ecran : les widgets sont resynchronises avant le dessin
+        GameState state = gameState;
+        if (state != shownState) {
+            shownState = state;
+            onStateShown(state);
+        }
+
+        switch (state) {
             case MENU:       menuScreen.draw(g2);       break;
             case DIFFICULTY: difficultyScreen.draw(g2); break;
             case OPTIONS:    optionsScreen.draw(g2);    break;
             case SHOP:       shopScreen.draw(g2);       break;
+            case LEADERBOARD: leaderboardScreen.draw(g2); break;
             case PLAYING:    drawGame(g2);              break;
             case PAUSED:     drawGame(g2); pauseScreen.draw(g2); break;
             case GAME_OVER:  drawGame(g2); drawEndOverlay(g2,"GAME OVER",new Color(180,30,30));  break;
@@ -225,42 +751,120 @@ public class GamePanel extends JPanel implements Runnable {
             default: break;
         }
 
-        if (gameState != GameState.MENU && gameState != GameState.DIFFICULTY
-                && gameState != GameState.SHOP) {
+        if (state != GameState.MENU && state != GameState.DIFFICULTY
+                && state != GameState.SHOP && state != GameState.LEADERBOARD) {
             g2.setColor(Color.yellow);
             g2.setFont(gameFont!=null?gameFont.deriveFont(13f):new Font("Arial",Font.PLAIN,13));
             g2.drawString("FPS : " + currentFPS, screenWidth-80, 20);
         }
 
-        g2.dispose();
+        // Statistiques de la liste d'affichage (bas gauche, en jeu uniquement)
+        if (state == GameState.PLAYING || state == GameState.PAUSED
+                || state == GameState.GAME_OVER || state == GameState.VICTORY) {
+            g2.setColor(new Color(120,120,140));
+            g2.setFont(gameFont!=null?gameFont.deriveFont(11f):new Font("Arial",Font.PLAIN,11));
+            String stats = "Liste : " + lastListSize + " cmd | etats " + lastStateChanges
+                         + " (non trie : " + lastUnsortedChanges + ")"
+                         + " | particules " + ParticleSystem.getInstance().size();
+            if (rasterizer != null && GameSettings.getInstance().getRenderMode() == RenderMode.SOFTWARE) {
+                stats += String.format(" | logiciel : prep %.2f ms, tuiles %.2f ms",
+                                       rasterizer.lastPrepareNanos / 1e6, rasterizer.lastRasterNanos / 1e6);
+            }
+            stats += String.format(" | rendu %d %% (%.1f ms)", Math.round(renderScale * 100), scaler.averageMs());
+            if (SaveManager.getSaveCount() > 0) {
+                stats += String.format(" | sauvegarde %.1f ms (max %.1f)",
+                                       SaveManager.getLastSaveMs(), SaveManager.getMaxSaveMs());
+            }
+            g2.drawString(stats, 10, screenHeight-10);
+        }
+    }
+
+    /** Prepare l'ecran retenu qui devient visible (EDT). */
+    private void onStateShown(GameState s) {
+        switch (s) {
+            case MENU:       menuScreen.onShow();       break;
+            case DIFFICULTY: difficultyScreen.onShow(); break;
+            case OPTIONS:    optionsScreen.onShow();    break;
+            case SHOP:       shopScreen.onShow();       break;
+            case LEADERBOARD: leaderboardScreen.onShow(); break;
+            case PAUSED:     pauseScreen.onShow();      break;
+            default: break;
+        }
     }
 
+    /**
+     * Rejoue la derniere liste d'affichage du monde (EDT), via Java2D ou
+     * via le rasteriseur logiciel selon GameSettings.
+     */
     private void drawGame(Graphics2D g2) {
-        g2.setColor(new Color(20,20,35));
-        g2.fillRect(0,0,screenWidth,screenHeight);
-        g2.setColor(new Color(30,30,50));
-        for (int i=0;i<screenWidth; i+=tileSize) g2.drawLine(i,0,i,screenHeight);
-        for (int j=0;j<screenHeight;j+=tileSize) g2.drawLine(0,j,screenWidth,j);
-
-        for (Projectile p : projectiles) p.draw(g2);
-        enemyManager.draw(g2);
-        player.draw(g2);
-
-        Font sf = gameFont!=null?gameFont.deriveFont(14f):new Font("Arial",Font.PLAIN,14);
-        g2.setFont(sf); g2.setColor(Color.white);
+        DisplayList dl = worldFrames.acquire();
+        if (GameSettings.getInstance().getRenderMode() == RenderMode.SOFTWARE && useSoftware(g2, dl)) {
+            rasterizer.render(g2, dl);
+        } else {
+            dl.replay(g2);
+        }
+        lastListSize        = dl.size();
+        lastStateChanges    = dl.stateChanges;
+        lastUnsortedChanges = dl.unsortedStateChanges;
+    }
 
-        g2.drawString("Temps : " + formatTime(survivalTicks/FPS), 10, 65);
-        g2.setColor(new Color(200,200,80));
+    /**
+     * Prepare le rasteriseur et le verifie contre Java2D sur la premiere
+     * frame qui contient des entites. En cas d'echec, repasse en Java2D.
+     *
+     * @return true si la frame peut etre rendue en logiciel
+     */
+    private boolean useSoftware(Graphics2D g2, DisplayList dl) {
+        if (rasterizer == null) rasterizer = new SoftwareRasterizer(screenWidth, screenHeight);
+        if (rasterizer.isVerified()) return true;
+
+        int entities = dl.sortedStart(SoftwareRasterizer.LAST_LAYER + 1)
+                     - dl.sortedStart(SoftwareRasterizer.FIRST_LAYER);
+        if (entities < 8) return false; // attend une frame representative
+
+        if (rasterizer.crossCheck(g2, dl)) return true;
+        System.out.println("[GamePanel] Rendu logiciel non conforme, retour a Java2D.");
+        GameSettings.getInstance().setRenderMode(RenderMode.JAVA2D);
+        return false;
+    }
 
-        g2.drawString("Meilleur : " + formatTime(bestTimeTicks/FPS), 10, 85);
+    /** Emet le fond, les entites et le HUD du jeu (thread de jeu). */
+    private void emitGame(DisplayList dl) {
+        int B = DisplayList.LAYER_BACKGROUND;
+        dl.fillRect(B, matBackground, 0, 0, screenWidth, screenHeight);
+        for (int i=0;i<screenWidth; i+=tileSize) dl.line(B, matGrid, i, 0, i, screenHeight);
+        for (int j=0;j<screenHeight;j+=tileSize) dl.line(B, matGrid, 0, j, screenWidth, j);
+
+        int H = DisplayList.LAYER_HUD;
+        if (killCamTick >= 0 && rewind.rebuild(killCamTick)) {
+            // Kill-cam : entites reconstruites (sans particules ni chiffres de degats)
+            rewind.emit(dl);
+            dl.text(H, matBest, String.format("Kill-cam : -%.1f s  (%d Ko / %d Ko)  -  fleches : parcourir",
+                    (rewind.lastTick() - killCamTick) / (double) FPS,
+                    rewind.usedBytes() / 1024, RewindBuffer.reservedBytes() / 1024),
+                    10, replay != null ? 125 : 105, false);
+        } else {
+            for (Projectile p : projectiles) p.emit(dl);
+            enemyManager.emit(dl);
+            ParticleSystem.getInstance().emit(dl);
+            player.emit(dl);
+            damageNumbers.emit(dl);
+        }
 
-        Font df = gameFont!=null?gameFont.deriveFont(12f):new Font("Arial",Font.PLAIN,12);
-        g2.setFont(df); g2.setColor(getDiffColor());
-        g2.drawString(GameSettings.getInstance().getDifficulty().getLabel(), screenWidth-75, 40);
+        dl.text(H, matTime, "Temps : " + formatTime(survivalTicks/FPS), 10, 65, false);
+        dl.text(H, matBest, "Meilleur : " + formatTime(bestTimeTicks/FPS), 10, 85, false);
+        ReplayPlayer r = replay;
+        if (r != null) {
+            int d = r.firstDivergence();
+            dl.text(H, matBest, "Rejeu : tick " + r.tick() + " / " + r.totalTicks()
+                    + (d >= 0 ? "  -  DESYNCHRONISE au tick " + d : ""), 10, 105, false);
+        }
+        dl.text(H, getDiffMaterial(), GameSettings.getInstance().getDifficulty().getLabel(),
+                screenWidth-75, 40, false);
     }
 
     private void drawEndOverlay(Graphics2D g2, String title, Color tc) {
-        g2.setColor(new Color(0,0,0,170));
+        g2.setColor(new Color(0,0,0,killCamTick>=0?110:170)); // kill-cam visible dessous
         g2.fillRect(0,0,screenWidth,screenHeight);
 
         Font tf = gameFont!=null?gameFont.deriveFont(Font.BOLD,56f):new Font("Arial",Font.BOLD,56);
@@ -312,26 +916,29 @@ public class GamePanel extends JPanel implements Runnable {
         this.addMouseListener(new MouseAdapter() {
             @Override public void mousePressed(MouseEvent e)  { requestFocusInWindow(); }
             @Override public void mouseReleased(MouseEvent e) {
-                GameState s = gameState; Point p = e.getPoint();
+                GameState s = gameState; Point p = toLogical(e.getPoint());
                 switch (s) {
                     case MENU:       menuScreen.handleClick(p);       break;
                     case DIFFICULTY: difficultyScreen.handleClick(p); break;
                     case OPTIONS:    optionsScreen.handleClick(p);    break;
                     case PAUSED:     pauseScreen.handleClick(p);      break;
                     case SHOP:       shopScreen.handleClick(p);       break;
+                    case LEADERBOARD: leaderboardScreen.handleClick(p); break;
                     default: break;
                 }
             }
         });
         this.addMouseMotionListener(new MouseAdapter() {
             @Override public void mouseMoved(MouseEvent e) {
-                GameState s = gameState; Point p = e.getPoint();
+                GameState s = gameState; Point p = toLogical(e.getPoint());
+                lastMouse = p;
                 switch (s) {
                     case MENU:       menuScreen.handleHover(p);       break;
                     case DIFFICULTY: difficultyScreen.handleHover(p); break;
                     case OPTIONS:    optionsScreen.handleHover(p);    break;
                     case PAUSED:     pauseScreen.handleHover(p);      break;
                     case SHOP:       shopScreen.handleHover(p);       break;
+                    case LEADERBOARD: leaderboardScreen.handleHover(p); break;
                     default: break;
                 }
             }
@@ -343,11 +950,16 @@ public class GamePanel extends JPanel implements Runnable {
     // =========================================================================
 
     private String formatTime(int s) { return (s/60)+"m "+(s%60)+"s"; }
-    private Color getDiffColor() {
+
+    /** Police du jeu derivee (Arial si BlueWinter est introuvable). */
+    Font uiFont(int style, float size) {
+        return gameFont!=null ? gameFont.deriveFont(style, size) : new Font("Arial", style, (int) size);
+    }
+    private int getDiffMaterial() {
         switch (GameSettings.getInstance().getDifficulty()) {
-            case EASY: return new Color(80,200,80);
-            case HARD: return new Color(220,60,60);
-            default:   return new Color(220,180,0);
+            case EASY: return matDiffEasy;
+            case HARD: return matDiffHard;
+            default:   return matDiffNormal;
         }
     }
 }
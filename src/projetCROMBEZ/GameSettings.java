@@ -1,5 +1,12 @@
 package projetCROMBEZ;
 
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.DisplayMode;
+import java.awt.GraphicsDevice;
+import java.awt.ImageCapabilities;
+import java.awt.image.BufferStrategy;
+
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
@@ -13,7 +20,11 @@ import javax.swing.SwingUtilities;
  * Contient :
  *  - La difficulte choisie par le joueur
  *  - L'affichage ou non de la portee du joueur
- *  - Le mode plein ecran
+ *  - Le mode plein ecran (sans bordure ou exclusif, changement de mode d'affichage)
+ *  - Le moteur de rendu des entites (Java2D ou logiciel)
+ *  - La resolution interne (echelle, lissage, mode dynamique)
+ *  - Le pipeline Java2D et le type de tampon (choix + resultat de la sonde)
+ *  - La graine fixe du mode deterministe (ligne de commande, non sauvegardee)
  *  - Des references a la JFrame et au GamePanel
  */
 public class GameSettings {
@@ -42,6 +53,60 @@ public class GameSettings {
     /** Mode plein ecran actif. */
     private boolean fullscreen = false;
 
+    /** Facon d'occuper l'ecran en plein ecran. */
+    private FullscreenMode fullscreenMode = FullscreenMode.BORDERLESS;
+
+    /** Ecran tenu en exclusivite (null = pas de plein ecran exclusif en cours). */
+    private GraphicsDevice exclusiveDevice;
+
+    /** Moteur de rendu des entites du monde. */
+    private volatile RenderMode renderMode = RenderMode.JAVA2D;
+
+    /** Echelles de rendu interne proposees (en % de la zone affichee). */
+    public static final int[] RENDER_SCALES = { 50, 75, 100 };
+
+    /** Echelle de rendu interne (%), plafond du mode dynamique. */
+    private volatile int renderScale = 100;
+
+    /** Agrandissement bilineaire (true) ou au plus proche voisin (false). */
+    private volatile boolean smoothUpscale = true;
+
+    /** Baisse automatique de la resolution interne si le budget est depasse. */
+    private volatile boolean dynamicResolution = false;
+
+    /** Pipeline Java2D choisi (AUTO = resultat de la sonde). Effet au lancement suivant. */
+    private volatile RenderPipeline pipeline = RenderPipeline.AUTO;
+
+    /** Type de tampon interne choisi (AUTO = resultat de la sonde). */
+    private volatile BufferKind bufferKind = BufferKind.AUTO;
+
+    /** Resultat de la derniere mesure de PipelineProbe (null = jamais mesure). */
+    private volatile RenderPipeline probedPipeline;
+    private volatile BufferKind     probedBufferKind;
+    private volatile double         probedMs;
+
+    /**
+     * Mode deterministe : toutes les parties utilisent cette graine
+     * (--seed au lancement). Non sauvegarde.
+     */
+    private boolean fixedSeed;
+    private long    seed;
+
+    /**
+     * Images cles des enregistrements (InputRecorder) : une tous les
+     * keyframeSeconds, tant que leur taille reste sous keyframeOverhead
+     * fois celle des entrees (--keyframe-seconds, --keyframe-overhead).
+     * Non sauvegarde.
+     */
+    private int    keyframeSeconds  = 30;
+    private double keyframeOverhead = 4.0;
+
+    /** Empreinte d'etat enregistree tous les hashTicks ticks (--hash-ticks). Non sauvegarde. */
+    private int    hashTicks        = 10;
+
+    /** Capture des frames (F9) en flux brut plutot qu'en PNG (--capture-format). Non sauvegarde. */
+    private boolean captureRaw      = false;
+
     // =========================================================================
     // References externes
     // =========================================================================
@@ -80,6 +145,31 @@ public class GameSettings {
 
     public boolean isShowPlayerRange() { return showPlayerRange; }
 
+    /** true si une graine fixe est imposee (mode deterministe). */
+    public boolean hasFixedSeed() { return fixedSeed; }
+    public long    getFixedSeed() { return seed; }
+
+    /** Impose la graine de toutes les parties (Main, --seed). */
+    public void setFixedSeed(long s) {
+        this.seed      = s;
+        this.fixedSeed = true;
+    }
+
+    public int    getKeyframeSeconds()  { return keyframeSeconds; }
+    public double getKeyframeOverhead() { return keyframeOverhead; }
+
+    /** Intervalle entre images cles (s, au moins 1). */
+    public void setKeyframeSeconds(int s) { this.keyframeSeconds = Math.max(1, s); }
+
+    /** Taille maximale des images cles, en multiple de celle des entrees (0 = aucune). */
+    public void setKeyframeOverhead(double r) { this.keyframeOverhead = Math.max(0, r); }
+
+    public int  getHashTicks()      { return hashTicks; }
+    public void setHashTicks(int t) { this.hashTicks = Math.max(1, t); }
+
+    public boolean isCaptureRaw()            { return captureRaw; }
+    public void    setCaptureRaw(boolean r)  { this.captureRaw = r; }
+
     /**
      * Active/desactive l'affichage de la portee et sauvegarde immediatement.
      * Appele par OptionsScreen.
@@ -97,6 +187,110 @@ public class GameSettings {
      */
     public void setFullscreenFlag(boolean value) { this.fullscreen = value; }
 
+    public FullscreenMode getFullscreenMode() { return fullscreenMode; }
+
+    /**
+     * Change la facon d'occuper l'ecran ; reapplique le plein ecran s'il est
+     * actif, puis sauvegarde. Appele par OptionsScreen et SaveManager.
+     */
+    public void setFullscreenMode(FullscreenMode mode) {
+        this.fullscreenMode = mode;
+        if (fullscreen && window != null && window.isDisplayable()) {
+            applyFullscreen();
+            restoreFocus();
+        }
+        saveIfReady();
+    }
+
+    /** true si l'ecran est reellement tenu en exclusivite (pas de repli). */
+    public boolean isExclusiveActive() { return exclusiveDevice != null; }
+
+    public RenderMode getRenderMode() { return renderMode; }
+
+    /**
+     * Change le moteur de rendu et sauvegarde immediatement.
+     * Appele par OptionsScreen, ou par GamePanel si la verification
+     * du rendu logiciel echoue.
+     */
+    public void setRenderMode(RenderMode mode) {
+        this.renderMode = mode;
+        saveIfReady();
+    }
+
+    public int getRenderScale() { return renderScale; }
+
+    /**
+     * Change l'echelle de rendu interne (%) et sauvegarde immediatement.
+     * Les valeurs hors de [RENDER_SCALES] sont ramenees dans l'intervalle.
+     */
+    public void setRenderScale(int percent) {
+        this.renderScale = Math.max(RENDER_SCALES[0], Math.min(100, percent));
+        saveIfReady();
+    }
+
+    /** Echelle suivante de RENDER_SCALES (boucle), pour OptionsScreen. */
+    public int nextRenderScale() {
+        for (int v : RENDER_SCALES) if (v > renderScale) return v;
+        return RENDER_SCALES[0];
+    }
+
+    public boolean isSmoothUpscale() { return smoothUpscale; }
+
+    public void setSmoothUpscale(boolean smooth) {
+        this.smoothUpscale = smooth;
+        saveIfReady();
+    }
+
+    public boolean isDynamicResolution() { return dynamicResolution; }
+
+    public void setDynamicResolution(boolean dynamic) {
+        this.dynamicResolution = dynamic;
+        saveIfReady();
+    }
+
+    public RenderPipeline getPipeline() { return pipeline; }
+
+    /** Change le pipeline Java2D (applique au prochain lancement) et sauvegarde. */
+    public void setPipeline(RenderPipeline p) {
+        this.pipeline = p;
+        saveIfReady();
+    }
+
+    /** Pipeline a appliquer au lancement : le choix, ou le resultat de la sonde pour AUTO. */
+    public RenderPipeline getEffectivePipeline() {
+        if (pipeline != RenderPipeline.AUTO) return pipeline;
+        return probedPipeline != null ? probedPipeline : RenderPipeline.AUTO;
+    }
+
+    public BufferKind getBufferKind() { return bufferKind; }
+
+    public void setBufferKind(BufferKind k) {
+        this.bufferKind = k;
+        saveIfReady();
+    }
+
+    /** Type de tampon a utiliser : le choix, ou le resultat de la sonde pour AUTO. */
+    public BufferKind getEffectiveBufferKind() {
+        if (bufferKind != BufferKind.AUTO) return bufferKind;
+        return probedBufferKind != null ? probedBufferKind : BufferKind.VOLATILE;
+    }
+
+    public boolean hasProbeResult()            { return probedPipeline != null; }
+    public RenderPipeline getProbedPipeline()  { return probedPipeline; }
+    public BufferKind getProbedBufferKind()    { return probedBufferKind; }
+    public double getProbedMs()                { return probedMs; }
+
+    /**
+     * Enregistre le resultat de PipelineProbe et sauvegarde.
+     * Appele depuis le thread de la sonde, ou par SaveManager au chargement.
+     */
+    public void setProbeResult(RenderPipeline p, BufferKind k, double ms) {
+        this.probedBufferKind = k;
+        this.probedMs         = ms;
+        this.probedPipeline   = p;
+        saveIfReady();
+    }
+
     public void setWindow(JFrame w)        { this.window    = w; }
     public void setGamePanel(GamePanel gp) { this.gamePanel = gp; }
 
@@ -155,8 +349,42 @@ public class GameSettings {
         if (window == null) return;
 
         fullscreen = !fullscreen;
+        applyFullscreen();
+
+        // Focus clavier restaure apres que la fenetre soit reellement affichee
+        restoreFocus();
+
+        // Sauvegarde le nouvel etat plein ecran
+        saveIfReady();
+    }
+
+    /**
+     * Met la fenetre dans l'etat demande par fullscreen / fullscreenMode.
+     *
+     * Exclusif : GraphicsDevice.setFullScreenWindow, mode d'affichage
+     * eventuel, puis BufferStrategy a page-flipping transmise au GamePanel
+     * (rendu actif). Si l'ecran ne supporte pas l'exclusivite, repli
+     * automatique sur le mode sans bordure.
+     */
+    private void applyFullscreen() {
+        GraphicsDevice gd = window.getGraphicsConfiguration().getDevice();
+        releaseDisplay();
 
         window.dispose();
+        if (fullscreen && fullscreenMode.isExclusive() && gd.isFullScreenSupported()) {
+            window.setUndecorated(true);
+            window.setIgnoreRepaint(true);
+            gd.setFullScreenWindow(window);
+            exclusiveDevice = gd;
+            if (fullscreenMode == FullscreenMode.EXCLUSIVE_NATIVE) switchDisplayMode(gd);
+            createFlipStrategy();
+            return;
+        }
+
+        if (fullscreen && fullscreenMode.isExclusive()) {
+            System.out.println("[GameSettings] Plein ecran exclusif non supporte, repli sans bordure.");
+        }
+        window.setIgnoreRepaint(false);
         if (fullscreen) {
             window.setUndecorated(true);
             window.setExtendedState(JFrame.MAXIMIZED_BOTH);
@@ -167,14 +395,78 @@ public class GameSettings {
             window.setLocationRelativeTo(null);
         }
         window.setVisible(true);
+    }
 
-        // Focus clavier restaure apres que la fenetre soit reellement affichee
+    /**
+     * Rend l'ecran tenu en exclusivite (le mode d'affichage d'origine est
+     * restaure par setFullScreenWindow(null)). Appele aussi par Main a la
+     * fermeture.
+     */
+    public void releaseDisplay() {
+        if (exclusiveDevice == null) return;
+        if (gamePanel != null) gamePanel.setFlipStrategy(null);
+        BufferStrategy bs = window.getBufferStrategy();
+        if (bs != null) bs.dispose();
+        exclusiveDevice.setFullScreenWindow(null);
+        exclusiveDevice = null;
+    }
+
+    /** Strategie a deux tampons, page-flipping si possible, sinon copie. */
+    private void createFlipStrategy() {
+        try {
+            window.createBufferStrategy(2, new BufferCapabilities(
+                    new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED));
+        } catch (AWTException e) {
+            window.createBufferStrategy(2);
+        }
+        BufferStrategy bs = window.getBufferStrategy();
+        System.out.println("[GameSettings] Plein ecran exclusif, "
+                + (bs.getCapabilities().isPageFlipping() ? "page-flipping" : "copie (page-flipping indisponible)"));
+        if (gamePanel != null) gamePanel.setFlipStrategy(bs);
+    }
+
+    /**
+     * Passe au plus petit mode d'affichage qui contient l'ecran de jeu,
+     * en preferant une frequence multiple des FPS du jeu, puis la plus haute.
+     */
+    private void switchDisplayMode(GraphicsDevice gd) {
+        if (!gd.isDisplayChangeSupported() || gamePanel == null) {
+            System.out.println("[GameSettings] Changement de mode d'affichage non supporte.");
+            return;
+        }
+        int w = gamePanel.screenWidth, h = gamePanel.screenHeight, fps = gamePanel.FPS;
+        DisplayMode current = gd.getDisplayMode(), best = null;
+        for (DisplayMode m : gd.getDisplayModes()) {
+            if (m.getWidth() < w || m.getHeight() < h) continue;
+            if (m.getBitDepth() != current.getBitDepth()
+                    && m.getBitDepth() != DisplayMode.BIT_DEPTH_MULTI
+                    && current.getBitDepth() != DisplayMode.BIT_DEPTH_MULTI) continue;
+            if (best == null || betterMode(m, best, fps)) best = m;
+        }
+        if (best == null || best.equals(current)) return;
+        try {
+            gd.setDisplayMode(best);
+            System.out.println("[GameSettings] Mode d'affichage : " + best.getWidth() + "x" + best.getHeight()
+                               + " @ " + best.getRefreshRate() + " Hz");
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            System.out.println("[GameSettings] Mode d'affichage refuse : " + e.getMessage());
+        }
+    }
+
+    private static boolean betterMode(DisplayMode m, DisplayMode best, int fps) {
+        long area = (long) m.getWidth() * m.getHeight(), bestArea = (long) best.getWidth() * best.getHeight();
+        if (area != bestArea) return area < bestArea;
+        boolean sync = m.getRefreshRate() > 0 && m.getRefreshRate() % fps == 0;
+        boolean bestSync = best.getRefreshRate() > 0 && best.getRefreshRate() % fps == 0;
+        if (sync != bestSync) return sync;
+        return m.getRefreshRate() > best.getRefreshRate();
+    }
+
+    private void restoreFocus() {
         if (gamePanel != null) {
             SwingUtilities.invokeLater(() -> gamePanel.requestFocusInWindow());
         }
-
-        // Sauvegarde le nouvel etat plein ecran
-        saveIfReady();
     }
 
     // =========================================================================
@@ -11,6 +11,7 @@ public enum GameState {
     OPTIONS,
     INFO,
     SHOP,
+    LEADERBOARD,
     GAME_OVER,
     VICTORY
 }
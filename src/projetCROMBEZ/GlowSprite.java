@@ -0,0 +1,68 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RadialGradientPaint;
+import java.awt.image.BufferedImage;
+
+/**
+ * Halo lumineux pre-rendu (degrade radial vers le transparent).
+ *
+ * Remplir un ovale translucide est l'une des operations les plus lentes
+ * de Java2D ; le halo est donc dessine une seule fois par couleur dans
+ * une image ARGB, puis copie avec {@link DisplayList#image}. Une
+ * pulsation ne redessine rien : elle change seulement la taille du
+ * rectangle destination.
+ *
+ * Les sprites sont crees a l'initialisation (champs statiques), jamais
+ * pendant l'emission d'une frame.
+ */
+public final class GlowSprite {
+
+    // =========================================================================
+    // Halos du jeu
+    // =========================================================================
+
+    public static final GlowSprite PLAYER = new GlowSprite(new Color(255, 220, 0),   110, 16);
+    public static final GlowSprite CRIT   = new GlowSprite(new Color(238, 130, 238), 110, 16);
+    public static final GlowSprite ENEMY  = new GlowSprite(new Color(255, 60, 60),   110, 20);
+    public static final GlowSprite BOSS_1 = new GlowSprite(new Color(200, 100, 0),    90, 96);
+    public static final GlowSprite BOSS_2 = new GlowSprite(new Color(255, 80, 0),    150, 96);
+
+    // =========================================================================
+    // Etat
+    // =========================================================================
+
+    private final BufferedImage image;
+
+    /** Diametre de l'image (px). */
+    public final int size;
+
+    /** Cle de tri des copies (une par couleur). */
+    private final int material;
+
+    /**
+     * @param c     couleur du halo
+     * @param alpha opacite au centre (0..255)
+     * @param size  diametre pre-rendu ; taille d'affichage la plus courante
+     */
+    public GlowSprite(Color c, int alpha, int size) {
+        this.size = size;
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        float r = size / 2f;
+        Color inner = new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha);
+        Color mid   = new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha / 2);
+        Color outer = new Color(c.getRed(), c.getGreen(), c.getBlue(), 0);
+        g.setPaint(new RadialGradientPaint(r, r, r, new float[] { 0f, 0.5f, 1f },
+                                           new Color[] { inner, mid, outer }));
+        g.fillRect(0, 0, size, size);
+        g.dispose();
+        material = Material.fill(inner);
+    }
+
+    /** Emet le halo centre en (cx, cy) avec le diametre d. */
+    public void emit(DisplayList dl, int layer, int cx, int cy, int d) {
+        dl.image(layer, material, image, cx - d / 2, cy - d / 2, d, d, 0, 0, size, size);
+    }
+}
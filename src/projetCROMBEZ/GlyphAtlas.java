@@ -0,0 +1,111 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Atlas de glyphes pre-rendus pour les chiffres de degats.
+ *
+ * Les caracteres de {@link #CHARS} sont dessines une seule fois par style
+ * (police, couleur, ombre) et par niveau de fondu dans une BufferedImage
+ * ARGB. Un nombre s'affiche ensuite en copiant des zones de l'atlas
+ * ({@link DisplayList#image}) : ni drawString, ni deriveFont, ni mesure
+ * de texte pendant la partie.
+ *
+ * Organisation : une ligne de cellules par (style, fondu), une colonne par
+ * caractere. Les cellules d'un style ont toutes la meme taille ; la largeur
+ * d'avance propre a chaque glyphe sert a composer les nombres.
+ */
+public final class GlyphAtlas {
+
+    /** Caracteres disponibles (chiffres puis symboles). */
+    static final String CHARS = "0123456789!+-";
+
+    /** Niveaux d'opacite pre-rendus (fondu de fin de vie). */
+    static final int FADES = 4;
+
+    private final BufferedImage image;
+
+    /** Par style : largeur et hauteur de cellule, ligne de base, premiere ligne. */
+    private final int[] cellW, cellH, baseline, firstRow;
+
+    /** Avance de chaque caractere, par style : advance[style][char]. */
+    private final int[][] advance;
+
+    /** Ordonnee de chaque ligne de l'atlas. */
+    private final int[] rowY;
+
+    /**
+     * @param fonts  police de chaque style
+     * @param colors couleur de chaque style (l'ombre est noire)
+     */
+    public GlyphAtlas(Font[] fonts, Color[] colors) {
+        int styles = fonts.length;
+        cellW = new int[styles]; cellH = new int[styles];
+        baseline = new int[styles]; firstRow = new int[styles];
+        advance = new int[styles][CHARS.length()];
+        rowY = new int[styles * FADES];
+
+        // Mesure sur une image jetable
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D pg = probe.createGraphics();
+        int width = 0, height = 0;
+        for (int s = 0; s < styles; s++) {
+            FontMetrics fm = pg.getFontMetrics(fonts[s]);
+            int w = 0;
+            for (int c = 0; c < CHARS.length(); c++) {
+                advance[s][c] = fm.charWidth(CHARS.charAt(c));
+                w = Math.max(w, advance[s][c]);
+            }
+            cellW[s]    = w + 2; // +1 ombre, +1 marge
+            cellH[s]    = fm.getAscent() + fm.getDescent() + 2;
+            baseline[s] = fm.getAscent();
+            firstRow[s] = s * FADES;
+            for (int f = 0; f < FADES; f++) { rowY[s * FADES + f] = height; height += cellH[s]; }
+            width = Math.max(width, cellW[s] * CHARS.length());
+        }
+        pg.dispose();
+
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        for (int s = 0; s < styles; s++) {
+            g.setFont(fonts[s]);
+            for (int f = 0; f < FADES; f++) {
+                int alpha = 255 * (FADES - f) / FADES;
+                Color shadow = new Color(0, 0, 0, alpha * 3 / 4);
+                Color fg = new Color(colors[s].getRed(), colors[s].getGreen(), colors[s].getBlue(), alpha);
+                int y = rowY[s * FADES + f] + baseline[s];
+                for (int c = 0; c < CHARS.length(); c++) {
+                    String ch = String.valueOf(CHARS.charAt(c));
+                    int x = c * cellW[s];
+                    g.setColor(shadow); g.drawString(ch, x + 1, y + 1);
+                    g.setColor(fg);     g.drawString(ch, x, y);
+                }
+            }
+        }
+        g.dispose();
+    }
+
+    public BufferedImage image() { return image; }
+
+    /** Indice d'un caractere de {@link #CHARS}. */
+    static int indexOf(char c) {
+        return (c >= '0' && c <= '9') ? c - '0' : CHARS.indexOf(c);
+    }
+
+    public int cellWidth(int style)  { return cellW[style]; }
+    public int cellHeight(int style) { return cellH[style]; }
+
+    public int advance(int style, int ch) { return advance[style][ch]; }
+
+    /** Abscisse source du glyphe ch dans l'atlas. */
+    public int sourceX(int style, int ch) { return ch * cellW[style]; }
+
+    /** Ordonnee source de la ligne (style, fondu). */
+    public int sourceY(int style, int fade) { return rowY[firstRow[style] + fade]; }
+}
@@ -4,9 +4,12 @@ import java.awt.*;
 
 /**
  * Panneau d'informations detaillees.
- * Affiche les stats EFFECTIVES du joueur (apres upgrades) en temps reel.
+ * Affiche les stats EFFECTIVES du joueur (apres upgrades).
+ *
+ * Widget plein ecran (overlay + panneau) : son rendu est mis en cache et
+ * n'est regenere qu'a l'ouverture (show), pour refleter les stats du moment.
  */
-public class InfoPanel {
+public class InfoPanel extends UiPanel {
 
     private GamePanel gp;
 
@@ -15,13 +18,29 @@ public class InfoPanel {
     private static final Color COLOR_TANK   = new Color( 80, 200, 100);
     private static final Color COLOR_BOSS   = new Color(255, 140,   0);
 
-    public InfoPanel(GamePanel gp) { this.gp = gp; }
+    public InfoPanel(GamePanel gp) {
+        super(new Rectangle(0, 0, gp.screenWidth, gp.screenHeight));
+        this.gp      = gp;
+        this.visible = false;
+    }
+
+    /** Affiche le panneau avec les stats actuelles du joueur. */
+    public void show() {
+        setVisible(true);
+        invalidate();
+    }
+
+    /** Masque le panneau (l'ecran dessous est redessine). */
+    public void hide() { setVisible(false); }
+
+    public boolean isShown() { return visible; }
 
     // =========================================================================
     // Rendu principal
     // =========================================================================
 
-    public void draw(Graphics2D g2) {
+    @Override
+    protected void render(Graphics2D g2) {
         g2.setColor(new Color(0, 0, 0, 180));
         g2.fillRect(0, 0, gp.screenWidth, gp.screenHeight);
 
@@ -0,0 +1,340 @@
+package projetCROMBEZ;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Enregistrement des entrees de la partie en cours (rejeu : ReplayPlayer).
+ *
+ * Le mode deterministe (voir GamePanel.seedRun) rend la partie entierement
+ * determinee par sa graine, sa difficulte, les ameliorations du joueur et
+ * le masque des touches de chaque tick : c'est tout ce qui est enregistre.
+ *
+ * =========================================================================
+ * FORMAT (.rpl)
+ * =========================================================================
+ *  en-tete = MAGIC (int) | VERSION (short) | graine (long)
+ *          | difficulte (byte) | niveaux d'amelioration (7 x byte)
+ *  flux    = suite de varints (LEB128, non signes)
+ *    v > 0 : (nombre de ticks << MASK_BITS) | masque KeyHandler
+ *            (meme masque pendant plusieurs ticks consecutifs)
+ *    v = 0 : evenement, suivi de son type (byte)
+ *            EV_LOADOUT : niveaux d'amelioration (7 x byte), achat en cours
+ *                         de partie (pause -> menu -> boutique -> reprendre)
+ *            EV_KEYFRAME: image cle : taille (varint) | taille brute (varint)
+ *                         | niveaux (7 x byte) | WorldSnapshot compresse
+ *                         (Deflater), etat du monde avant le tick suivant
+ *            EV_END     : fin de partie : ticks (varint) | issue (byte)
+ *  index   = apres le flux (depuis la version 3, aussi pour une partie
+ *            en cours ; version 2 : parties terminees seulement) :
+ *            ticks (varint) | issue (byte, ISSUE_NONE si en cours)
+ *            | niveaux en vigueur (7 x byte) | nombre d'images cles (varint)
+ *            | par image cle : ecart de tick, ecart de position (varints)
+ *            | intervalle des empreintes (varint) | nombre (varint)
+ *            | empreintes (StateHash.fold16, 2 octets chacune)
+ *            | position de l'index (int) | INDEX_MAGIC (int)
+ *
+ * Une partie tient en quelques octets par changement de touche : une
+ * heure de jeu fait typiquement quelques dizaines de Ko. Un fichier sans
+ * index (version 1) se lit jusqu'a sa fin.
+ *
+ * Empreintes : tous les GameSettings.getHashTicks() ticks, l'empreinte
+ * 16 bits de l'etat (GamePanel.stateHash) apres ce tick ; la i-eme
+ * correspond au tick (i + 1) x intervalle. Le rejeu les compare a son
+ * propre etat (ReplayPlayer.check) : premier tick divergent a un
+ * intervalle pres. Une collision (1 chance sur 65536) ne fait que
+ * retarder la detection : une divergence ne se resorbe pas.
+ *
+ * Images cles : une tous les GameSettings.getKeyframeSeconds(), sautee
+ * si elle ferait depasser aux images cles getKeyframeOverhead() fois la
+ * taille des entrees. Acces a un tick quelconque (ReplayPlayer.seek) :
+ * restauration de l'image cle precedente (trouvee dans l'index, sans
+ * lire le flux) puis simulation des ticks restants seulement.
+ *
+ * Thread de jeu uniquement.
+ */
+public final class InputRecorder {
+
+    /** "SVRP" */
+    static final int   MAGIC   = 0x53565250;
+    static final short VERSION = 3;
+
+    /** "SVRI" : fin d'un fichier indexe. */
+    static final int INDEX_MAGIC = 0x53565249;
+
+    static final int EV_LOADOUT = 1, EV_END = 2, EV_KEYFRAME = 3;
+
+    /** Issue de la partie (EV_END). */
+    static final int OUTCOME_ABANDONED = 0, OUTCOME_GAME_OVER = 1, OUTCOME_VICTORY = 2;
+
+    /** Issue dans l'index d'une partie en cours. */
+    static final int ISSUE_NONE = 0xFF;
+
+    private byte[] buf = new byte[1024];
+    private int    len;
+
+    private boolean active;
+
+    /** Ticks enregistres depuis le debut de la partie. */
+    private int ticks;
+
+    /** Serie en cours : masque et nombre de ticks (pas encore ecrite). */
+    private int runMask = -1, runLength;
+
+    /** Niveaux d'amelioration en vigueur dans l'enregistrement. */
+    private final int[] loadout = new int[RunHistory.UPGRADE_COUNT];
+    private final int[] current = new int[RunHistory.UPGRADE_COUNT];
+
+    // Images cles
+    private int      keyframeTicks;
+    private double   keyframeOverhead;
+    private int      keyframeBytes, lastKeyframeSize;
+    private int[]    kfTicks = new int[16], kfOffsets = new int[16];
+    private int      kfCount;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[]   packed = new byte[4096];
+
+    // Empreintes d'etat
+    private int     hashTicks;
+    private short[] hashes = new short[1024];
+    private int     hashCount;
+
+    // =========================================================================
+    // Enregistrement
+    // =========================================================================
+
+    /** Commence l'enregistrement d'une nouvelle partie (premier tick). */
+    public void begin(GamePanel gp) {
+        len = 0;
+        ticks = 0;
+        runMask = -1;
+        runLength = 0;
+        resetKeyframes(gp);
+        hashTicks = GameSettings.getInstance().getHashTicks();
+        hashCount = 0;
+        putInt(MAGIC);
+        put(VERSION >> 8);
+        put(VERSION);
+        putLong(gp.runSeed);
+        put(GameSettings.getInstance().getDifficulty().ordinal());
+        gp.player.getUpgradeLevels(loadout);
+        for (int l : loadout) put(l);
+        active = true;
+    }
+
+    /** Enregistre le masque des touches d'un tick de simulation (avant ce tick). */
+    public void record(GamePanel gp, int mask) {
+        if (!active) return;
+        if (!Arrays.equals(gp.player.getUpgradeLevels(current), loadout)) {
+            flushRun();
+            System.arraycopy(current, 0, loadout, 0, loadout.length);
+            putVarint(0);
+            put(EV_LOADOUT);
+            for (int l : loadout) put(l);
+        }
+        if (ticks > 0 && ticks % keyframeTicks == 0) keyframe(gp);
+        if (mask == runMask) {
+            runLength++;
+        } else {
+            flushRun();
+            runMask   = mask;
+            runLength = 1;
+        }
+        ticks++;
+    }
+
+    /** Enregistre l'empreinte de l'etat apres le tick (un tick sur hashTicks). */
+    public void recordHash(int tick, long hash) {
+        if (!active || tick % hashTicks != 0) return;
+        if (hashCount == hashes.length) hashes = Arrays.copyOf(hashes, hashCount * 2);
+        hashes[hashCount++] = (short) StateHash.fold16(hash);
+    }
+
+    public boolean isActive() { return active; }
+
+    /** Copie de l'enregistrement en cours, index compris (sauvegarde de la partie). */
+    public byte[] snapshot() {
+        flushRun();
+        int end = len;
+        writeIndex(ISSUE_NONE);
+        byte[] copy = Arrays.copyOf(buf, len);
+        len = end; // l'index n'est pas dans le flux
+        return copy;
+    }
+
+    /**
+     * Termine l'enregistrement.
+     *
+     * @param outcome OUTCOME_*
+     * @return le fichier complet
+     */
+    public byte[] finish(int outcome) {
+        flushRun();
+        putVarint(0);
+        put(EV_END);
+        putVarint(ticks);
+        put(outcome);
+        writeIndex(outcome);
+        active = false;
+        return Arrays.copyOf(buf, len);
+    }
+
+    private void writeIndex(int outcome) {
+        int indexAt = len;
+        putVarint(ticks);
+        put(outcome);
+        for (int l : loadout) put(l);
+        putVarint(kfCount);
+        for (int i = 0; i < kfCount; i++) {
+            putVarint(kfTicks[i]   - (i == 0 ? 0 : kfTicks[i - 1]));
+            putVarint(kfOffsets[i] - (i == 0 ? 0 : kfOffsets[i - 1]));
+        }
+        putVarint(hashTicks);
+        putVarint(hashCount);
+        for (int i = 0; i < hashCount; i++) {
+            put(hashes[i] >> 8);
+            put(hashes[i]);
+        }
+        putInt(indexAt);
+        putInt(INDEX_MAGIC);
+    }
+
+    /**
+     * Reprend l'enregistrement d'une partie restauree depuis le disque.
+     * Refuse (et n'enregistre pas la suite) si le fichier ne correspond
+     * pas a la partie (autre graine, autre nombre de ticks) ou s'il n'a
+     * pas d'empreintes (version anterieure).
+     *
+     * @return true si l'enregistrement continue
+     */
+    public boolean resume(GamePanel gp, byte[] data) {
+        active = false;
+        ReplayPlayer r;
+        try {
+            r = ReplayPlayer.parse(data);
+        } catch (java.io.IOException e) {
+            return false;
+        }
+        if (r.seed != gp.runSeed || r.ended() || r.totalTicks() != gp.survivalTicks) return false;
+        if (r.hashTicks() == 0 || r.hashCount() != r.totalTicks() / r.hashTicks()) return false;
+
+        int end = r.streamEnd();
+        buf = Arrays.copyOf(data, Math.max(end * 2, 1024));
+        len = end;
+        ticks = r.totalTicks();
+        runMask = -1;
+        runLength = 0;
+        System.arraycopy(r.finalLoadout(), 0, loadout, 0, loadout.length);
+        resetKeyframes(gp);
+        for (int i = 0; i < r.keyframeCount(); i++) addKeyframe(r.keyframeTick(i), r.keyframeOffset(i));
+        keyframeBytes    = r.keyframeBytes();
+        lastKeyframeSize = kfCount == 0 ? 0 : keyframeBytes / kfCount;
+        hashTicks = r.hashTicks();
+        hashCount = r.hashCount();
+        if (hashes.length < hashCount) hashes = new short[Integer.highestOneBit(hashCount) * 2];
+        for (int i = 0; i < hashCount; i++) hashes[i] = (short) r.hash(i);
+        active = true;
+        return true;
+    }
+
+    /** Abandonne l'enregistrement en cours. */
+    public void stop() {
+        active = false;
+    }
+
+    // =========================================================================
+    // Images cles
+    // =========================================================================
+
+    private void resetKeyframes(GamePanel gp) {
+        GameSettings s   = GameSettings.getInstance();
+        keyframeTicks    = s.getKeyframeSeconds() * gp.FPS;
+        keyframeOverhead = s.getKeyframeOverhead();
+        keyframeBytes    = 0;
+        lastKeyframeSize = 0;
+        kfCount          = 0;
+    }
+
+    /**
+     * Ajoute une image cle de l'etat courant, si le budget le permet
+     * (images cles <= keyframeOverhead x entrees). La taille de la
+     * precedente sert d'estimation : pas de capture inutile.
+     */
+    private void keyframe(GamePanel gp) {
+        double budget = keyframeOverhead * (len - keyframeBytes);
+        if (keyframeBytes + lastKeyframeSize > budget) return;
+
+        byte[] raw = WorldSnapshot.capture(gp);
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int packedLen = 0;
+        while (!deflater.finished()) {
+            if (packedLen == packed.length) packed = Arrays.copyOf(packed, packed.length * 2);
+            packedLen += deflater.deflate(packed, packedLen, packed.length - packedLen);
+        }
+
+        int payload = varintSize(raw.length) + loadout.length + packedLen;
+        int size    = 2 + varintSize(payload) + payload;
+        lastKeyframeSize = size;
+        if (keyframeBytes + size > budget) return;
+
+        flushRun();
+        int at = len;
+        putVarint(0);
+        put(EV_KEYFRAME);
+        putVarint(payload);
+        putVarint(raw.length);
+        for (int l : loadout) put(l);
+        for (int i = 0; i < packedLen; i++) put(packed[i]);
+        addKeyframe(ticks, at);
+        keyframeBytes += size;
+    }
+
+    private void addKeyframe(int tick, int offset) {
+        if (kfCount == kfTicks.length) {
+            kfTicks   = Arrays.copyOf(kfTicks,   kfCount * 2);
+            kfOffsets = Arrays.copyOf(kfOffsets, kfCount * 2);
+        }
+        kfTicks[kfCount]   = tick;
+        kfOffsets[kfCount] = offset;
+        kfCount++;
+    }
+
+    // =========================================================================
+    // Encodage
+    // =========================================================================
+
+    private void flushRun() {
+        if (runLength > 0) putVarint(((long) runLength << KeyHandler.MASK_BITS) | runMask);
+        runMask   = -1;
+        runLength = 0;
+    }
+
+    private void put(int b) {
+        if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        buf[len++] = (byte) b;
+    }
+
+    private void putInt(int v) {
+        for (int s = 24; s >= 0; s -= 8) put(v >>> s);
+    }
+
+    private void putLong(long v) {
+        for (int s = 56; s >= 0; s -= 8) put((int) (v >>> s));
+    }
+
+    private static int varintSize(long v) {
+        int n = 1;
+        while ((v & ~0x7FL) != 0) { v >>>= 7; n++; }
+        return n;
+    }
+
+    private void putVarint(long v) {
+        while ((v & ~0x7FL) != 0) {
+            put((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        put((int) v);
+    }
+}
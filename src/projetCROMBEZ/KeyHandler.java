@@ -44,6 +44,35 @@ public class KeyHandler implements KeyListener {
      */
     public boolean escapeJustPressed;
 
+    /** Touche F9 : demarre / arrete la capture des frames (one-shot, voir FrameCapture). */
+    public boolean captureJustPressed;
+
+    // -------------------------------------------------------------------------
+    // Masque des touches (un bit par touche : enregistrement des parties)
+    // -------------------------------------------------------------------------
+
+    public static final int UP = 1, DOWN = 2, LEFT = 4, RIGHT = 8, ENTER = 16, ESCAPE = 32;
+
+    /** Nombre de bits utilises par le masque. */
+    public static final int MASK_BITS = 6;
+
+    /** Etat des touches sous forme de masque (UP | DOWN | ...). */
+    public int mask() {
+        return (upPressed    ? UP    : 0) | (downPressed  ? DOWN  : 0)
+             | (leftPressed  ? LEFT  : 0) | (rightPressed ? RIGHT : 0)
+             | (enterPressed ? ENTER : 0) | (escapeJustPressed ? ESCAPE : 0);
+    }
+
+    /** Remplace l'etat des touches par celui d'un masque (rejeu). */
+    public void setMask(int m) {
+        upPressed         = (m & UP)     != 0;
+        downPressed       = (m & DOWN)   != 0;
+        leftPressed       = (m & LEFT)   != 0;
+        rightPressed      = (m & RIGHT)  != 0;
+        enterPressed      = (m & ENTER)  != 0;
+        escapeJustPressed = (m & ESCAPE) != 0;
+    }
+
     // -------------------------------------------------------------------------
     // Implmentation KeyListener
     // -------------------------------------------------------------------------
@@ -69,6 +98,9 @@ public class KeyHandler implements KeyListener {
 
         // Pause (one-shot : sera remis  false aprs lecture dans GamePanel)
         if (code == KeyEvent.VK_ESCAPE) escapeJustPressed = true;
+
+        // Capture des frames (one-shot, hors masque : pas une entree de jeu)
+        if (code == KeyEvent.VK_F9) captureJustPressed = true;
     }
 
     /** Appel ds qu'une touche est relache. */
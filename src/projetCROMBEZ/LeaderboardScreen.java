@@ -0,0 +1,221 @@
+package projetCROMBEZ;
+
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Ecran du classement : les 10 meilleures parties d'une difficulte.
+ *
+ * Accessible depuis le menu principal. Un onglet par difficulte ; chaque
+ * ligne reprend une partie archivee dans {@link RunHistory} (temps de
+ * survie, vague atteinte, ennemis tues par type, or gagne, degats,
+ * total des niveaux d'amelioration, issue et date).
+ *
+ * --- Architecture listener ---
+ * Aucun MouseListener ici. GamePanel dispatche via handleClick/handleHover
+ * uniquement quand gameState == LEADERBOARD.
+ *
+ * --- Rendu retenu ---
+ * Les lignes sont des labels construits une fois ; changer d'onglet ne
+ * fait que changer leur texte (seules les cellules modifiees sont
+ * redessinees).
+ */
+public class LeaderboardScreen {
+
+    // =========================================================================
+    // Reference
+    // =========================================================================
+
+    private GamePanel gp;
+
+    // =========================================================================
+    // Mise en page
+    // =========================================================================
+
+    private static final int ROWS = 10;
+
+    private static final String[] HEADERS = {
+        "#", "Temps", "Vague", "Tues M/D/T/B", "Or", "Degats", "Amel.", "Issue", "Date"
+    };
+
+    /** Abscisse de chaque colonne. */
+    private static final int[] COL_X = { 130, 180, 300, 390, 600, 690, 800, 890, 1010 };
+
+    private static final int TABLE_Y = 250, ROW_H = 38;
+
+    private static final Color ROW_TEXT    = new Color(220, 220, 230);
+    private static final Color ROW_VICTORY = new Color(100, 220, 120);
+    private static final Color ROW_DEFEAT  = new Color(220, 100, 100);
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yy");
+
+    // =========================================================================
+    // Widgets
+    // =========================================================================
+
+    private final UiRoot ui;
+
+    private final UiButton[]  tabs  = new UiButton[DifficultyLevel.values().length];
+    private final UiLabel[][] cells = new UiLabel[ROWS][HEADERS.length];
+    private final UiLabel     empty;
+    private final UiLabel     footer;
+
+    /** Difficulte affichee. */
+    private DifficultyLevel selected = DifficultyLevel.NORMAL;
+
+    // =========================================================================
+    // Constructeur
+    // =========================================================================
+
+    public LeaderboardScreen(GamePanel gp) {
+        this.gp = gp;
+        this.ui = new UiRoot(gp);
+
+        int cx = gp.screenWidth / 2;
+
+        // Fond degrade
+        ui.add(new UiPanel(new Rectangle(0, 0, gp.screenWidth, gp.screenHeight),
+                new GradientPaint(0, 0, new Color(10, 10, 30), 0, gp.screenHeight, new Color(30, 10, 60))));
+
+        // Titre
+        UiLabel title = ui.add(new UiLabel("CLASSEMENT", gp.uiFont(Font.BOLD, 40f),
+                                           new Color(255, 200, 50), cx, 100, UiLabel.CENTER));
+        title.setShadow(new Color(120, 80, 0), 3);
+
+        // Onglets de difficulte
+        DifficultyLevel[] levels = DifficultyLevel.values();
+        int tabW = 170, tabGap = 20;
+        int tabX = cx - (levels.length * (tabW + tabGap) - tabGap) / 2;
+        for (int i = 0; i < levels.length; i++) {
+            final DifficultyLevel level = levels[i];
+            UiButton t = ui.add(new UiButton(new Rectangle(tabX + i * (tabW + tabGap), 140, tabW, 40),
+                                             level.getLabel(), gp.uiFont(Font.BOLD, 18f), () -> select(level)));
+            t.setShape(12, 2f);
+            tabs[i] = t;
+        }
+
+        // En-tetes
+        Font hf = gp.uiFont(Font.BOLD, 15f);
+        for (int c = 0; c < HEADERS.length; c++) {
+            ui.add(new UiLabel(HEADERS[c], hf, new Color(200, 150, 50), COL_X[c], TABLE_Y - 20, UiLabel.LEFT));
+        }
+
+        // Lignes (texte rempli par refresh)
+        Font rf = gp.uiFont(Font.PLAIN, 15f);
+        for (int r = 0; r < ROWS; r++) {
+            int y = TABLE_Y + 20 + r * ROW_H;
+            if (r % 2 == 0) {
+                ui.add(new UiPanel(new Rectangle(COL_X[0] - 15, y - 25, 1000, ROW_H), new Color(255, 255, 255, 12)));
+            }
+            for (int c = 0; c < HEADERS.length; c++) {
+                cells[r][c] = ui.add(new UiLabel("", rf, ROW_TEXT, COL_X[c], y, UiLabel.LEFT));
+            }
+        }
+
+        empty = ui.add(new UiLabel("Aucune partie terminee dans cette difficulte.", gp.uiFont(Font.PLAIN, 18f),
+                                   new Color(150, 150, 170), cx, TABLE_Y + 120, UiLabel.CENTER));
+
+        footer = ui.add(new UiLabel("", gp.uiFont(Font.PLAIN, 12f), new Color(120, 120, 140),
+                                    cx, TABLE_Y + 20 + ROWS * ROW_H + 10, UiLabel.CENTER));
+
+        // Bouton Retour
+        UiButton back = ui.add(new UiButton(new Rectangle(cx - 80, gp.screenHeight - 90, 160, 40),
+                "<- Retour", gp.uiFont(Font.PLAIN, 16f), () -> gp.gameState = GameState.MENU));
+        back.setShape(10, 1.5f);
+        back.setColors(new Color(40, 40, 60), new Color(80, 80, 100),
+                       new Color(150, 150, 180), new Color(150, 150, 180));
+    }
+
+    // =========================================================================
+    // Gestion des evenements (appeles par GamePanel)
+    // =========================================================================
+
+    /**
+     * Appele (EDT) quand l'ecran devient l'ecran courant : l'onglet de la
+     * difficulte courante est selectionne et les lignes sont relues.
+     */
+    public void onShow() {
+        selected = GameSettings.getInstance().getDifficulty();
+        refresh();
+        ui.invalidateAll();
+        ui.resetHover();
+        Point m = gp.lastMouse;
+        if (m != null) ui.hover(m);
+    }
+
+    public void handleClick(Point p) {
+        ui.click(p);
+    }
+
+    public void handleHover(Point p) {
+        ui.hover(p);
+    }
+
+    // =========================================================================
+    // Logique
+    // =========================================================================
+
+    private void select(DifficultyLevel level) {
+        if (level == selected) return;
+        selected = level;
+        refresh();
+    }
+
+    /** Relit le top 10 de la difficulte selectionnee et met a jour les cellules. */
+    private void refresh() {
+        for (int i = 0; i < tabs.length; i++) {
+            if (i == selected.ordinal()) {
+                tabs[i].setColors(new Color(130, 90, 0), new Color(150, 105, 0),
+                                  new Color(255, 200, 50), new Color(255, 200, 50));
+            } else {
+                tabs[i].setColors(new Color(40, 40, 60), new Color(80, 80, 100),
+                                  new Color(110, 110, 140), new Color(150, 150, 180));
+            }
+        }
+
+        RunHistory history = RunHistory.getInstance();
+        long start = System.nanoTime();
+        List<RunHistory.Entry> top = history.top(selected, ROWS);
+        long queryNanos = System.nanoTime() - start;
+
+        for (int r = 0; r < ROWS; r++) {
+            UiLabel[] row = cells[r];
+            if (r >= top.size()) {
+                for (UiLabel l : row) l.setText("");
+                continue;
+            }
+            RunHistory.Entry e = top.get(r);
+            int upgrades = 0;
+            for (int u : e.upgrades) upgrades += u;
+
+            row[0].setText(String.valueOf(r + 1));
+            row[1].setText(formatTime(e.survivalTicks / gp.FPS));
+            row[2].setText(String.valueOf(e.wave));
+            row[3].setText(e.kills[EnemyManager.TYPE_MELEE] + " / " + e.kills[EnemyManager.TYPE_RANGED]
+                           + " / " + e.kills[EnemyManager.TYPE_TANK] + " / " + e.kills[EnemyManager.TYPE_BOSS]);
+            row[4].setText(String.valueOf(e.goldEarned));
+            row[5].setText(String.valueOf(e.damageDealt));
+            row[6].setText(String.valueOf(upgrades));
+            row[7].setText(e.victory ? "Victoire" : "Defaite");
+            row[7].setColor(e.victory ? ROW_VICTORY : ROW_DEFEAT);
+            row[8].setText(dateFormat.format(new Date(e.date)));
+        }
+
+        empty.setVisible(top.isEmpty());
+        footer.setText(String.format("%d partie(s) en %s  -  %d au total  -  requete %.1f us",
+                                     history.count(selected), selected.getLabel(),
+                                     history.count(), queryNanos / 1e3));
+    }
+
+    private static String formatTime(int s) { return (s / 60) + "m " + (s % 60) + "s"; }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    public void draw(Graphics2D g2) {
+        ui.paint(g2);
+    }
+}
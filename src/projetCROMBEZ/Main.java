@@ -1,11 +1,14 @@
 package projetCROMBEZ;
 
 import java.awt.Color;
-import java.awt.GridBagLayout;
+import java.awt.BorderLayout;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 /**
  * Point d'entree de l'application.
@@ -13,12 +16,41 @@ import javax.swing.JFrame;
  * =========================================================================
  * ORDRE D'INITIALISATION (important)
  * =========================================================================
+ *  0. Appliquer le pipeline Java2D enregistre (avant toute classe AWT)
  *  1. Creer JFrame + GamePanel
  *  2. Transmettre les references a GameSettings (window + gamePanel)
  *     -> permet a GameSettings.saveIfReady() de fonctionner
  *  3. Appeler SaveManager.load() pour restaurer la sauvegarde
  *     -> charge options, stats joueur, records, hasActiveGame
  *  4. Afficher la fenetre et demarrer la boucle de jeu
+ *  5. Premier lancement : mesurer les pipelines en fond (PipelineProbe)
+ *
+ * Arguments :
+ *  --seed N             mode deterministe (toutes les parties utilisent
+ *                       la graine N, voir GamePanel.seedRun)
+ *  --replay fichier     rejoue un enregistrement (save/replays/*.rpl)
+ *                       dans la fenetre, voir ReplayPlayer
+ *  --headless           avec --replay : rejeu sans fenetre, aussi vite
+ *                       que possible (debit + controle de desynchronisation)
+ *  --seek S             avec --replay : commence le rejeu a S secondes
+ *                       (sans fenetre : mesure l'acces direct a S secondes)
+ *  --keyframe-seconds N intervalle des images cles des enregistrements
+ *  --keyframe-overhead R taille maximale des images cles (R x les entrees)
+ *  --hash-ticks N       intervalle des empreintes d'etat enregistrees
+ *  --export fichier     exporte un enregistrement en images, sans fenetre
+ *                       et en parallele (voir ReplayExporter)
+ *  --out dossier        avec --export : dossier de sortie (export/)
+ *  --format png|raw     avec --export : PNG numerotes ou frames brutes
+ *  --threads N          avec --export : threads (defaut : un par coeur)
+ *  --capture-format png|raw  format de la capture des frames (F9 en jeu,
+ *                       voir FrameCapture)
+ *  --stress             rapport de capacite sur des scenarios de charge,
+ *                       sans fenetre (voir StressTest)
+ *  --scenario S         avec --stress : scenarios (defaut : un par type
+ *                       d'entite puis un melange)
+ *  --stress-seconds N   avec --stress : duree de chaque mesure (2 s)
+ *  --tick-budget MS     avec --stress : budget d'un tick (1000/FPS)
+ *  --frame-budget MS    avec --stress : budget d'une frame (1000/FPS)
  *
  * =========================================================================
  * GARANTIE DE SAUVEGARDE A LA FERMETURE
@@ -39,12 +71,96 @@ public class Main {
 
     public static void main(String[] args) {
 
+        GameSettings settings = GameSettings.getInstance();
+        File replayFile = null, exportFile = null, exportDir = new File("export");
+        ReplayExporter.Format exportFormat = ReplayExporter.Format.PNG;
+        int exportThreads = Runtime.getRuntime().availableProcessors();
+        boolean headless = false, stress = false;
+        String scenarios = StressTest.DEFAULT_SCENARIOS;
+        int stressSeconds = 2;
+        double tickBudget = 1000.0 / 60, frameBudget = 1000.0 / 60;
+        int seekSeconds = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--headless")) { headless = true; continue; }
+            if (args[i].equals("--stress"))   { stress = true; continue; }
+            if (i + 1 >= args.length) break;
+            String value = args[i + 1];
+            try {
+                switch (args[i]) {
+                    case "--replay": replayFile = new File(value); break;
+                    case "--seek":   seekSeconds = Integer.parseInt(value); break;
+                    case "--export":  exportFile = new File(value); break;
+                    case "--out":     exportDir = new File(value); break;
+                    case "--threads": exportThreads = Integer.parseInt(value); break;
+                    case "--scenario":       scenarios = value; break;
+                    case "--stress-seconds": stressSeconds = Integer.parseInt(value); break;
+                    case "--tick-budget":    tickBudget = Double.parseDouble(value); break;
+                    case "--frame-budget":   frameBudget = Double.parseDouble(value); break;
+                    case "--capture-format": settings.setCaptureRaw(value.equalsIgnoreCase("raw")); break;
+                    case "--format":
+                        if (value.equalsIgnoreCase("raw")) exportFormat = ReplayExporter.Format.RAW;
+                        break;
+                    case "--keyframe-seconds":  settings.setKeyframeSeconds(Integer.parseInt(value)); break;
+                    case "--keyframe-overhead": settings.setKeyframeOverhead(Double.parseDouble(value)); break;
+                    case "--hash-ticks":        settings.setHashTicks(Integer.parseInt(value)); break;
+                    case "--seed":
+                        // Mode deterministe : meme graine + memes entrees = meme partie
+                        settings.setFixedSeed(Long.parseLong(value));
+                        System.out.println("[Main] Mode deterministe, graine " + value);
+                        break;
+                    default: break;
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("[Main] Valeur invalide ignoree : " + args[i] + " " + value);
+            }
+        }
+
+        // Scenarios de charge : sans fenetre, rien n'est sauvegarde
+        if (stress) {
+            System.setProperty("java.awt.headless", "true");
+            System.exit(StressTest.run(scenarios, stressSeconds, tickBudget, frameBudget) ? 0 : 1);
+        }
+
+        // Export en images : toujours sans fenetre
+        if (exportFile != null) {
+            System.setProperty("java.awt.headless", "true");
+            boolean ok;
+            try {
+                ok = ReplayExporter.export(exportFile, exportDir, exportFormat, exportThreads);
+            } catch (IOException e) {
+                System.out.println("[Main] Export impossible (" + exportFile + ") : " + e.getMessage());
+                ok = false;
+            }
+            System.exit(ok ? 0 : 1);
+        }
+
+        // Rejeu sans fenetre : ni pipeline, ni sauvegarde, ni boucle de jeu
+        if (replayFile != null && headless) {
+            System.setProperty("java.awt.headless", "true"); // avant toute classe AWT
+            boolean ok;
+            try {
+                ok = ReplayPlayer.runHeadless(replayFile, seekSeconds);
+            } catch (IOException e) {
+                System.out.println("[Main] Rejeu impossible (" + replayFile + ") : " + e.getMessage());
+                ok = false;
+            }
+            System.exit(ok ? 0 : 1);
+        }
+
+        // Pipeline Java2D (sun.java2d.*) : fige des l'initialisation d'AWT,
+        // il DOIT etre applique avant la creation de la moindre fenetre
+        RenderPipeline pipeline = SaveManager.loadStartupPipeline();
+        pipeline.apply();
+        System.out.println("[Main] Pipeline Java2D demande : " + pipeline.getLabel());
+
         // Fenetre principale
         JFrame window = new JFrame();
         window.setTitle("Survivor V1");
         window.setResizable(false);
         window.getContentPane().setBackground(Color.black);
-        window.getContentPane().setLayout(new GridBagLayout()); // centre le GamePanel (letterbox)
+        // Le GamePanel occupe toute la fenetre : il agrandit lui-meme son
+        // tampon interne et dessine les bandes noires (letterbox)
+        window.getContentPane().setLayout(new BorderLayout());
 
         // NE PAS utiliser EXIT_ON_CLOSE : on veut controler l'ordre de fermeture
         // (sauvegarder AVANT de quitter)
@@ -74,7 +190,9 @@ public class Main {
             public void windowClosing(WindowEvent e) {
                 System.out.println("[Main] Fermeture de la fenetre - sauvegarde en cours...");
                 SaveManager.save(gamePanel);
+                SaveManager.flush(SaveManager.EXIT_FLUSH_MS);
                 System.out.println("[Main] Sauvegarde terminee. Fermeture.");
+                GameSettings.getInstance().releaseDisplay(); // rend l'ecran exclusif et son mode
                 System.exit(0); // declenche aussi le ShutdownHook (second filet)
             }
         });
@@ -93,6 +211,24 @@ public class Main {
             GameSettings.getInstance().toggleFullscreen();
         }
 
+        // Visionnage d'un enregistrement : la partie rejouee remplace le menu
+        if (replayFile != null) {
+            try {
+                ReplayPlayer replay = ReplayPlayer.open(replayFile);
+                replay.start(gamePanel);
+                if (seekSeconds > 0) replay.seek(gamePanel, seekSeconds * gamePanel.FPS);
+            } catch (IOException e) {
+                System.out.println("[Main] Rejeu impossible (" + replayFile + ") : " + e.getMessage());
+            }
+        }
+
         gamePanel.startGameThread();
+
+        // Aucune mesure des pipelines : sonde en fond, resultat applique
+        // au prochain lancement (pipeline) et tout de suite (tampon)
+        if (!GameSettings.getInstance().hasProbeResult()) {
+            PipelineProbe.runInBackground(() -> SwingUtilities.invokeLater(
+                    () -> gamePanel.optionsScreen.refreshPipeline()));
+        }
     }
 }
@@ -0,0 +1,131 @@
+package projetCROMBEZ;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Etat graphique Java2D identifie par un entier ("cle de materiau").
+ *
+ * Un materiau regroupe tout ce qui est couteux a changer sur un Graphics2D :
+ * la peinture (Color ou GradientPaint), le trait (Stroke) et la police.
+ * Les commandes de la {@link DisplayList} ne stockent que l'identifiant,
+ * ce qui permet de les trier pour regrouper les commandes de meme etat.
+ *
+ * Les materiaux sont internes (un seul identifiant par combinaison) et
+ * doivent etre enregistres a l'initialisation (constructeurs, champs
+ * statiques), jamais pendant l'emission d'une frame.
+ */
+public final class Material {
+
+    // =========================================================================
+    // Registre
+    // =========================================================================
+
+    /** Trait par defaut de Java2D (1 px, plein). */
+    public static final Stroke DEFAULT_STROKE = new BasicStroke(1f);
+
+    private static final Map<Material, Material> INTERN = new HashMap<>();
+    private static final Map<Float, Stroke>      STROKES = new HashMap<>();
+
+    /**
+     * Table indexee par identifiant. Remplacee entierement a chaque ajout
+     * (copie a l'ecriture) pour que l'EDT puisse la lire sans verrou.
+     */
+    private static volatile Material[] table = new Material[0];
+
+    // =========================================================================
+    // Etat
+    // =========================================================================
+
+    public final int    id;
+    public final Paint  paint;
+    public final Stroke stroke;
+    public final Font   font;
+
+    private Material(int id, Paint paint, Stroke stroke, Font font) {
+        this.id     = id;
+        this.paint  = paint;
+        this.stroke = stroke != null ? stroke : DEFAULT_STROKE;
+        this.font   = font;
+    }
+
+    // =========================================================================
+    // Fabriques
+    // =========================================================================
+
+    /** Materiau de remplissage uni. */
+    public static int fill(Color c) { return of(c, null, null); }
+
+    /** Materiau de contour avec un trait plein de largeur donnee. */
+    public static int stroke(Color c, float width) { return of(c, strokeOf(width), null); }
+
+    /** Materiau de contour avec un trait quelconque (ex : pointilles). */
+    public static int stroke(Color c, Stroke s) { return of(c, s, null); }
+
+    /** Materiau de texte. */
+    public static int text(Color c, Font f) { return of(c, null, f); }
+
+    /** Materiau de remplissage avec une peinture quelconque (ex : degrade). */
+    public static int paint(Paint p) { return of(p, null, null); }
+
+    /**
+     * Retourne l'identifiant du materiau (paint, stroke, font),
+     * en le creant si necessaire.
+     */
+    public static synchronized int of(Paint paint, Stroke stroke, Font font) {
+        Material key = new Material(-1, paint, stroke, font);
+        Material m = INTERN.get(key);
+        if (m != null) return m.id;
+
+        Material[] old = table;
+        m = new Material(old.length, paint, key.stroke, font);
+        Material[] grown = new Material[old.length + 1];
+        System.arraycopy(old, 0, grown, 0, old.length);
+        grown[m.id] = m;
+        INTERN.put(m, m);
+        table = grown;
+        return m.id;
+    }
+
+    /** Trait plein partage pour une largeur donnee. */
+    public static synchronized Stroke strokeOf(float width) {
+        Stroke s = STROKES.get(width);
+        if (s == null) {
+            s = (width == 1f) ? DEFAULT_STROKE : new BasicStroke(width);
+            STROKES.put(width, s);
+        }
+        return s;
+    }
+
+    /** Acces lecture seule depuis n'importe quel thread. */
+    public static Material get(int id) { return table[id]; }
+
+    /** Nombre de materiaux enregistres. */
+    public static int count() { return table.length; }
+
+    // =========================================================================
+    // Egalite (interning)
+    // =========================================================================
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Material)) return false;
+        Material m = (Material) o;
+        return eq(paint, m.paint) && eq(stroke, m.stroke) && eq(font, m.font);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = paint != null ? paint.hashCode() : 0;
+        h = 31 * h + stroke.hashCode();
+        h = 31 * h + (font != null ? font.hashCode() : 0);
+        return h;
+    }
+
+    private static boolean eq(Object a, Object b) { return a == null ? b == null : a.equals(b); }
+}
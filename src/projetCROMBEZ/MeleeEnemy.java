@@ -1,6 +1,9 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -45,7 +48,7 @@ public class MeleeEnemy extends Enemy {
     public MeleeEnemy(double x, double y) {
         // HP=40 | damage=10 | speed=2.0 | size=28 | rouge agressif
         super(x, y, 40, 10, 2.0, 28, new Color(220, 50, 50));
-        this.hpBarColor = new Color(255, 80, 80);
+        setHpBarColor(new Color(255, 80, 80));
     }
 
     // -------------------------------------------------------------------------
@@ -58,7 +61,7 @@ public class MeleeEnemy extends Enemy {
         moveToward(player.x, player.y);
 
         // Calcule l'angle pour faire pivoter le triangle vers le joueur
-        angle = Math.atan2(player.y - y, player.x - x);
+        angle = StrictMath.atan2(player.y - y, player.x - x);
 
         // --- Attaque au contact ---
         if (attackCooldown > 0) attackCooldown--;
@@ -69,32 +72,53 @@ public class MeleeEnemy extends Enemy {
         }
     }
 
+    // -------------------------------------------------------------------------
+    // Sauvegarde (WorldSnapshot)
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(attackCooldown);
+        out.writeDouble(angle);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        attackCooldown = in.readInt();
+        angle          = in.readDouble();
+    }
+
     // -------------------------------------------------------------------------
     // Rendu
     // -------------------------------------------------------------------------
 
+    /** Contour sombre du triangle. */
+    private static final int MAT_OUTLINE = Material.stroke(new Color(120, 20, 20), 2f);
+
+    /** Triangle dans le repre local : pointe droite, angle gauche haut, angle gauche bas. */
+    private static final int[] LOCAL_X = { 1, -1, -1 };
+    private static final int[] LOCAL_Y = { 0, -1,  1 };
+
+    /** Sommets du triangle, rutiliss d'un tick  l'autre. */
+    private final int[] px = new int[3], py = new int[3];
+
     @Override
-    public void draw(Graphics2D g2) {
+    public void emit(DisplayList dl) {
         // --- Construction du triangle quilatral ---
         // Le triangle est dfini dans un repre local (centr en 0,0),
-        // puis tourn vers le joueur et translat  la position de l'ennemi.
-        int half = size / 2;
-        int[] xPts = { half, -half, -half };  // pointe droite, angle gauche haut, angle gauche bas
-        int[] yPts = { 0, -half, half };
-
-        Polygon triangle = buildRotatedPolygon(xPts, yPts, angle);
+        // puis tourn vers le joueur et translat  la position de l'ennemi.
+        buildRotatedPolygon(size / 2, angle);
+        int v = dl.addVertices(px, py, 3);
 
         // Corps du triangle (flash blanc si hit)
-        g2.setColor(getDrawColor(color));
-        g2.fillPolygon(triangle);
+        dl.fillPolygon(DisplayList.LAYER_BODY, getDrawMaterial(bodyMaterial), v, 3);
 
         // Contour sombre
-        g2.setColor(new Color(120, 20, 20));
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawPolygon(triangle);
-        g2.setStroke(new BasicStroke(1f));
+        dl.drawPolygon(DisplayList.LAYER_OUTLINE, MAT_OUTLINE, v, 3);
 
-        drawHpBar(g2);
+        emitHpBar(dl);
     }
 
     // -------------------------------------------------------------------------
@@ -102,25 +126,20 @@ public class MeleeEnemy extends Enemy {
     // -------------------------------------------------------------------------
 
     /**
-     * Construit un polygone  partir de points locaux en appliquant
-     * une rotation et une translation vers la position de l'ennemi.
+     * Remplit px/py  partir des points locaux (mis  l'chelle par half)
+     * en appliquant une rotation et une translation vers la position de l'ennemi.
      *
-     * @param xPts Points X dans l'espace local
-     * @param yPts Points Y dans l'espace local
+     * @param half Demi-taille du triangle
      * @param rot  Angle de rotation en radians
-     * @return Polygone prt  tre dessin
      */
-    private Polygon buildRotatedPolygon(int[] xPts, int[] yPts, double rot) {
-        int n = xPts.length;
-        int[] px = new int[n];
-        int[] py = new int[n];
+    private void buildRotatedPolygon(int half, double rot) {
         double cos = Math.cos(rot);
         double sin = Math.sin(rot);
 
-        for (int i = 0; i < n; i++) {
-            px[i] = (int) (x + xPts[i] * cos - yPts[i] * sin);
-            py[i] = (int) (y + xPts[i] * sin + yPts[i] * cos);
+        for (int i = 0; i < 3; i++) {
+            int lx = LOCAL_X[i] * half, ly = LOCAL_Y[i] * half;
+            px[i] = (int) (x + lx * cos - ly * sin);
+            py[i] = (int) (y + lx * sin + ly * cos);
         }
-        return new Polygon(px, py, n);
     }
 }
@@ -2,15 +2,27 @@ package projetCROMBEZ;
 
 import java.awt.*;
 
+import javax.swing.SwingUtilities;
+
 /**
  * Ecran des options du jeu.
  *
  * Accessible depuis le menu principal ET depuis le menu pause.
  * Retourne a l'etat precedent (returnState) quand on clique sur "Retour".
  *
- * Options disponibles :
- *  1. Afficher la portee du joueur (toggle ON/OFF)
- *  2. Plein ecran (toggle ON/OFF)
+ * Options disponibles, en deux colonnes :
+ *  Affichage
+ *   1. Afficher la portee du joueur (toggle ON/OFF)
+ *   2. Plein ecran (Non / Sans bordure / Exclusif / Exclusif natif)
+ *   3. Pipeline Java2D (Auto / pipelines du systeme), applique au lancement suivant
+ *   4. Type de tampon interne (Auto / Volatile / Compatible / Memoire)
+ *  Rendu
+ *   5. Rendu logiciel multi-thread des entites (toggle ON/OFF)
+ *   6. Resolution interne (50 / 75 / 100 %)
+ *   7. Agrandissement lisse (bilineaire) ou net (plus proche voisin)
+ *   8. Resolution dynamique (toggle ON/OFF)
+ * Sous les colonnes : resultat de la sonde des pipelines (PipelineProbe)
+ * et bouton pour relancer la mesure.
  *
  * --- Architecture listener ---
  * Aucun MouseListener n'est enregistre ici. GamePanel appelle
@@ -35,27 +47,48 @@ public class OptionsScreen {
     private GameState returnState;
 
     // =========================================================================
-    // Boutons
+    // Widgets
     // =========================================================================
 
-    /** Bouton toggle pour l'affichage de la portee. */
-    private Rectangle btnRange;
+    /** Arbre de widgets de l'ecran. */
+    private final UiRoot ui;
+
+    /** Toggle pour l'affichage de la portee. */
+    private UiToggle tglRange;
+
+    /** Choix du plein ecran (desactive ou FullscreenMode). */
+    private UiChoice chcFullscreen;
+
+    /** Toggle pour le rendu logiciel (RenderMode.SOFTWARE). */
+    private UiToggle tglSoftware;
+
+    /** Choix de l'echelle de rendu interne. */
+    private UiChoice chcScale;
+
+    /** Toggle pour l'agrandissement bilineaire. */
+    private UiToggle tglSmooth;
+
+    /** Toggle pour la resolution dynamique. */
+    private UiToggle tglDynamic;
+
+    /** Choix du pipeline Java2D. */
+    private UiChoice chcPipeline;
 
-    /** Bouton toggle pour le plein ecran. */
-    private Rectangle btnFullscreen;
+    /** Choix du type de tampon interne. */
+    private UiChoice chcBuffer;
 
-    /** Bouton pour revenir a l'etat precedent. */
-    private Rectangle btnBack;
+    /** Resultat de la sonde et pipeline actif. */
+    private UiLabel lblProbe;
 
-    /** Index du bouton survole (-1 = aucun). */
-    private int hoveredButton = -1;
+    /** Bouton de relance de la sonde. */
+    private UiButton btnProbe;
 
     // =========================================================================
     // Constructeur
     // =========================================================================
 
     /**
-     * Cree l'ecran des options et calcule les positions des boutons.
+     * Cree l'ecran des options et construit ses widgets.
      * Aucun MouseListener n'est enregistre ici.
      *
      * @param gp          Reference au GamePanel
@@ -64,13 +97,179 @@ public class OptionsScreen {
     public OptionsScreen(GamePanel gp, GameState returnState) {
         this.gp          = gp;
         this.returnState = returnState;
+        this.ui          = new UiRoot(gp);
 
         int cx     = gp.screenWidth / 2;
-        int startY = 300;
+        int startY = 280;
+        int left   = cx - 420, right = cx + 20;
+        int rowW   = 400, rowH = 60, rowStep = 80;
 
-        btnRange      = new Rectangle(cx - 200, startY,       400, 60);
-        btnFullscreen = new Rectangle(cx - 200, startY + 90,  400, 60);
-        btnBack       = new Rectangle(cx - 80,  startY + 200, 160, 40);
+        // Fond degrade
+        ui.add(new UiPanel(new Rectangle(0, 0, gp.screenWidth, gp.screenHeight),
+                new GradientPaint(0, 0, new Color(10, 10, 30), 0, gp.screenHeight, new Color(20, 10, 50))));
+
+        // Titre
+        ui.add(new UiLabel("Options", gp.uiFont(Font.BOLD, 38f), Color.white, cx, 180, UiLabel.CENTER));
+
+        GameSettings s = GameSettings.getInstance();
+        Font optFont   = gp.uiFont(Font.PLAIN, 18f);
+        Font stateFont = gp.uiFont(Font.BOLD, 11f);
+
+        // En-tetes de colonnes
+        Font headFont = gp.uiFont(Font.BOLD, 16f);
+        Color headColor = new Color(150, 150, 200);
+        ui.add(new UiLabel("Affichage", headFont, headColor, left + 10,  startY - 16, UiLabel.LEFT));
+        ui.add(new UiLabel("Rendu", headFont, headColor, right + 10, startY - 16, UiLabel.LEFT));
+
+        // Toggle : portee du joueur
+        tglRange = ui.add(new UiToggle(new Rectangle(left, startY, rowW, rowH),
+                "Afficher la portee d'attaque", optFont, stateFont, s.isShowPlayerRange(), () -> {
+                    // Inverse l'affichage de la portee du joueur
+                    s.setShowPlayerRange(!s.isShowPlayerRange());
+                    tglRange.setActive(s.isShowPlayerRange());
+                }));
+
+        // Choix : plein ecran (Non -> Sans bordure -> Exclusif -> Exclusif natif -> Non)
+        chcFullscreen = ui.add(new UiChoice(new Rectangle(left, startY + rowStep, rowW, rowH),
+                "Plein ecran", optFont, stateFont, fullscreenValue(), () -> {
+                    // Note : toggleFullscreen() appelle requestFocusInWindow() via invokeLater
+                    FullscreenMode[] modes = FullscreenMode.values();
+                    if (!s.isFullscreen()) {
+                        s.setFullscreenMode(modes[0]);
+                        s.toggleFullscreen();
+                    } else if (s.getFullscreenMode().ordinal() + 1 < modes.length) {
+                        s.setFullscreenMode(modes[s.getFullscreenMode().ordinal() + 1]);
+                    } else {
+                        s.toggleFullscreen();
+                    }
+                    chcFullscreen.setValue(fullscreenValue());
+                }));
+
+        // Choix : pipeline Java2D (Auto -> pipelines du systeme -> Auto...)
+        chcPipeline = ui.add(new UiChoice(new Rectangle(left, startY + 2 * rowStep, rowW, rowH),
+                "Pipeline Java2D", optFont, stateFont, pipelineValue(), () -> {
+                    s.setPipeline(nextPipeline(s.getPipeline()));
+                    refreshPipeline();
+                }));
+
+        // Choix : type du tampon interne (pris en compte immediatement)
+        chcBuffer = ui.add(new UiChoice(new Rectangle(left, startY + 3 * rowStep, rowW, rowH),
+                "Tampon de rendu", optFont, stateFont, bufferValue(), () -> {
+                    BufferKind[] kinds = BufferKind.values();
+                    s.setBufferKind(kinds[(s.getBufferKind().ordinal() + 1) % kinds.length]);
+                    refreshPipeline();
+                    gp.repaint();
+                }));
+
+        // Toggle : rendu logiciel des entites
+        tglSoftware = ui.add(new UiToggle(new Rectangle(right, startY, rowW, rowH),
+                "Rendu logiciel multi-thread", optFont, stateFont,
+                s.getRenderMode() == RenderMode.SOFTWARE, () -> {
+                    boolean software = s.getRenderMode() != RenderMode.SOFTWARE;
+                    s.setRenderMode(software ? RenderMode.SOFTWARE : RenderMode.JAVA2D);
+                    tglSoftware.setActive(software);
+                }));
+
+        // Choix : echelle de rendu interne (50 -> 75 -> 100 -> 50...)
+        chcScale = ui.add(new UiChoice(new Rectangle(right, startY + rowStep, rowW, rowH),
+                "Resolution interne", optFont, stateFont, s.getRenderScale() + " %", () -> {
+                    s.setRenderScale(s.nextRenderScale());
+                    chcScale.setValue(s.getRenderScale() + " %");
+                }));
+
+        // Toggle : agrandissement lisse
+        tglSmooth = ui.add(new UiToggle(new Rectangle(right, startY + 2 * rowStep, rowW, rowH),
+                "Agrandissement lisse", optFont, stateFont, s.isSmoothUpscale(), () -> {
+                    s.setSmoothUpscale(!s.isSmoothUpscale());
+                    tglSmooth.setActive(s.isSmoothUpscale());
+                    gp.repaint();
+                }));
+
+        // Toggle : resolution dynamique (plafonnee par la resolution interne)
+        tglDynamic = ui.add(new UiToggle(new Rectangle(right, startY + 3 * rowStep, rowW, rowH),
+                "Resolution dynamique", optFont, stateFont, s.isDynamicResolution(), () -> {
+                    s.setDynamicResolution(!s.isDynamicResolution());
+                    tglDynamic.setActive(s.isDynamicResolution());
+                }));
+
+        // Resultat de la sonde de pipeline
+        lblProbe = ui.add(new UiLabel(probeText(), gp.uiFont(Font.PLAIN, 13f), new Color(150, 150, 180),
+                cx, startY + 4 * rowStep + 12, UiLabel.CENTER));
+
+        // Bouton Retour
+        // Retourne a l'etat precedent (MENU ou PAUSED)
+        // Aucun autre ecran ne recevra ce clic car GamePanel dispatch
+        // selon l'etat courant au moment ou le clic entre dans handleClick.
+        UiButton back = ui.add(new UiButton(new Rectangle(cx - 170, startY + 4 * rowStep + 40, 160, 40),
+                "<- Retour", gp.uiFont(Font.PLAIN, 16f), () -> gp.gameState = this.returnState));
+        back.setShape(10, 1.5f);
+        back.setColors(new Color(40, 40, 60), new Color(80, 80, 100),
+                       new Color(150, 150, 180), new Color(150, 150, 180));
+
+        // Bouton Mesurer : relance la sonde en fond
+        btnProbe = ui.add(new UiButton(new Rectangle(cx + 10, startY + 4 * rowStep + 40, 160, 40),
+                "Mesurer", gp.uiFont(Font.PLAIN, 16f), () -> {
+                    PipelineProbe.runInBackground(() -> SwingUtilities.invokeLater(this::refreshPipeline));
+                    refreshPipeline();
+                }));
+        btnProbe.setShape(10, 1.5f);
+        btnProbe.setColors(new Color(40, 40, 60), new Color(80, 80, 100),
+                           new Color(150, 150, 180), new Color(150, 150, 180));
+    }
+
+    // =========================================================================
+    // Pipeline Java2D
+    // =========================================================================
+
+    /**
+     * Resynchronise le choix du pipeline, du tampon et le texte de la sonde
+     * (EDT). Appele aussi a la fin d'une mesure.
+     */
+    public void refreshPipeline() {
+        chcPipeline.setValue(pipelineValue());
+        chcBuffer.setValue(bufferValue());
+        lblProbe.setText(probeText());
+    }
+
+    /** Valeur du choix plein ecran ; signale le repli si l'exclusif est refuse. */
+    private static String fullscreenValue() {
+        GameSettings s = GameSettings.getInstance();
+        if (!s.isFullscreen()) return "Non";
+        FullscreenMode m = s.getFullscreenMode();
+        if (m.isExclusive() && !s.isExclusiveActive()) return m.getLabel() + " (repli)";
+        return m.getLabel();
+    }
+
+    private static RenderPipeline nextPipeline(RenderPipeline p) {
+        java.util.List<RenderPipeline> list = RenderPipeline.candidates();
+        int i = list.indexOf(p);
+        return i + 1 < list.size() ? list.get(i + 1) : RenderPipeline.AUTO;
+    }
+
+    private static String pipelineValue() {
+        GameSettings s = GameSettings.getInstance();
+        if (s.getPipeline() != RenderPipeline.AUTO) return s.getPipeline().getLabel();
+        return s.hasProbeResult() ? "Auto : " + s.getProbedPipeline().getLabel() : "Auto";
+    }
+
+    private static String bufferValue() {
+        GameSettings s = GameSettings.getInstance();
+        if (s.getBufferKind() != BufferKind.AUTO) return s.getBufferKind().getLabel();
+        return "Auto : " + s.getEffectiveBufferKind().getLabel();
+    }
+
+    private static String probeText() {
+        if (PipelineProbe.isRunning()) return "Mesure des pipelines en cours...";
+        GameSettings s = GameSettings.getInstance();
+        RenderPipeline active = PipelineProbe.currentPipeline();
+        String text = s.hasProbeResult()
+                ? String.format("Mesure : %s / %s, %.2f ms par frame", s.getProbedPipeline().getLabel(),
+                                s.getProbedBufferKind().getLabel(), s.getProbedMs())
+                : "Aucune mesure";
+        text += " | actif : " + (active != null ? active.getLabel() : "inconnu");
+        RenderPipeline wanted = s.getEffectivePipeline();
+        if (wanted != RenderPipeline.AUTO && wanted != active) text += " (relancer le jeu pour appliquer)";
+        return text;
     }
 
     // =========================================================================
@@ -91,6 +290,25 @@ public class OptionsScreen {
     // Gestion des evenements (appeles par GamePanel)
     // =========================================================================
 
+    /**
+     * Appele (EDT) quand l'ecran devient l'ecran courant : resynchronise les
+     * toggles avec GameSettings (charges depuis la sauvegarde) et redessine tout.
+     */
+    public void onShow() {
+        GameSettings s = GameSettings.getInstance();
+        tglRange.setActive(s.isShowPlayerRange());
+        chcFullscreen.setValue(fullscreenValue());
+        tglSoftware.setActive(s.getRenderMode() == RenderMode.SOFTWARE);
+        chcScale.setValue(s.getRenderScale() + " %");
+        tglSmooth.setActive(s.isSmoothUpscale());
+        tglDynamic.setActive(s.isDynamicResolution());
+        refreshPipeline();
+        ui.invalidateAll();
+        ui.resetHover();
+        Point m = gp.lastMouse;
+        if (m != null) ui.hover(m);
+    }
+
     /**
      * Traite un clic souris sur cet ecran.
      * Appele par GamePanel UNIQUEMENT quand gameState == OPTIONS.
@@ -99,38 +317,17 @@ public class OptionsScreen {
      * @param p Position du clic en coordonnees ecran
      */
     public void handleClick(Point p) {
-        GameSettings s = GameSettings.getInstance();
-
-        if (btnRange.contains(p)) {
-            // Inverse l'affichage de la portee du joueur
-            s.setShowPlayerRange(!s.isShowPlayerRange());
-            return;
-        }
-        if (btnFullscreen.contains(p)) {
-            // Bascule plein ecran / fenetre
-            // Note : toggleFullscreen() appelle requestFocusInWindow() via invokeLater
-            s.toggleFullscreen();
-            return;
-        }
-        if (btnBack.contains(p)) {
-            // Retourne a l'etat precedent (MENU ou PAUSED)
-            // Aucun autre ecran ne recevra ce clic car GamePanel dispatch
-            // selon l'etat courant au moment ou le clic entre dans handleClick.
-            gp.gameState = returnState;
-        }
+        ui.click(p);
     }
 
     /**
-     * Met a jour le bouton survole.
+     * Met a jour le bouton survole (seuls l'ancien et le nouveau sont redessines).
      * Appele par GamePanel UNIQUEMENT quand gameState == OPTIONS.
      *
      * @param p Position de la souris en coordonnees ecran
      */
     public void handleHover(Point p) {
-        if      (btnRange.contains(p))      hoveredButton = 0;
-        else if (btnFullscreen.contains(p)) hoveredButton = 1;
-        else if (btnBack.contains(p))       hoveredButton = 2;
-        else                                hoveredButton = -1;
+        ui.hover(p);
     }
 
     // =========================================================================
@@ -138,110 +335,11 @@ public class OptionsScreen {
     // =========================================================================
 
     /**
-     * Dessine l'ecran des options.
+     * Dessine l'ecran des options (widgets dans la zone de clip).
      *
      * @param g2 Contexte graphique
      */
     public void draw(Graphics2D g2) {
-        // Fond degrade
-        GradientPaint bg = new GradientPaint(0, 0, new Color(10, 10, 30),
-                0, gp.screenHeight, new Color(20, 10, 50));
-        g2.setPaint(bg);
-        g2.fillRect(0, 0, gp.screenWidth, gp.screenHeight);
-        g2.setPaint(null);
-
-        // Titre
-        Font titleFont = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 38f)
-                                             : new Font("Arial", Font.BOLD, 38);
-        g2.setFont(titleFont);
-        g2.setColor(Color.white);
-        FontMetrics fm = g2.getFontMetrics();
-        String title = "Options";
-        g2.drawString(title, gp.screenWidth / 2 - fm.stringWidth(title) / 2, 220);
-
-        GameSettings s = GameSettings.getInstance();
-
-        // Toggle : portee du joueur
-        drawToggleButton(g2, btnRange,
-                "Afficher la portee d'attaque", s.isShowPlayerRange(), 0);
-
-        // Toggle : plein ecran
-        drawToggleButton(g2, btnFullscreen,
-                "Mode plein ecran", s.isFullscreen(), 1);
-
-        // Bouton Retour
-        boolean backHover = (hoveredButton == 2);
-        g2.setColor(backHover ? new Color(80, 80, 100) : new Color(40, 40, 60));
-        g2.fillRoundRect(btnBack.x, btnBack.y, btnBack.width, btnBack.height, 10, 10);
-        g2.setColor(new Color(150, 150, 180));
-        g2.setStroke(new BasicStroke(1.5f));
-        g2.drawRoundRect(btnBack.x, btnBack.y, btnBack.width, btnBack.height, 10, 10);
-        g2.setStroke(new BasicStroke(1f));
-
-        Font backFont = gp.gameFont != null ? gp.gameFont.deriveFont(16f)
-                                            : new Font("Arial", Font.PLAIN, 16);
-        g2.setFont(backFont);
-        g2.setColor(Color.white);
-        fm = g2.getFontMetrics();
-        String back = "<- Retour";
-        g2.drawString(back, btnBack.x + btnBack.width / 2 - fm.stringWidth(back) / 2,
-                      btnBack.y + btnBack.height / 2 + fm.getAscent() / 2 - 2);
-    }
-
-    /**
-     * Dessine un bouton toggle avec son libelle et son etat ON/OFF.
-     *
-     * @param g2     Contexte graphique
-     * @param btn    Rectangle du bouton
-     * @param label  Texte descriptif de l'option
-     * @param active true si l'option est activee (ON)
-     * @param index  Index du bouton pour la detection de hover
-     */
-    private void drawToggleButton(Graphics2D g2, Rectangle btn, String label,
-                                  boolean active, int index) {
-        boolean hovered = (hoveredButton == index);
-
-        // Fond
-        g2.setColor(hovered ? new Color(50, 50, 80) : new Color(30, 30, 55));
-        g2.fillRoundRect(btn.x, btn.y, btn.width, btn.height, 14, 14);
-
-        // Bordure
-        g2.setColor(hovered ? new Color(120, 120, 200) : new Color(70, 70, 110));
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawRoundRect(btn.x, btn.y, btn.width, btn.height, 14, 14);
-        g2.setStroke(new BasicStroke(1f));
-
-        // Libelle
-        Font optFont = gp.gameFont != null ? gp.gameFont.deriveFont(18f)
-                                           : new Font("Arial", Font.PLAIN, 18);
-        g2.setFont(optFont);
-        g2.setColor(Color.white);
-        g2.drawString(label, btn.x + 20, btn.y + btn.height / 2 + 6);
-
-        // Indicateur ON/OFF a droite
-        int toggleW = 60;
-        int toggleH = 30;
-        int toggleX = btn.x + btn.width - toggleW - 15;
-        int toggleY = btn.y + (btn.height - toggleH) / 2;
-
-        // Fond du toggle (vert si ON, rouge si OFF)
-        g2.setColor(active ? new Color(50, 180, 80) : new Color(120, 50, 50));
-        g2.fillRoundRect(toggleX, toggleY, toggleW, toggleH, toggleH, toggleH);
-
-        // Pastille blanche (a droite si ON, a gauche si OFF)
-        int knobSize = toggleH - 6;
-        int knobX    = active ? toggleX + toggleW - knobSize - 3 : toggleX + 3;
-        g2.setColor(Color.white);
-        g2.fillOval(knobX, toggleY + 3, knobSize, knobSize);
-
-        // Texte ON / OFF
-        Font toggleFont = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 11f)
-                                              : new Font("Arial", Font.BOLD, 11);
-        g2.setFont(toggleFont);
-        g2.setColor(Color.white);
-        FontMetrics fm = g2.getFontMetrics();
-        String state = active ? "ON" : "OFF";
-        g2.drawString(state, toggleX + toggleW / 2 - fm.stringWidth(state) / 2,
-                      toggleY + toggleH / 2 + fm.getAscent() / 2 - 2);
+        ui.paint(g2);
     }
 }
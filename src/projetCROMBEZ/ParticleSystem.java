@@ -0,0 +1,215 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+
+/**
+ * Systeme de particules a capacite fixe (etincelles d'impact, explosions
+ * de mort, eclats de coup critique).
+ *
+ * =========================================================================
+ * STOCKAGE
+ * =========================================================================
+ * Une particule n'est pas un objet : ses champs sont ranges dans des
+ * tableaux primitifs alloues une fois (CAPACITY entrees). Les particules
+ * vivantes occupent les indices [0, count) :
+ *  - emission : ecriture a l'indice count, O(1) ;
+ *  - recyclage : la derniere particule vivante prend la place de la
+ *    particule morte, O(1), sans trou ni liste libre.
+ *
+ * =========================================================================
+ * BUDGET
+ * =========================================================================
+ * CAPACITY est un budget global. Au-dela de SOFT_LIMIT, chaque emission
+ * est reduite proportionnellement a la place restante (les effets
+ * s'allegent au lieu de disparaitre d'un coup) ; une fois le budget
+ * atteint, les nouvelles particules sont ignorees.
+ *
+ * =========================================================================
+ * RENDU
+ * =========================================================================
+ * Un seul materiau par type de particule, sur la couche LAYER_PARTICLE :
+ * le tri de la {@link DisplayList} regroupe donc chaque type en une
+ * seule passe (un changement d'etat par type). Le fondu en fin de vie
+ * se fait par la taille, pas par l'alpha, pour ne pas multiplier les
+ * materiaux.
+ *
+ * Thread de jeu uniquement (emission, mise a jour et emission de la
+ * liste d'affichage).
+ */
+public final class ParticleSystem {
+
+    // =========================================================================
+    // Singleton
+    // =========================================================================
+
+    private static final ParticleSystem INSTANCE = new ParticleSystem();
+
+    /** Systeme propre a un thread (export en parallele, voir ReplayExporter). */
+    private static final ThreadLocal<ParticleSystem> BOUND = new ThreadLocal<>();
+
+    public static ParticleSystem getInstance() {
+        ParticleSystem p = BOUND.get();
+        return p != null ? p : INSTANCE;
+    }
+
+    /**
+     * Donne au thread courant son propre systeme de particules : plusieurs
+     * parties simulees en meme temps (un GamePanel par thread) ne partagent
+     * plus les effets. Sans appel, tous les threads utilisent INSTANCE.
+     */
+    static void bindToCurrentThread() {
+        BOUND.set(new ParticleSystem());
+    }
+
+    // =========================================================================
+    // Parametres
+    // =========================================================================
+
+    /** Budget global de particules vivantes. */
+    static final int CAPACITY = 2048;
+
+    /** Remplissage a partir duquel les emissions sont reduites. */
+    static final int SOFT_LIMIT = CAPACITY * 3 / 4;
+
+    /** Types de particules (index des tableaux de parametres). */
+    static final byte SPARK = 0, BURST = 1, CRIT = 2;
+
+    // Parametres par type : duree de vie (frames), taille (px), vitesse, frottement
+    private static final int[]   LIFE     = { 12,    32,    14    };
+    private static final float[] SIZE     = { 3f,    6f,    4f    };
+    private static final float[] SPEED    = { 4.5f,  2.6f,  6f    };
+    private static final float[] FRICTION = { 0.85f, 0.93f, 0.88f };
+
+    /** Un materiau par type : une seule passe de rendu par type. */
+    private static final int[] MATERIALS = {
+        Material.fill(new Color(255, 240, 190)),
+        Material.fill(new Color(255, 130, 60, 220)),
+        Material.fill(new Color(255, 215, 40)),
+    };
+
+    // =========================================================================
+    // Particules (tableaux paralleles)
+    // =========================================================================
+
+    private final float[] px   = new float[CAPACITY], py   = new float[CAPACITY];
+    private final float[] pvx  = new float[CAPACITY], pvy  = new float[CAPACITY];
+    private final short[] life = new short[CAPACITY];
+    private final byte[]  type = new byte[CAPACITY];
+
+    private int count;
+
+    /** Particules refusees par le budget depuis le dernier clear (statistique). */
+    private int dropped;
+
+    /** Flux aleatoire des effets, reseme a chaque tick par GamePanel.updateGame (n'influe pas sur la simulation). */
+    final SimRandom rand = new SimRandom(0);
+
+    private ParticleSystem() {}
+
+    // =========================================================================
+    // Emetteurs
+    // =========================================================================
+
+    /** Etincelles d'impact sur un ennemi. */
+    public void hitSparks(double x, double y) {
+        emit(SPARK, x, y, 6, 0, Math.PI * 2);
+    }
+
+    /** Explosion a la mort d'un ennemi (plus grosse pour les grands ennemis). */
+    public void deathBurst(double x, double y, int enemySize) {
+        emit(BURST, x, y, 10 + enemySize, 0, Math.PI * 2);
+    }
+
+    /** Eclats d'un coup critique, en cone dans la direction du tir. */
+    public void critFlash(double x, double y, double angle) {
+        emit(CRIT, x, y, 12, angle, Math.PI / 3);
+    }
+
+    /**
+     * Emet n particules de type t depuis (x, y), directions dans un cone
+     * [angle - spread/2, angle + spread/2]. n est reduit selon le budget.
+     */
+    private void emit(byte t, double x, double y, int n, double angle, double spread) {
+        n = allowed(n);
+        float speed = SPEED[t];
+        for (int k = 0; k < n; k++) {
+            int i = count++;
+            double a = angle + (rand.nextDouble() - 0.5) * spread;
+            float v = speed * (0.4f + rand.nextFloat() * 0.6f);
+            px[i]   = (float) x;
+            py[i]   = (float) y;
+            pvx[i]  = (float) Math.cos(a) * v;
+            pvy[i]  = (float) Math.sin(a) * v;
+            life[i] = (short) (LIFE[t] - rand.nextInt(LIFE[t] / 3 + 1));
+            type[i] = t;
+        }
+    }
+
+    /** Nombre de particules accordees pour une demande de n. */
+    private int allowed(int n) {
+        if (count >= SOFT_LIMIT) {
+            // Reduction lineaire : 100 % a SOFT_LIMIT, 0 % a CAPACITY
+            int scaled = n * (CAPACITY - count) / (CAPACITY - SOFT_LIMIT);
+            if (scaled < 1 && count < CAPACITY) scaled = 1;
+            dropped += n - scaled;
+            n = scaled;
+        }
+        int room = CAPACITY - count;
+        if (n > room) { dropped += n - room; n = room; }
+        return Math.max(0, n);
+    }
+
+    // =========================================================================
+    // Mise a jour / rendu
+    // =========================================================================
+
+    /** Avance toutes les particules d'une frame ; les mortes sont recyclees. */
+    public void update() {
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0) {
+                kill(i);
+                continue; // la particule deplacee en i est traitee au tour suivant
+            }
+            float f = FRICTION[type[i]];
+            px[i] += pvx[i];
+            py[i] += pvy[i];
+            pvx[i] *= f;
+            pvy[i] *= f;
+            i++;
+        }
+    }
+
+    /** Recyclage O(1) : la derniere particule vivante remplace i. */
+    private void kill(int i) {
+        int last = --count;
+        px[i] = px[last]; py[i] = py[last];
+        pvx[i] = pvx[last]; pvy[i] = pvy[last];
+        life[i] = life[last]; type[i] = type[last];
+    }
+
+    /** Emet les particules dans la liste d'affichage (couche LAYER_PARTICLE). */
+    public void emit(DisplayList dl) {
+        int L = DisplayList.LAYER_PARTICLE;
+        for (int i = 0; i < count; i++) {
+            byte t = type[i];
+            // Fondu par la taille : proportionnelle a la vie restante
+            float s = Math.max(1f, SIZE[t] * life[i] / LIFE[t]);
+            int d = Math.round(s), x = Math.round(px[i] - s / 2), y = Math.round(py[i] - s / 2);
+            if (t == SPARK) dl.fillRect(L, MATERIALS[t], x, y, d, d);
+            else            dl.fillOval(L, MATERIALS[t], x, y, d, d);
+        }
+    }
+
+    /** Supprime toutes les particules (nouvelle partie). */
+    public void clear() {
+        count = 0;
+        dropped = 0;
+    }
+
+    /** Particules vivantes. */
+    public int size() { return count; }
+
+    /** Particules refusees par le budget depuis le dernier clear. */
+    public int dropped() { return dropped; }
+}
@@ -1,8 +1,8 @@
 package projetCROMBEZ;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+
+import javax.swing.SwingUtilities;
 
 /**
  * Menu pause - affiche par-dessus le jeu quand le joueur appuie sur ECHAP.
@@ -22,6 +22,11 @@ import java.util.List;
  * --- Architecture listener ---
  * Aucun MouseListener enregistre ici. GamePanel dispatche les evenements
  * via handleClick() et handleHover() uniquement quand gameState == PAUSED.
+ *
+ * --- Rendu retenu ---
+ * Le monde fige, l'overlay et le panneau ne sont pas redessines a chaque
+ * frame : seuls les boutons survoles ou modifies declenchent un repaint
+ * de leur zone.
  */
 public class PauseScreen {
 
@@ -41,11 +46,14 @@ public class PauseScreen {
         "Reprendre", "Sauvegarder", "Options", "Infos", "Menu principal", "Quitter"
     };
 
-    /** Zones cliquables des boutons. */
-    private List<Rectangle> buttons = new ArrayList<>();
+    /** Boutons (meme ordre que labels). */
+    private UiButton[] buttons = new UiButton[labels.length];
+
+    /** Arbre de widgets de l'ecran. */
+    private final UiRoot ui;
 
-    /** Index du bouton survole (-1 = aucun). */
-    private int hoveredButton = -1;
+    /** Panneau central (titre + boutons + hint), masque quand Infos est ouvert. */
+    private UiPanel panel;
 
     // Dimensions des boutons
     private static final int BTN_W = 240;
@@ -59,9 +67,6 @@ public class PauseScreen {
     /** Panneau d'informations partage avec MenuScreen. */
     private InfoPanel infoPanel;
 
-    /** true quand le panneau d'informations est affiche. */
-    private boolean showInfo = false;
-
     // =========================================================================
     // Feedback sauvegarde
     // =========================================================================
@@ -70,7 +75,7 @@ public class PauseScreen {
      * Compteur de frames pour afficher le message "Sauvegarde !" apres un clic.
      * Decremente chaque frame, affiche le message tant qu'il est > 0.
      */
-    private int saveMessageTimer = 0;
+    private volatile int saveMessageTimer = 0;
 
     /** Duree d'affichage du message de confirmation (2 secondes a 60 FPS). */
     private static final int SAVE_MESSAGE_DURATION = 120;
@@ -86,14 +91,59 @@ public class PauseScreen {
      */
     public PauseScreen(GamePanel gp) {
         this.gp        = gp;
+        this.ui        = new UiRoot(gp);
         this.infoPanel = new InfoPanel(gp);
 
         int cx     = gp.screenWidth  / 2;
         int startY = gp.screenHeight / 2 - (labels.length * BTN_GAP) / 2;
 
+        // Overlay sombre par-dessus le jeu fige
+        ui.add(new UiPanel(new Rectangle(0, 0, gp.screenWidth, gp.screenHeight), new Color(0, 0, 0, 150)));
+
+        // Dimensions du panneau central
+        // La hauteur est calculee pour contenir exactement les boutons
+        // sans que le hint vienne s'y superposer (il est place EN DESSOUS)
+        int panelW = BTN_W + 60;
+        int panelH = labels.length * BTN_GAP + 50; // titre + boutons seulement
+        int panelX = gp.screenWidth  / 2 - panelW / 2;
+        int panelY = gp.screenHeight / 2 - panelH / 2 - 10;
+
+        panel = ui.add(new UiPanel(new Rectangle(panelX, panelY, panelW, panelH),
+                new Color(15, 15, 35, 235), new Color(80, 80, 140), 2f, 20));
+
+        // Titre "PAUSE"
+        panel.add(new UiLabel("PAUSE", gp.uiFont(Font.BOLD, 28f), Color.white,
+                              cx, panelY + 38, UiLabel.CENTER));
+
+        // Boutons
+        Font btnFont = gp.uiFont(Font.PLAIN, 17f);
         for (int i = 0; i < labels.length; i++) {
-            buttons.add(new Rectangle(cx - BTN_W / 2, startY + i * BTN_GAP, BTN_W, BTN_H));
+            final int index = i;
+            UiButton b = panel.add(new UiButton(new Rectangle(cx - BTN_W / 2, startY + i * BTN_GAP, BTN_W, BTN_H),
+                                                labels[i], btnFont, () -> handleButton(index)));
+            b.setShape(12, 1.5f);
+            b.setTextDy(-3);
+
+            // Couleurs specifiques par bouton
+            Color border = new Color(80, 80, 120);
+            if (i == 1) {
+                // Sauvegarder : bleu-vert
+                b.setColors(new Color(20, 60, 60), new Color(30, 110, 100), border, Color.white);
+            } else if (i == 5) {
+                // Quitter : rouge
+                b.setColors(new Color(80, 20, 20), new Color(160, 30, 30), border, Color.white);
+            } else {
+                // Autres : bleu sombre standard
+                b.setColors(new Color(40, 40, 70), new Color(80, 80, 130), border, Color.white);
+            }
+            buttons[i] = b;
         }
+
+        // Hint "ECHAP pour reprendre" place SOUS le panneau (jamais superpose)
+        panel.add(new UiLabel("ECHAP pour reprendre", gp.uiFont(Font.PLAIN, 12f), new Color(140, 140, 160),
+                              cx, panelY + panelH + 20, UiLabel.CENTER)); // 20px SOUS le bord inferieur
+
+        ui.add(infoPanel);
     }
 
     // =========================================================================
@@ -107,16 +157,11 @@ public class PauseScreen {
      * @param p Position du clic
      */
     public void handleClick(Point p) {
-        if (showInfo) {
-            showInfo = false;
+        if (infoPanel.isShown()) {
+            setShowInfo(false);
             return;
         }
-        for (int i = 0; i < buttons.size(); i++) {
-            if (buttons.get(i).contains(p)) {
-                handleButton(i);
-                return;
-            }
-        }
+        ui.click(p);
     }
 
     /**
@@ -125,14 +170,8 @@ public class PauseScreen {
      * @param p Position de la souris
      */
     public void handleHover(Point p) {
-        if (showInfo) { hoveredButton = -1; return; }
-        hoveredButton = -1;
-        for (int i = 0; i < buttons.size(); i++) {
-            if (buttons.get(i).contains(p)) {
-                hoveredButton = i;
-                return;
-            }
-        }
+        if (infoPanel.isShown()) { ui.resetHover(); return; }
+        ui.hover(p);
     }
 
     /**
@@ -140,17 +179,48 @@ public class PauseScreen {
      * Appele par GamePanel quand on entre dans l'etat PAUSED.
      */
     public void reset() {
-        showInfo         = false;
-        hoveredButton    = -1;
         saveMessageTimer = 0;
+        SwingUtilities.invokeLater(() -> {
+            setShowInfo(false);
+            ui.resetHover();
+            updateSaveButton();
+        });
+    }
+
+    /**
+     * Appele (EDT) quand la pause redevient l'ecran courant (ex : retour
+     * des options) : tout est redessine une fois par-dessus le monde fige.
+     */
+    public void onShow() {
+        updateSaveButton();
+        ui.invalidateAll();
+        ui.resetHover();
+        Point m = gp.lastMouse;
+        if (m != null) handleHover(m);
     }
 
     /**
      * Decremente le timer du message de sauvegarde.
-     * Appele par GamePanel.update() quand gameState == PAUSED.
+     * Appele par GamePanel.update() quand gameState == PAUSED (thread de jeu) ;
+     * la mise a jour du bouton est renvoyee sur l'EDT.
      */
     public void tick() {
-        if (saveMessageTimer > 0) saveMessageTimer--;
+        if (saveMessageTimer > 0 && --saveMessageTimer == 0) {
+            SwingUtilities.invokeLater(this::updateSaveButton);
+        }
+    }
+
+    /** Affiche le panneau Infos a la place du panneau central (ou l'inverse). */
+    private void setShowInfo(boolean show) {
+        if (show) infoPanel.show(); else infoPanel.hide();
+        panel.setVisible(!show);
+    }
+
+    /** Coche verte sur "Sauvegarder" tant que le message est actif. */
+    private void updateSaveButton() {
+        boolean saved = saveMessageTimer > 0;
+        buttons[1].setText(saved ? "Sauvegarde !" : labels[1]);
+        buttons[1].setTextColor(saved ? new Color(80, 220, 120) : Color.white);
     }
 
     // =========================================================================
@@ -172,6 +242,7 @@ public class PauseScreen {
                 // Sauvegarde manuelle + feedback visuel
                 SaveManager.save(gp);
                 saveMessageTimer = SAVE_MESSAGE_DURATION;
+                updateSaveButton();
                 break;
 
             case 2: // Options -> retour a PAUSED apres
@@ -180,22 +251,21 @@ public class PauseScreen {
                 break;
 
             case 3: // Infos
-                showInfo = true;
+                setShowInfo(true);
                 break;
 
             case 4: // Menu principal
                 // Marque la partie comme sauvegardee/quittee proprement
                 gp.hasActiveGame = true; // la partie peut etre reprise depuis le menu
+                SaveManager.saveRun(gp);
                 gp.gameState = GameState.MENU;
                 break;
 
             case 5: // Quitter
-                // On ne marque PAS hasActiveGame = true ici :
-                // apres un vrai redemarrage, l'etat en memoire est perdu
-                // (position ennemis, vague en cours, etc.) et on ne peut pas
-                // le restaurer sans serialisation complete. Les stats/upgrades/gold
-                // sont sauvegardes et persistent.
+                // La partie complete (ennemis, vague, projectiles) est ecrite
+                // dans save/run.bin : "Reprendre" la restaure au prochain lancement.
                 SaveManager.save(gp);
+                SaveManager.saveRun(gp);
                 System.exit(0);
                 break;
         }
@@ -206,103 +276,11 @@ public class PauseScreen {
     // =========================================================================
 
     /**
-     * Dessine le menu pause par-dessus le jeu.
+     * Dessine le menu pause par-dessus le jeu (widgets dans la zone de clip).
      *
      * @param g2 Contexte graphique
      */
     public void draw(Graphics2D g2) {
-        // Overlay sombre par-dessus le jeu fige
-        g2.setColor(new Color(0, 0, 0, 150));
-        g2.fillRect(0, 0, gp.screenWidth, gp.screenHeight);
-
-        // Panneau Infos (prend tout l'ecran si actif)
-        if (showInfo) {
-            infoPanel.draw(g2);
-            return;
-        }
-
-        // Dimensions du panneau central
-        // La hauteur est calculee pour contenir exactement les boutons
-        // sans que le hint vienne s'y superposer (il est place EN DESSOUS)
-        int panelW = BTN_W + 60;
-        int panelH = labels.length * BTN_GAP + 50; // titre + boutons seulement
-        int panelX = gp.screenWidth  / 2 - panelW / 2;
-        int panelY = gp.screenHeight / 2 - panelH / 2 - 10;
-
-        // Fond et bordure du panneau
-        g2.setColor(new Color(15, 15, 35, 235));
-        g2.fillRoundRect(panelX, panelY, panelW, panelH, 20, 20);
-        g2.setColor(new Color(80, 80, 140));
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawRoundRect(panelX, panelY, panelW, panelH, 20, 20);
-        g2.setStroke(new BasicStroke(1f));
-
-        // Titre "PAUSE"
-        Font titleFont = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 28f)
-                                             : new Font("Arial", Font.BOLD, 28);
-        g2.setFont(titleFont);
-        g2.setColor(Color.white);
-        FontMetrics fm = g2.getFontMetrics();
-        String title = "PAUSE";
-        g2.drawString(title, gp.screenWidth / 2 - fm.stringWidth(title) / 2, panelY + 38);
-
-        // Boutons
-        Font btnFont = gp.gameFont != null ? gp.gameFont.deriveFont(17f)
-                                           : new Font("Arial", Font.PLAIN, 17);
-        g2.setFont(btnFont);
-        fm = g2.getFontMetrics();
-
-        for (int i = 0; i < buttons.size(); i++) {
-            Rectangle btn     = buttons.get(i);
-            boolean   hovered = (i == hoveredButton);
-
-            // Couleurs specifiques par bouton
-            Color bgNormal, bgHovered;
-            if (i == 1) {
-                // Sauvegarder : bleu-vert
-                bgNormal  = new Color(20, 60, 60);
-                bgHovered = new Color(30, 110, 100);
-            } else if (i == 5) {
-                // Quitter : rouge
-                bgNormal  = new Color(80, 20, 20);
-                bgHovered = new Color(160, 30, 30);
-            } else {
-                // Autres : bleu sombre standard
-                bgNormal  = new Color(40, 40, 70);
-                bgHovered = new Color(80, 80, 130);
-            }
-
-            g2.setColor(hovered ? bgHovered : bgNormal);
-            g2.fillRoundRect(btn.x, btn.y, btn.width, btn.height, 12, 12);
-
-            g2.setColor(hovered ? Color.white : new Color(80, 80, 120));
-            g2.setStroke(new BasicStroke(1.5f));
-            g2.drawRoundRect(btn.x, btn.y, btn.width, btn.height, 12, 12);
-            g2.setStroke(new BasicStroke(1f));
-
-            // Icone de coche verte sur "Sauvegarder" apres sauvegarde
-            String displayLabel = labels[i];
-            if (i == 1 && saveMessageTimer > 0) {
-                displayLabel = "Sauvegarde !";
-                g2.setColor(new Color(80, 220, 120));
-            } else {
-                g2.setColor(Color.white);
-            }
-
-            int tx = btn.x + btn.width  / 2 - fm.stringWidth(displayLabel) / 2;
-            int ty = btn.y + btn.height / 2 + fm.getAscent() / 2 - 3;
-            g2.drawString(displayLabel, tx, ty);
-        }
-
-        // Hint "ECHAP pour reprendre" place SOUS le panneau (jamais superpose)
-        Font hintFont = gp.gameFont != null ? gp.gameFont.deriveFont(12f)
-                                            : new Font("Arial", Font.PLAIN, 12);
-        g2.setFont(hintFont);
-        g2.setColor(new Color(140, 140, 160));
-        fm = g2.getFontMetrics();
-        String hint = "ECHAP pour reprendre";
-        g2.drawString(hint,
-                gp.screenWidth / 2 - fm.stringWidth(hint) / 2,
-                panelY + panelH + 20); // 20px SOUS le bord inferieur du panneau
+        ui.paint(g2);
     }
 }
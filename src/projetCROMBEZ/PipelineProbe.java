@@ -0,0 +1,370 @@
+package projetCROMBEZ;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sonde de demarrage : mesure les pipelines Java2D et les types de tampon.
+ *
+ * =========================================================================
+ * PRINCIPE
+ * =========================================================================
+ * Le pipeline Java2D ne peut pas changer dans une JVM deja initialisee.
+ * La sonde lance donc, pour chaque pipeline candidat, une JVM fille
+ * (meme java, meme classpath) avec les proprietes sun.java2d.* du
+ * pipeline. La JVM fille dessine hors ecran une scene representative du
+ * jeu (polygones antialiases, ovales translucides, contours, halos en
+ * sprite translucide, textes) dans chaque type de tampon ({@link BufferKind}),
+ * puis affiche une ligne par mesure :
+ *
+ *   PIPELINE <classe de GraphicsConfiguration>
+ *   RESULT <BufferKind> <ms par frame>
+ *
+ * La combinaison la plus rapide est enregistree dans GameSettings (donc
+ * dans la sauvegarde). Le pipeline gagnant s'applique au lancement
+ * suivant (Main), le type de tampon immediatement.
+ *
+ * Si aucune JVM fille ne peut etre lancee, seuls les tampons du pipeline
+ * courant sont mesures, dans la JVM du jeu.
+ */
+public class PipelineProbe {
+
+    /** Taille de la scene (celle de l'ecran de jeu). */
+    static final int WIDTH = 1216, HEIGHT = 832;
+
+    /** Frames de chauffe (JIT, caches du pipeline) puis frames mesurees. */
+    static final int WARMUP_FRAMES = 30, MEASURED_FRAMES = 90;
+
+    /** Duree maximale d'une JVM fille. */
+    static final long CHILD_TIMEOUT_S = 20;
+
+    /** Entites de la scene. */
+    private static final int BODIES = 250, GLOWS = 120, LABELS = 30;
+
+    // =========================================================================
+    // Resultat
+    // =========================================================================
+
+    /** Meilleure combinaison mesuree. */
+    public static final class Result {
+        public final RenderPipeline pipeline;
+        public final BufferKind     bufferKind;
+        public final double         msPerFrame;
+
+        Result(RenderPipeline pipeline, BufferKind bufferKind, double msPerFrame) {
+            this.pipeline   = pipeline;
+            this.bufferKind = bufferKind;
+            this.msPerFrame = msPerFrame;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s / %s : %.2f ms", pipeline.getLabel(), bufferKind.getLabel(), msPerFrame);
+        }
+    }
+
+    private static volatile boolean running = false;
+
+    /** true pendant une mesure (OptionsScreen affiche "mesure en cours"). */
+    public static boolean isRunning() { return running; }
+
+    // =========================================================================
+    // Lancement (JVM du jeu)
+    // =========================================================================
+
+    /**
+     * Lance la mesure sur un thread de fond et enregistre le resultat dans
+     * GameSettings (ce qui sauvegarde). Sans effet si une mesure est deja
+     * en cours.
+     *
+     * @param onDone Appele (thread de fond) a la fin, meme en cas d'echec
+     */
+    public static void runInBackground(Runnable onDone) {
+        if (running) return;
+        running = true;
+        Thread t = new Thread(() -> {
+            try {
+                Result r = measure();
+                if (r != null) {
+                    System.out.println("[PipelineProbe] Meilleur rendu : " + r);
+                    GameSettings.getInstance().setProbeResult(r.pipeline, r.bufferKind, r.msPerFrame);
+                } else {
+                    System.out.println("[PipelineProbe] Aucune mesure exploitable, reglages inchanges.");
+                }
+            } finally {
+                running = false;
+                if (onDone != null) onDone.run();
+            }
+        }, "PipelineProbe");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    /** Mesure tous les pipelines candidats et retourne la meilleure combinaison. */
+    public static Result measure() {
+        Result best = null;
+        boolean anyChild = false;
+        for (RenderPipeline p : RenderPipeline.candidates()) {
+            List<String> out = runChild(p);
+            if (out == null) continue;
+            anyChild = true;
+            Result r = parse(p, out);
+            if (r != null && (best == null || r.msPerFrame < best.msPerFrame)) best = r;
+        }
+        if (!anyChild) {
+            // Pas de JVM fille : tampons du pipeline courant uniquement
+            RenderPipeline current = currentPipeline();
+            if (current != null) {
+                for (String line : measureBuffers()) {
+                    Result r = parseResult(current, line);
+                    if (r != null && (best == null || r.msPerFrame < best.msPerFrame)) best = r;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Pipeline de la JVM courante (null si inconnu ou sans ecran). */
+    static RenderPipeline currentPipeline() {
+        if (GraphicsEnvironment.isHeadless()) return null;
+        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return RenderPipeline.detect(gc.getClass().getName());
+    }
+
+    /**
+     * Lance la JVM fille pour un pipeline.
+     *
+     * @return les lignes affichees, ou null si la JVM n'a pas pu etre lancee
+     */
+    private static List<String> runChild(RenderPipeline p) {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> cmd = new ArrayList<>();
+        cmd.add(java);
+        for (String kv : p.properties()) cmd.add("-D" + kv);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(PipelineProbe.class.getName());
+
+        File log = null;
+        try {
+            log = File.createTempFile("survivor-probe", ".txt");
+            Process proc = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log).start();
+            if (!proc.waitFor(CHILD_TIMEOUT_S, TimeUnit.SECONDS)) {
+                proc.destroyForcibly();
+                System.out.println("[PipelineProbe] " + p.getLabel() + " : delai depasse.");
+            }
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader in = new BufferedReader(new FileReader(log))) {
+                String line;
+                while ((line = in.readLine()) != null) lines.add(line);
+            }
+            return lines;
+        } catch (IOException e) {
+            System.out.println("[PipelineProbe] JVM fille impossible : " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (log != null) log.delete();
+        }
+    }
+
+    /** Meilleur tampon d'une JVM fille, si elle utilisait bien le pipeline demande. */
+    private static Result parse(RenderPipeline requested, List<String> lines) {
+        Result best = null;
+        for (String line : lines) {
+            if (line.startsWith("PIPELINE ")) {
+                RenderPipeline actual = RenderPipeline.detect(line.substring(9).trim());
+                if (actual != requested) {
+                    System.out.println("[PipelineProbe] " + requested.getLabel() + " : indisponible ("
+                                       + line.substring(9).trim() + ").");
+                    return null;
+                }
+            }
+            Result r = parseResult(requested, line);
+            if (r != null) {
+                System.out.println("[PipelineProbe] " + r);
+                if (best == null || r.msPerFrame < best.msPerFrame) best = r;
+            }
+        }
+        return best;
+    }
+
+    private static Result parseResult(RenderPipeline p, String line) {
+        if (!line.startsWith("RESULT ")) return null;
+        String[] parts = line.split(" ");
+        if (parts.length != 3) return null;
+        try {
+            return new Result(p, BufferKind.valueOf(parts[1]), Double.parseDouble(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // =========================================================================
+    // Mesure (JVM fille)
+    // =========================================================================
+
+    /** Point d'entree de la JVM fille. */
+    public static void main(String[] args) {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("PIPELINE headless");
+        } else {
+            System.out.println("PIPELINE " + GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration().getClass().getName());
+        }
+        for (String line : measureBuffers()) System.out.println(line);
+        System.exit(0);
+    }
+
+    /** Mesure chaque type de tampon disponible ; une ligne RESULT par type. */
+    static List<String> measureBuffers() {
+        List<String> lines = new ArrayList<>();
+        GraphicsConfiguration gc = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        Scene scene = new Scene(gc);
+
+        for (BufferKind kind : BufferKind.values()) {
+            if (kind == BufferKind.AUTO) continue;
+            if (gc == null && kind != BufferKind.BUFFERED) continue;
+            try {
+                double ms = measureKind(scene, gc, kind);
+                lines.add(String.format(java.util.Locale.ROOT, "RESULT %s %.3f", kind.name(), ms));
+            } catch (RuntimeException e) {
+                lines.add("ERROR " + kind.name() + " " + e);
+            }
+        }
+        return lines;
+    }
+
+    /** ms par frame : scene dans le tampon, puis copie vers une cible "ecran". */
+    private static double measureKind(Scene scene, GraphicsConfiguration gc, BufferKind kind) {
+        BackBuffer target = new BackBuffer();
+        target.setKind(kind);
+        Image screen = gc != null ? gc.createCompatibleVolatileImage(WIDTH, HEIGHT, Transparency.OPAQUE)
+                                  : new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        long start = 0;
+        for (int f = 0; f < WARMUP_FRAMES + MEASURED_FRAMES; f++) {
+            if (f == WARMUP_FRAMES) start = System.nanoTime();
+            target.ensure(gc, WIDTH, HEIGHT);
+            Graphics2D g = target.createGraphics();
+            scene.draw(g, f);
+            g.dispose();
+            Graphics2D sg = (Graphics2D) screen.getGraphics();
+            sg.drawImage(target.image(), 0, 0, null);
+            sg.dispose();
+        }
+        // Attend la fin du travail en file (pipelines asynchrones) : lecture d'un pixel
+        BufferedImage sink = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D sink2 = sink.createGraphics();
+        sink2.drawImage(screen, 0, 0, 1, 1, 0, 0, 1, 1, null);
+        sink2.dispose();
+        Toolkit.getDefaultToolkit().sync();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_FRAMES;
+    }
+
+    // =========================================================================
+    // Scene representative
+    // =========================================================================
+
+    /**
+     * Melange d'operations proche d'une frame de jeu chargee : grille, corps
+     * polygonaux antialiases avec contour, halos translucides (ovales et
+     * sprite), barres de vie et textes.
+     */
+    private static final class Scene {
+        private final int[] x = new int[BODIES], y = new int[BODIES], size = new int[BODIES];
+        private final Color[] colors = new Color[BODIES];
+        private final Image glow;
+        private final Font font = new Font("Arial", Font.BOLD, 12);
+        private final BasicStroke outline = new BasicStroke(2f);
+        private final Polygon hex = new Polygon();
+
+        Scene(GraphicsConfiguration gc) {
+            Random r = new Random(42);
+            for (int i = 0; i < BODIES; i++) {
+                x[i] = 40 + r.nextInt(WIDTH - 80);
+                y[i] = 40 + r.nextInt(HEIGHT - 80);
+                size[i] = 10 + r.nextInt(16);
+                colors[i] = new Color(40 + r.nextInt(200), 40 + r.nextInt(200), 40 + r.nextInt(200));
+            }
+            BufferedImage g = gc != null ? gc.createCompatibleImage(48, 48, Transparency.TRANSLUCENT)
+                                         : new BufferedImage(48, 48, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2 = g.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (int ring = 0; ring < 6; ring++) {
+                g2.setColor(new Color(255, 120, 60, 20 + ring * 8));
+                int m = ring * 4;
+                g2.fillOval(m, m, 48 - 2 * m, 48 - 2 * m);
+            }
+            g2.dispose();
+            glow = g;
+        }
+
+        void draw(Graphics2D g, int frame) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setComposite(AlphaComposite.SrcOver);
+            g.setColor(new Color(20, 20, 30));
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            g.setColor(new Color(35, 35, 50));
+            for (int i = 0; i < WIDTH; i += 32) g.drawLine(i, 0, i, HEIGHT);
+            for (int j = 0; j < HEIGHT; j += 32) g.drawLine(0, j, WIDTH, j);
+
+            int dx = frame % 7 - 3;
+            // Halos : ovales translucides et sprite translucide
+            for (int i = 0; i < GLOWS; i++) {
+                g.setColor(new Color(colors[i].getRed(), colors[i].getGreen(), colors[i].getBlue(), 60));
+                g.fillOval(x[i] + dx - size[i], y[i] - size[i], size[i] * 2, size[i] * 2);
+                g.drawImage(glow, x[i] + dx - 24, y[i] - 24, null);
+            }
+            // Corps polygonaux + contours + barres de vie
+            for (int i = 0; i < BODIES; i++) {
+                hexagon(x[i] + dx, y[i], size[i]);
+                g.setColor(colors[i]);
+                g.fillPolygon(hex);
+                g.setStroke(outline);
+                g.setColor(colors[i].darker());
+                g.drawPolygon(hex);
+                g.setColor(Color.darkGray);
+                g.fillRect(x[i] + dx - size[i], y[i] - size[i] - 8, size[i] * 2, 4);
+                g.setColor(Color.green);
+                g.fillRect(x[i] + dx - size[i], y[i] - size[i] - 8, size[i], 4);
+            }
+            g.setStroke(new BasicStroke(1f));
+            // Textes
+            g.setFont(font);
+            g.setColor(Color.white);
+            for (int i = 0; i < LABELS; i++) g.drawString("-" + (i * 7 + frame % 10), x[i] + dx, y[i] - 20);
+        }
+
+        private void hexagon(int cx, int cy, int r) {
+            hex.reset();
+            for (int k = 0; k < 6; k++) {
+                double a = Math.PI / 3 * k;
+                hex.addPoint(cx + (int) Math.round(r * Math.cos(a)), cy + (int) Math.round(r * Math.sin(a)));
+            }
+        }
+    }
+}
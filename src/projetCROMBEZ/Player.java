@@ -1,8 +1,10 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Represente le personnage controle par le joueur.
@@ -130,7 +132,8 @@ public class Player {
 
     private int attackCooldown = 0;
 
-    private final Random rand = new Random();
+    /** Flux aleatoire des coups critiques, seme par GamePanel.seedRun. */
+    final SimRandom rand = new SimRandom(0);
 
     /** Compteur de flash rouge quand un coup critique est inflige. */
     private int critFlashTimer = 0;
@@ -148,6 +151,7 @@ public class Player {
     public Player(GamePanel gp) {
         this.gp   = gp;
         this.size = gp.tileSize;
+        initMaterials();
         applyUpgrades();
         reset();
     }
@@ -170,6 +174,21 @@ public class Player {
         critMultiplier = 1.5f + upgradeCritDmg  * 0.25f;
     }
 
+    /** Copie les niveaux d'amelioration dans out (ordre de la boutique), retourne out. */
+    public int[] getUpgradeLevels(int[] out) {
+        out[0] = upgradeHp;        out[1] = upgradeDamage; out[2] = upgradeRange;
+        out[3] = upgradeSpeed;     out[4] = upgradeLifeSteal;
+        out[5] = upgradeCrit;      out[6] = upgradeCritDmg;
+        return out;
+    }
+
+    /** Remplace les niveaux d'amelioration (sans recalculer les stats : voir applyUpgrades). */
+    public void setUpgradeLevels(int[] in) {
+        upgradeHp    = in[0]; upgradeDamage    = in[1]; upgradeRange = in[2];
+        upgradeSpeed = in[3]; upgradeLifeSteal = in[4];
+        upgradeCrit  = in[5]; upgradeCritDmg   = in[6];
+    }
+
     // =========================================================================
     // Reset (debut de partie)
     // =========================================================================
@@ -189,6 +208,36 @@ public class Player {
         aimAngle        = -Math.PI / 2;
     }
 
+    // =========================================================================
+    // Sauvegarde (WorldSnapshot)
+    // =========================================================================
+
+    /** Ecrit l'etat de combat de la partie en cours (pas les stats ni l'or). */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(rand.getState());
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeInt(hp);
+        out.writeBoolean(alive);
+        out.writeInt(invincibleTimer);
+        out.writeInt(attackCooldown);
+        out.writeInt(critFlashTimer);
+        out.writeDouble(aimAngle);
+    }
+
+    /** Relit l'etat ecrit par {@link #writeState} ; la vie est bornee par maxHp. */
+    public void readState(DataInput in) throws IOException {
+        rand.setState(in.readLong());
+        x               = in.readDouble();
+        y               = in.readDouble();
+        hp              = Math.min(maxHp, in.readInt());
+        alive           = in.readBoolean();
+        invincibleTimer = in.readInt();
+        attackCooldown  = in.readInt();
+        critFlashTimer  = in.readInt();
+        aimAngle        = in.readDouble();
+    }
+
     // =========================================================================
     // Mise a jour
     // =========================================================================
@@ -209,7 +258,7 @@ public class Player {
         if (attackCooldown <= 0) {
             Enemy target = findClosestEnemy(enemies);
             if (target != null) {
-                aimAngle = Math.atan2(target.y - y, target.x - x);
+                aimAngle = StrictMath.atan2(target.y - y, target.x - x);
 
                 // Calcul crit
                 boolean isCrit = (critChancePct > 0 && rand.nextInt(100) < critChancePct);
@@ -219,7 +268,10 @@ public class Player {
                 p.isCrit = isCrit;
                 projectiles.add(p);
 
-                if (isCrit) critFlashTimer = 12; // flash visuel 12 frames
+                if (isCrit) {
+                    critFlashTimer = 12; // flash visuel 12 frames
+                    ParticleSystem.getInstance().critFlash(x, y, aimAngle);
+                }
                 attackCooldown = attackRate;
             }
         }
@@ -238,7 +290,7 @@ public class Player {
         if (hp <= 0) alive = false;
     }
 
-    private Enemy findClosestEnemy(List<Enemy> enemies) {
+    Enemy findClosestEnemy(List<Enemy> enemies) {
         Enemy  closest = null;
         double minDist = attackRange;
         for (Enemy e : enemies) {
@@ -284,76 +336,93 @@ public class Player {
     // Rendu
     // =========================================================================
 
-    public void draw(Graphics2D g2) {
+    private static final int MAT_RANGE_FILL   = Material.fill(new Color(255, 255, 255, 18));
+    private static final int MAT_RANGE_BORDER = Material.stroke(new Color(255, 255, 255, 35),
+            new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f, new float[]{5f,5f}, 0f));
+    private static final int MAT_ARROW_BLINK  = Material.fill(new Color(255, 255, 255, 150));
+    private static final int MAT_ARROW_CRIT   = Material.fill(new Color(255, 220, 50));
+    private static final int MAT_ARROW        = Material.fill(new Color(80, 200, 120));
+    private static final int MAT_ARROW_BORDER = Material.stroke(new Color(30, 100, 60), 2f);
+
+    private static final int MAT_HUD_BACK     = Material.fill(new Color(40, 40, 40));
+    private static final int MAT_HUD_HIGH     = Material.fill(new Color(50, 200, 80));
+    private static final int MAT_HUD_MID      = Material.fill(new Color(220, 180, 0));
+    private static final int MAT_HUD_LOW      = Material.fill(new Color(220, 50, 50));
+    private static final int MAT_HUD_BORDER   = Material.stroke(Color.white, 2f);
+
+    /** Materiaux texte du HUD (dependent de la police du GamePanel). */
+    private int matHudText, matHudGold;
+
+    /** Fleche dans le repere local, et ses sommets transformes reutilises. */
+    private final int[] arrowLocalX = new int[4], arrowLocalY = new int[4];
+    private final int[] arrowX = new int[4], arrowY = new int[4];
+
+    /** Enregistre les materiaux lies a la police (appele par le constructeur). */
+    private void initMaterials() {
+        Font f = gp.gameFont != null ? gp.gameFont.deriveFont(13f) : new Font("Arial",Font.PLAIN,13);
+        matHudText = Material.text(Color.white, f);
+        matHudGold = Material.text(new Color(255, 210, 50), f);
+
+        int h = size / 2;
+        int[] xl = {  h, -h/2, -h/4, -h/2 };
+        int[] yl = {  0, -h/2,  0,    h/2  };
+        System.arraycopy(xl, 0, arrowLocalX, 0, 4);
+        System.arraycopy(yl, 0, arrowLocalY, 0, 4);
+    }
+
+    /** Emet le joueur et son HUD dans la liste d'affichage (thread de jeu). */
+    public void emit(DisplayList dl) {
         // Cercle de portee
         if (GameSettings.getInstance().isShowPlayerRange()) {
-            g2.setColor(new Color(255, 255, 255, 18));
-            g2.fillOval((int)x - attackRange, (int)y - attackRange, attackRange*2, attackRange*2);
-            g2.setColor(new Color(255, 255, 255, 35));
-            g2.setStroke(new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
-                                         10f, new float[]{5f,5f}, 0f));
-            g2.drawOval((int)x - attackRange, (int)y - attackRange, attackRange*2, attackRange*2);
-            g2.setStroke(new BasicStroke(1f));
+            int rx = (int)x - attackRange, ry = (int)y - attackRange, d = attackRange*2;
+            dl.fillOval(DisplayList.LAYER_AURA, MAT_RANGE_FILL,   rx, ry, d, d);
+            dl.drawOval(DisplayList.LAYER_AURA, MAT_RANGE_BORDER, rx, ry, d, d);
         }
 
         // Fleche (clignote blanc si invincible, jaune si vient de critter)
         boolean blinking = (invincibleTimer > 0 && (invincibleTimer/5) % 2 == 0);
         boolean critting = (critFlashTimer  > 0);
-        Color arrowColor = blinking ? new Color(255, 255, 255, 150)
-                         : critting ? new Color(255, 220, 50)
-                                    : new Color(80, 200, 120);
-        g2.setColor(arrowColor);
-        Polygon arrow = buildArrow(aimAngle);
-        g2.fillPolygon(arrow);
-        g2.setColor(new Color(30, 100, 60));
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawPolygon(arrow);
-        g2.setStroke(new BasicStroke(1f));
-
-        drawHUD(g2);
+        int arrowMat = blinking ? MAT_ARROW_BLINK : critting ? MAT_ARROW_CRIT : MAT_ARROW;
+        buildArrow(aimAngle);
+        int v = dl.addVertices(arrowX, arrowY, 4);
+        dl.fillPolygon(DisplayList.LAYER_PLAYER, arrowMat, v, 4);
+        dl.drawPolygon(DisplayList.LAYER_PLAYER, MAT_ARROW_BORDER, v, 4);
+
+        emitHUD(dl);
     }
 
-    private Polygon buildArrow(double angle) {
-        int h = size / 2;
-        int[] xl = {  h, -h/2, -h/4, -h/2 };
-        int[] yl = {  0, -h/2,  0,    h/2  };
+    /** Dessin immediat (emission puis rejeu), hors boucle de jeu. */
+    public void draw(Graphics2D g2) {
+        DisplayList dl = DisplayList.scratch();
+        emit(dl);
+        dl.finish();
+        dl.replay(g2);
+    }
+
+    private void buildArrow(double angle) {
         double cos = Math.cos(angle), sin = Math.sin(angle);
-        int[] xp = new int[4], yp = new int[4];
         for (int i = 0; i < 4; i++) {
-            xp[i] = (int)(x + xl[i]*cos - yl[i]*sin);
-            yp[i] = (int)(y + xl[i]*sin + yl[i]*cos);
+            arrowX[i] = (int)(x + arrowLocalX[i]*cos - arrowLocalY[i]*sin);
+            arrowY[i] = (int)(y + arrowLocalX[i]*sin + arrowLocalY[i]*cos);
         }
-        return new Polygon(xp, yp, 4);
     }
 
-    private void drawHUD(Graphics2D g2) {
+    private void emitHUD(DisplayList dl) {
         int bw = 200, bh = 18, bx = 10, by = 10;
+        int L = DisplayList.LAYER_HUD;
 
-        g2.setColor(new Color(40, 40, 40));
-        g2.fillRect(bx, by, bw, bh);
+        dl.fillRect(L, MAT_HUD_BACK, bx, by, bw, bh);
 
         int    filled = (int)(bw * ((double)hp / maxHp));
         double ratio  = (double)hp / maxHp;
-        Color  hpCol  = ratio > 0.5 ? new Color(50,200,80)
-                      : ratio > 0.25 ? new Color(220,180,0)
-                                     : new Color(220,50,50);
-        g2.setColor(hpCol);
-        g2.fillRect(bx, by, filled, bh);
+        int    hpMat  = ratio > 0.5 ? MAT_HUD_HIGH : ratio > 0.25 ? MAT_HUD_MID : MAT_HUD_LOW;
+        dl.fillRect(L, hpMat, bx, by, filled, bh);
 
-        g2.setColor(Color.white);
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawRect(bx, by, bw, bh);
-        g2.setStroke(new BasicStroke(1f));
+        dl.drawRect(L, MAT_HUD_BORDER, bx, by, bw, bh);
 
-        Font f = gp.gameFont != null ? gp.gameFont.deriveFont(13f) : new Font("Arial",Font.PLAIN,13);
-        g2.setFont(f);
-        g2.setColor(Color.white);
-        g2.drawString("HP : " + hp + " / " + maxHp, bx + 5, by + 13);
+        dl.text(L, matHudText, "HP : " + hp + " / " + maxHp, bx + 5, by + 13, false);
 
         // Or en dessous de la barre de vie
-        Font gf = gp.gameFont != null ? gp.gameFont.deriveFont(13f) : new Font("Arial",Font.PLAIN,13);
-        g2.setFont(gf);
-        g2.setColor(new Color(255, 210, 50));
-        g2.drawString("Or : " + gold, bx + 5, by + bh + 16);
+        dl.text(L, matHudGold, "Or : " + gold, bx + 5, by + bh + 16, false);
     }
 }
@@ -15,7 +15,11 @@ public class Projectile {
     public boolean alive  = true;
     /** true si ce projectile est un coup critique. */
     public boolean isCrit = false;
-    private Color  color;
+
+    /** Materiaux du corps, selon l'origine et le crit (halos : {@link GlowSprite}). */
+    private static final int MAT_PLAYER      = Material.fill(new Color(255, 220, 0));
+    private static final int MAT_CRIT        = Material.fill(new Color(238, 130, 238));
+    private static final int MAT_ENEMY       = Material.fill(new Color(255, 60, 60));
 
     /**
      * @param x,y       Position de depart
@@ -29,10 +33,10 @@ public class Projectile {
         this.damage = damage;
         this.fromPlayer = fromPlayer;
         this.size  = fromPlayer ? 8 : 10;
-        this.color = fromPlayer ? new Color(255, 220, 0) : new Color(255, 60, 60);
 
         double speed = fromPlayer ? 10 : 5;
-        double dist  = Math.sqrt(Math.pow(targetX - x, 2) + Math.pow(targetY - y, 2));
+        double tx = targetX - x, ty = targetY - y;
+        double dist  = Math.sqrt(tx * tx + ty * ty);
         if (dist > 0) { dx = (targetX - x) / dist * speed; dy = (targetY - y) / dist * speed; }
     }
 
@@ -46,11 +50,20 @@ public class Projectile {
         return new Rectangle((int)x - size/2, (int)y - size/2, size, size);
     }
 
+    /** Emet le halo et le corps du projectile (thread de jeu). */
+    public void emit(DisplayList dl) {
+        boolean crit = isCrit && fromPlayer;
+        GlowSprite glow = !fromPlayer ? GlowSprite.ENEMY : crit ? GlowSprite.CRIT : GlowSprite.PLAYER;
+        int body = !fromPlayer ? MAT_ENEMY : crit ? MAT_CRIT : MAT_PLAYER;
+        glow.emit(dl, DisplayList.LAYER_GLOW, (int)x, (int)y, size*2);
+        dl.fillOval(DisplayList.LAYER_PROJECTILE, body, (int)x - size/2, (int)y - size/2, size, size);
+    }
+
+    /** Dessin immediat (emission puis rejeu), hors boucle de jeu. */
     public void draw(Graphics2D g2) {
-        Color displayColor = (isCrit && fromPlayer) ? new Color(238,130,238) : color;
-        g2.setColor(new Color(displayColor.getRed(), displayColor.getGreen(), displayColor.getBlue(), 80));
-        g2.fillOval((int)x - size, (int)y - size, size*2, size*2);
-        g2.setColor(displayColor);
-        g2.fillOval((int)x - size/2, (int)y - size/2, size, size);
+        DisplayList dl = DisplayList.scratch();
+        emit(dl);
+        dl.finish();
+        dl.replay(g2);
     }
 }
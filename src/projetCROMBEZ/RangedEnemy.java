@@ -1,6 +1,9 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -57,7 +60,7 @@ public class RangedEnemy extends Enemy {
     public RangedEnemy(double x, double y) {
         // HP=25 | damage=8 | speed=1.5 | size=24 | cyan lointain
         super(x, y, 25, 8, 1.5, 24, new Color(0, 180, 220));
-        this.hpBarColor = new Color(0, 210, 255);
+        setHpBarColor(new Color(0, 210, 255));
     }
 
     // -------------------------------------------------------------------------
@@ -66,7 +69,8 @@ public class RangedEnemy extends Enemy {
 
     @Override
     public void update(Player player, List<Projectile> projectiles) {
-        double dist = Math.sqrt(Math.pow(player.x - x, 2) + Math.pow(player.y - y, 2));
+        double px = player.x - x, py = player.y - y;
+        double dist = Math.sqrt(px * px + py * py);
 
         // --- Repositionnement : maintient la distance prfrentielle ---
         if (dist < PREFERRED_DIST - DIST_MARGIN) {
@@ -89,35 +93,54 @@ public class RangedEnemy extends Enemy {
         }
     }
 
+    // -------------------------------------------------------------------------
+    // Sauvegarde (WorldSnapshot)
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(shootCooldown);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        shootCooldown = in.readInt();
+    }
+
     // -------------------------------------------------------------------------
     // Rendu
     // -------------------------------------------------------------------------
 
+    /** Contour sombre et pastille centrale. */
+    private static final int MAT_OUTLINE = Material.stroke(new Color(0, 90, 140), 2f);
+    private static final int MAT_CORE    = Material.fill(new Color(180, 240, 255));
+
+    /** Sommets du losange, rutiliss d'un tick  l'autre. */
+    private final int[] px = new int[4], py = new int[4];
+
     @Override
-    public void draw(Graphics2D g2) {
+    public void emit(DisplayList dl) {
         // --- Losange (4 points) centr sur (x, y) ---
         int h = size / 2; // demi-taille
+        int cx = (int) x, cy = (int) y;
 
-        Polygon diamond = new Polygon(
-            new int[]{ (int)x,      (int)x + h, (int)x,      (int)x - h },
-            new int[]{ (int)y - h,  (int)y,     (int)y + h,  (int)y     },
-            4
-        );
+        px[0] = cx;     py[0] = cy - h;
+        px[1] = cx + h; py[1] = cy;
+        px[2] = cx;     py[2] = cy + h;
+        px[3] = cx - h; py[3] = cy;
+        int v = dl.addVertices(px, py, 4);
 
         // Corps (flash blanc si hit)
-        g2.setColor(getDrawColor(color));
-        g2.fillPolygon(diamond);
+        dl.fillPolygon(DisplayList.LAYER_BODY, getDrawMaterial(bodyMaterial), v, 4);
 
         // Contour sombre
-        g2.setColor(new Color(0, 90, 140));
-        g2.setStroke(new BasicStroke(2f));
-        g2.drawPolygon(diamond);
-        g2.setStroke(new BasicStroke(1f));
+        dl.drawPolygon(DisplayList.LAYER_OUTLINE, MAT_OUTLINE, v, 4);
 
         // Petite pastille centrale pour diffrencier visuellement
-        g2.setColor(new Color(180, 240, 255));
-        g2.fillOval((int)x - 4, (int)y - 4, 8, 8);
+        dl.fillOval(DisplayList.LAYER_DETAIL, MAT_CORE, cx - 4, cy - 4, 8, 8);
 
-        drawHpBar(g2);
+        emitHpBar(dl);
     }
 }
@@ -0,0 +1,25 @@
+package projetCROMBEZ;
+
+/**
+ * Moteur utilise pour dessiner les entites du monde.
+ */
+public enum RenderMode {
+
+    /** Rejeu de la liste d'affichage via Java2D (par defaut). */
+    JAVA2D("Java2D"),
+
+    /** Couches d'entites rasterisees en logiciel, par tuiles, sur plusieurs threads. */
+    SOFTWARE("Logiciel");
+
+    // Libelle affiche dans les options
+    private final String label;
+
+    RenderMode(String label) {
+        this.label = label;
+    }
+
+    /** Retourne le nom lisible pour l'affichage a l'ecran. */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,110 @@
+package projetCROMBEZ;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pipeline Java2D (backend de rendu de la JVM).
+ *
+ * Le pipeline est fixe par les proprietes systeme sun.java2d.* et ne peut
+ * etre choisi qu'avant l'initialisation d'AWT : Main applique le choix
+ * enregistre tout au debut du lancement. {@link PipelineProbe} mesure
+ * chaque pipeline dans une JVM fille lancee avec les proprietes
+ * correspondantes.
+ */
+public enum RenderPipeline {
+
+    /** Meilleur pipeline mesure par la sonde (ou celui de la JVM si aucune mesure). */
+    AUTO("Auto"),
+
+    /** Extension XRender de X11 (defaut sous Linux). */
+    XRENDER("XRender"),
+
+    /** OpenGL (Linux, Windows). */
+    OPENGL("OpenGL"),
+
+    /** Direct3D (defaut sous Windows). */
+    DIRECT3D("Direct3D"),
+
+    /** Rendu entierement logiciel (aucune acceleration). */
+    SOFTWARE("Logiciel");
+
+    // Libelle affiche dans les options
+    private final String label;
+
+    RenderPipeline(String label) {
+        this.label = label;
+    }
+
+    /** Retourne le nom lisible pour l'affichage a l'ecran. */
+    public String getLabel() {
+        return label;
+    }
+
+    // =========================================================================
+    // Proprietes systeme
+    // =========================================================================
+
+    /** Proprietes "cle=valeur" qui selectionnent ce pipeline (vide pour AUTO). */
+    public String[] properties() {
+        switch (this) {
+            case XRENDER:  return new String[] { "sun.java2d.xrender=true", "sun.java2d.opengl=false" };
+            case OPENGL:   return new String[] { "sun.java2d.opengl=true" };
+            case DIRECT3D: return new String[] { "sun.java2d.d3d=true", "sun.java2d.opengl=false" };
+            case SOFTWARE: return new String[] { "sun.java2d.xrender=false", "sun.java2d.opengl=false",
+                                                 "sun.java2d.d3d=false", "sun.java2d.pmoffscreen=false" };
+            default:       return new String[0];
+        }
+    }
+
+    /**
+     * Applique les proprietes du pipeline a la JVM courante.
+     * Doit etre appele avant toute utilisation d'AWT / Swing. Les
+     * proprietes deja fixees en ligne de commande (-D) sont conservees.
+     */
+    public void apply() {
+        for (String kv : properties()) {
+            int eq = kv.indexOf('=');
+            String key = kv.substring(0, eq);
+            if (System.getProperty(key) == null) System.setProperty(key, kv.substring(eq + 1));
+        }
+    }
+
+    // =========================================================================
+    // Plateforme
+    // =========================================================================
+
+    /** Pipelines selectionnables sur le systeme courant (hors AUTO). */
+    public static List<RenderPipeline> candidates() {
+        String os = System.getProperty("os.name", "").toLowerCase();
+        List<RenderPipeline> list = new ArrayList<>();
+        if (os.contains("win")) {
+            list.add(DIRECT3D);
+            list.add(OPENGL);
+            list.add(SOFTWARE);
+        } else if (os.contains("mac")) {
+            list.add(OPENGL);
+        } else {
+            list.add(XRENDER);
+            list.add(OPENGL);
+            list.add(SOFTWARE);
+        }
+        return list;
+    }
+
+    /**
+     * Pipeline reellement actif, deduit de la classe de la configuration
+     * graphique (ex : sun.java2d.xr.XRGraphicsConfig). Permet de verifier
+     * qu'une demande (-Dsun.java2d.opengl=true) n'a pas ete ignoree.
+     *
+     * @return le pipeline reconnu, ou null si la classe est inconnue
+     */
+    public static RenderPipeline detect(String configClassName) {
+        String n = configClassName;
+        if (n.contains(".xr."))      return XRENDER;
+        if (n.contains(".opengl."))  return OPENGL;
+        if (n.contains(".d3d."))     return DIRECT3D;
+        if (n.endsWith("X11GraphicsConfig") || n.endsWith("Win32GraphicsConfig")) return SOFTWARE;
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Export hors ligne d'un enregistrement en images, sans fenetre et sur
+ * plusieurs coeurs.
+ *
+ * =========================================================================
+ * DECOUPAGE
+ * =========================================================================
+ * L'enregistrement est coupe aux images cles (InputRecorder) : le segment
+ * i couvre les ticks ]kf(i), kf(i+1)]. Chaque thread a son GamePanel, son
+ * ReplayPlayer et son systeme de particules, et prend le segment suivant
+ * des qu'il a fini le sien (ticks/s proportionnel au nombre de coeurs,
+ * tant qu'il y a assez de segments : --keyframe-seconds a l'enregistrement).
+ *
+ * Les effets (particules, chiffres de degats) ne sont pas dans les images
+ * cles : chaque segment repart de l'image cle PRECEDENTE et simule sans
+ * rendu jusqu'a son debut. Les effets vivent moins d'une seconde et leur
+ * flux aleatoire ne depend que du tick : les frames sont identiques a un
+ * export sur un seul thread.
+ *
+ * =========================================================================
+ * SORTIE
+ * =========================================================================
+ *  png : frame-NNNNNN.png, une par tick (NNNNNN = tick)
+ *  raw : frames.raw, frames BGR 24 bits consecutives (tick 1 en premier),
+ *        chaque thread ecrit a la position de ses frames
+ *
+ * Chaque frame passe par le rendu normal (GamePanel.renderOffscreen :
+ * liste d'affichage puis drawFrame) dans une image hors ecran.
+ */
+final class ReplayExporter {
+
+    enum Format { PNG, RAW }
+
+    private final byte[] data;
+    private final File outDir;
+    private final Format format;
+    private final int[] bounds;      // segment i : ]bounds[i], bounds[i + 1]]
+    private final AtomicInteger nextSegment = new AtomicInteger();
+    private final AtomicInteger frames      = new AtomicInteger();
+
+    private FileChannel raw;
+    private int width, height;
+    private volatile String failure;
+
+    private ReplayExporter(byte[] data, File outDir, Format format) throws IOException {
+        this.data   = data;
+        this.outDir = outDir;
+        this.format = format;
+
+        ReplayPlayer r = ReplayPlayer.parse(data);
+        int end = r.totalTicks(), n = 0;
+        int[] b = new int[r.keyframeCount() + 2];
+        b[n++] = 0;
+        for (int i = 0; i < r.keyframeCount(); i++) if (r.keyframeTick(i) < end) b[n++] = r.keyframeTick(i);
+        b[n++] = end;
+        bounds = Arrays.copyOf(b, n);
+    }
+
+    /**
+     * Exporte l'enregistrement file dans outDir avec threads threads.
+     *
+     * @return true si toutes les frames ont ete ecrites
+     */
+    static boolean export(File file, File outDir, Format format, int threads) throws IOException {
+        ReplayExporter x = new ReplayExporter(Files.readAllBytes(file.toPath()), outDir, format);
+        int segments = x.bounds.length - 1;
+        threads = Math.max(1, Math.min(threads, segments));
+        Files.createDirectories(outDir.toPath());
+
+        // Panneaux crees ici (polices, materiaux), simules ensuite chacun sur son thread
+        GamePanel[] panels = new GamePanel[threads];
+        for (int i = 0; i < threads; i++) panels[i] = new GamePanel();
+        x.width  = panels[0].screenWidth;
+        x.height = panels[0].screenHeight;
+        if (format == Format.RAW) {
+            x.raw = FileChannel.open(new File(outDir, "frames.raw").toPath(), StandardOpenOption.CREATE,
+                                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        System.out.println("[ReplayExporter] " + x.bounds[segments] + " ticks, " + segments + " segment(s), "
+                           + threads + " thread(s), " + format.name().toLowerCase() + " -> " + outDir);
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            GamePanel gp = panels[i];
+            workers[i] = new Thread(() -> x.work(gp), "export-" + i);
+            workers[i].start();
+        }
+        try {
+            for (Thread t : workers) t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            x.failure = "interrompu";
+        } finally {
+            if (x.raw != null) x.raw.close();
+        }
+        double s = (System.nanoTime() - start) / 1e9;
+
+        int n = x.frames.get();
+        System.out.println(String.format("[ReplayExporter] %d frames %dx%d en %.2f s : %.0f frames/s (x%.1f temps reel)",
+                                         n, x.width, x.height, s, n / s, n / s / panels[0].FPS));
+        if (format == Format.RAW) {
+            System.out.println("[ReplayExporter] ffmpeg -f rawvideo -pixel_format bgr24 -video_size "
+                               + x.width + "x" + x.height + " -framerate " + panels[0].FPS + " -i frames.raw ...");
+        }
+        if (x.failure != null) System.out.println("[ReplayExporter] Echec : " + x.failure);
+        return x.failure == null;
+    }
+
+    // =========================================================================
+    // Thread d'export
+    // =========================================================================
+
+    private void work(GamePanel gp) {
+        ParticleSystem.bindToCurrentThread();
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        try {
+            ReplayPlayer r = ReplayPlayer.parse(data);
+            r.start(gp); // gp.replay non null : rien n'est sauvegarde
+            for (int i = nextSegment.getAndIncrement(); i < bounds.length - 1 && failure == null;
+                     i = nextSegment.getAndIncrement()) {
+                int from = bounds[i], to = bounds[i + 1];
+                r.seek(gp, from, from - 1); // image cle precedente : effets en cours reconstruits
+                while (r.tick() < to && gp.gameState == GameState.PLAYING) {
+                    gp.simulateTick();
+                    if (gp.gameState == GameState.MENU) break; // fin des entrees enregistrees
+                    write(gp, img, r.tick());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = Thread.currentThread().getName() + " : " + e;
+        }
+    }
+
+    private void write(GamePanel gp, BufferedImage img, int tick) throws IOException {
+        Graphics2D g2 = img.createGraphics();
+        try {
+            gp.renderOffscreen(g2);
+        } finally {
+            g2.dispose();
+        }
+        if (format == Format.PNG) {
+            ImageIO.write(img, "png", new File(outDir, String.format("frame-%06d.png", tick)));
+        } else {
+            byte[] pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+            ByteBuffer b = ByteBuffer.wrap(pixels);
+            long at = (long) (tick - 1) * pixels.length;
+            while (b.hasRemaining()) at += raw.write(b, at);
+        }
+        frames.incrementAndGet();
+    }
+}
@@ -0,0 +1,530 @@
+package projetCROMBEZ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Rejeu d'une partie enregistree par {@link InputRecorder}.
+ *
+ * La partie est recreee a l'identique (graine, difficulte, ameliorations)
+ * puis chaque tick de simulation recoit le masque de touches enregistre
+ * au lieu du clavier. Deux modes :
+ *  - visionnage (--replay fichier) : dans la fenetre, a vitesse normale ;
+ *    ECHAP met en pause, le retour au menu termine le rejeu ;
+ *  - analyse (--replay fichier --headless) : sans fenetre ni rendu, aussi
+ *    vite que possible ; affiche les ticks par seconde et compare la fin
+ *    obtenue a celle enregistree (desynchronisation).
+ *
+ * Acces direct (seek, --seek secondes) : restauration de l'image cle la
+ * plus proche avant le tick vise, puis simulation du reste. Pour un
+ * fichier indexe, les images cles sont lues dans l'index de fin de
+ * fichier (pas de parcours du flux).
+ *
+ * Verification : a chaque empreinte enregistree, l'empreinte de l'etat
+ * rejoue est comparee (check) ; la premiere difference est signalee
+ * (console, HUD). L'analyse sans fenetre designe ensuite l'entite qui
+ * differe, en comparant l'etat rejoue a la premiere image cle suivant la
+ * derniere empreinte identique.
+ *
+ * Pendant un rejeu, rien n'est sauvegarde : la progression du joueur
+ * (or, ameliorations, difficulte, record) est mise de cote au debut puis
+ * restauree a la fin (stop).
+ */
+public final class ReplayPlayer {
+
+    private final byte[] data;
+
+    /** Debut du flux (apres l'en-tete) et fin (index, ou fin du fichier). */
+    private final int streamStart;
+    private int       streamEnd;
+
+    public final long            seed;
+    public final DifficultyLevel difficulty;
+    private final int[]          loadout = new int[RunHistory.UPGRADE_COUNT];
+
+    /** Fin enregistree (EV_END) : -1 si la partie n'est pas terminee. */
+    private int endTicks = -1, endOutcome = -1;
+
+    private int totalTicks;
+    private final int[] finalLoadout = new int[RunHistory.UPGRADE_COUNT];
+
+    // Images cles : tick et position (debut de l'evenement), par tick croissant
+    private int[] kfTicks = new int[0], kfOffsets = new int[0];
+    private int   keyframeBytes;
+
+    // Empreintes enregistrees (0 = aucune) et resultat de la verification
+    private int     hashTicks;
+    private short[] hashes = new short[0];
+    private int     lastMatch, firstDivergence = -1;
+
+    // Curseur de lecture
+    private int pos, runMask, runLeft, tick;
+    private final int[] levels = new int[RunHistory.UPGRADE_COUNT];
+
+    // Progression mise de cote pendant le rejeu
+    private DifficultyLevel savedDifficulty;
+    private final int[] savedLevels = new int[RunHistory.UPGRADE_COUNT];
+    private int savedGold, savedBest;
+
+    // =========================================================================
+    // Lecture du fichier
+    // =========================================================================
+
+    public static ReplayPlayer open(File file) throws IOException {
+        return parse(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Lit l'en-tete et l'index de fin de fichier ; sans index (version 1,
+     * partie en cours en version 2), parcourt tout le flux une fois
+     * (validation, duree, fin enregistree, images cles).
+     *
+     * @throws IOException format inconnu ou flux tronque
+     */
+    public static ReplayPlayer parse(byte[] data) throws IOException {
+        return new ReplayPlayer(data);
+    }
+
+    private ReplayPlayer(byte[] data) throws IOException {
+        this.data = data;
+        if (data.length < 22 || getInt(0) != InputRecorder.MAGIC) throw new IOException("format inconnu");
+        int version = (data[4] & 0xFF) << 8 | (data[5] & 0xFF);
+        if (version < 1 || version > InputRecorder.VERSION) {
+            throw new IOException("version non supportee");
+        }
+        seed = (long) getInt(6) << 32 | (getInt(10) & 0xFFFFFFFFL);
+        int d = data[14];
+        if (d < 0 || d >= DifficultyLevel.values().length) throw new IOException("difficulte invalide");
+        difficulty = DifficultyLevel.values()[d];
+        for (int i = 0; i < loadout.length; i++) loadout[i] = data[15 + i];
+        streamStart = 15 + loadout.length;
+
+        System.arraycopy(loadout, 0, finalLoadout, 0, loadout.length);
+        try {
+            if (data.length >= streamStart + 8 && getInt(data.length - 4) == InputRecorder.INDEX_MAGIC) {
+                readIndex(version);
+            } else {
+                streamEnd = data.length;
+                scan();
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("enregistrement tronque");
+        }
+        rewind();
+    }
+
+    /** Fichier indexe : duree, fin, images cles et empreintes lues dans l'index. */
+    private void readIndex(int version) throws IOException {
+        pos = streamEnd = getInt(data.length - 8);
+        if (pos < streamStart || pos > data.length - 8) throw new IOException("index invalide");
+        totalTicks  = (int) varint();
+        int outcome = data[pos++] & 0xFF;
+        if (outcome != InputRecorder.ISSUE_NONE) {
+            endTicks   = totalTicks;
+            endOutcome = outcome;
+        }
+        if (version >= 3) {
+            for (int i = 0; i < finalLoadout.length; i++) finalLoadout[i] = data[pos++];
+        }
+        int n = (int) varint();
+        if (n < 0 || n > data.length) throw new IOException("index invalide");
+        kfTicks   = new int[n];
+        kfOffsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            kfTicks[i]   = (int) varint() + (i == 0 ? 0 : kfTicks[i - 1]);
+            kfOffsets[i] = (int) varint() + (i == 0 ? 0 : kfOffsets[i - 1]);
+        }
+        if (version >= 3) {
+            hashTicks = (int) varint();
+            int h = (int) varint();
+            if (hashTicks <= 0 || h < 0 || pos + 2 * h > data.length - 8) throw new IOException("index invalide");
+            hashes = new short[h];
+            for (int i = 0; i < h; i++, pos += 2) hashes[i] = (short) ((data[pos] & 0xFF) << 8 | (data[pos + 1] & 0xFF));
+        }
+        for (int i = 0; i < n; i++) {
+            pos = kfOffsets[i] + 2;
+            if (kfOffsets[i] < streamStart || data[pos - 1] != InputRecorder.EV_KEYFRAME) {
+                throw new IOException("index invalide");
+            }
+            int payload = (int) varint();
+            keyframeBytes += pos + payload - kfOffsets[i];
+        }
+    }
+
+    /** Fichier sans index (partie en cours) : parcours complet du flux. */
+    private void scan() throws IOException {
+        pos = streamStart;
+        int n = 0;
+        while (pos < data.length) {
+            long v = varint();
+            if (v != 0) {
+                totalTicks += (int) (v >>> KeyHandler.MASK_BITS);
+                continue;
+            }
+            int at = pos - 1, ev = data[pos++];
+            if (ev == InputRecorder.EV_LOADOUT) {
+                for (int i = 0; i < finalLoadout.length; i++) finalLoadout[i] = data[pos++];
+            } else if (ev == InputRecorder.EV_KEYFRAME) {
+                if (n == kfTicks.length) {
+                    kfTicks   = Arrays.copyOf(kfTicks,   Math.max(16, n * 2));
+                    kfOffsets = Arrays.copyOf(kfOffsets, Math.max(16, n * 2));
+                }
+                kfTicks[n]   = totalTicks;
+                kfOffsets[n] = at;
+                n++;
+                int payload = (int) varint();
+                pos += payload;
+                keyframeBytes += pos - at;
+            } else if (ev == InputRecorder.EV_END) {
+                endTicks   = (int) varint();
+                endOutcome = data[pos++];
+                break;
+            } else {
+                throw new IOException("evenement inconnu : " + ev);
+            }
+        }
+        if (pos > data.length) throw new IOException("enregistrement tronque");
+        kfTicks   = Arrays.copyOf(kfTicks,   n);
+        kfOffsets = Arrays.copyOf(kfOffsets, n);
+    }
+
+    /** Duree enregistree (ticks). */
+    public int totalTicks() { return totalTicks; }
+
+    /** true si l'enregistrement contient la fin de la partie. */
+    public boolean ended() { return endTicks >= 0; }
+
+    /** Niveaux d'amelioration a la fin de l'enregistrement. */
+    int[] finalLoadout() { return finalLoadout; }
+
+    /** Fin du flux (debut de l'index). */
+    int streamEnd() { return streamEnd; }
+
+    /** Empreintes (reprise de l'enregistrement) : intervalle (0 = aucune), nombre, valeurs. */
+    int hashTicks()     { return hashTicks; }
+    int hashCount()     { return hashes.length; }
+    int hash(int i)     { return hashes[i] & 0xFFFF; }
+
+    /** Premier tick dont l'empreinte differe de l'enregistrement (-1 : aucun). */
+    public int firstDivergence() { return firstDivergence; }
+
+    /** Images cles (reprise de l'enregistrement, voir InputRecorder.resume). */
+    int keyframeCount()       { return kfTicks.length; }
+    int keyframeTick(int i)   { return kfTicks[i]; }
+    int keyframeOffset(int i) { return kfOffsets[i]; }
+
+    /** Taille totale des images cles (octets). */
+    int keyframeBytes()       { return keyframeBytes; }
+
+    /** Tick de lecture courant. */
+    public int tick() { return tick; }
+
+    // =========================================================================
+    // Lecture tick par tick (thread de jeu)
+    // =========================================================================
+
+    private void rewind() {
+        pos = streamStart;
+        runLeft = 0;
+        tick = 0;
+    }
+
+    /**
+     * Masque des touches du tick suivant. Applique au passage les achats
+     * enregistres (EV_LOADOUT).
+     *
+     * @return le masque, ou -1 a la fin de l'enregistrement
+     */
+    public int next(Player p) {
+        while (runLeft == 0) {
+            if (pos >= streamEnd) return -1;
+            long v = varint();
+            if (v != 0) {
+                runMask = (int) (v & ((1 << KeyHandler.MASK_BITS) - 1));
+                runLeft = (int) (v >>> KeyHandler.MASK_BITS);
+                continue;
+            }
+            int ev = data[pos++];
+            if (ev == InputRecorder.EV_KEYFRAME) {
+                int payload = (int) varint();
+                pos += payload;
+                continue;
+            }
+            if (ev != InputRecorder.EV_LOADOUT) { pos = streamEnd; return -1; } // EV_END
+            for (int i = 0; i < levels.length; i++) levels[i] = data[pos++];
+            p.setUpgradeLevels(levels);
+            p.applyUpgrades();
+        }
+        runLeft--;
+        tick++;
+        return runMask;
+    }
+
+    /**
+     * Compare l'empreinte de l'etat (apres le tick) a celle enregistree
+     * pour ce tick, s'il y en a une. Thread de jeu, apres chaque tick.
+     */
+    void check(GamePanel gp) {
+        int t = gp.survivalTicks;
+        if (hashTicks == 0 || t % hashTicks != 0) return;
+        int i = t / hashTicks - 1;
+        if (i < 0 || i >= hashes.length || firstDivergence >= 0) return;
+        if (StateHash.fold16(gp.stateHash) == (hashes[i] & 0xFFFF)) {
+            lastMatch = t;
+        } else {
+            firstDivergence = t;
+            System.out.println("[ReplayPlayer] Divergence : etat different de l'enregistrement au tick " + t
+                               + " (identique au tick " + lastMatch + ")");
+        }
+    }
+
+    // =========================================================================
+    // Acces direct (thread de jeu, ou monde a l'arret)
+    // =========================================================================
+
+    /**
+     * Amene la partie rejouee au tick vise : depuis la position courante
+     * si elle est avant (et pas plus loin que la derniere image cle utile),
+     * sinon depuis l'image cle precedant le tick (ou depuis le debut).
+     * Le rejeu continue ensuite normalement.
+     *
+     * @return le tick d'ou la simulation est repartie
+     * @throws IOException image cle illisible
+     */
+    public int seek(GamePanel gp, int target) throws IOException {
+        return seek(gp, target, target);
+    }
+
+    /** seek en n'utilisant que les images cles de tick <= keyframeLimit. */
+    int seek(GamePanel gp, int target, int keyframeLimit) throws IOException {
+        target = Math.max(0, Math.min(target, totalTicks));
+        int k = Arrays.binarySearch(kfTicks, Math.min(target, keyframeLimit));
+        if (k < 0) k = -k - 2; // derniere image cle <= limite
+
+        if (target < tick || (k >= 0 && kfTicks[k] > tick)) {
+            if (k >= 0) restoreKeyframe(gp, k);
+            else        restart(gp);
+        }
+        int from = tick;
+        gp.gameState = GameState.PLAYING;
+        while (tick < target && gp.gameState == GameState.PLAYING) gp.simulateTick();
+        return from;
+    }
+
+    /** Restaure l'image cle k et place la lecture juste apres. */
+    private void restoreKeyframe(GamePanel gp, int k) throws IOException {
+        loadKeyframe(gp, k);
+        pos = kfOffsets[k] + 2; // varint 0 | EV_KEYFRAME
+        int payload = (int) varint();
+        pos    += payload;
+        runLeft = 0;
+        tick    = kfTicks[k];
+    }
+
+    /** Remplace la partie de gp par l'image cle k (lecture inchangee). */
+    private void loadKeyframe(GamePanel gp, int k) throws IOException {
+        int p = kfOffsets[k] + 2; // varint 0 | EV_KEYFRAME
+        int saved = pos;
+        pos = p;
+        int payload = (int) varint();
+        int end     = pos + payload;
+        int rawLen  = (int) varint();
+        int[] lv = new int[RunHistory.UPGRADE_COUNT];
+        for (int i = 0; i < lv.length; i++) lv[i] = data[pos++];
+        int packedAt = pos;
+        pos = saved;
+
+        byte[] raw = new byte[rawLen];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, packedAt, end - packedAt);
+            if (inflater.inflate(raw) != rawLen) throw new IOException("image cle tronquee");
+        } catch (DataFormatException e) {
+            throw new IOException("image cle corrompue", e);
+        } finally {
+            inflater.end();
+        }
+
+        // Stats avant l'etat : la vie restauree est bornee par maxHp
+        gp.player.setUpgradeLevels(lv);
+        gp.player.applyUpgrades();
+        WorldSnapshot.restore(gp, raw);
+        gp.player.gold = gp.runStats.goldEarned; // voir restart
+    }
+
+    /**
+     * Designe l'entite qui differe apres une divergence : rejoue jusqu'a
+     * la premiere image cle posterieure a la derniere empreinte identique
+     * (depuis une image cle anterieure, donc encore correcte) et compare
+     * l'etat obtenu a l'image cle, entite par entite.
+     *
+     * @return la description, ou null sans image cle exploitable
+     */
+    private String locateDivergence(GamePanel gp) throws IOException {
+        int k = Arrays.binarySearch(kfTicks, lastMatch + 1);
+        if (k < 0) k = -k - 1; // premiere image cle > lastMatch
+        if (k >= kfTicks.length) return null;
+        int at = kfTicks[k];
+        seek(gp, at, at - 1);
+        if (tick != at) return null; // partie terminee avant l'image cle
+
+        GamePanel expected = new GamePanel();
+        expected.replay = this; // jamais sauvegarde (ShutdownHook)
+        loadKeyframe(expected, k);
+        String d = gp.hasher.diff(expected, gp);
+        return "tick " + at + " : " + (d == null ? "aucune difference (collision d'empreinte)" : d);
+    }
+
+    // =========================================================================
+    // Demarrage / arret
+    // =========================================================================
+
+    /**
+     * Lance le rejeu dans gp : met la progression de cote, recree la
+     * partie enregistree et passe en jeu.
+     */
+    public void start(GamePanel gp) {
+        GameSettings s = GameSettings.getInstance();
+        Player p = gp.player;
+        savedDifficulty = s.getDifficulty();
+        p.getUpgradeLevels(savedLevels);
+        savedGold = p.gold;
+        savedBest = gp.bestTimeTicks;
+
+        gp.replay = this; // avant tout changement : bloque les sauvegardes
+        s.setDifficulty(difficulty);
+        restart(gp);
+        gp.gameState = GameState.PLAYING;
+        System.out.println("[ReplayPlayer] Rejeu : graine " + seed + ", " + difficulty.getLabel()
+                           + ", " + totalTicks + " ticks" + (ended() ? "" : " (partie non terminee)"));
+    }
+
+    /**
+     * Recree la partie enregistree a son debut. L'or affiche part de zero
+     * (l'or du joueur avant la partie n'est pas enregistre) : il vaut l'or
+     * gagne, quel que soit le point de depart (image cle, export).
+     */
+    private void restart(GamePanel gp) {
+        gp.player.setUpgradeLevels(loadout);
+        gp.player.applyUpgrades();
+        gp.resetGame();
+        gp.player.gold = 0;
+        gp.seedRun(seed);
+        rewind();
+    }
+
+    /** Termine le rejeu et restaure la progression du joueur. */
+    public void stop(GamePanel gp) {
+        Player p = gp.player;
+        GameSettings.getInstance().setDifficulty(savedDifficulty); // rejeu encore actif : pas de sauvegarde
+        p.setUpgradeLevels(savedLevels);
+        p.applyUpgrades();
+        gp.resetGame();
+        p.gold = savedGold;
+        gp.bestTimeTicks = savedBest;
+        gp.replay = null;
+        System.out.println("[ReplayPlayer] Fin du rejeu (tick " + tick + ").");
+    }
+
+    // =========================================================================
+    // Analyse sans fenetre
+    // =========================================================================
+
+    /**
+     * Rejoue le fichier sans rendu, aussi vite que possible, et affiche
+     * le debit et la fin obtenue. Le panneau n'est jamais affiche.
+     *
+     * Avec seekSeconds >= 0, mesure aussi l'acces direct a ce tick depuis la
+     * fin de la partie (image cle + reste) contre la simulation depuis le
+     * debut, verifie que l'etat obtenu est le meme, puis rejoue la suite.
+     *
+     * @return true si la fin obtenue, les empreintes (et l'etat au tick
+     *         vise) correspondent a l'enregistrement
+     */
+    public static boolean runHeadless(File file, int seekSeconds) throws IOException {
+        ReplayPlayer r = open(file);
+        GamePanel gp = new GamePanel();
+        r.start(gp); // gp.replay reste non null : le ShutdownHook n'ecrase pas la sauvegarde
+        int seekTick = seekSeconds < 0 ? -1 : seekSeconds * gp.FPS;
+        System.out.println(String.format("[ReplayPlayer] %d octets, %d image(s) cle(s) : %d octets (x%.1f les entrees)",
+                                         r.data.length, r.kfTicks.length, r.keyframeBytes,
+                                         r.keyframeBytes / (double) (r.data.length - r.keyframeBytes)));
+
+        byte[] expected = null;
+        long linearNanos = 0;
+        long start = System.nanoTime();
+        while (gp.gameState == GameState.PLAYING) {
+            gp.simulateTick();
+            if (r.tick == seekTick) {
+                linearNanos = System.nanoTime() - start;
+                expected = WorldSnapshot.capture(gp);
+            }
+        }
+        double s = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("[ReplayPlayer] %d ticks en %.2f s : %.0f ticks/s (x%.0f temps reel)",
+                                         r.tick, s, r.tick / s, r.tick / s / gp.FPS));
+        boolean ok = r.checkEnd(gp);
+
+        if (r.hashTicks == 0) {
+            System.out.println("[ReplayPlayer] Pas d'empreintes d'etat (enregistrement ancien).");
+        } else if (r.firstDivergence < 0) {
+            System.out.println("[ReplayPlayer] Empreintes identiques (" + r.hashes.length + ", une tous les "
+                               + r.hashTicks + " ticks).");
+        } else {
+            ok = false;
+            String where = r.locateDivergence(gp);
+            System.out.println("[ReplayPlayer] Entite divergente : " + (where != null ? where
+                               : "inconnue (pas d'image cle apres le tick " + r.lastMatch + ")"));
+        }
+
+        if (expected != null) {
+            long t0 = System.nanoTime();
+            int from = r.seek(gp, seekTick);
+            long seekNanos = System.nanoTime() - t0;
+            boolean same = Arrays.equals(expected, WorldSnapshot.capture(gp));
+            System.out.println(String.format("[ReplayPlayer] Acces au tick %d : %.2f ms (depuis le tick %d, %d ticks simules)"
+                                             + " ; depuis le debut : %.2f ms ; etat %s",
+                                             seekTick, seekNanos / 1e6, from, seekTick - from, linearNanos / 1e6,
+                                             same ? "identique" : "DIFFERENT"));
+            while (gp.gameState == GameState.PLAYING) gp.simulateTick();
+            ok &= same && r.checkEnd(gp);
+        }
+        return ok;
+    }
+
+    /** Compare la fin obtenue a la fin enregistree (true si non enregistree). */
+    private boolean checkEnd(GamePanel gp) {
+        int outcome = gp.gameState == GameState.VICTORY   ? InputRecorder.OUTCOME_VICTORY
+                    : gp.gameState == GameState.GAME_OVER ? InputRecorder.OUTCOME_GAME_OVER
+                    : InputRecorder.OUTCOME_ABANDONED;
+        System.out.println("[ReplayPlayer] Fin : " + gp.gameState + " au tick " + gp.survivalTicks
+                           + ", vague " + gp.enemyManager.getWave() + ", " + gp.runStats.totalKills() + " ennemis tues");
+        if (!ended()) return true;
+        boolean ok = gp.survivalTicks == endTicks && outcome == endOutcome;
+        System.out.println(ok ? "[ReplayPlayer] Fin identique a l'enregistrement."
+                              : "[ReplayPlayer] DESYNCHRONISATION : enregistrement termine au tick " + endTicks
+                                + " (issue " + endOutcome + ")");
+        return ok;
+    }
+
+    // =========================================================================
+    // Utilitaires
+    // =========================================================================
+
+    private int getInt(int at) {
+        return (data[at] & 0xFF) << 24 | (data[at + 1] & 0xFF) << 16 | (data[at + 2] & 0xFF) << 8 | (data[at + 3] & 0xFF);
+    }
+
+    private long varint() {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = data[pos++];
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
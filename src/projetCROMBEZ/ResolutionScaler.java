@@ -0,0 +1,80 @@
+package projetCROMBEZ;
+
+/**
+ * Resolution dynamique : ajuste l'echelle de rendu interne selon le
+ * temps de dessin mesure.
+ *
+ * Le temps de chaque frame de jeu est lisse (moyenne glissante). Si la
+ * moyenne depasse le budget pendant DOWN_FRAMES frames, l'echelle baisse
+ * d'un cran ; si elle reste sous HEADROOM x budget pendant UP_FRAMES
+ * frames, elle remonte d'un cran, sans depasser l'echelle choisie dans
+ * les options. La remontee est plus lente que la descente pour eviter
+ * d'osciller autour du budget.
+ */
+public class ResolutionScaler {
+
+    /** Echelle minimale en mode dynamique. */
+    static final float MIN_SCALE = 0.5f;
+
+    /** Pas d'ajustement. */
+    static final float STEP = 0.125f;
+
+    /** Budget de dessin par frame (ms) : ~60 % d'une frame a 60 FPS. */
+    static final double BUDGET_MS = 10.0;
+
+    /** Fraction du budget sous laquelle on considere avoir de la marge. */
+    static final double HEADROOM = 0.6;
+
+    static final int DOWN_FRAMES = 20;
+    static final int UP_FRAMES   = 120;
+
+    private float  scale = 1f;
+    private double avgMs = 0;
+    private int    overFrames, underFrames;
+
+    /**
+     * Enregistre le temps d'une frame et retourne l'echelle a utiliser.
+     *
+     * @param configured Echelle choisie dans les options (plafond)
+     * @param dynamic    true si la resolution dynamique est active
+     * @param frameMs    Temps de dessin de la frame (ms)
+     */
+    public float update(float configured, boolean dynamic, double frameMs) {
+        avgMs = avgMs == 0 ? frameMs : avgMs * 0.9 + frameMs * 0.1;
+        if (!dynamic) {
+            scale = configured;
+            overFrames = underFrames = 0;
+            return scale;
+        }
+        if (scale > configured) scale = configured;
+
+        if (avgMs > BUDGET_MS) {
+            underFrames = 0;
+            if (++overFrames >= DOWN_FRAMES && scale > MIN_SCALE) {
+                scale = Math.max(MIN_SCALE, scale - STEP);
+                overFrames = 0;
+                System.out.println(String.format("[ResolutionScaler] %.1f ms > budget, echelle -> %d %%",
+                                                 avgMs, Math.round(scale * 100)));
+            }
+        } else if (avgMs < BUDGET_MS * HEADROOM) {
+            overFrames = 0;
+            if (++underFrames >= UP_FRAMES && scale < configured) {
+                scale = Math.min(configured, scale + STEP);
+                underFrames = 0;
+                System.out.println(String.format("[ResolutionScaler] %.1f ms, marge retrouvee, echelle -> %d %%",
+                                                 avgMs, Math.round(scale * 100)));
+            }
+        } else {
+            overFrames = underFrames = 0;
+        }
+        return scale;
+    }
+
+    /** Echelle courante (sans nouvelle mesure). */
+    public float current(float configured, boolean dynamic) {
+        return dynamic ? Math.min(scale, configured) : configured;
+    }
+
+    /** Moyenne glissante du temps de dessin (ms). */
+    public double averageMs() { return avgMs; }
+}
@@ -0,0 +1,460 @@
+package projetCROMBEZ;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memoire des dernieres secondes de la partie (retour arriere, kill-cam
+ * apres GAME_OVER), sans copie du monde a chaque tick.
+ *
+ * =========================================================================
+ * FORMAT
+ * =========================================================================
+ * Chaque tick capture l'etat simule sous forme de lignes (une par entite :
+ * joueur, ennemis, projectiles, dans l'ordre des listes), chaque ligne
+ * etant la suite des champs ecrits par writeState (un long par champ).
+ *
+ *  - image cle (toutes les KEYFRAME_TICKS)  : toutes les lignes completes
+ *  - tick intermediaire                     : seulement les champs qui
+ *    different de la meme ligne au tick precedent (masque de champs)
+ *
+ *  enregistrement = lignes | nombre d'en-tetes << 32
+ *                   puis par ligne modifiee :
+ *                   ligne << 40 | genre << 37 | champs << 32 | masque
+ *                   suivi des valeurs des champs du masque
+ *
+ * Les enregistrements sont ecrits dans un anneau de longs alloue une fois
+ * (POOL longs) ; une table circulaire donne le debut de chaque tick.
+ *
+ * =========================================================================
+ * MEMOIRE
+ * =========================================================================
+ * Bornee et fixe : l'anneau, trois tables de lignes (capture courante,
+ * precedente, vue) et la table des ticks, tout alloue a la construction
+ * (reservedBytes). Les segments les plus anciens (une image cle et ses
+ * ticks intermediaires) sont liberes des que les ticks suivants couvrent
+ * encore TICKS, ou si l'anneau est plein (couverture alors plus courte).
+ * Au-dela de MAX_ROWS entites, les dernieres ne sont pas memorisees.
+ *
+ * =========================================================================
+ * RECONSTRUCTION
+ * =========================================================================
+ * rebuild(tick) decode depuis l'image cle precedente (ou continue depuis
+ * le dernier tick reconstruit) puis relit chaque ligne dans des entites
+ * d'affichage reutilisees (readState) : emit() les dessine comme le jeu.
+ * Ce ne sont que des copies pour le rendu, jamais simulees.
+ *
+ * Thread de jeu uniquement.
+ */
+final class RewindBuffer {
+
+    /** Duree memorisee : 10 s (a 60 ticks par seconde, GamePanel.FPS). */
+    static final int TICKS          = 10 * 60;
+    static final int KEYFRAME_TICKS = 60;
+
+    private static final int MAX_ROWS   = 1024;
+    private static final int MAX_FIELDS = 24;
+
+    private static final int  POOL      = 1 << 18;  // 2 Mo
+    private static final long POOL_MASK = POOL - 1;
+    private static final int  RING      = Integer.highestOneBit(TICKS + KEYFRAME_TICKS) * 2;
+    private static final int  RING_MASK = RING - 1;
+
+    /** Genres de ligne : joueur, ennemi (type + 1), projectile. */
+    private static final int KIND_PLAYER = 0, KIND_PROJECTILE = 5;
+
+    // =========================================================================
+    // Stockage
+    // =========================================================================
+
+    private final long[] pool = new long[POOL];
+    private long head, tail;
+
+    private final long[]    tickStart = new long[RING];
+    private final boolean[] tickKey   = new boolean[RING];
+    private int firstTick, count, lastKey;
+
+    /** Lignes : capture du tick courant, du tick precedent, vue reconstruite. */
+    private Rows cur = new Rows(), prev = new Rows();
+    private final Rows view = new Rows();
+    private int viewTick = -1;
+
+    private final Fields fields = new Fields();
+
+    // =========================================================================
+    // Entites d'affichage (reutilisees)
+    // =========================================================================
+
+    private final GamePanel gp;
+    private final Player viewPlayer;
+    private final List<List<Enemy>> enemyPool = new ArrayList<>();
+    private final List<Projectile> projectilePool = new ArrayList<>();
+    private final List<Enemy> viewEnemies = new ArrayList<>();
+    private final List<Projectile> viewProjectiles = new ArrayList<>();
+    private boolean viewHasPlayer;
+    private final int[] levels = new int[7];
+    private final int[] used   = new int[4];
+
+    RewindBuffer(GamePanel gp) {
+        this.gp = gp;
+        this.viewPlayer = new Player(gp);
+        for (int t = 0; t < 4; t++) enemyPool.add(new ArrayList<>());
+        System.out.println("[RewindBuffer] " + TICKS / KEYFRAME_TICKS + " s (" + TICKS + " ticks), "
+                           + reservedBytes() / 1024 + " Ko reserves");
+    }
+
+    // =========================================================================
+    // Capture
+    // =========================================================================
+
+    /** Oublie tout (nouvelle partie, chargement, saut dans un rejeu). */
+    void clear() {
+        tail = head;
+        count = 0;
+        viewTick = -1;
+    }
+
+    /**
+     * Memorise l'etat de gp apres le tick gp.survivalTicks. Un tick non
+     * consecutif au precedent (chargement, saut) repart de zero.
+     */
+    void capture(GamePanel gp) {
+        int tick = gp.survivalTicks;
+        if (count > 0 && tick != firstTick + count) clear();
+
+        int worst = fill(gp);
+        while (head + worst - tail > POOL || count == RING) {
+            if (!dropSegment()) clear();
+        }
+
+        boolean key = count == 0 || tick - lastKey >= KEYFRAME_TICKS;
+        if (count == 0) firstTick = tick;
+        if (key) lastKey = tick;
+        tickStart[tick & RING_MASK] = head;
+        tickKey[tick & RING_MASK]   = key;
+        count++;
+        encode(key);
+
+        Rows r = prev; prev = cur; cur = r;
+
+        // Segments les plus anciens : liberes si le reste couvre encore TICKS
+        while (count > TICKS && canDrop()) dropSegment();
+    }
+
+    /** Remplit cur ; retourne la taille maximale de l'enregistrement. */
+    private int fill(GamePanel gp) {
+        Rows r = cur;
+        r.rows = 0;
+        try {
+            row(r, KIND_PLAYER);
+            gp.player.writeState(fields);
+            List<Enemy> enemies = gp.enemyManager.enemies;
+            for (int i = 0; i < enemies.size() && r.rows < MAX_ROWS; i++) {
+                Enemy e = enemies.get(i);
+                row(r, 1 + EnemyManager.typeIndex(e));
+                e.writeState(fields);
+            }
+            for (int i = 0; i < gp.projectiles.size() && r.rows < MAX_ROWS; i++) {
+                Projectile p = gp.projectiles.get(i);
+                row(r, KIND_PROJECTILE);
+                fields.writeDouble(p.x);  fields.writeDouble(p.y);
+                fields.writeDouble(p.dx); fields.writeDouble(p.dy);
+                fields.writeInt(p.damage);
+                fields.writeInt(p.size);
+                fields.writeInt((p.fromPlayer ? 1 : 0) | (p.isCrit ? 2 : 0) | (p.alive ? 4 : 0));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // aucune entree/sortie ici
+        }
+        endRow(r);
+
+        int worst = 1;
+        for (int i = 0; i < r.rows; i++) worst += 1 + r.len[i];
+        return worst;
+    }
+
+    private void row(Rows r, int kind) {
+        if (r.rows > 0) endRow(r);
+        r.kind[r.rows] = (byte) kind;
+        fields.at(r.values, r.rows * MAX_FIELDS);
+        r.rows++;
+    }
+
+    private void endRow(Rows r) {
+        if (r.rows > 0) r.len[r.rows - 1] = (byte) (fields.pos - (r.rows - 1) * MAX_FIELDS);
+    }
+
+    private void encode(boolean key) {
+        Rows c = cur, p = prev;
+        long start = head++;
+        int headers = 0;
+        for (int i = 0; i < c.rows; i++) {
+            int n = c.len[i], off = i * MAX_FIELDS, mask;
+            if (key || i >= p.rows || p.kind[i] != c.kind[i] || p.len[i] != n) {
+                mask = (1 << n) - 1;
+            } else {
+                mask = 0;
+                for (int f = 0; f < n; f++) if (c.values[off + f] != p.values[off + f]) mask |= 1 << f;
+                if (mask == 0) continue;
+            }
+            put(head++, (long) i << 40 | (long) c.kind[i] << 37 | (long) n << 32 | (mask & 0xFFFFFFFFL));
+            for (int f = 0; f < n; f++) if ((mask & (1 << f)) != 0) put(head++, c.values[off + f]);
+            headers++;
+        }
+        put(start, c.rows | (long) headers << 32);
+    }
+
+    /** true si l'image cle suivante laisse encore TICKS ticks memorises. */
+    private boolean canDrop() {
+        int k = nextKey();
+        return k >= 0 && firstTick + count - k >= TICKS;
+    }
+
+    /** Libere le segment le plus ancien (jusqu'a l'image cle suivante). */
+    private boolean dropSegment() {
+        int k = nextKey();
+        if (k < 0) return false;
+        tail = tickStart[k & RING_MASK];
+        count -= k - firstTick;
+        firstTick = k;
+        return true;
+    }
+
+    private int nextKey() {
+        for (int t = firstTick + 1; t < firstTick + count; t++) if (tickKey[t & RING_MASK]) return t;
+        return -1;
+    }
+
+    private void put(long at, long v) { pool[(int) (at & POOL_MASK)] = v; }
+    private long get(long at)         { return pool[(int) (at & POOL_MASK)]; }
+
+    // =========================================================================
+    // Reconstruction
+    // =========================================================================
+
+    boolean isEmpty() { return count == 0; }
+    int firstTick()   { return firstTick; }
+    int lastTick()    { return firstTick + count - 1; }
+
+    /**
+     * Reconstruit les entites du tick donne (entre firstTick et lastTick).
+     *
+     * @return false si ce tick n'est plus (ou pas encore) memorise
+     */
+    boolean rebuild(int tick) {
+        if (count == 0 || tick < firstTick || tick > lastTick()) return false;
+        if (tick == viewTick) return true;
+
+        int from;
+        if (viewTick >= firstTick && viewTick < tick) {
+            from = viewTick + 1;
+        } else {
+            from = tick;
+            while (!tickKey[from & RING_MASK]) from--;
+        }
+        for (int t = from; t <= tick; t++) decode(t);
+        viewTick = tick;
+        materialize();
+        return true;
+    }
+
+    private void decode(int tick) {
+        Rows v = view;
+        long p = tickStart[tick & RING_MASK];
+        long h0 = get(p++);
+        v.rows = (int) h0;
+        int headers = (int) (h0 >>> 32);
+        for (int i = 0; i < headers; i++) {
+            long h = get(p++);
+            int r = (int) (h >>> 40), mask = (int) h, off = r * MAX_FIELDS;
+            v.kind[r] = (byte) ((h >>> 37) & 7);
+            v.len[r]  = (byte) ((h >>> 32) & 31);
+            for (int f = 0; f < v.len[r]; f++) if ((mask & (1 << f)) != 0) v.values[off + f] = get(p++);
+        }
+    }
+
+    /** Relit les lignes de la vue dans les entites d'affichage. */
+    private void materialize() {
+        viewEnemies.clear();
+        viewProjectiles.clear();
+        viewHasPlayer = false;
+        int[] used = this.used;
+        for (int t = 0; t < used.length; t++) used[t] = 0;
+        int projectiles = 0;
+        try {
+            for (int i = 0; i < view.rows; i++) {
+                fields.at(view.values, i * MAX_FIELDS);
+                int kind = view.kind[i];
+                if (kind == KIND_PLAYER) {
+                    // Vie bornee par maxHp : memes niveaux d'amelioration que le joueur
+                    viewPlayer.setUpgradeLevels(gp.player.getUpgradeLevels(levels));
+                    viewPlayer.applyUpgrades();
+                    viewPlayer.readState(fields);
+                    viewHasPlayer = true;
+                } else if (kind == KIND_PROJECTILE) {
+                    if (projectiles == projectilePool.size()) projectilePool.add(new Projectile(0, 0, 0, 0, 0, true));
+                    Projectile p = projectilePool.get(projectiles++);
+                    p.x  = fields.readDouble(); p.y  = fields.readDouble();
+                    p.dx = fields.readDouble(); p.dy = fields.readDouble();
+                    p.damage = fields.readInt();
+                    p.size   = fields.readInt();
+                    int flags = fields.readInt();
+                    p.fromPlayer = (flags & 1) != 0;
+                    p.isCrit     = (flags & 2) != 0;
+                    p.alive      = (flags & 4) != 0;
+                    viewProjectiles.add(p);
+                } else {
+                    int type = kind - 1;
+                    List<Enemy> pool = enemyPool.get(type);
+                    if (used[type] == pool.size()) pool.add(WorldSnapshot.create((byte) type));
+                    Enemy e = pool.get(used[type]++);
+                    e.readState(fields);
+                    viewEnemies.add(e);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Dessine le tick reconstruit (meme ordre que GamePanel.emitGame). */
+    void emit(DisplayList dl) {
+        for (Projectile p : viewProjectiles) p.emit(dl);
+        for (Enemy e : viewEnemies) e.emit(dl);
+        if (viewHasPlayer) viewPlayer.emit(dl);
+    }
+
+    /** Entites reconstruites par le dernier rebuild (lecture seule). */
+    Player player()               { return viewHasPlayer ? viewPlayer : null; }
+    List<Enemy> enemies()         { return viewEnemies; }
+    List<Projectile> projectiles() { return viewProjectiles; }
+
+    // =========================================================================
+    // Memoire
+    // =========================================================================
+
+    /** Memoire allouee a la construction (fixe). */
+    static long reservedBytes() {
+        long rows = 3L * (MAX_ROWS * MAX_FIELDS * 8L + 2L * MAX_ROWS);
+        return POOL * 8L + rows + RING * 9L;
+    }
+
+    /** Part de l'anneau occupee par les ticks memorises. */
+    long usedBytes() { return (head - tail) * 8; }
+
+    // =========================================================================
+    // Tables de lignes
+    // =========================================================================
+
+    private static final class Rows {
+        final long[] values = new long[MAX_ROWS * MAX_FIELDS];
+        final byte[] kind   = new byte[MAX_ROWS];
+        final byte[] len    = new byte[MAX_ROWS];
+        int rows;
+    }
+
+    /**
+     * Curseur sur les champs d'une ligne : writeState y ecrit chaque valeur
+     * dans un long, readState les relit dans le meme ordre et les memes types.
+     * Tableaux d'octets et chaines prennent un long par octet ou caractere
+     * (writeUTF : longueur d'abord), dans la limite de MAX_FIELDS par ligne.
+     */
+    private static final class Fields implements DataOutput, DataInput {
+        private long[] a;
+        private int pos, limit;
+
+        void at(long[] values, int offset) {
+            a = values;
+            pos = offset;
+            limit = offset + MAX_FIELDS;
+        }
+
+        private void push(long v) {
+            if (pos == limit) throw new IllegalStateException("entite de plus de " + MAX_FIELDS + " champs");
+            a[pos++] = v;
+        }
+
+        private long pop() {
+            if (pos == limit) throw new IllegalStateException("ligne epuisee");
+            return a[pos++];
+        }
+
+        // --- DataOutput ---
+        @Override public void writeLong(long v)       { push(v); }
+        @Override public void writeInt(int v)         { push(v); }
+        @Override public void writeShort(int v)       { push((short) v); }
+        @Override public void writeChar(int v)        { push((char) v); }
+        @Override public void writeByte(int v)        { push((byte) v); }
+        @Override public void write(int b)            { push((byte) b); }
+        @Override public void writeBoolean(boolean v) { push(v ? 1 : 0); }
+        @Override public void writeFloat(float v)     { push(Float.floatToRawIntBits(v)); }
+        @Override public void writeDouble(double v)   { push(Double.doubleToRawLongBits(v)); }
+
+        // Octets et caracteres : un long chacun ; writeUTF : longueur puis caracteres
+        @Override public void write(byte[] b) { write(b, 0, b.length); }
+
+        @Override public void write(byte[] b, int off, int n) {
+            for (int i = off; i < off + n; i++) push(b[i]);
+        }
+
+        @Override public void writeBytes(String s) {
+            for (int i = 0; i < s.length(); i++) push((byte) s.charAt(i));
+        }
+
+        @Override public void writeChars(String s) {
+            for (int i = 0; i < s.length(); i++) push(s.charAt(i));
+        }
+
+        @Override public void writeUTF(String s) {
+            push(s.length());
+            writeChars(s);
+        }
+
+        // --- DataInput ---
+        @Override public long    readLong()          { return pop(); }
+        @Override public int     readInt()           { return (int) pop(); }
+        @Override public short   readShort()         { return (short) pop(); }
+        @Override public int     readUnsignedShort() { return (int) pop() & 0xFFFF; }
+        @Override public char    readChar()          { return (char) pop(); }
+        @Override public byte    readByte()          { return (byte) pop(); }
+        @Override public int     readUnsignedByte()  { return (int) pop() & 0xFF; }
+        @Override public boolean readBoolean()       { return pop() != 0; }
+        @Override public float   readFloat()         { return Float.intBitsToFloat((int) pop()); }
+        @Override public double  readDouble()        { return Double.longBitsToDouble(pop()); }
+
+        @Override public void readFully(byte[] b) { readFully(b, 0, b.length); }
+
+        @Override public void readFully(byte[] b, int off, int n) {
+            for (int i = off; i < off + n; i++) b[i] = (byte) pop();
+        }
+
+        @Override public int skipBytes(int n) {
+            int skipped = Math.max(0, Math.min(n, limit - pos));
+            pos += skipped;
+            return skipped;
+        }
+
+        /** Octets ecrits par writeBytes, jusqu'a '\n' ou la fin de la ligne ; null si epuisee. */
+        @Override public String readLine() {
+            if (pos == limit) return null;
+            StringBuilder sb = new StringBuilder();
+            while (pos < limit) {
+                char c = (char) (pop() & 0xFF);
+                if (c == '\n') break;
+                if (c != '\r') sb.append(c);
+            }
+            return sb.toString();
+        }
+
+        @Override public String readUTF() {
+            int n = (int) pop();
+            if (n < 0 || n > limit - pos) throw new IllegalStateException("chaine invalide");
+            char[] c = new char[n];
+            for (int i = 0; i < n; i++) c[i] = (char) pop();
+            return new String(c);
+        }
+    }
+}
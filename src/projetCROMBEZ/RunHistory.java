@@ -0,0 +1,337 @@
+package projetCROMBEZ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historique de toutes les parties terminees (save/history.bin et son
+ * index, save/history.idx).
+ *
+ * =========================================================================
+ * FICHIER
+ * =========================================================================
+ * En-tete de HEADER octets (MAGIC, VERSION, RECORD_SIZE, nombre de
+ * parties) suivi d'enregistrements de taille fixe RECORD_SIZE, projetes
+ * en memoire (MappedByteBuffer). Un ajout ecrit directement dans la
+ * projection ; le fichier est agrandi (capacite doublee) quand il est plein.
+ *
+ *  enregistrement = date (long, ms) | difficulte (byte) | victoire (byte)
+ *                 | vague (short) | ticks de survie (int)
+ *                 | tues par type (4 x int) | or gagne (int)
+ *                 | degats infliges (int) | niveaux d'amelioration (7 x byte)
+ *                 | reserve
+ *
+ * =========================================================================
+ * INDEX
+ * =========================================================================
+ * Chaque difficulte a un index trie (du meilleur temps au moins bon, a
+ * egalite le plus ancien d'abord), stocke a cote de l'historique dans un
+ * second fichier projete (history.idx) et relu tel quel a l'ouverture :
+ * rien n'est retrie au lancement.
+ *
+ * L'index est une liste a saut (skip list) : le noeud i (IDX_LEVELS
+ * liens, numero + 1, 0 = fin) suit l'enregistrement i, la tete de chaque
+ * difficulte est dans l'en-tete. La hauteur d'un noeud est tiree de son
+ * numero (hachage, probabilite 1/4 par niveau), donc n'est pas stockee.
+ * Un ajout coute O(log n) lectures et IDX_LEVELS ecritures au plus ;
+ * le top N suit le niveau 0 et ne lit que N enregistrements.
+ *
+ *  en-tete = MAGIC | VERSION | IDX_LEVELS | nombre de difficultes
+ *          | parties indexees | taille par difficulte (int chacune)
+ *          | tetes (IDX_LEVELS liens par difficulte)
+ *
+ * Le nombre de parties indexees est ecrit apres l'insertion. S'il ne
+ * correspond pas a l'historique (arret pendant un ajout, index absent ou
+ * d'un autre format), l'index est reconstruit a l'ouverture par insertions
+ * successives (O(n log n)).
+ *
+ * Ajouts depuis le thread de jeu, lectures depuis l'EDT : les methodes
+ * publiques sont synchronisees.
+ */
+public final class RunHistory {
+
+    // =========================================================================
+    // Format
+    // =========================================================================
+
+    /** "SVRH" */
+    private static final int MAGIC       = 0x53565248;
+    private static final int VERSION     = 1;
+    private static final int HEADER      = 64;
+    private static final int RECORD_SIZE = 64;
+
+    private static final int OFF_COUNT = 12;
+
+    // Decalages dans un enregistrement
+    private static final int R_DATE = 0, R_DIFF = 8, R_VICTORY = 9, R_WAVE = 10, R_TICKS = 12;
+    private static final int R_KILLS = 16, R_GOLD = 32, R_DAMAGE = 36, R_UPGRADES = 40;
+
+    public static final int UPGRADE_COUNT = 7;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Index (history.idx)
+    /** "SVRI" */
+    private static final int IDX_MAGIC   = 0x53565249;
+    private static final int IDX_VERSION = 1;
+    /** Niveaux de la liste a saut : efficace jusqu'a 4^IDX_LEVELS parties. */
+    private static final int IDX_LEVELS  = 12;
+    private static final int IDX_NODE    = IDX_LEVELS * 4;
+
+    private static final int IDX_OFF_COVERED = 16, IDX_OFF_SIZES = 20;
+    private static final int DIFFS       = DifficultyLevel.values().length;
+    private static final int IDX_OFF_HEADS = IDX_OFF_SIZES + DIFFS * 4;
+    private static final int IDX_HEADER  = IDX_OFF_HEADS + DIFFS * IDX_NODE;
+
+    /** Noeud virtuel : tete de liste d'une difficulte. */
+    private static final int HEAD = -1;
+
+    // =========================================================================
+    // Singleton
+    // =========================================================================
+
+    private static RunHistory instance;
+
+    /** Ouvre l'historique au premier appel (save/history.bin). */
+    public static synchronized RunHistory getInstance() {
+        if (instance == null) instance = new RunHistory(new File("save/history.bin"));
+        return instance;
+    }
+
+    // =========================================================================
+    // Etat
+    // =========================================================================
+
+    private final File file, indexFile;
+    private FileChannel channel, indexChannel;
+    private MappedByteBuffer map, idx;
+
+    private int count, capacity;
+
+    /** Predecesseurs par niveau lors d'une insertion (reutilise). */
+    private final int[] update = new int[IDX_LEVELS];
+
+    /** Partie terminee, telle que lue dans l'historique. */
+    public static final class Entry {
+        public final long            date;
+        public final DifficultyLevel difficulty;
+        public final boolean         victory;
+        public final int             wave, survivalTicks, goldEarned, damageDealt;
+        public final int[]           kills    = new int[EnemyManager.TYPE_COUNT];
+        public final int[]           upgrades = new int[UPGRADE_COUNT];
+
+        Entry(MappedByteBuffer m, int base) {
+            date          = m.getLong(base + R_DATE);
+            difficulty    = DifficultyLevel.values()[m.get(base + R_DIFF)];
+            victory       = m.get(base + R_VICTORY) != 0;
+            wave          = m.getShort(base + R_WAVE);
+            survivalTicks = m.getInt(base + R_TICKS);
+            goldEarned    = m.getInt(base + R_GOLD);
+            damageDealt   = m.getInt(base + R_DAMAGE);
+            for (int i = 0; i < kills.length; i++)    kills[i]    = m.getInt(base + R_KILLS + i * 4);
+            for (int i = 0; i < upgrades.length; i++) upgrades[i] = m.get(base + R_UPGRADES + i);
+        }
+
+        public int totalKills() {
+            int n = 0;
+            for (int k : kills) n += k;
+            return n;
+        }
+    }
+
+    // =========================================================================
+    // Ouverture
+    // =========================================================================
+
+    private RunHistory(File file) {
+        this.file      = file;
+        this.indexFile = new File(file.getParentFile(), "history.idx");
+        try {
+            open();
+        } catch (IOException e) {
+            System.out.println("[RunHistory] Historique indisponible : " + e.getMessage());
+            map = null;
+            idx = null;
+        }
+    }
+
+    private void open() throws IOException {
+        long start = System.nanoTime();
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists()) dir.mkdirs();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean fresh = channel.size() < HEADER;
+        capacity = fresh ? INITIAL_CAPACITY
+                         : (int) Math.max(INITIAL_CAPACITY, (channel.size() - HEADER) / RECORD_SIZE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD_SIZE);
+
+        if (fresh || map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != RECORD_SIZE) {
+            if (!fresh) System.out.println("[RunHistory] Format inconnu, historique reinitialise.");
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putInt(8, RECORD_SIZE);
+            map.putInt(OFF_COUNT, 0);
+        }
+        count = Math.min(map.getInt(OFF_COUNT), capacity);
+
+        indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean valid = indexChannel.size() >= IDX_HEADER;
+        mapIndex();
+        valid = valid && idx.getInt(0) == IDX_MAGIC && idx.getInt(4) == IDX_VERSION
+                      && idx.getInt(8) == IDX_LEVELS && idx.getInt(12) == DIFFS
+                      && idx.getInt(IDX_OFF_COVERED) == count;
+        if (!valid) rebuildIndex();
+
+        System.out.println(String.format("[RunHistory] %d partie(s), index %s en %.1f ms", count,
+                                         valid ? "charge" : "reconstruit", (System.nanoTime() - start) / 1e6));
+    }
+
+    /** Projette l'index a la capacite courante de l'historique. */
+    private void mapIndex() throws IOException {
+        idx = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, IDX_HEADER + (long) capacity * IDX_NODE);
+    }
+
+    /** Index vide puis insertion de chaque partie, dans l'ordre d'archivage. */
+    private void rebuildIndex() {
+        idx.putInt(0, IDX_MAGIC);
+        idx.putInt(4, IDX_VERSION);
+        idx.putInt(8, IDX_LEVELS);
+        idx.putInt(12, DIFFS);
+        for (int o = IDX_OFF_SIZES; o < IDX_HEADER; o += 4) idx.putInt(o, 0);
+        for (int i = 0; i < count; i++) {
+            int d = map.get(record(i) + R_DIFF);
+            if (d >= 0 && d < DIFFS) insert(d, i);
+        }
+        idx.putInt(IDX_OFF_COVERED, count);
+    }
+
+    // =========================================================================
+    // Ajout (thread de jeu)
+    // =========================================================================
+
+    /** Archive une partie terminee. */
+    public synchronized void append(DifficultyLevel difficulty, boolean victory, int wave,
+                                    int survivalTicks, RunStats stats, Player p) {
+        if (idx == null) return;
+        try {
+            if (count == capacity) grow();
+        } catch (IOException e) {
+            System.out.println("[RunHistory] ERREUR agrandissement : " + e.getMessage());
+            return;
+        }
+
+        int i = count, base = record(i);
+        map.putLong(base + R_DATE, System.currentTimeMillis());
+        map.put(base + R_DIFF, (byte) difficulty.ordinal());
+        map.put(base + R_VICTORY, (byte) (victory ? 1 : 0));
+        map.putShort(base + R_WAVE, (short) wave);
+        map.putInt(base + R_TICKS, survivalTicks);
+        for (int k = 0; k < EnemyManager.TYPE_COUNT; k++) map.putInt(base + R_KILLS + k * 4, stats.kills[k]);
+        map.putInt(base + R_GOLD, stats.goldEarned);
+        map.putInt(base + R_DAMAGE, stats.damageDealt);
+        int[] levels = p.getUpgradeLevels(new int[UPGRADE_COUNT]);
+        for (int k = 0; k < UPGRADE_COUNT; k++) map.put(base + R_UPGRADES + k, (byte) levels[k]);
+
+        // Le compteur est ecrit en dernier : un arret brutal perd au pire cette partie
+        count++;
+        map.putInt(OFF_COUNT, count);
+
+        // Insertion a sa place dans l'index de la difficulte, puis validation de l'index
+        insert(difficulty.ordinal(), i);
+        idx.putInt(IDX_OFF_COVERED, count);
+    }
+
+    /** Double la capacite : les deux fichiers sont agrandis et reprojetes. */
+    private void grow() throws IOException {
+        capacity *= 2;
+        map.force();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD_SIZE);
+        idx.force();
+        mapIndex();
+    }
+
+    // =========================================================================
+    // Lecture (EDT)
+    // =========================================================================
+
+    /** Les n meilleures parties (temps de survie decroissant) d'une difficulte. */
+    public synchronized List<Entry> top(DifficultyLevel difficulty, int n) {
+        int d = difficulty.ordinal();
+        List<Entry> out = new ArrayList<>(Math.min(n, count(difficulty)));
+        if (idx == null) return out;
+        for (int i = next(d, HEAD, 0); i >= 0 && out.size() < n; i = next(d, i, 0)) {
+            out.add(new Entry(map, record(i)));
+        }
+        return out;
+    }
+
+    /** Nombre de parties archivees pour une difficulte. */
+    public synchronized int count(DifficultyLevel difficulty) {
+        return idx == null ? 0 : idx.getInt(IDX_OFF_SIZES + difficulty.ordinal() * 4);
+    }
+
+    /** Nombre total de parties archivees. */
+    public synchronized int count() {
+        return count;
+    }
+
+    // =========================================================================
+    // Index
+    // =========================================================================
+
+    private static int record(int i) {
+        return HEADER + i * RECORD_SIZE;
+    }
+
+    private int ticks(int i) {
+        return map.getInt(record(i) + R_TICKS);
+    }
+
+    /**
+     * Insere la partie i dans la liste de la difficulte d : apres toutes
+     * les parties de temps superieur ou egal (i est le numero le plus grand).
+     */
+    private void insert(int d, int i) {
+        int t = ticks(i), node = HEAD;
+        for (int l = IDX_LEVELS - 1; l >= 0; l--) {
+            for (int nx; (nx = next(d, node, l)) >= 0 && ticks(nx) >= t; ) node = nx;
+            update[l] = node;
+        }
+        for (int l = 0, h = height(i); l < h; l++) {
+            idx.putInt(link(d, i, l), next(d, update[l], l) + 1);
+            idx.putInt(link(d, update[l], l), i + 1);
+        }
+        int size = IDX_OFF_SIZES + d * 4;
+        idx.putInt(size, idx.getInt(size) + 1);
+    }
+
+    /** Successeur de node au niveau l (-1 : fin de liste). */
+    private int next(int d, int node, int l) {
+        return idx.getInt(link(d, node, l)) - 1;
+    }
+
+    /** Position du lien de niveau l de node (HEAD : tete de la difficulte d). */
+    private static int link(int d, int node, int l) {
+        return node == HEAD ? IDX_OFF_HEADS + d * IDX_NODE + l * 4
+                            : IDX_HEADER + node * IDX_NODE + l * 4;
+    }
+
+    /** Hauteur du noeud i (1 a IDX_LEVELS), fixe pour un numero donne. */
+    private static int height(int i) {
+        int h = i * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return 1 + Math.min(IDX_LEVELS - 1, Integer.numberOfTrailingZeros(h) / 2);
+    }
+}
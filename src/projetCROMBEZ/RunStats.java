@@ -0,0 +1,60 @@
+package projetCROMBEZ;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Statistiques de la partie en cours (ennemis tues par type, or gagne,
+ * degats infliges). Remplies par GamePanel sur le thread de jeu,
+ * sauvegardees avec la partie (WorldSnapshot) et archivees dans
+ * {@link RunHistory} a la fin de la partie.
+ */
+public class RunStats {
+
+    /** Ennemis tues, indexes par EnemyManager.typeIndex(). */
+    public final int[] kills = new int[EnemyManager.TYPE_COUNT];
+
+    public int goldEarned;
+    public int damageDealt;
+
+    public void reset() {
+        Arrays.fill(kills, 0);
+        goldEarned  = 0;
+        damageDealt = 0;
+    }
+
+    /** Ennemi touche : dmg points de vie reellement retires. */
+    public void onHit(int dmg) {
+        damageDealt += dmg;
+    }
+
+    /** Ennemi tue : gold or rapporte. */
+    public void onKill(Enemy e, int gold) {
+        kills[EnemyManager.typeIndex(e)]++;
+        goldEarned += gold;
+    }
+
+    public int totalKills() {
+        int n = 0;
+        for (int k : kills) n += k;
+        return n;
+    }
+
+    // =========================================================================
+    // Sauvegarde (WorldSnapshot)
+    // =========================================================================
+
+    public void writeState(DataOutput out) throws IOException {
+        for (int k : kills) out.writeInt(k);
+        out.writeInt(goldEarned);
+        out.writeInt(damageDealt);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        for (int i = 0; i < kills.length; i++) kills[i] = in.readInt();
+        goldEarned  = in.readInt();
+        damageDealt = in.readInt();
+    }
+}
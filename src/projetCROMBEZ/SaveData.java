@@ -0,0 +1,171 @@
+package projetCROMBEZ;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Etat sauvegarde en memoire (base + journal), en valeurs typees.
+ *
+ * SaveFile le decode directement depuis les champs binaires, SaveManager
+ * l'applique au jeu sans conversion texte, et SaveJournal compare deux
+ * etats pour n'ecrire que les differences. Les valeurs par defaut sont
+ * celles d'un premier lancement (champ absent du fichier).
+ *
+ * La forme texte (cle -> valeur, voir {@link #set} / {@link #text}) ne
+ * sert qu'aux chemins rares : import de l'ancienne base, champs KEYED,
+ * enregistrements SETTING du journal. Les cles inconnues (version plus
+ * recente) sont conservees telles quelles dans {@link #extra}.
+ */
+final class SaveData {
+
+    /** Ameliorations, dans l'ordre des index (journal, tags 40+ ; ne pas reordonner). */
+    static final String[] UPGRADES = {
+        "upgrade.hp", "upgrade.damage", "upgrade.range", "upgrade.speed",
+        "upgrade.lifeSteal", "upgrade.crit", "upgrade.critDmg",
+    };
+
+    /** Cles des options et de la sonde (journal : enregistrements SETTING). */
+    static final String[] SETTINGS = {
+        "settings.difficulty", "settings.showRange", "settings.fullscreen", "settings.fullscreenMode",
+        "settings.renderMode", "settings.renderScale", "settings.smoothUpscale", "settings.dynamicResolution",
+        "settings.pipeline", "settings.bufferKind",
+        "probe.pipeline", "probe.bufferKind", "probe.ms",
+    };
+
+    static final String GOLD_KEY   = "player.gold";
+    static final String RECORD_KEY = "records.bestTimeTicks";
+
+    // Options (valeurs d'enum : nom, comme dans le fichier)
+    String  difficulty     = "NORMAL";
+    boolean showRange      = true;
+    boolean fullscreen     = false;
+    String  fullscreenMode = "BORDERLESS";
+    String  renderMode     = "JAVA2D";
+    int     renderScale    = 100;
+    boolean smoothUpscale  = true;
+    boolean dynamicResolution = false;
+    String  pipeline       = "AUTO";
+    String  bufferKind     = "AUTO";
+
+    // Resultat de PipelineProbe (null : pas de mesure)
+    String  probePipeline, probeBufferKind;
+    double  probeMs;
+
+    // Progression
+    int     gold;
+    final int[] upgrades = new int[UPGRADES.length];
+    int     bestTimeTicks;
+
+    /** Dernier enregistrement du journal inclus dans la base (SaveJournal.SEQ_KEY). */
+    long    journalSeq;
+
+    /** Cles sans champ type, ou valeurs illisibles : gardees telles quelles. */
+    final Properties extra = new Properties();
+
+    SaveData copy() {
+        SaveData d = new SaveData();
+        d.difficulty = difficulty; d.showRange = showRange; d.fullscreen = fullscreen;
+        d.fullscreenMode = fullscreenMode; d.renderMode = renderMode; d.renderScale = renderScale;
+        d.smoothUpscale = smoothUpscale; d.dynamicResolution = dynamicResolution;
+        d.pipeline = pipeline; d.bufferKind = bufferKind;
+        d.probePipeline = probePipeline; d.probeBufferKind = probeBufferKind; d.probeMs = probeMs;
+        d.gold = gold;
+        System.arraycopy(upgrades, 0, d.upgrades, 0, upgrades.length);
+        d.bestTimeTicks = bestTimeTicks;
+        d.journalSeq = journalSeq;
+        d.extra.putAll(extra);
+        return d;
+    }
+
+    // =========================================================================
+    // Forme texte (chemins rares)
+    // =========================================================================
+
+    /**
+     * Affecte une valeur texte a la cle. Cle inconnue ou valeur illisible :
+     * conservee dans extra.
+     */
+    void set(String key, String value) {
+        try {
+            switch (key) {
+                case "settings.difficulty":        difficulty = value; return;
+                case "settings.showRange":         showRange = bool(value); return;
+                case "settings.fullscreen":        fullscreen = bool(value); return;
+                case "settings.fullscreenMode":    fullscreenMode = value; return;
+                case "settings.renderMode":        renderMode = value; return;
+                case "settings.renderScale":       renderScale = Integer.parseInt(value); return;
+                case "settings.smoothUpscale":     smoothUpscale = bool(value); return;
+                case "settings.dynamicResolution": dynamicResolution = bool(value); return;
+                case "settings.pipeline":          pipeline = value; return;
+                case "settings.bufferKind":        bufferKind = value; return;
+                case "probe.pipeline":             probePipeline = value; return;
+                case "probe.bufferKind":           probeBufferKind = value; return;
+                case "probe.ms":                   probeMs = Double.parseDouble(value); return;
+                case GOLD_KEY:                     gold = Integer.parseInt(value); return;
+                case RECORD_KEY:                   bestTimeTicks = Integer.parseInt(value); return;
+                case SaveJournal.SEQ_KEY:          journalSeq = Long.parseLong(value); return;
+                default:
+                    int i = upgradeIndex(key);
+                    if (i >= 0) { upgrades[i] = Integer.parseInt(value); return; }
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            // valeur illisible pour le type de la cle
+        }
+        extra.setProperty(key, value);
+    }
+
+    /** Valeur texte d'une option, de la sonde (SETTINGS) ou d'une cle de extra ; null si absente. */
+    String text(String key) {
+        switch (key) {
+            case "settings.difficulty":        return difficulty;
+            case "settings.showRange":         return String.valueOf(showRange);
+            case "settings.fullscreen":        return String.valueOf(fullscreen);
+            case "settings.fullscreenMode":    return fullscreenMode;
+            case "settings.renderMode":        return renderMode;
+            case "settings.renderScale":       return String.valueOf(renderScale);
+            case "settings.smoothUpscale":     return String.valueOf(smoothUpscale);
+            case "settings.dynamicResolution": return String.valueOf(dynamicResolution);
+            case "settings.pipeline":          return pipeline;
+            case "settings.bufferKind":        return bufferKind;
+            case "probe.pipeline":             return probePipeline;
+            case "probe.bufferKind":           return probeBufferKind;
+            case "probe.ms":                   return String.valueOf(probeMs);
+            default:                           return extra.getProperty(key);
+        }
+    }
+
+    static int upgradeIndex(String key) {
+        for (int i = 0; i < UPGRADES.length; i++) if (UPGRADES[i].equals(key)) return i;
+        return -1;
+    }
+
+    private static boolean bool(String value) {
+        if (value.equals("true"))  return true;
+        if (value.equals("false")) return false;
+        throw new NumberFormatException(value);
+    }
+
+    // =========================================================================
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SaveData)) return false;
+        SaveData d = (SaveData) o;
+        return Objects.equals(difficulty, d.difficulty) && showRange == d.showRange && fullscreen == d.fullscreen
+            && Objects.equals(fullscreenMode, d.fullscreenMode) && Objects.equals(renderMode, d.renderMode)
+            && renderScale == d.renderScale && smoothUpscale == d.smoothUpscale
+            && dynamicResolution == d.dynamicResolution
+            && Objects.equals(pipeline, d.pipeline) && Objects.equals(bufferKind, d.bufferKind)
+            && Objects.equals(probePipeline, d.probePipeline) && Objects.equals(probeBufferKind, d.probeBufferKind)
+            && Double.compare(probeMs, d.probeMs) == 0
+            && gold == d.gold && Arrays.equals(upgrades, d.upgrades) && bestTimeTicks == d.bestTimeTicks
+            && journalSeq == d.journalSeq && extra.equals(d.extra);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(difficulty, gold, bestTimeTicks, journalSeq) * 31 + Arrays.hashCode(upgrades);
+    }
+}
@@ -0,0 +1,309 @@
+package projetCROMBEZ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Format binaire de la base de sauvegarde (save/survivor.sav).
+ *
+ * =========================================================================
+ * FORMAT
+ * =========================================================================
+ *  en-tete (HEADER octets)
+ *    MAGIC (int) | VERSION (short) | taille de l'en-tete (short)
+ *    | nombre de champs (int) | taille du corps (int)
+ *    | CRC32 du corps (int) | CRC32 des 20 octets precedents (int)
+ *
+ *  corps = suite de champs
+ *    tag (short) | type (byte) | longueur (short) | valeur
+ *
+ *  INT, LONG, DOUBLE : valeur binaire (4, 8, 8 octets)
+ *  BOOL              : 0 / 1 (1 octet)
+ *  STRING            : UTF-8 (valeurs d'enum : nom, pas l'ordinal)
+ *  KEYED             : cle UTF-8 (short + octets) | valeur UTF-8 (reste)
+ *
+ * Les longueurs sont des short non signes : un champ (cle et valeur
+ * comprises pour KEYED) de plus de MAX_LENGTH octets n'est pas ecrit.
+ *
+ * =========================================================================
+ * COMPATIBILITE
+ * =========================================================================
+ * Chaque cle connue a un tag fixe (T_*, ne jamais renumeroter). La
+ * longueur explicite permet de sauter un champ de tag ou de type inconnu :
+ * un fichier ecrit par une version plus recente reste lisible (ses
+ * nouveaux champs sont ignores). Une cle sans tag est ecrite en KEYED,
+ * avec son nom : rien n'est perdu. La taille de l'en-tete est stockee
+ * pour pouvoir l'agrandir sans casser les anciens lecteurs.
+ *
+ * Ces ajouts (nouveau tag, nouveau type, en-tete plus grand) gardent la
+ * meme VERSION. Elle n'est incrementee que pour un changement que les
+ * anciens lecteurs ne sauraient pas sauter : type ou sens d'un tag
+ * existant, forme de l'en-tete de champ (tag | type | longueur), ordre
+ * des champs de l'en-tete, calcul des CRC. Un fichier de VERSION plus
+ * recente est refuse a la lecture.
+ *
+ * En memoire, l'etat est un SaveData : le decodage affecte chaque champ
+ * directement selon son tag (entier, booleen...), sans passer par du texte.
+ */
+final class SaveFile {
+
+    /** "SVSV" */
+    private static final int   MAGIC   = 0x53565356;
+    private static final short VERSION = 1;
+    private static final int   HEADER  = 24;
+
+    /** Longueur maximale d'un champ (short non signe). */
+    private static final int MAX_LENGTH = 0xFFFF;
+
+    private static final byte INT = 1, LONG = 2, DOUBLE = 3, BOOL = 4, STRING = 5, KEYED = 6;
+
+    // Tags des champs connus (ne jamais renumeroter ni reutiliser un tag)
+    private static final short T_DIFFICULTY = 1, T_SHOW_RANGE = 2, T_FULLSCREEN = 3, T_FULLSCREEN_MODE = 4,
+                               T_RENDER_MODE = 5, T_RENDER_SCALE = 6, T_SMOOTH_UPSCALE = 7,
+                               T_DYNAMIC_RESOLUTION = 8, T_PIPELINE = 9, T_BUFFER_KIND = 10;
+    private static final short T_PROBE_PIPELINE = 20, T_PROBE_BUFFER_KIND = 21, T_PROBE_MS = 22;
+    private static final short T_GOLD = 30;
+    /** Ameliorations : T_UPGRADE + index dans SaveData.UPGRADES (40 a 46). */
+    private static final short T_UPGRADE = 40;
+    private static final short T_BEST_TIME = 50;
+    private static final short T_JOURNAL_SEQ = 60;
+
+    /** Champ libre (cle sans tag). */
+    private static final short TAG_KEYED = 0x7FFF;
+
+    /** Tampon d'ecriture (direct, reutilise ; agrandi si necessaire). */
+    private ByteBuffer out = ByteBuffer.allocateDirect(1024);
+
+    private final CRC32 crc = new CRC32();
+
+    // =========================================================================
+    // Ecriture
+    // =========================================================================
+
+    /**
+     * Encode l'etat dans le tampon interne (pret a ecrire : position 0,
+     * limite en fin de fichier). Le tampon est reutilise a l'appel suivant.
+     */
+    synchronized ByteBuffer encode(SaveData d) {
+        int size = HEADER + 512; // champs fixes
+        for (String v : new String[] { d.difficulty, d.fullscreenMode, d.renderMode, d.pipeline,
+                                       d.bufferKind, d.probePipeline, d.probeBufferKind }) {
+            if (v != null) size += 3 * v.length(); // pire cas UTF-8
+        }
+        for (String key : d.extra.stringPropertyNames()) {
+            size += 7 + 3 * (key.length() + d.extra.getProperty(key).length()); // pire cas UTF-8
+        }
+        ByteBuffer b = reserve(size);
+        b.clear();
+        b.position(HEADER);
+        int fields = 0;
+
+        fields += putString(b, T_DIFFICULTY,      d.difficulty);
+        fields += putBool  (b, T_SHOW_RANGE,      d.showRange);
+        fields += putBool  (b, T_FULLSCREEN,      d.fullscreen);
+        fields += putString(b, T_FULLSCREEN_MODE, d.fullscreenMode);
+        fields += putString(b, T_RENDER_MODE,     d.renderMode);
+        fields += putInt   (b, T_RENDER_SCALE,    d.renderScale);
+        fields += putBool  (b, T_SMOOTH_UPSCALE,  d.smoothUpscale);
+        fields += putBool  (b, T_DYNAMIC_RESOLUTION, d.dynamicResolution);
+        fields += putString(b, T_PIPELINE,        d.pipeline);
+        fields += putString(b, T_BUFFER_KIND,     d.bufferKind);
+        fields += putString(b, T_PROBE_PIPELINE,    d.probePipeline);
+        fields += putString(b, T_PROBE_BUFFER_KIND, d.probeBufferKind);
+        field(b, T_PROBE_MS, DOUBLE, 8).putDouble(d.probeMs);
+        fields++;
+        fields += putInt   (b, T_GOLD,            d.gold);
+        for (int i = 0; i < d.upgrades.length; i++) {
+            fields += putInt(b, (short) (T_UPGRADE + i), d.upgrades[i]);
+        }
+        fields += putInt   (b, T_BEST_TIME,       d.bestTimeTicks);
+        field(b, T_JOURNAL_SEQ, LONG, 8).putLong(d.journalSeq);
+        fields++;
+
+        // Cles sans tag, ou valeurs illisibles : conservees telles quelles
+        for (String key : d.extra.stringPropertyNames()) {
+            byte[] k = key.getBytes(StandardCharsets.UTF_8);
+            byte[] v = d.extra.getProperty(key).getBytes(StandardCharsets.UTF_8);
+            if (2 + k.length + v.length > MAX_LENGTH) {
+                System.out.println("[SaveFile] Champ trop long, non sauvegarde : " + key);
+                continue;
+            }
+            b.putShort(TAG_KEYED).put(KEYED).putShort((short) (2 + k.length + v.length));
+            b.putShort((short) k.length).put(k).put(v);
+            fields++;
+        }
+        int end = b.position(), bodyLength = end - HEADER;
+
+        b.limit(end).position(HEADER);
+        crc.reset();
+        crc.update(b);
+
+        b.limit(end).position(0);
+        b.putInt(MAGIC).putShort(VERSION).putShort((short) HEADER)
+         .putInt(fields).putInt(bodyLength).putInt((int) crc.getValue());
+        b.limit(20).position(0);
+        crc.reset();
+        crc.update(b);
+        b.limit(end).position(20);
+        b.putInt((int) crc.getValue());
+
+        b.position(0);
+        return b;
+    }
+
+    /** Champ STRING ; rien si la valeur est absente ou trop longue. @return nombre de champs ecrits */
+    private static int putString(ByteBuffer b, short tag, String value) {
+        if (value == null) return 0;
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+        if (v.length > MAX_LENGTH) {
+            System.out.println("[SaveFile] Champ trop long, non sauvegarde : tag " + tag);
+            return 0;
+        }
+        field(b, tag, STRING, v.length).put(v);
+        return 1;
+    }
+
+    private static int putInt(ByteBuffer b, short tag, int value) {
+        field(b, tag, INT, 4).putInt(value);
+        return 1;
+    }
+
+    private static int putBool(ByteBuffer b, short tag, boolean value) {
+        field(b, tag, BOOL, 1).put((byte) (value ? 1 : 0));
+        return 1;
+    }
+
+    /** Ecrit l'en-tete de champ. */
+    private static ByteBuffer field(ByteBuffer b, short tag, byte type, int length) {
+        return b.putShort(tag).put(type).putShort((short) length);
+    }
+
+    private ByteBuffer reserve(int size) {
+        if (out.capacity() < size) out = ByteBuffer.allocateDirect(Integer.highestOneBit(size) * 2);
+        return out;
+    }
+
+    // =========================================================================
+    // Lecture
+    // =========================================================================
+
+    /**
+     * Lit le fichier dans un tampon direct (une lecture FileChannel).
+     */
+    static ByteBuffer read(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocateDirect((int) ch.size());
+            while (b.hasRemaining() && ch.read(b) >= 0) { /* lecture complete */ }
+            b.flip();
+            return b;
+        }
+    }
+
+    /**
+     * Decode un fichier lu par read(). Chaque champ connu est affecte au
+     * champ type de SaveData ; un champ de tag inconnu, ou d'un autre type
+     * que celui de son tag, est saute (version future).
+     *
+     * @throws IOException en-tete invalide, version trop recente, checksum
+     *                     faux ou champ tronque
+     */
+    SaveData decode(ByteBuffer b) throws IOException {
+        if (b.remaining() < HEADER || b.getInt(0) != MAGIC) throw new IOException("format inconnu");
+        int version    = b.getShort(4) & 0xFFFF;
+        if (version > VERSION) throw new IOException("version " + version + " non supportee (max " + VERSION + ")");
+        int headerSize = b.getShort(6) & 0xFFFF;
+        int fields     = b.getInt(8);
+        int bodyLength = b.getInt(12);
+        int bodyCrc    = b.getInt(16);
+        if (headerSize < HEADER) throw new IOException("en-tete invalide");
+
+        CRC32 c = new CRC32();
+        b.limit(20).position(0);
+        c.update(b);
+        b.limit(b.capacity());
+        if ((int) c.getValue() != b.getInt(20)) throw new IOException("en-tete corrompu");
+        if (bodyLength < 0 || headerSize + bodyLength > b.limit()) throw new IOException("fichier tronque");
+
+        b.limit(headerSize + bodyLength).position(headerSize);
+        c.reset();
+        c.update(b);
+        if ((int) c.getValue() != bodyCrc) throw new IOException("corps corrompu");
+
+        SaveData d = new SaveData();
+        b.position(headerSize);
+        for (int n = 0; n < fields; n++) {
+            if (b.remaining() < 5) throw new IOException("champ tronque");
+            short tag    = b.getShort();
+            byte  type   = b.get();
+            int   length = b.getShort() & 0xFFFF;
+            if (length > b.remaining()) throw new IOException("champ tronque");
+            int next = b.position() + length;
+
+            switch (type) {
+                case INT:    if (length == 4) readInt(d, tag, b.getInt());      break;
+                case LONG:   if (length == 8 && tag == T_JOURNAL_SEQ) d.journalSeq = b.getLong(); break;
+                case DOUBLE: if (length == 8 && tag == T_PROBE_MS) d.probeMs = b.getDouble(); break;
+                case BOOL:   if (length == 1) readBool(d, tag, b.get() != 0);   break;
+                case STRING: readString(d, tag, utf(b, length));                 break;
+                case KEYED: {
+                    int keyLength = length < 2 ? -1 : b.getShort() & 0xFFFF;
+                    if (keyLength < 0 || 2 + keyLength > length) throw new IOException("champ invalide");
+                    String key = utf(b, keyLength);
+                    d.set(key, utf(b, next - b.position()));
+                    break;
+                }
+                default: break; // type inconnu (version future) : ignore
+            }
+            b.position(next);
+        }
+        return d;
+    }
+
+    private static void readInt(SaveData d, short tag, int v) {
+        if (tag >= T_UPGRADE && tag < T_UPGRADE + d.upgrades.length) { d.upgrades[tag - T_UPGRADE] = v; return; }
+        switch (tag) {
+            case T_RENDER_SCALE: d.renderScale   = v; break;
+            case T_GOLD:         d.gold          = v; break;
+            case T_BEST_TIME:    d.bestTimeTicks = v; break;
+            default: break;
+        }
+    }
+
+    private static void readBool(SaveData d, short tag, boolean v) {
+        switch (tag) {
+            case T_SHOW_RANGE:          d.showRange         = v; break;
+            case T_FULLSCREEN:          d.fullscreen        = v; break;
+            case T_SMOOTH_UPSCALE:      d.smoothUpscale     = v; break;
+            case T_DYNAMIC_RESOLUTION:  d.dynamicResolution = v; break;
+            default: break;
+        }
+    }
+
+    private static void readString(SaveData d, short tag, String v) {
+        switch (tag) {
+            case T_DIFFICULTY:        d.difficulty      = v; break;
+            case T_FULLSCREEN_MODE:   d.fullscreenMode  = v; break;
+            case T_RENDER_MODE:       d.renderMode      = v; break;
+            case T_PIPELINE:          d.pipeline        = v; break;
+            case T_BUFFER_KIND:       d.bufferKind      = v; break;
+            case T_PROBE_PIPELINE:    d.probePipeline   = v; break;
+            case T_PROBE_BUFFER_KIND: d.probeBufferKind = v; break;
+            default: break;
+        }
+    }
+
+    // =========================================================================
+    // Utilitaires
+    // =========================================================================
+
+    private static String utf(ByteBuffer b, int length) {
+        byte[] bytes = new byte[length];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
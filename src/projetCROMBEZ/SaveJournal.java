@@ -0,0 +1,280 @@
+package projetCROMBEZ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Journal de sauvegarde en ajout seul (save/survivor.journal).
+ *
+ * =========================================================================
+ * PRINCIPE
+ * =========================================================================
+ * Le fichier de base (survivor.sav) n'est plus reecrit a chaque
+ * sauvegarde : seules les differences avec l'etat deja sur disque sont
+ * ajoutees en fin de journal, sous forme de petits enregistrements types.
+ * Au chargement, le journal est rejoue par-dessus la base. Quand il
+ * depasse COMPACT_BYTES, SaveManager reecrit une base complete puis
+ * vide le journal (compaction).
+ *
+ * =========================================================================
+ * FORMAT
+ * =========================================================================
+ *  enregistrement = longueur (int) | corps | CRC32 du corps (int)
+ *  corps          = numero de sequence (long) | type (byte) | donnees
+ *
+ *  GOLD     : variation d'or (int)
+ *  UPGRADE  : amelioration (byte, index dans SaveData.UPGRADES) | niveau (byte)
+ *  RECORD   : nouveau meilleur temps (int, ticks)
+ *  SETTING  : cle (UTF) | valeur (UTF) (options, resultat de sonde)
+ *
+ * Le numero de sequence rend la compaction sure : la base memorise le
+ * dernier numero qu'elle contient ("journal.seq") et le rejeu ignore les
+ * enregistrements plus anciens, meme si un arret brutal a laisse le
+ * journal intact apres l'ecriture de la nouvelle base. Un enregistrement
+ * tronque ou dont le CRC est faux termine le rejeu (fin d'ecriture
+ * interrompue).
+ *
+ * Thread d'ecriture de SaveManager uniquement (sauf replay, au chargement).
+ */
+final class SaveJournal {
+
+    /** Taille au-dela de laquelle le journal est compacte (octets). */
+    static final long COMPACT_BYTES = 16 * 1024;
+
+    /** Cle de la base : dernier numero de sequence inclus. */
+    static final String SEQ_KEY = "journal.seq";
+
+    private static final byte GOLD = 1, UPGRADE = 2, RECORD = 3, SETTING = 4;
+
+    /** Longueur maximale d'une cle ou d'une valeur SETTING (short non signe). */
+    private static final int MAX_UTF = 0xFFFF;
+
+    private final File file;
+
+    private FileChannel channel;
+
+    /** Prochain numero de sequence. */
+    private long nextSeq = 1;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private final CRC32 crc = new CRC32();
+
+    SaveJournal(File file) {
+        this.file = file;
+    }
+
+    // =========================================================================
+    // Rejeu
+    // =========================================================================
+
+    /**
+     * Applique le journal a l'etat de base (modifie en place).
+     * Une fin tronquee ou corrompue est retiree du fichier, pour que les
+     * ajouts suivants restent lisibles.
+     *
+     * @return nombre d'enregistrements appliques
+     */
+    int replay(SaveData d) throws IOException {
+        long baseSeq = d.journalSeq;
+        nextSeq = baseSeq + 1;
+        if (!file.exists()) return 0;
+
+        int applied = 0, validEnd = 0;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate((int) ch.size());
+            while (data.hasRemaining() && ch.read(data) >= 0) { /* lecture complete */ }
+            data.flip();
+
+            while (data.remaining() >= 4) {
+                int len = data.getInt();
+                if (len <= 9 || len > data.remaining() - 4) break; // tronque
+                int start = data.position();
+                crc.reset();
+                crc.update(data.array(), start, len);
+                int expected = data.getInt(start + len);
+                if ((int) crc.getValue() != expected) break;      // corrompu
+
+                long seq = data.getLong();
+                byte type = data.get();
+                if (seq > baseSeq) {
+                    apply(d, type, data);
+                    applied++;
+                }
+                nextSeq = Math.max(nextSeq, seq + 1);
+                data.position(start + len + 4);
+                validEnd = data.position();
+            }
+            if (validEnd < ch.size()) {
+                System.out.println("[SaveJournal] Fin de journal invalide ignoree ("
+                                   + (ch.size() - validEnd) + " octets).");
+                ch.truncate(validEnd);
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(SaveData d, byte type, ByteBuffer in) {
+        switch (type) {
+            case GOLD:
+                d.gold += in.getInt();
+                break;
+            case UPGRADE: {
+                int idx = in.get(), level = in.get();
+                if (idx >= 0 && idx < d.upgrades.length) d.upgrades[idx] = level;
+                break;
+            }
+            case RECORD:
+                d.bestTimeTicks = in.getInt();
+                break;
+            case SETTING:
+                d.set(getUtf(in), getUtf(in));
+                break;
+            default:
+                break; // type inconnu (version future) : ignore
+        }
+    }
+
+    // =========================================================================
+    // Ajout
+    // =========================================================================
+
+    /**
+     * Ajoute les enregistrements qui font passer l'etat {@code from} a
+     * l'etat {@code to}, puis force l'ecriture sur disque.
+     *
+     * @return nombre d'enregistrements ajoutes (0 si rien n'a change)
+     */
+    int append(SaveData from, SaveData to) throws IOException {
+        buffer.clear();
+        int count = 0;
+        if (to.gold != from.gold) {
+            int start = begin();
+            buffer.put(GOLD).putInt(to.gold - from.gold);
+            end(start);
+            count++;
+        }
+        for (int i = 0; i < to.upgrades.length; i++) {
+            if (to.upgrades[i] == from.upgrades[i]) continue;
+            int start = begin();
+            buffer.put(UPGRADE).put((byte) i).put((byte) to.upgrades[i]);
+            end(start);
+            count++;
+        }
+        if (to.bestTimeTicks != from.bestTimeTicks) {
+            int start = begin();
+            buffer.put(RECORD).putInt(to.bestTimeTicks);
+            end(start);
+            count++;
+        }
+        // Options et sonde (rares) : par leur forme texte, comme les cles inconnues
+        for (String key : SaveData.SETTINGS)              count += appendSetting(key, from, to);
+        for (String key : to.extra.stringPropertyNames()) count += appendSetting(key, from, to);
+        if (count == 0) return 0;
+
+        buffer.flip();
+        FileChannel ch = channel();
+        while (buffer.hasRemaining()) ch.write(buffer);
+        ch.force(false);
+        return count;
+    }
+
+    /**
+     * Enregistrement SETTING si la valeur de la cle a change. Une cle ou
+     * une valeur de plus de MAX_UTF octets n'est pas ecrite.
+     *
+     * @return 0 ou 1
+     */
+    private int appendSetting(String key, SaveData from, SaveData to) {
+        String value = to.text(key);
+        if (value == null || value.equals(from.text(key))) return 0;
+        byte[] k = key.getBytes(StandardCharsets.UTF_8), v = value.getBytes(StandardCharsets.UTF_8);
+        if (k.length > MAX_UTF || v.length > MAX_UTF) {
+            System.out.println("[SaveJournal] Option trop longue, non sauvegardee : " + key);
+            return 0;
+        }
+        int start = begin(1 + 4 + k.length + v.length);
+        buffer.put(SETTING);
+        putUtf(k);
+        putUtf(v);
+        end(start);
+        return 1;
+    }
+
+    /** Reserve la longueur et ecrit le numero de sequence ; retourne le debut. */
+    private int begin() {
+        return begin(16);
+    }
+
+    /** Idem, avec au moins data octets de donnees disponibles apres l'en-tete. */
+    private int begin(int data) {
+        int needed = data + 4 + 8 + 4; // longueur, sequence, CRC
+        if (buffer.remaining() < Math.max(1024, needed)) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed + 1024));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.putLong(nextSeq++);
+        return start;
+    }
+
+    /** Complete la longueur et le CRC de l'enregistrement commence a start. */
+    private void end(int start) {
+        int body = start + 4, len = buffer.position() - body;
+        buffer.putInt(start, len);
+        crc.reset();
+        crc.update(buffer.array(), body, len);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    // =========================================================================
+    // Compaction
+    // =========================================================================
+
+    /** Dernier numero de sequence ecrit (a stocker dans la base compactee). */
+    long lastSeq() { return nextSeq - 1; }
+
+    /** Taille actuelle du journal (octets). */
+    long size() throws IOException {
+        return channel != null ? channel.size() : (file.exists() ? file.length() : 0);
+    }
+
+    /** Vide le journal, une fois la base compactee ecrite. */
+    void truncate() throws IOException {
+        channel().truncate(0);
+        channel.force(true);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists()) dir.mkdirs();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    // =========================================================================
+    // Utilitaires
+    // =========================================================================
+
+    /** Chaine UTF-8 precedee de sa longueur (short non signe, au plus MAX_UTF). */
+    private void putUtf(byte[] b) {
+        buffer.putShort((short) b.length).put(b);
+    }
+
+    private static String getUtf(ByteBuffer in) {
+        byte[] b = new byte[in.getShort() & 0xFFFF];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -1,85 +1,332 @@
 package projetCROMBEZ;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * Gestionnaire de sauvegarde du jeu.
- * Fichier : save/survivor.properties
+ * Fichiers : save/survivor.sav      (base binaire : progression, options, voir SaveFile)
+ *            save/survivor.journal  (modifications depuis la base, voir SaveJournal)
+ *            save/run.bin           (partie en cours, voir WorldSnapshot)
+ *            save/run.rpl           (entrees de la partie en cours, voir InputRecorder)
+ *            save/replays/*.rpl     (entrees des parties terminees ou abandonnees)
+ *
+ * L'ancienne base texte (save/survivor.properties) est importee une fois :
+ * convertie en survivor.sav, verifiee par relecture, puis renommee en
+ * survivor.properties.bak. Les durees de lecture / ecriture des deux
+ * formats sont affichees a cette occasion.
  *
  * Donnees sauvegardees :
- *  settings.*      : options (difficulte, showRange, fullscreen)
+ *  settings.*      : options (difficulte, showRange, fullscreen, fullscreenMode, renderMode,
+ *                    renderScale, smoothUpscale, dynamicResolution,
+ *                    pipeline, bufferKind)
+ *  probe.*         : resultat de PipelineProbe (pipeline, tampon, ms/frame)
  *  player.gold     : or disponible
  *  upgrade.*       : niveaux d'amelioration (0-5 chacun)
  *  records.*       : meilleur temps de survie
+ *  journal.seq     : dernier enregistrement du journal inclus dans la base
  *
  * Note : les stats effectives (maxHp, damage, etc.) ne sont PAS
  * sauvegardees directement. Elles sont recalculees depuis les niveaux
  * via Player.applyUpgrades() apres chaque chargement.
+ *
+ * Ecriture asynchrone : save() ne fait que capturer l'etat (SaveData)
+ * sur le thread appelant et le confier au thread "save-writer". Les
+ * demandes rapprochees (achats en rafale, options) sont regroupees :
+ * seul le dernier etat est ecrit, COALESCE_MS apres la premiere demande.
+ * Seules les valeurs modifiees sont ajoutees au journal ; la base n'est
+ * reecrite (fichier temporaire renomme atomiquement) qu'a la compaction,
+ * quand le journal depasse SaveJournal.COMPACT_BYTES. A la fermeture,
+ * flush() attend l'ecriture en cours pendant un temps borne.
+ *
+ * Partie en cours : saveRun() capture un instantane binaire sur le thread
+ * de jeu (autosauvegarde toutes les AUTOSAVE_SECONDS) et l'ecrit par le
+ * meme thread d'ecriture. Le fichier est supprime a la fin de la partie ;
+ * sa presence au demarrage propose "Reprendre" dans le menu.
+ *
+ * Rejeu (GamePanel.replay non null) : aucune sauvegarde n'est ecrite,
+ * la progression affichee est celle de la partie rejouee.
+ * Idem pour un scenario de charge (GamePanel.offline, voir StressTest).
  */
 public class SaveManager {
 
-    private static final String SAVE_PATH = "save/survivor.properties";
+    private static final String SAVE_PATH   = "save/survivor.sav";
+    private static final String LEGACY_PATH = "save/survivor.properties";
+    private static final String RUN_PATH  = "save/run.bin";
+    private static final String JOURNAL_PATH = "save/survivor.journal";
+    private static final String RUN_INPUT_PATH = "save/run.rpl";
+    private static final String REPLAY_DIR     = "save/replays";
+
+    /** Intervalle d'autosauvegarde de la partie en cours (secondes de jeu). */
+    public static final int AUTOSAVE_SECONDS = 5;
+
+    /** Fenetre de regroupement des demandes de sauvegarde (ms). */
+    private static final long COALESCE_MS = 250;
+
+    /** Attente maximale de flush() a la fermeture (ms). */
+    public static final long EXIT_FLUSH_MS = 2000;
+
+    // =========================================================================
+    // Ecriture asynchrone (etat partage, protege par LOCK)
+    // =========================================================================
+
+    private static final Object LOCK = new Object();
+
+    /** Dernier etat demande, pas encore pris par le thread d'ecriture. */
+    private static SaveData pending;
+
+    /** Dernier instantane de partie demande, pas encore ecrit. */
+    private static byte[] pendingRun;
+
+    /** Entrees de la partie en cours, ecrites avec pendingRun (null si non enregistree). */
+    private static byte[] pendingRunInputs;
+
+    /** true si l'instantane de partie doit etre supprime (partie terminee). */
+    private static boolean pendingRunDelete;
+
+    /** Enregistrements de parties finies, pas encore ecrits. */
+    private static final List<byte[]> pendingReplays = new ArrayList<>();
+
+    /** true pendant l'ecriture disque. */
+    private static boolean writing;
+
+    /** true si flush() attend : le regroupement est abrege. */
+    private static boolean flushRequested;
+
+    private static Thread writer;
+
+    /** Journal des modifications depuis la base. */
+    private static final SaveJournal journal = new SaveJournal(new File(JOURNAL_PATH));
+
+    /** Codec de la base binaire (thread d'ecriture, ou chargement avant le premier save()). */
+    private static final SaveFile baseFile = new SaveFile();
+
+    /**
+     * Etat actuellement sur disque (base + journal), reference des
+     * differences ; null tant qu'aucune base n'existe. Ecrit par load()
+     * avant le premier save(), puis par le thread d'ecriture.
+     */
+    private static SaveData onDisk;
+
+    // Statistiques de latence (ecrites par le thread d'ecriture)
+    private static volatile double lastSaveMs, maxSaveMs;
+    private static volatile int    saveCount;
 
     // =========================================================================
     // Chargement
     // =========================================================================
 
+    /**
+     * Lit uniquement le pipeline Java2D a appliquer (choix de l'options,
+     * ou resultat de la sonde si AUTO). Appele par Main avant toute
+     * initialisation d'AWT, donc sans GamePanel.
+     *
+     * @return le pipeline a appliquer (AUTO = reglage par defaut de la JVM)
+     */
+    public static RenderPipeline loadStartupPipeline() {
+        SaveData d;
+        try {
+            d = readImage();
+        } catch (IOException e) {
+            return RenderPipeline.AUTO;
+        }
+        if (d == null) return RenderPipeline.AUTO;
+        RenderPipeline chosen = getEnum(d.pipeline, RenderPipeline.class, RenderPipeline.AUTO);
+        if (chosen != RenderPipeline.AUTO) return chosen;
+        return getEnum(d.probePipeline, RenderPipeline.class, RenderPipeline.AUTO);
+    }
+
     public static void load(GamePanel gp) {
-        File file = new File(SAVE_PATH);
-        if (!file.exists()) {
+        // Historique des parties : projete et indexe au lancement, pas a la premiere fin de partie
+        RunHistory.getInstance();
+
+        SaveData d;
+        try {
+            d = readImage();
+        } catch (IOException e) {
+            System.out.println("[SaveManager] Erreur de lecture : " + e.getMessage());
+            return;
+        }
+        if (d == null) {
             System.out.println("[SaveManager] Premier lancement - creation de " + SAVE_PATH);
             save(gp);
+            detectRun(gp);
             return;
         }
+        onDisk = d;
+        System.out.println("[SaveManager] Sauvegarde chargee : " + new File(SAVE_PATH).getAbsolutePath());
 
+        applySettings(d);
+        applyUpgrades(d, gp.player);
+        applyRecords(d, gp);
+        detectRun(gp);
+    }
+
+    /**
+     * Lit la base puis rejoue le journal par-dessus.
+     *
+     * @return l'etat sauvegarde, null si aucune sauvegarde n'existe
+     */
+    private static SaveData readImage() throws IOException {
+        File base = new File(SAVE_PATH), legacy = new File(LEGACY_PATH);
+        if (!base.exists() && !legacy.exists() && !new File(JOURNAL_PATH).exists()) return null;
+        SaveData d;
+        if (base.exists()) {
+            long start = System.nanoTime();
+            ByteBuffer data = SaveFile.read(base);
+            d = baseFile.decode(data);
+            System.out.println(String.format("[SaveManager] Base lue : %d octets (%.2f ms)",
+                                             data.limit(), (System.nanoTime() - start) / 1e6));
+        } else if (legacy.exists()) {
+            d = importLegacy(legacy);
+        } else {
+            d = new SaveData();
+        }
+        int replayed = journal.replay(d);
+        if (replayed > 0) System.out.println("[SaveManager] Journal rejoue : " + replayed + " modification(s).");
+        return d;
+    }
+
+    /**
+     * Convertit l'ancienne base texte en base binaire (une seule fois).
+     * Le fichier texte n'est renomme qu'apres relecture identique de la
+     * base binaire ; les durees des deux formats sont affichees.
+     *
+     * @return l'etat lu dans l'ancienne base
+     */
+    private static SaveData importLegacy(File legacy) throws IOException {
+        // Ancien chemin : Properties.load / store
+        long t0 = System.nanoTime();
         Properties props = new Properties();
-        try (FileInputStream fis = new FileInputStream(file)) {
+        try (FileInputStream fis = new FileInputStream(legacy)) {
             props.load(fis);
-            System.out.println("[SaveManager] Sauvegarde chargee : " + file.getAbsolutePath());
+        }
+        long t1 = System.nanoTime();
+        props.store(new ByteArrayOutputStream(2048), null);
+        long t2 = System.nanoTime();
+
+        // Nouveau chemin : encodage, ecriture, relecture
+        SaveData d = new SaveData();
+        for (String key : props.stringPropertyNames()) d.set(key, props.getProperty(key));
+        ByteBuffer data = baseFile.encode(d);
+        int size = data.remaining();
+        long t3 = System.nanoTime();
+        if (!writeAtomically(SAVE_PATH, data)) throw new IOException("ecriture de " + SAVE_PATH + " impossible");
+        long t4 = System.nanoTime();
+        SaveData check = baseFile.decode(SaveFile.read(new File(SAVE_PATH)));
+        long t5 = System.nanoTime();
+        if (!check.equals(d)) throw new IOException("import incoherent, " + LEGACY_PATH + " conserve");
+
+        long legacySize = legacy.length();
+        Files.move(legacy.toPath(), new File(LEGACY_PATH + ".bak").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        System.out.println(String.format("[SaveManager] Import de %s -> %s (%d -> %d octets)",
+                                         LEGACY_PATH, SAVE_PATH, legacySize, size));
+        System.out.println(String.format("[SaveManager]   texte   : lecture %.2f ms, ecriture (memoire) %.2f ms",
+                                         (t1 - t0) / 1e6, (t2 - t1) / 1e6));
+        System.out.println(String.format("[SaveManager]   binaire : lecture %.2f ms, ecriture (memoire) %.2f ms",
+                                         (t5 - t4) / 1e6, (t3 - t2) / 1e6));
+        return d;
+    }
+
+    /** Partie interrompue sur disque : proposee via "Reprendre", restauree au clic. */
+    static void detectRun(GamePanel gp) {
+        if (!new File(RUN_PATH).exists()) return;
+        gp.hasActiveGame = true;
+        gp.runOnDisk     = true;
+        System.out.println("[SaveManager] Partie en cours trouvee : " + RUN_PATH);
+    }
+
+    /**
+     * Restaure la partie sauvegardee dans RUN_PATH (monde a l'arret, EDT).
+     * En cas d'echec, le fichier est supprime et la partie reinitialisee.
+     *
+     * @return true si la partie a ete restauree
+     */
+    public static boolean loadRun(GamePanel gp) {
+        gp.runOnDisk = false;
+        try {
+            byte[] data = Files.readAllBytes(new File(RUN_PATH).toPath());
+            WorldSnapshot.restore(gp, data);
+            gp.hasActiveGame = true;
+            System.out.println("[SaveManager] Partie restauree (" + data.length + " octets).");
+            resumeRecording(gp);
+            return true;
         } catch (IOException e) {
-            System.out.println("[SaveManager] Erreur de lecture : " + e.getMessage());
-            return;
+            System.out.println("[SaveManager] Partie illisible : " + e.getMessage());
+            gp.hasActiveGame = false;
+            clearRun();
+            return false;
         }
+    }
 
-        applySettings(props);
-        applyUpgrades(props, gp.player);
-        applyRecords(props, gp);
+    /** Reprend l'enregistrement des entrees de la partie restauree, s'il lui correspond. */
+    private static void resumeRecording(GamePanel gp) {
+        File f = new File(RUN_INPUT_PATH);
+        boolean ok = false;
+        try {
+            ok = f.exists() && gp.recorder.resume(gp, Files.readAllBytes(f.toPath()));
+        } catch (IOException e) {
+            // illisible : la suite de la partie n'est pas enregistree
+        }
+        if (!ok) System.out.println("[SaveManager] Entrees de la partie introuvables : suite non enregistree.");
     }
 
-    private static void applySettings(Properties props) {
+    private static void applySettings(SaveData d) {
         GameSettings s = GameSettings.getInstance();
-        String diff = props.getProperty("settings.difficulty", "NORMAL");
-        try   { s.setDifficulty(DifficultyLevel.valueOf(diff)); }
-        catch (IllegalArgumentException e) { s.setDifficulty(DifficultyLevel.NORMAL); }
-        s.setShowPlayerRange(Boolean.parseBoolean(props.getProperty("settings.showRange", "true")));
+        s.setDifficulty(getEnum(d.difficulty, DifficultyLevel.class, DifficultyLevel.NORMAL));
+        s.setShowPlayerRange(d.showRange);
 
         // Charge le flag fullscreen. La valeur est appliquee par Main apres setVisible()
         // via toggleFullscreen(). On utilise setFullscreenFlag() et non toggleFullscreen()
         // car la fenetre n'est pas encore affichee a ce stade.
-        s.setFullscreenFlag(Boolean.parseBoolean(props.getProperty("settings.fullscreen", "false")));
+        // Le mode est lu AVANT le flag : fullscreen est encore false, donc
+        // setFullscreenMode() ne reapplique rien sur la fenetre.
+        s.setFullscreenMode(getEnum(d.fullscreenMode, FullscreenMode.class, FullscreenMode.BORDERLESS));
+        s.setFullscreenFlag(d.fullscreen);
+
+        s.setRenderMode(getEnum(d.renderMode, RenderMode.class, RenderMode.JAVA2D));
+
+        s.setRenderScale(d.renderScale);
+        s.setSmoothUpscale(d.smoothUpscale);
+        s.setDynamicResolution(d.dynamicResolution);
+        s.setPipeline(getEnum(d.pipeline, RenderPipeline.class, RenderPipeline.AUTO));
+        s.setBufferKind(getEnum(d.bufferKind, BufferKind.class, BufferKind.AUTO));
+
+        RenderPipeline probed = getEnum(d.probePipeline, RenderPipeline.class, null);
+        BufferKind     kind   = getEnum(d.probeBufferKind, BufferKind.class, null);
+        if (probed != null && kind != null) s.setProbeResult(probed, kind, d.probeMs);
     }
 
-    private static void applyUpgrades(Properties props, Player p) {
+    private static void applyUpgrades(SaveData d, Player p) {
         // Or
-        p.gold = getInt(props, "player.gold", 0);
+        p.gold = d.gold;
 
-        // Niveaux d'upgrade
-        p.upgradeHp        = getInt(props, "upgrade.hp",        0);
-        p.upgradeDamage    = getInt(props, "upgrade.damage",    0);
-        p.upgradeRange     = getInt(props, "upgrade.range",     0);
-        p.upgradeSpeed     = getInt(props, "upgrade.speed",     0);
-        p.upgradeLifeSteal = getInt(props, "upgrade.lifeSteal", 0);
-        p.upgradeCrit      = getInt(props, "upgrade.crit",      0);
-        p.upgradeCritDmg   = getInt(props, "upgrade.critDmg",   0);
+        // Niveaux d'upgrade (ordre de SaveData.UPGRADES)
+        p.upgradeHp        = d.upgrades[0];
+        p.upgradeDamage    = d.upgrades[1];
+        p.upgradeRange     = d.upgrades[2];
+        p.upgradeSpeed     = d.upgrades[3];
+        p.upgradeLifeSteal = d.upgrades[4];
+        p.upgradeCrit      = d.upgrades[5];
+        p.upgradeCritDmg   = d.upgrades[6];
 
         // Recalcule toutes les stats depuis les niveaux
         p.applyUpgrades();
         p.hp = p.maxHp; // vie pleine au chargement
     }
 
-    private static void applyRecords(Properties props, GamePanel gp) {
-        gp.bestTimeTicks = getInt(props, "records.bestTimeTicks", 0);
+    private static void applyRecords(SaveData d, GamePanel gp) {
+        gp.bestTimeTicks = d.bestTimeTicks;
     }
 
 
@@ -87,41 +334,283 @@ public class SaveManager {
     // Sauvegarde
     // =========================================================================
 
+    /**
+     * Demande une sauvegarde de l'etat courant. L'etat est capture
+     * immediatement ; l'ecriture disque se fait en arriere-plan.
+     * Utilisable depuis n'importe quel thread.
+     */
     public static void save(GamePanel gp) {
-        File dir = new File("save");
-        if (!dir.exists()) dir.mkdirs();
+        if (gp.replay != null || gp.offline) return;
+        SaveData d = snapshot(gp);
+        synchronized (LOCK) {
+            pending = d;
+            startWriter();
+            LOCK.notifyAll();
+        }
+    }
 
-        Properties props = new Properties();
+    /**
+     * Demande l'ecriture d'un instantane de la partie en cours.
+     * A appeler quand le monde ne bouge pas : sur le thread de jeu, ou
+     * depuis l'EDT quand la partie est en pause.
+     */
+    public static void saveRun(GamePanel gp) {
+        if (gp.replay != null || gp.offline) return;
+        byte[] data   = WorldSnapshot.capture(gp);
+        byte[] inputs = gp.recorder.isActive() ? gp.recorder.snapshot() : null;
+        synchronized (LOCK) {
+            pendingRun       = data;
+            pendingRunInputs = inputs;
+            pendingRunDelete = false;
+            startWriter();
+            LOCK.notifyAll();
+        }
+    }
+
+    /** Demande la suppression de l'instantane (partie terminee ou abandonnee). */
+    public static void clearRun() {
+        synchronized (LOCK) {
+            pendingRun       = null;
+            pendingRunInputs = null;
+            pendingRunDelete = true;
+            startWriter();
+            LOCK.notifyAll();
+        }
+    }
+
+    /** Demande l'ecriture de l'enregistrement d'une partie finie (save/replays). */
+    public static void saveReplay(byte[] data) {
+        synchronized (LOCK) {
+            pendingReplays.add(data);
+            startWriter();
+            LOCK.notifyAll();
+        }
+    }
+
+    /** Demarre le thread d'ecriture au premier usage (LOCK tenu). */
+    private static void startWriter() {
+        if (writer != null) return;
+        writer = new Thread(SaveManager::writerLoop, "save-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** true s'il reste une ecriture a faire (LOCK tenu). */
+    private static boolean hasPendingWork() {
+        return pending != null || pendingRun != null || pendingRunDelete || !pendingReplays.isEmpty();
+    }
+
+    /**
+     * Attend que toutes les sauvegardes demandees soient ecrites, au plus
+     * timeoutMs. Appele a la fermeture (fenetre, ShutdownHook).
+     *
+     * @return true si tout est ecrit, false si le delai a expire
+     */
+    public static boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (LOCK) {
+            flushRequested = true;
+            LOCK.notifyAll();
+            try {
+                long rem;
+                while ((hasPendingWork() || writing)
+                        && (rem = deadline - System.currentTimeMillis()) > 0) {
+                    LOCK.wait(rem);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                flushRequested = false;
+            }
+            if (hasPendingWork() || writing) {
+                System.out.println("[SaveManager] Flush incomplet apres " + timeoutMs + " ms.");
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /** Duree de la derniere ecriture (ms). */
+    public static double getLastSaveMs() { return lastSaveMs; }
+
+    /** Duree de la plus longue ecriture de la session (ms). */
+    public static double getMaxSaveMs() { return maxSaveMs; }
+
+    /** Nombre d'ecritures effectuees dans la session. */
+    public static int getSaveCount() { return saveCount; }
+
+    /** Boucle du thread "save-writer" : regroupe puis ecrit les derniers etats. */
+    private static void writerLoop() {
+        while (true) {
+            SaveData   state;
+            byte[]     run, runInputs;
+            boolean    deleteRun;
+            byte[][]   replays;
+            synchronized (LOCK) {
+                try {
+                    while (!hasPendingWork()) LOCK.wait();
+                    long end = System.currentTimeMillis() + COALESCE_MS, rem;
+                    while (!flushRequested && (rem = end - System.currentTimeMillis()) > 0) {
+                        LOCK.wait(rem);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                state      = pending;
+                run        = pendingRun;
+                runInputs  = pendingRunInputs;
+                deleteRun  = pendingRunDelete;
+                replays    = pendingReplays.toArray(new byte[0][]);
+                pending    = null;
+                pendingRun = null;
+                pendingRunInputs = null;
+                pendingRunDelete = false;
+                pendingReplays.clear();
+                writing    = true;
+            }
+            try {
+                if (state != null) writeState(state);
+                if (run != null) {
+                    writeAtomically(RUN_PATH, ByteBuffer.wrap(run));
+                    if (runInputs != null) writeAtomically(RUN_INPUT_PATH, ByteBuffer.wrap(runInputs));
+                    else new File(RUN_INPUT_PATH).delete();
+                } else if (deleteRun) {
+                    new File(RUN_INPUT_PATH).delete();
+                    if (new File(RUN_PATH).delete()) System.out.println("[SaveManager] Partie en cours supprimee.");
+                }
+                for (byte[] r : replays) writeReplay(r);
+            } finally {
+                synchronized (LOCK) {
+                    writing = false;
+                    LOCK.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ajoute au journal les valeurs qui ont change depuis la derniere
+     * ecriture, puis compacte si le journal est trop gros (thread d'ecriture).
+     */
+    private static void writeState(SaveData state) {
+        if (onDisk == null) { compact(state); return; } // pas encore de base
+        try {
+            long start = System.nanoTime();
+            int records = journal.append(onDisk, state);
+            if (records == 0) return; // rien de nouveau (ex : double sauvegarde a la fermeture)
+            onDisk = state;
+
+            double ms = (System.nanoTime() - start) / 1e6;
+            recordLatency(ms);
+            System.out.println(String.format("[SaveManager] Journal : %d modification(s) (%.1f ms)", records, ms));
+
+            if (journal.size() > SaveJournal.COMPACT_BYTES) compact(state);
+        } catch (IOException e) {
+            System.out.println("[SaveManager] ERREUR journal : " + e.getMessage());
+        }
+    }
+
+    /** Reecrit une base complete, puis vide le journal (thread d'ecriture). */
+    private static void compact(SaveData state) {
+        SaveData base = state.copy();
+        base.journalSeq = journal.lastSeq();
+        if (!writeAtomically(SAVE_PATH, baseFile.encode(base))) return;
+        onDisk = state;
+        try {
+            journal.truncate(); // les enregistrements restants sont ignores grace a journal.seq
+        } catch (IOException e) {
+            System.out.println("[SaveManager] ERREUR journal : " + e.getMessage());
+        }
+    }
+
+    /** Ecrit un enregistrement de partie : save/replays/run-date.rpl (thread d'ecriture). */
+    private static void writeReplay(byte[] data) {
+        String name = "run-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File f = new File(REPLAY_DIR, name + ".rpl");
+        for (int n = 2; f.exists(); n++) f = new File(REPLAY_DIR, name + "-" + n + ".rpl");
+        writeAtomically(f.getPath(), ByteBuffer.wrap(data));
+    }
+
+    /** Enregistre la duree d'une ecriture dans les statistiques de latence. */
+    private static void recordLatency(double ms) {
+        lastSaveMs = ms;
+        if (ms > maxSaveMs) maxSaveMs = ms;
+        saveCount++;
+    }
+
+    /**
+     * Ecriture atomique : fichier temporaire puis renommage (thread d'ecriture).
+     * La duree est enregistree dans les statistiques de latence.
+     */
+    private static boolean writeAtomically(String path, ByteBuffer data) {
+        long start = System.nanoTime();
+        int size = data.remaining();
+        File tmp = new File(path + ".tmp"), target = new File(path);
+        File dir = target.getParentFile();
+        if (dir != null && !dir.exists()) dir.mkdirs();
+        try {
+            try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) ch.write(data);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp.toPath(), target.toPath(),
+                           StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            double ms = (System.nanoTime() - start) / 1e6;
+            recordLatency(ms);
+            System.out.println(String.format("[SaveManager] Sauvegarde : %s (%d octets, %.1f ms)",
+                                             target.getAbsolutePath(), size, ms));
+            return true;
+        } catch (IOException e) {
+            System.out.println("[SaveManager] ERREUR : " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Capture l'etat a sauvegarder (thread appelant, sans acces disque). */
+    private static SaveData snapshot(GamePanel gp) {
+        SaveData d = new SaveData();
         GameSettings s = GameSettings.getInstance();
         Player       p = gp.player;
 
         // Options
-        props.setProperty("settings.difficulty", s.getDifficulty().name());
-        props.setProperty("settings.showRange",  String.valueOf(s.isShowPlayerRange()));
-        props.setProperty("settings.fullscreen", String.valueOf(s.isFullscreen()));
+        d.difficulty        = s.getDifficulty().name();
+        d.showRange         = s.isShowPlayerRange();
+        d.fullscreen        = s.isFullscreen();
+        d.fullscreenMode    = s.getFullscreenMode().name();
+        d.renderMode        = s.getRenderMode().name();
+        d.renderScale       = s.getRenderScale();
+        d.smoothUpscale     = s.isSmoothUpscale();
+        d.dynamicResolution = s.isDynamicResolution();
+        d.pipeline          = s.getPipeline().name();
+        d.bufferKind        = s.getBufferKind().name();
+        if (s.hasProbeResult()) {
+            d.probePipeline   = s.getProbedPipeline().name();
+            d.probeBufferKind = s.getProbedBufferKind().name();
+            d.probeMs         = s.getProbedMs();
+        }
 
         // Or
-        props.setProperty("player.gold", String.valueOf(p.gold));
+        d.gold = p.gold;
 
-        // Niveaux d'upgrade
-        props.setProperty("upgrade.hp",        String.valueOf(p.upgradeHp));
-        props.setProperty("upgrade.damage",     String.valueOf(p.upgradeDamage));
-        props.setProperty("upgrade.range",      String.valueOf(p.upgradeRange));
-        props.setProperty("upgrade.speed",      String.valueOf(p.upgradeSpeed));
-        props.setProperty("upgrade.lifeSteal",  String.valueOf(p.upgradeLifeSteal));
-        props.setProperty("upgrade.crit",       String.valueOf(p.upgradeCrit));
-        props.setProperty("upgrade.critDmg",    String.valueOf(p.upgradeCritDmg));
+        // Niveaux d'upgrade (ordre de SaveData.UPGRADES)
+        d.upgrades[0] = p.upgradeHp;
+        d.upgrades[1] = p.upgradeDamage;
+        d.upgrades[2] = p.upgradeRange;
+        d.upgrades[3] = p.upgradeSpeed;
+        d.upgrades[4] = p.upgradeLifeSteal;
+        d.upgrades[5] = p.upgradeCrit;
+        d.upgrades[6] = p.upgradeCritDmg;
 
         // Records
-        props.setProperty("records.bestTimeTicks",  String.valueOf(gp.bestTimeTicks));
-
+        d.bestTimeTicks = gp.bestTimeTicks;
 
-        try (FileOutputStream fos = new FileOutputStream(SAVE_PATH)) {
-            props.store(fos, "Survivor - Sauvegarde automatique");
-            System.out.println("[SaveManager] Sauvegarde : " + new File(SAVE_PATH).getAbsolutePath());
-        } catch (IOException e) {
-            System.out.println("[SaveManager] ERREUR : " + e.getMessage());
-        }
+        return d;
     }
 
 
@@ -137,7 +626,7 @@ public class SaveManager {
      *  - Tous les niveaux d'upgrade
      *  - Le meilleur temps de survie
      * Conserve :
-     *  - Les options (difficulte, showRange, fullscreen)
+     *  - Les options (difficulte, showRange, fullscreen, rendu)
      *
      * Appele depuis MenuScreen apres confirmation du joueur.
      *
@@ -165,6 +654,8 @@ public class SaveManager {
         // Remise a zero des records et de l'etat de partie
         gp.bestTimeTicks = 0;
         gp.hasActiveGame = false;
+        gp.runOnDisk     = false;
+        clearRun();
 
         // Sauvegarde le nouvel etat reinitialise
         save(gp);
@@ -176,8 +667,9 @@ public class SaveManager {
     // Utilitaire
     // =========================================================================
 
-    private static int getInt(Properties props, String key, int def) {
-        try   { return Integer.parseInt(props.getProperty(key, String.valueOf(def))); }
-        catch (NumberFormatException e) { return def; }
+    private static <E extends Enum<E>> E getEnum(String v, Class<E> type, E def) {
+        if (v == null) return def;
+        try   { return Enum.valueOf(type, v); }
+        catch (IllegalArgumentException e) { return def; }
     }
 }
@@ -1,8 +1,6 @@
 package projetCROMBEZ;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Ecran de la boutique d'ameliorations.
@@ -28,6 +26,11 @@ import java.util.List;
  * --- Architecture listener ---
  * Aucun MouseListener ici. GamePanel dispatche via handleClick/handleHover
  * uniquement quand gameState == SHOP.
+ *
+ * --- Rendu retenu ---
+ * Chaque ligne est un panneau avec ses labels, sa jauge et son bouton.
+ * Un achat ne met a jour que les widgets dont le contenu change
+ * (ligne achetee, or, boutons qui deviennent inabordables).
  */
 public class ShopScreen {
 
@@ -108,15 +111,19 @@ public class ShopScreen {
     private static final int ROW_GAP   = 8;
     private static final int MAX_LEVEL = Player.MAX_UPGRADE_LEVEL;
 
-    /** Rectangle du bouton "Retour". */
-    private Rectangle btnBack;
+    /** Arbre de widgets de l'ecran. */
+    private final UiRoot ui;
+
+    /** Widgets mis a jour apres un achat (un par upgrade). */
+    private UiPanel[]  rows;
+    private UiLabel[]  effectLabels, valueLabels, levelLabels;
+    private UiPips[]   gauges;
+    private UiButton[] buyButtons;
 
-    /** Rectangles des boutons "Acheter" (un par upgrade). */
-    private List<Rectangle> buyButtons = new ArrayList<>();
+    /** Label "Or disponible". */
+    private UiLabel goldLabel;
 
-    /** Index survole (-1 = aucun). */
-    private int hoveredRow  = -1;
-    private boolean hoveredBack = false;
+    private Font effectFont, btnFont;
 
     // =========================================================================
     // Constructeur
@@ -124,59 +131,178 @@ public class ShopScreen {
 
     public ShopScreen(GamePanel gp) {
         this.gp = gp;
-        buildLayout();
+        this.ui = new UiRoot(gp);
+        buildWidgets();
     }
 
-    /** Calcule les positions de tous les boutons selon la taille de l'ecran. */
-    private void buildLayout() {
-        buyButtons.clear();
+    /** Construit tous les widgets selon la taille de l'ecran. */
+    private void buildWidgets() {
+        int n = NAMES.length;
+        rows         = new UiPanel[n];
+        effectLabels = new UiLabel[n];
+        valueLabels  = new UiLabel[n];
+        levelLabels  = new UiLabel[n];
+        gauges       = new UiPips[n];
+        buyButtons   = new UiButton[n];
 
-        int panelX = gp.screenWidth  / 2 - PANEL_W / 2;
-        int startY = 110; // premiere ligne
+        effectFont = gp.uiFont(Font.PLAIN, 13f);
+        btnFont    = gp.uiFont(Font.PLAIN, 14f);
+        int cx     = gp.screenWidth / 2;
 
-        for (int i = 0; i < NAMES.length; i++) {
-            int rowY = startY + i * (ROW_H + ROW_GAP);
-            // Bouton Acheter a droite de chaque ligne
-            buyButtons.add(new Rectangle(
-                panelX + PANEL_W - 130,
-                rowY + (ROW_H - 36) / 2,
-                120, 36
-            ));
+        // Fond
+        ui.add(new UiPanel(new Rectangle(0, 0, gp.screenWidth, gp.screenHeight),
+                new GradientPaint(0, 0, new Color(10,10,30), 0, gp.screenHeight, new Color(20,5,40))));
+
+        // Titre
+        ui.add(new UiLabel("Boutique", gp.uiFont(Font.BOLD, 34f), new Color(255, 210, 50),
+                           cx, 70, UiLabel.CENTER));
+
+        // Or disponible
+        goldLabel = ui.add(new UiLabel("Or disponible : " + gp.player.gold, gp.uiFont(Font.PLAIN, 18f),
+                                       new Color(255, 210, 50), cx, 92, UiLabel.CENTER));
+
+        // Lignes d'upgrade
+        int panelX = gp.screenWidth / 2 - PANEL_W / 2;
+        int startY = 110; // premiere ligne
+        for (int i = 0; i < n; i++) {
+            addUpgradeRow(panelX, startY + i * (ROW_H + ROW_GAP), i);
         }
 
         // Bouton retour en bas
-        btnBack = new Rectangle(
-            gp.screenWidth / 2 - 90,
-            startY + NAMES.length * (ROW_H + ROW_GAP) + 10,
-            180, 42
-        );
+        UiButton back = ui.add(new UiButton(new Rectangle(cx - 90, startY + n * (ROW_H + ROW_GAP) + 10, 180, 42),
+                "<- Retour", gp.uiFont(Font.PLAIN, 16f), () -> gp.gameState = GameState.MENU));
+        back.setShape(12, 1.5f);
+        back.setColors(new Color(40,40,65), new Color(80,80,110),
+                       new Color(140, 140, 180), new Color(140, 140, 180));
+
+        refresh();
+    }
+
+    /**
+     * Ajoute une ligne complete de l'upgrade : fond, couleur, nom, effet,
+     * valeur actuelle, jauge de niveau, et bouton Acheter.
+     * Le fond de la ligne s'eclaircit quand son bouton est survole.
+     */
+    private void addUpgradeRow(int x, int y, int index) {
+        Color accent = COLORS[index];
+
+        final UiPanel row = ui.add(new UiPanel(new Rectangle(x, y, PANEL_W, ROW_H)) {
+            @Override
+            protected void render(Graphics2D g2) {
+                // Fond de la ligne
+                g2.setColor(hovered ? new Color(30, 30, 55) : new Color(18, 18, 38));
+                g2.fillRoundRect(x, y, PANEL_W, ROW_H, 12, 12);
+
+                // Bordure gauche coloree
+                g2.setColor(accent);
+                g2.fillRoundRect(x, y, 5, ROW_H, 4, 4);
+
+                // Bordure exterieure fine
+                g2.setColor(new Color(accent.getRed()/3, accent.getGreen()/3, accent.getBlue()/3));
+                g2.drawRoundRect(x, y, PANEL_W, ROW_H, 12, 12);
+            }
+        });
+        rows[index] = row;
+
+        // Nom de l'upgrade
+        row.add(new UiLabel(NAMES[index], gp.uiFont(Font.BOLD, 16f), accent, x + 16, y + 22, UiLabel.LEFT));
+
+        // Effet du prochain niveau (ou "NIVEAU MAX"), valeur actuelle
+        effectLabels[index] = row.add(new UiLabel("", effectFont, Color.white, x + 16, y + 42, UiLabel.LEFT));
+        valueLabels[index]  = row.add(new UiLabel("", gp.uiFont(Font.PLAIN, 15f), Color.white,
+                                                  x + 220, y + ROW_H/2 + 6, UiLabel.LEFT));
+
+        // Jauge de niveaux (5 carres) et niveau textuel
+        int gaugX = x + 340;
+        int gaugY = y + ROW_H/2 - 7;
+        int sqW = 22, sqGap = 4;
+        gauges[index] = row.add(new UiPips(gaugX, gaugY, MAX_LEVEL, sqW, 14, sqGap, accent, 0));
+        levelLabels[index] = row.add(new UiLabel("", gp.uiFont(Font.PLAIN, 12f), new Color(180, 180, 180),
+                                                 gaugX + MAX_LEVEL*(sqW+sqGap) + 6, gaugY + 11, UiLabel.LEFT));
+
+        // Bouton Acheter a droite de la ligne (son survol eclaircit aussi la ligne)
+        Rectangle r = new Rectangle(x + PANEL_W - 130, y + (ROW_H - 36) / 2, 120, 36);
+        buyButtons[index] = row.add(new UiButton(r, "", btnFont, () -> tryBuy(index)) {
+            @Override
+            protected void onHoverChanged() {
+                super.onHoverChanged();
+                row.hovered = hovered;
+                row.invalidate();
+            }
+        });
+        buyButtons[index].setShape(10, 1.5f);
     }
 
     // =========================================================================
-    // Evenements
+    // Mise a jour des widgets
     // =========================================================================
 
-    public void handleClick(Point p) {
-        // Bouton retour
-        if (btnBack.contains(p)) {
-            gp.gameState = GameState.MENU;
-            return;
-        }
-        // Boutons acheter
-        for (int i = 0; i < buyButtons.size(); i++) {
-            if (buyButtons.get(i).contains(p)) {
-                tryBuy(i);
-                return;
+    /**
+     * Recopie l'etat du joueur dans les widgets. Chaque setter n'invalide
+     * que si la valeur affichee change reellement.
+     */
+    private void refresh() {
+        Player p = gp.player;
+        goldLabel.setText("Or disponible : " + p.gold);
+
+        String[] currentValues = getCurrentValues();
+        for (int i = 0; i < NAMES.length; i++) {
+            int level   = getLevel(p, i);
+            boolean max = (level >= MAX_LEVEL);
+
+            if (max) {
+                effectLabels[i].setText("NIVEAU MAX");
+                effectLabels[i].setColor(new Color(255, 210, 50));
+            } else {
+                effectLabels[i].setText("Prochain : " + EFFECTS[i]);
+                effectLabels[i].setColor(new Color(170, 170, 200));
+            }
+            valueLabels[i].setText(currentValues[i]);
+            gauges[i].setFilled(level);
+            levelLabels[i].setText(level + "/" + MAX_LEVEL);
+
+            UiButton buy = buyButtons[i];
+            if (max) {
+                // Niveau max : bouton grise
+                buy.setColors(new Color(30, 30, 45), new Color(30, 30, 45),
+                              new Color(70, 70, 90), new Color(70, 70, 90));
+                buy.setTextColor(new Color(100, 100, 120));
+                buy.setText("MAX");
+            } else {
+                int cost = COSTS[i][level];
+                boolean canAfford = (p.gold >= cost);
+                Color btnBg  = canAfford ? new Color(120, 100, 10) : new Color(50, 30, 30);
+                Color btnHov = canAfford ? new Color(180, 150, 20) : btnBg;
+                Color btnBrd = canAfford ? new Color(255, 210, 50) : new Color(100, 60, 60);
+                buy.setColors(btnBg, btnHov, btnBrd, btnBrd);
+                buy.setTextColor(canAfford ? Color.white : new Color(120, 80, 80));
+                buy.setText(cost + " or");
             }
         }
     }
 
+    // =========================================================================
+    // Evenements
+    // =========================================================================
+
+    /**
+     * Appele (EDT) quand la boutique devient l'ecran courant : l'or a pu
+     * changer pendant la partie, les widgets sont resynchronises.
+     */
+    public void onShow() {
+        refresh();
+        ui.invalidateAll();
+        ui.resetHover();
+        Point m = gp.lastMouse;
+        if (m != null) ui.hover(m);
+    }
+
+    public void handleClick(Point p) {
+        ui.click(p);
+    }
+
     public void handleHover(Point p) {
-        hoveredRow  = -1;
-        hoveredBack = btnBack.contains(p);
-        for (int i = 0; i < buyButtons.size(); i++) {
-            if (buyButtons.get(i).contains(p)) { hoveredRow = i; return; }
-        }
+        ui.hover(p);
     }
 
     // =========================================================================
@@ -206,6 +332,8 @@ public class ShopScreen {
 
         // Sauvegarde immediate
         SaveManager.save(gp);
+
+        refresh();
     }
 
     /** Retourne le niveau actuel de l'upgrade i. */
@@ -239,171 +367,8 @@ public class ShopScreen {
     // Rendu
     // =========================================================================
 
+    /** Dessine les widgets qui intersectent la zone a rafraichir. */
     public void draw(Graphics2D g2) {
-        // Fond
-        GradientPaint bg = new GradientPaint(0, 0, new Color(10,10,30),
-                                              0, gp.screenHeight, new Color(20,5,40));
-        g2.setPaint(bg);
-        g2.fillRect(0, 0, gp.screenWidth, gp.screenHeight);
-        g2.setPaint(null);
-
-        // Titre
-        Font titleFont = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 34f)
-                                             : new Font("Arial", Font.BOLD, 34);
-        g2.setFont(titleFont);
-        g2.setColor(new Color(255, 210, 50));
-        FontMetrics fm = g2.getFontMetrics();
-        String title = "Boutique";
-        g2.drawString(title, gp.screenWidth/2 - fm.stringWidth(title)/2, 70);
-
-        // Or disponible
-        Font goldFont = gp.gameFont != null ? gp.gameFont.deriveFont(18f)
-                                            : new Font("Arial", Font.PLAIN, 18);
-        g2.setFont(goldFont);
-        fm = g2.getFontMetrics();
-        String goldStr = "Or disponible : " + gp.player.gold;
-        g2.setColor(new Color(255, 210, 50));
-        g2.drawString(goldStr, gp.screenWidth/2 - fm.stringWidth(goldStr)/2, 92);
-
-        // Lignes d'upgrade
-        int panelX = gp.screenWidth/2 - PANEL_W/2;
-        int startY = 110;
-        String[] currentValues = getCurrentValues();
-
-        for (int i = 0; i < NAMES.length; i++) {
-            int rowY    = startY + i * (ROW_H + ROW_GAP);
-            int level   = getLevel(gp.player, i);
-            boolean max = (level >= MAX_LEVEL);
-            boolean sel = (hoveredRow == i);
-
-            drawUpgradeRow(g2, panelX, rowY, i, level, max, sel, currentValues[i]);
-        }
-
-        // Bouton retour
-        g2.setColor(hoveredBack ? new Color(80,80,110) : new Color(40,40,65));
-        g2.fillRoundRect(btnBack.x, btnBack.y, btnBack.width, btnBack.height, 12, 12);
-        g2.setColor(new Color(140, 140, 180));
-        g2.setStroke(new BasicStroke(1.5f));
-        g2.drawRoundRect(btnBack.x, btnBack.y, btnBack.width, btnBack.height, 12, 12);
-        g2.setStroke(new BasicStroke(1f));
-
-        Font backFont = gp.gameFont != null ? gp.gameFont.deriveFont(16f)
-                                            : new Font("Arial", Font.PLAIN, 16);
-        g2.setFont(backFont);
-        g2.setColor(Color.white);
-        fm = g2.getFontMetrics();
-        String back = "<- Retour";
-        g2.drawString(back, btnBack.x + btnBack.width/2 - fm.stringWidth(back)/2,
-                      btnBack.y + btnBack.height/2 + fm.getAscent()/2 - 2);
-    }
-
-    /**
-     * Dessine une ligne complete de l'upgrade : fond, couleur, icone, nom,
-     * valeur actuelle, jauge de niveau, et bouton Acheter.
-     */
-    private void drawUpgradeRow(Graphics2D g2, int x, int y, int index,
-                                 int level, boolean max, boolean hovered,
-                                 String currentValue) {
-        Color accent = COLORS[index];
-
-        // Fond de la ligne
-        Color rowBg = hovered ? new Color(30, 30, 55) : new Color(18, 18, 38);
-        g2.setColor(rowBg);
-        g2.fillRoundRect(x, y, PANEL_W, ROW_H, 12, 12);
-
-        // Bordure gauche coloree
-        g2.setColor(accent);
-        g2.fillRoundRect(x, y, 5, ROW_H, 4, 4);
-
-        // Bordure exterieure fine
-        g2.setStroke(new BasicStroke(1f));
-        g2.setColor(new Color(accent.getRed()/3, accent.getGreen()/3, accent.getBlue()/3));
-        g2.drawRoundRect(x, y, PANEL_W, ROW_H, 12, 12);
-
-        // Nom de l'upgrade
-        Font nameFont = gp.gameFont != null ? gp.gameFont.deriveFont(Font.BOLD, 16f)
-                                            : new Font("Arial", Font.BOLD, 16);
-        g2.setFont(nameFont);
-        g2.setColor(accent);
-        g2.drawString(NAMES[index], x + 16, y + 22);
-
-        // Effet du prochain niveau (ou "MAX" si max)
-        Font effectFont = gp.gameFont != null ? gp.gameFont.deriveFont(13f)
-                                              : new Font("Arial", Font.PLAIN, 13);
-        g2.setFont(effectFont);
-        if (max) {
-            g2.setColor(new Color(255, 210, 50));
-            g2.drawString("NIVEAU MAX", x + 16, y + 42);
-        } else {
-            g2.setColor(new Color(170, 170, 200));
-            g2.drawString("Prochain : " + EFFECTS[index], x + 16, y + 42);
-        }
-
-        // Valeur actuelle
-        Font valFont = gp.gameFont != null ? gp.gameFont.deriveFont(15f)
-                                           : new Font("Arial", Font.PLAIN, 15);
-        g2.setFont(valFont);
-        g2.setColor(Color.white);
-        g2.drawString(currentValue, x + 220, y + ROW_H/2 + 6);
-
-        // Jauge de niveaux (5 carres)
-        int gaugX = x + 340;
-        int gaugY = y + ROW_H/2 - 7;
-        int sqW = 22, sqH = 14, sqGap = 4;
-        for (int k = 0; k < MAX_LEVEL; k++) {
-            boolean filled = (k < level);
-            g2.setColor(filled ? accent : new Color(40, 40, 60));
-            g2.fillRoundRect(gaugX + k*(sqW + sqGap), gaugY, sqW, sqH, 4, 4);
-            g2.setColor(new Color(60, 60, 80));
-            g2.drawRoundRect(gaugX + k*(sqW + sqGap), gaugY, sqW, sqH, 4, 4);
-        }
-
-        // Niveau textuel
-        Font lvlFont = gp.gameFont != null ? gp.gameFont.deriveFont(12f)
-                                           : new Font("Arial", Font.PLAIN, 12);
-        g2.setFont(lvlFont);
-        g2.setColor(new Color(180, 180, 180));
-        g2.drawString(level + "/" + MAX_LEVEL, gaugX + MAX_LEVEL*(sqW+sqGap) + 6, gaugY + 11);
-
-        // Bouton Acheter
-        Rectangle buyBtn = buyButtons.get(index);
-        if (max) {
-            // Niveau max : bouton grise
-            g2.setColor(new Color(30, 30, 45));
-            g2.fillRoundRect(buyBtn.x, buyBtn.y, buyBtn.width, buyBtn.height, 10, 10);
-            g2.setColor(new Color(70, 70, 90));
-            g2.drawRoundRect(buyBtn.x, buyBtn.y, buyBtn.width, buyBtn.height, 10, 10);
-            g2.setFont(effectFont);
-            g2.setColor(new Color(100, 100, 120));
-            FontMetrics fm = g2.getFontMetrics();
-            String lbl = "MAX";
-            g2.drawString(lbl, buyBtn.x + buyBtn.width/2 - fm.stringWidth(lbl)/2,
-                          buyBtn.y + buyBtn.height/2 + fm.getAscent()/2 - 2);
-        } else {
-            int cost = COSTS[index][level];
-            boolean canAfford = (gp.player.gold >= cost);
-
-            Color btnBg  = hovered && canAfford ? new Color(180, 150, 20)
-                         : canAfford            ? new Color(120, 100, 10)
-                                               : new Color(50, 30, 30);
-            Color btnBrd = canAfford ? new Color(255, 210, 50) : new Color(100, 60, 60);
-            Color btnTxt = canAfford ? Color.white : new Color(120, 80, 80);
-
-            g2.setColor(btnBg);
-            g2.fillRoundRect(buyBtn.x, buyBtn.y, buyBtn.width, buyBtn.height, 10, 10);
-            g2.setStroke(new BasicStroke(1.5f));
-            g2.setColor(btnBrd);
-            g2.drawRoundRect(buyBtn.x, buyBtn.y, buyBtn.width, buyBtn.height, 10, 10);
-            g2.setStroke(new BasicStroke(1f));
-
-            Font btnFont = gp.gameFont != null ? gp.gameFont.deriveFont(14f)
-                                               : new Font("Arial", Font.PLAIN, 14);
-            g2.setFont(btnFont);
-            g2.setColor(btnTxt);
-            FontMetrics fm = g2.getFontMetrics();
-            String lbl = cost + " or";
-            g2.drawString(lbl, buyBtn.x + buyBtn.width/2 - fm.stringWidth(lbl)/2,
-                          buyBtn.y + buyBtn.height/2 + fm.getAscent()/2 - 2);
-        }
+        ui.paint(g2);
     }
 }
@@ -0,0 +1,64 @@
+package projetCROMBEZ;
+
+/**
+ * Generateur pseudo-aleatoire de la simulation (SplitMix64).
+ *
+ * Meme algorithme que java.util.SplittableRandom (increment par le nombre
+ * d'or puis melange 64 bits), mais avec un etat lisible et modifiable :
+ * WorldSnapshot le sauvegarde avec la partie, ce que SplittableRandom ne
+ * permet pas. Sans synchronisation ni allocation.
+ *
+ * Chaque sous-systeme de la simulation possede son propre flux, seme par
+ * {@link GamePanel#seedRun} a partir de la graine de la partie : un tirage
+ * de plus dans un sous-systeme ne decale pas les tirages des autres.
+ */
+public final class SimRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public SimRandom(long seed) {
+        this.state = seed;
+    }
+
+    // =========================================================================
+    // Etat (WorldSnapshot)
+    // =========================================================================
+
+    public long getState()       { return state; }
+    public void setState(long s) { state = s; }
+
+    // =========================================================================
+    // Tirages
+    // =========================================================================
+
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /** Entier dans [0, bound[ (bound > 0), sans biais (rejet). */
+    public int nextInt(int bound) {
+        int r = (int) (nextLong() >>> 32);
+        int m = bound - 1;
+        if ((bound & m) == 0) return r & m; // puissance de deux
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = (int) (nextLong() >>> 33)) { /* rejet */ }
+        return r;
+    }
+
+    /** Reel dans [0, 1[. */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /** Reel dans [0, 1[. */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,812 @@
+package projetCROMBEZ;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rasteriseur logiciel des couches d'entites d'une {@link DisplayList}.
+ *
+ * =========================================================================
+ * PRINCIPE
+ * =========================================================================
+ * Le fond (couche BACKGROUND) et les textes (LABEL, HUD) restent dessines
+ * par Java2D. Les couches intermediaires (halos, projectiles, corps,
+ * contours, barres de vie, joueur) sont ecrites directement dans le
+ * tableau int[] d'une image TYPE_INT_ARGB_PRE, puis composees sur le
+ * fond en un seul drawImage.
+ *
+ * =========================================================================
+ * ETAPES
+ * =========================================================================
+ *  1. Preparation (thread appelant) : chaque commande est convertie en
+ *     aretes (formes aplaties, contours via BasicStroke.createStrokedShape)
+ *     et rangee dans les tuiles qu'elle recouvre.
+ *  2. Rasterisation (ForkJoinPool) : chaque tuile de 128x128 est traitee
+ *     independamment. Les commandes d'une tuile sont parcourues dans
+ *     l'ordre trie de la liste, ce qui conserve l'ordre de superposition.
+ *     Antialiasing : 4 sous-lignes par pixel, couverture horizontale exacte.
+ *     Les aretes de chaque commande sont triees par y de depart : une
+ *     sous-ligne ne parcourt que les aretes actives (contours en
+ *     pointilles = des centaines d'aretes, peu actives a la fois).
+ *
+ * Seules les tuiles utilisees a la frame precedente sont effacees.
+ *
+ * L'image interne suit l'echelle du contexte de destination (resolution
+ * interne de GamePanel) : les formes sont aplaties directement en pixels
+ * du tampon, et l'image est composee sans mise a l'echelle.
+ *
+ * Les commandes non prises en charge (texte, image non BufferedImage)
+ * sont rejouees par Java2D apres la composition.
+ *
+ * =========================================================================
+ * VERIFICATION
+ * =========================================================================
+ * {@link #crossCheck(Graphics2D, DisplayList)} compare la sortie a celle de Java2D
+ * pour la meme liste. GamePanel l'appelle sur la premiere frame non vide
+ * et repasse en rendu Java2D si l'ecart depasse la tolerance.
+ */
+public class SoftwareRasterizer {
+
+    // =========================================================================
+    // Parametres
+    // =========================================================================
+
+    /** Couches prises en charge (inclusives). */
+    static final int FIRST_LAYER = DisplayList.LAYER_GLOW;
+    static final int LAST_LAYER  = DisplayList.LAYER_BAR_BORDER;
+
+    /** Cote d'une tuile en pixels. */
+    static final int TILE = 128;
+
+    /** Sous-lignes par pixel (antialiasing vertical). */
+    static final int SS = 4;
+
+    /** Precision de l'aplatissement des courbes (px). */
+    private static final double FLATNESS = 0.25;
+
+    /**
+     * Recalage des contours : avec VALUE_STROKE_DEFAULT, Java2D recale les
+     * points du trace (en pixels de destination) sur le centre des pixels
+     * (floor(v) + 0.5) avant d'appliquer le trait.
+     */
+    private static final float STROKE_NORMALIZE = 0.5f;
+
+    /** Ecart par canal (0-255) au-dela duquel un pixel est "different". */
+    static final int CHANNEL_TOLERANCE = 48;
+
+    /** Proportion maximale de pixels differents (parmi les pixels dessines). */
+    static final double MAX_DIFF_RATIO = 0.02;
+
+    // =========================================================================
+    // Cible
+    // =========================================================================
+
+    /** Taille logique (coordonnees des commandes). */
+    private final int logicalWidth, logicalHeight;
+
+    /** Taille en pixels de l'image interne (taille logique x echelle). */
+    private int width, height, tilesX, tilesY;
+    private BufferedImage image;
+    private int[] pixels;
+
+    /** Echelle logique -> pixels (null = identite). */
+    private AffineTransform scale;
+    private double scaleX = 1, scaleY = 1;
+
+    private final ForkJoinPool pool;
+
+    // =========================================================================
+    // Commandes preparees (indices = rang dans la preparation)
+    // =========================================================================
+
+    private int cmdCount;
+    private int[]   cmdEdgeStart = new int[256], cmdEdgeEnd = new int[256];
+    private int[]   cmdColor     = new int[256];   // ARGB premultiplie
+    private boolean[] cmdEvenOdd = new boolean[256];
+    private float[] cmdMinX = new float[256], cmdMinY = new float[256];
+    private float[] cmdMaxX = new float[256], cmdMaxY = new float[256];
+
+    /** Degrade (null = couleur unie). */
+    private GradientPaint[] cmdGradient = new GradientPaint[256];
+
+    /** Image source (null = forme) et zone source / destination. */
+    private int[][] cmdImage   = new int[256][];
+    private int[]   cmdImageW  = new int[256];
+    private int[]   cmdBlit    = new int[256 * 8];
+
+    // Aretes (y0 < y1), pente dx/dy et sens (+1 / -1)
+    private int edgeCount;
+    private float[] ex0 = new float[2048], ey0 = new float[2048];
+    private float[] ey1 = new float[2048], eslope = new float[2048];
+    private byte[]  edir = new byte[2048];
+
+    // Tuiles : indices de commandes par tuile
+    private int[][] bins;
+    private int[]   binCount;
+
+    /** Tuiles non vides a la derniere rasterisation (a effacer). */
+    private boolean[] tileUsed;
+
+    /** Tampon de tri des aretes (preparation). */
+    private long[] sortKeys = new long[64];
+
+    /** Rangs (ordre trie) des commandes laissees a Java2D. */
+    private int[] deferred = new int[16];
+    private int   deferredCount;
+
+    /** Copie premultipliee des images sources (les atlas ne changent pas). */
+    private final Map<BufferedImage, int[]> imageCache = new WeakHashMap<>();
+
+    /** Derniere liste rasterisee (evite de refaire une frame figee). */
+    private DisplayList lastList;
+    private int         lastGeneration;
+
+    /** Formes reutilisees pour la preparation. */
+    private final Rectangle2D.Float rect    = new Rectangle2D.Float();
+    private final Ellipse2D.Float   ellipse = new Ellipse2D.Float();
+    private final Line2D.Float      line    = new Line2D.Float();
+    private final Path2D.Float      poly    = new Path2D.Float();
+    private final Path2D.Float      norm    = new Path2D.Float();
+    private final double[]          coords  = new double[6];
+
+    /** Traits mis a l'echelle de l'image interne (vides a chaque changement d'echelle). */
+    private final Map<Stroke, Stroke> scaledStrokes = new HashMap<>();
+
+    // =========================================================================
+    // Statistiques
+    // =========================================================================
+
+    /** Duree de la derniere preparation / rasterisation (ns). */
+    public long lastPrepareNanos, lastRasterNanos;
+
+    /** Resultat de la verification (-1 = non faite, 0 = echec, 1 = ok). */
+    private int verified = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override protected Scratch initialValue() { return new Scratch(); }
+    };
+
+    // =========================================================================
+    // Constructeur
+    // =========================================================================
+
+    public SoftwareRasterizer(int width, int height) {
+        this.logicalWidth  = width;
+        this.logicalHeight = height;
+        this.pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        resize(width, height);
+    }
+
+    /** (Re)alloue l'image interne et les tuiles pour une taille en pixels. */
+    private void resize(int w, int h) {
+        width  = w;
+        height = h;
+        tilesX = (w + TILE - 1) / TILE;
+        tilesY = (h + TILE - 1) / TILE;
+        image  = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        int tiles = tilesX * tilesY;
+        bins     = new int[tiles][64];
+        binCount = new int[tiles];
+        tileUsed = new boolean[tiles];
+        lastList = null;
+    }
+
+    /**
+     * Aligne l'image interne sur l'echelle de g2 (resolution interne) :
+     * une image de taille logique x echelle, composee pixel pour pixel.
+     */
+    private void configure(Graphics2D g2) {
+        AffineTransform t = g2.getTransform();
+        double sx = t.getScaleX(), sy = t.getScaleY();
+        int w = Math.max(1, (int) Math.round(logicalWidth * sx));
+        int h = Math.max(1, (int) Math.round(logicalHeight * sy));
+        if (w != width || h != height) { resize(w, h); scaledStrokes.clear(); }
+        scaleX = w / (double) logicalWidth;
+        scaleY = h / (double) logicalHeight;
+        scale  = (w == logicalWidth && h == logicalHeight) ? null
+               : AffineTransform.getScaleInstance(scaleX, scaleY);
+    }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    /**
+     * Rejoue dl dans g2 : fond et textes par Java2D, couches d'entites
+     * rasterisees puis composees en un seul drawImage. Met a jour
+     * dl.stateChanges comme le ferait {@link DisplayList#replay(Graphics2D)}.
+     */
+    public void render(Graphics2D g2, DisplayList dl) {
+        int k0 = dl.sortedStart(FIRST_LAYER);
+        int k1 = dl.sortedStart(LAST_LAYER + 1);
+
+        int changes = dl.replay(g2, 0, k0);
+
+        configure(g2);
+        if (dl != lastList || dl.generation != lastGeneration) {
+            rasterize(dl, k0, k1);
+            lastList       = dl;
+            lastGeneration = dl.generation;
+        }
+        // Composition pixel pour pixel (l'image est deja a l'echelle)
+        AffineTransform t = g2.getTransform();
+        g2.setTransform(AffineTransform.getTranslateInstance(t.getTranslateX(), t.getTranslateY()));
+        g2.drawImage(image, 0, 0, null);
+        g2.setTransform(t);
+
+        for (int d = 0; d < deferredCount; d++) changes += dl.replay(g2, deferred[d], deferred[d] + 1);
+        changes += dl.replay(g2, k1, dl.count);
+        dl.stateChanges = changes;
+    }
+
+    /** Rasterise les commandes de rang [k0, k1) dans l'image interne. */
+    void rasterize(DisplayList dl, int k0, int k1) {
+        long t0 = System.nanoTime();
+        prepare(dl, k0, k1);
+        long t1 = System.nanoTime();
+        pool.invoke(new TileTask(0, tilesX * tilesY));
+        long t2 = System.nanoTime();
+        lastPrepareNanos = t1 - t0;
+        lastRasterNanos  = t2 - t1;
+    }
+
+    // =========================================================================
+    // Preparation
+    // =========================================================================
+
+    private void prepare(DisplayList dl, int k0, int k1) {
+        cmdCount = 0;
+        edgeCount = 0;
+        deferredCount = 0;
+        Arrays.fill(binCount, 0);
+
+        for (int k = k0; k < k1; k++) {
+            int i = (int) dl.order[k];
+            Material m = Material.get(dl.material[i]);
+            int o = i * DisplayList.STRIDE;
+            int[] d = dl.data;
+
+            if (dl.kind[i] == DisplayList.TEXT) { defer(k); continue; }
+            if (dl.kind[i] == DisplayList.IMAGE) {
+                Object img = dl.refs[dl.ref[i]];
+                if (!(img instanceof BufferedImage)) { defer(k); continue; }
+                prepareImage((BufferedImage) img, d, o);
+                continue;
+            }
+            if (!(m.paint instanceof Color) && !(m.paint instanceof GradientPaint)) { defer(k); continue; }
+
+            int c = beginCommand();
+            setPaint(c, m.paint);
+
+            Shape shape;
+            boolean stroked = false;
+            switch (dl.kind[i]) {
+                case DisplayList.FILL_RECT:
+                    rect.setRect(d[o], d[o + 1], d[o + 2], d[o + 3]); shape = rect; break;
+                case DisplayList.DRAW_RECT:
+                    rect.setRect(d[o], d[o + 1], d[o + 2], d[o + 3]); shape = rect; stroked = true; break;
+                case DisplayList.FILL_OVAL:
+                    ellipse.setFrame(d[o], d[o + 1], d[o + 2], d[o + 3]); shape = ellipse; break;
+                case DisplayList.DRAW_OVAL:
+                    ellipse.setFrame(d[o], d[o + 1], d[o + 2], d[o + 3]); shape = ellipse; stroked = true; break;
+                case DisplayList.LINE:
+                    line.setLine(d[o], d[o + 1], d[o + 2], d[o + 3]); shape = line; stroked = true; break;
+                case DisplayList.FILL_POLY:
+                case DisplayList.DRAW_POLY: {
+                    int start = d[o], n = d[o + 1];
+                    poly.reset();
+                    poly.moveTo(dl.vx[start], dl.vy[start]);
+                    for (int v = 1; v < n; v++) poly.lineTo(dl.vx[start + v], dl.vy[start + v]);
+                    poly.closePath();
+                    shape = poly;
+                    stroked = dl.kind[i] == DisplayList.DRAW_POLY;
+                    break;
+                }
+                default: cmdCount--; continue;
+            }
+
+            if (stroked) {
+                Shape outline = deviceStroke(m.stroke).createStrokedShape(normalize(shape));
+                addPath(c, outline.getPathIterator(null, FLATNESS), 0f);
+            } else {
+                addPath(c, shape.getPathIterator(scale, FLATNESS), 0f);
+            }
+            endCommand(c);
+        }
+    }
+
+    /**
+     * Trace de la forme en pixels de l'image interne, chaque point recale
+     * sur le centre de son pixel comme le fait Java2D. Les points de
+     * controle suivent le decalage des extremites voisines.
+     */
+    private Shape normalize(Shape shape) {
+        PathIterator it = shape.getPathIterator(scale);
+        norm.reset();
+        norm.setWindingRule(it.getWindingRule());
+        float pdx = 0, pdy = 0;
+        while (!it.isDone()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_CLOSE) { norm.closePath(); it.next(); continue; }
+            int last = type == PathIterator.SEG_CUBICTO ? 4 : type == PathIterator.SEG_QUADTO ? 2 : 0;
+            float x = (float) coords[last], y = (float) coords[last + 1];
+            float nx = (float) Math.floor(x) + STROKE_NORMALIZE, ny = (float) Math.floor(y) + STROKE_NORMALIZE;
+            float dx = nx - x, dy = ny - y;
+            switch (type) {
+                case PathIterator.SEG_MOVETO: norm.moveTo(nx, ny); break;
+                case PathIterator.SEG_LINETO: norm.lineTo(nx, ny); break;
+                case PathIterator.SEG_QUADTO:
+                    norm.quadTo((float) coords[0] + (pdx + dx) / 2, (float) coords[1] + (pdy + dy) / 2, nx, ny);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    norm.curveTo((float) coords[0] + pdx, (float) coords[1] + pdy,
+                                 (float) coords[2] + dx,  (float) coords[3] + dy, nx, ny);
+                    break;
+                default: break;
+            }
+            pdx = dx; pdy = dy;
+            it.next();
+        }
+        return norm;
+    }
+
+    /** Trait equivalent en pixels de l'image interne (largeur et pointilles a l'echelle). */
+    private Stroke deviceStroke(Stroke s) {
+        if (scale == null || !(s instanceof BasicStroke)) return s;
+        Stroke scaled = scaledStrokes.get(s);
+        if (scaled == null) {
+            BasicStroke b = (BasicStroke) s;
+            float f = (float) Math.sqrt(scaleX * scaleY);
+            float[] dash = b.getDashArray();
+            if (dash != null) {
+                dash = dash.clone();
+                for (int j = 0; j < dash.length; j++) dash[j] *= f;
+            }
+            scaled = new BasicStroke(b.getLineWidth() * f, b.getEndCap(), b.getLineJoin(),
+                                     b.getMiterLimit(), dash, b.getDashPhase() * f);
+            scaledStrokes.put(s, scaled);
+        }
+        return scaled;
+    }
+
+    private void defer(int k) {
+        if (deferredCount == deferred.length) deferred = Arrays.copyOf(deferred, deferredCount * 2);
+        deferred[deferredCount++] = k;
+    }
+
+    private int beginCommand() {
+        if (cmdCount == cmdColor.length) growCommands();
+        int c = cmdCount++;
+        cmdEdgeStart[c] = edgeCount;
+        cmdGradient[c]  = null;
+        cmdImage[c]     = null;
+        cmdMinX[c] = cmdMinY[c] = Float.MAX_VALUE;
+        cmdMaxX[c] = cmdMaxY[c] = -Float.MAX_VALUE;
+        return c;
+    }
+
+    private void setPaint(int c, Paint p) {
+        if (p instanceof Color) cmdColor[c] = premultiply(((Color) p).getRGB());
+        else                    cmdGradient[c] = (GradientPaint) p;
+    }
+
+    /** Termine une commande : tri des aretes, bornes et ajout aux tuiles recouvertes. */
+    private void endCommand(int c) {
+        cmdEdgeEnd[c] = edgeCount;
+        if (cmdMaxX[c] < cmdMinX[c]) return; // rien a dessiner
+        sortEdges(cmdEdgeStart[c], edgeCount);
+
+        int tx0 = Math.max(0, (int) Math.floor(cmdMinX[c]) / TILE);
+        int ty0 = Math.max(0, (int) Math.floor(cmdMinY[c]) / TILE);
+        int tx1 = Math.min(tilesX - 1, (int) Math.ceil(cmdMaxX[c]) / TILE);
+        int ty1 = Math.min(tilesY - 1, (int) Math.ceil(cmdMaxY[c]) / TILE);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                int t = ty * tilesX + tx;
+                if (binCount[t] == bins[t].length) bins[t] = Arrays.copyOf(bins[t], binCount[t] * 2);
+                bins[t][binCount[t]++] = c;
+            }
+        }
+    }
+
+    /** Aplatit un chemin en aretes non horizontales. */
+    private void addPath(int c, PathIterator it, float offset) {
+        cmdEvenOdd[c] = it.getWindingRule() == PathIterator.WIND_EVEN_ODD;
+        float sx = 0, sy = 0, px = 0, py = 0;
+        while (!it.isDone()) {
+            int type = it.currentSegment(coords);
+            float x = (float) coords[0] + offset, y = (float) coords[1] + offset;
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    if (px != sx || py != sy) addEdge(c, px, py, sx, sy);
+                    sx = px = x; sy = py = y;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    addEdge(c, px, py, x, y);
+                    px = x; py = y;
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    addEdge(c, px, py, sx, sy);
+                    px = sx; py = sy;
+                    break;
+                default: break; // aplati : pas de courbes
+            }
+            it.next();
+        }
+        if (px != sx || py != sy) addEdge(c, px, py, sx, sy);
+    }
+
+    private void addEdge(int c, float x0, float y0, float x1, float y1) {
+        if (x0 < cmdMinX[c]) cmdMinX[c] = x0;
+        if (x1 < cmdMinX[c]) cmdMinX[c] = x1;
+        if (x0 > cmdMaxX[c]) cmdMaxX[c] = x0;
+        if (x1 > cmdMaxX[c]) cmdMaxX[c] = x1;
+        if (y0 < cmdMinY[c]) cmdMinY[c] = y0;
+        if (y1 < cmdMinY[c]) cmdMinY[c] = y1;
+        if (y0 > cmdMaxY[c]) cmdMaxY[c] = y0;
+        if (y1 > cmdMaxY[c]) cmdMaxY[c] = y1;
+        if (y0 == y1) return;
+
+        if (edgeCount == ex0.length) growEdges();
+        int e = edgeCount++;
+        if (y0 < y1) { ex0[e] = x0; ey0[e] = y0; ey1[e] = y1; edir[e] = 1; }
+        else         { ex0[e] = x1; ey0[e] = y1; ey1[e] = y0; edir[e] = -1; }
+        eslope[e] = (x1 - x0) / (y1 - y0);
+    }
+
+    /** Trie les aretes [e0, e1) par y de depart croissant. */
+    private void sortEdges(int e0, int e1) {
+        int n = e1 - e0;
+        if (n < 2) return;
+        if (n > sortKeys.length) sortKeys = new long[Math.max(n, sortKeys.length * 2)];
+        for (int j = 0; j < n; j++) {
+            // Bits du float rendus ordonnables en entier signe
+            int bits = Float.floatToIntBits(ey0[e0 + j]);
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            sortKeys[j] = ((long) bits << 32) | j;
+        }
+        Arrays.sort(sortKeys, 0, n);
+
+        if (edgeCount + n > ex0.length) growEdges();
+        // Permutation via la zone libre en fin de tableau
+        int tmp = edgeCount;
+        for (int j = 0; j < n; j++) {
+            int src = e0 + (int) sortKeys[j];
+            ex0[tmp + j] = ex0[src]; ey0[tmp + j] = ey0[src];
+            ey1[tmp + j] = ey1[src]; eslope[tmp + j] = eslope[src]; edir[tmp + j] = edir[src];
+        }
+        System.arraycopy(ex0, tmp, ex0, e0, n);
+        System.arraycopy(ey0, tmp, ey0, e0, n);
+        System.arraycopy(ey1, tmp, ey1, e0, n);
+        System.arraycopy(eslope, tmp, eslope, e0, n);
+        System.arraycopy(edir, tmp, edir, e0, n);
+    }
+
+    /** Image : copie premultipliee en cache, echantillonnage au plus proche. */
+    private void prepareImage(BufferedImage img, int[] d, int o) {
+        int[] src = imageCache.get(img);
+        if (src == null) {
+            int w = img.getWidth(), h = img.getHeight();
+            src = img.getRGB(0, 0, w, h, null, 0, w);
+            for (int p = 0; p < src.length; p++) src[p] = premultiply(src[p]);
+            imageCache.put(img, src);
+        }
+        int c = beginCommand();
+        cmdEdgeEnd[c] = edgeCount;
+        cmdImage[c]   = src;
+        cmdImageW[c]  = img.getWidth();
+        System.arraycopy(d, o, cmdBlit, c * 8, 8);
+        if (scale != null) {
+            // Zone destination en pixels de l'image interne
+            int b = c * 8;
+            int x0 = (int) Math.round(d[o] * scaleX), y0 = (int) Math.round(d[o + 1] * scaleY);
+            cmdBlit[b]     = x0;
+            cmdBlit[b + 1] = y0;
+            cmdBlit[b + 2] = (int) Math.round((d[o] + d[o + 2]) * scaleX) - x0;
+            cmdBlit[b + 3] = (int) Math.round((d[o + 1] + d[o + 3]) * scaleY) - y0;
+        }
+        int b = c * 8;
+        cmdMinX[c] = cmdBlit[b];                  cmdMinY[c] = cmdBlit[b + 1];
+        cmdMaxX[c] = cmdBlit[b] + cmdBlit[b + 2]; cmdMaxY[c] = cmdBlit[b + 1] + cmdBlit[b + 3];
+        endCommand(c);
+    }
+
+    // =========================================================================
+    // Rasterisation d'une tuile (threads du pool)
+    // =========================================================================
+
+    /** Decoupe recursive de l'intervalle de tuiles. */
+    private final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+
+        TileTask(int from, int to) { this.from = from; this.to = to; }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 2) {
+                Scratch s = SCRATCH.get();
+                for (int t = from; t < to; t++) rasterTile(t, s);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(from, mid), new TileTask(mid, to));
+            }
+        }
+    }
+
+    /** Tampons propres a chaque thread du pool. */
+    private static final class Scratch {
+        float[] acc    = new float[TILE + 2];
+        float[] xs     = new float[64];
+        byte[]  ws     = new byte[64];
+        int[]   active = new int[64];
+    }
+
+    private void rasterTile(int t, Scratch s) {
+        int tx0 = (t % tilesX) * TILE, ty0 = (t / tilesX) * TILE;
+        int tx1 = Math.min(width, tx0 + TILE), ty1 = Math.min(height, ty0 + TILE);
+
+        if (tileUsed[t]) {
+            for (int y = ty0; y < ty1; y++) Arrays.fill(pixels, y * width + tx0, y * width + tx1, 0);
+        }
+        tileUsed[t] = binCount[t] > 0;
+
+        int[] bin = bins[t];
+        for (int b = 0, n = binCount[t]; b < n; b++) {
+            int c = bin[b];
+            if (cmdImage[c] != null) blitTile(c, tx0, ty0, tx1, ty1);
+            else                     fillTile(c, tx0, ty0, tx1, ty1, s);
+        }
+    }
+
+    private void fillTile(int c, int tx0, int ty0, int tx1, int ty1, Scratch s) {
+        int y0 = Math.max(ty0, (int) Math.floor(cmdMinY[c]));
+        int y1 = Math.min(ty1, (int) Math.ceil(cmdMaxY[c]));
+        int e0 = cmdEdgeStart[c], e1 = cmdEdgeEnd[c];
+        if (e1 - e0 > s.xs.length) {
+            s.xs = new float[e1 - e0]; s.ws = new byte[e1 - e0]; s.active = new int[e1 - e0];
+        }
+        float[] acc = s.acc, xs = s.xs;
+        byte[]  ws  = s.ws;
+        int[] active = s.active;
+        int na = 0, next = e0; // aretes actives, prochaine arete a activer
+        boolean evenOdd = cmdEvenOdd[c];
+        float w = 1f / SS;
+
+        for (int y = y0; y < y1; y++) {
+            int minX = tx1, maxX = tx0 - 1;
+
+            for (int sub = 0; sub < SS; sub++) {
+                float sy = y + (sub + 0.5f) * w;
+
+                // Activation des aretes qui commencent avant la sous-ligne
+                while (next < e1 && ey0[next] <= sy) active[na++] = next++;
+
+                // Intersections avec les aretes actives (les aretes finies sont retirees)
+                int n = 0;
+                for (int a = 0; a < na; a++) {
+                    int e = active[a];
+                    if (sy >= ey1[e]) { active[a--] = active[--na]; continue; }
+                    float x = ex0[e] + (sy - ey0[e]) * eslope[e];
+                    // Insertion triee (peu d'intersections par ligne)
+                    int j = n++;
+                    while (j > 0 && xs[j - 1] > x) { xs[j] = xs[j - 1]; ws[j] = ws[j - 1]; j--; }
+                    xs[j] = x; ws[j] = edir[e];
+                }
+
+                // Parcours des intervalles interieurs
+                int wind = 0;
+                float spanStart = 0;
+                for (int j = 0; j < n; j++) {
+                    boolean inside = evenOdd ? (wind & 1) != 0 : wind != 0;
+                    wind += ws[j];
+                    boolean nowInside = evenOdd ? (wind & 1) != 0 : wind != 0;
+                    if (!inside && nowInside) {
+                        spanStart = xs[j];
+                    } else if (inside && !nowInside) {
+                        float xa = Math.max(spanStart, tx0), xb = Math.min(xs[j], tx1);
+                        if (xb <= xa) continue;
+                        int ia = (int) xa, ib = (int) xb;
+                        if (ia < minX) minX = ia;
+                        if (ib > maxX) maxX = Math.min(ib, tx1 - 1);
+                        if (ia == ib) {
+                            acc[ia - tx0] += (xb - xa) * w;
+                        } else {
+                            acc[ia - tx0] += (ia + 1 - xa) * w;
+                            for (int x = ia + 1; x < ib; x++) acc[x - tx0] += w;
+                            if (ib < tx1) acc[ib - tx0] += (xb - ib) * w;
+                        }
+                    }
+                }
+            }
+
+            // Melange de la ligne de pixels couverte
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                float cov = acc[x - tx0];
+                if (cov <= 0f) continue;
+                acc[x - tx0] = 0f;
+                int src = cmdGradient[c] != null
+                        ? gradientAt(cmdGradient[c], (x + 0.5) / scaleX, (y + 0.5) / scaleY) : cmdColor[c];
+                blend(row + x, src, cov >= 1f ? 256 : (int) (cov * 256f + 0.5f));
+            }
+        }
+    }
+
+    /** Copie au plus proche de la zone source vers la zone destination. */
+    private void blitTile(int c, int tx0, int ty0, int tx1, int ty1) {
+        int b = c * 8;
+        int dx = cmdBlit[b], dy = cmdBlit[b + 1], dw = cmdBlit[b + 2], dh = cmdBlit[b + 3];
+        int sx = cmdBlit[b + 4], sy = cmdBlit[b + 5], sw = cmdBlit[b + 6], sh = cmdBlit[b + 7];
+        if (dw <= 0 || dh <= 0) return;
+        int[] src = cmdImage[c];
+        int srcW = cmdImageW[c];
+
+        int x0 = Math.max(tx0, dx), x1 = Math.min(tx1, dx + dw);
+        int y0 = Math.max(ty0, dy), y1 = Math.min(ty1, dy + dh);
+        for (int y = y0; y < y1; y++) {
+            int srow = (sy + (int) ((y - dy + 0.5f) * sh / dh)) * srcW;
+            int row  = y * width;
+            for (int x = x0; x < x1; x++) {
+                int p = src[srow + sx + (int) ((x - dx + 0.5f) * sw / dw)];
+                if (p != 0) blend(row + x, p, 256);
+            }
+        }
+    }
+
+    /** SrcOver premultiplie ; cov sur 0..256. */
+    private void blend(int idx, int src, int cov) {
+        int sa = src >>> 24, sr = (src >> 16) & 0xFF, sg = (src >> 8) & 0xFF, sb = src & 0xFF;
+        if (cov < 256) {
+            sa = (sa * cov) >> 8; sr = (sr * cov) >> 8; sg = (sg * cov) >> 8; sb = (sb * cov) >> 8;
+        }
+        if (sa == 0) return;
+        int dst = pixels[idx];
+        if (sa == 255 || dst == 0) { pixels[idx] = (sa << 24) | (sr << 16) | (sg << 8) | sb; return; }
+        int inv = 255 - sa;
+        int da = sa + ((dst >>> 24)         * inv + 127) / 255;
+        int dr = sr + (((dst >> 16) & 0xFF) * inv + 127) / 255;
+        int dg = sg + (((dst >> 8) & 0xFF)  * inv + 127) / 255;
+        int db = sb + ((dst & 0xFF)         * inv + 127) / 255;
+        pixels[idx] = (da << 24) | (dr << 16) | (dg << 8) | db;
+    }
+
+    /** Couleur premultipliee d'un degrade lineaire non cyclique en (x, y) logique. */
+    private static int gradientAt(GradientPaint gp, double x, double y) {
+        Point2D p1 = gp.getPoint1(), p2 = gp.getPoint2();
+        double dx = p2.getX() - p1.getX(), dy = p2.getY() - p1.getY();
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : ((x - p1.getX()) * dx + (y - p1.getY()) * dy) / len2;
+        if (t < 0) t = 0; else if (t > 1) t = 1;
+        int c1 = gp.getColor1().getRGB(), c2 = gp.getColor2().getRGB();
+        int a = lerp(c1 >>> 24, c2 >>> 24, t);
+        int r = lerp((c1 >> 16) & 0xFF, (c2 >> 16) & 0xFF, t);
+        int g = lerp((c1 >> 8) & 0xFF, (c2 >> 8) & 0xFF, t);
+        int b = lerp(c1 & 0xFF, c2 & 0xFF, t);
+        return premultiply((a << 24) | (r << 16) | (g << 8) | b);
+    }
+
+    private static int lerp(int a, int b, double t) { return (int) (a + (b - a) * t + 0.5); }
+
+    static int premultiply(int argb) {
+        int a = argb >>> 24;
+        if (a == 255) return argb;
+        if (a == 0)   return 0;
+        int r = ((argb >> 16) & 0xFF) * a / 255;
+        int g = ((argb >> 8) & 0xFF)  * a / 255;
+        int b = (argb & 0xFF)         * a / 255;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    // =========================================================================
+    // Verification croisee
+    // =========================================================================
+
+    /** true si la verification a ete faite (quel que soit le resultat). */
+    public boolean isVerified() { return verified >= 0; }
+
+    /**
+     * Rend les couches d'entites de dl par les deux moteurs et compare les
+     * pixels. Un pixel est different si un de ses canaux s'ecarte de plus
+     * de CHANNEL_TOLERANCE ; la verification echoue si plus de
+     * MAX_DIFF_RATIO des pixels dessines sont differents (bords
+     * antialiases et arrondis de trait restent sous ce seuil).
+     *
+     * @param g2 Contexte de destination (fixe l'echelle de la comparaison)
+     * @return true si le rendu logiciel est conforme
+     */
+    public boolean crossCheck(Graphics2D g2, DisplayList dl) {
+        int k0 = dl.sortedStart(FIRST_LAYER);
+        int k1 = dl.sortedStart(LAST_LAYER + 1);
+        configure(g2);
+        rasterize(dl, k0, k1);
+        lastList = null;
+
+        BufferedImage ref = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = ref.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (scale != null) g.transform(scale);
+        g.setStroke(new BasicStroke(1f));
+        int d = 0;
+        for (int k = k0; k < k1; k++) {
+            if (d < deferredCount && deferred[d] == k) { d++; continue; }
+            dl.replay(g, k, k + 1);
+        }
+        g.dispose();
+        int[] expected = ((DataBufferInt) ref.getRaster().getDataBuffer()).getData();
+
+        int drawn = 0, different = 0, maxDiff = 0;
+        for (int p = 0; p < pixels.length; p++) {
+            int a = pixels[p], b = expected[p];
+            if (a == 0 && b == 0) continue;
+            drawn++;
+            int diff = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                diff = Math.max(diff, Math.abs(((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF)));
+            }
+            if (diff > maxDiff) maxDiff = diff;
+            if (diff > CHANNEL_TOLERANCE) different++;
+        }
+
+        double ratio = drawn == 0 ? 0 : (double) different / drawn;
+        boolean ok = ratio <= MAX_DIFF_RATIO;
+        verified = ok ? 1 : 0;
+        System.out.println(String.format(
+                "[SoftwareRasterizer] Verification (%dx%d) : %d commandes, %d px dessines, %d differents (%.2f %%), ecart max %d -> %s",
+                width, height, k1 - k0, drawn, different, ratio * 100, maxDiff, ok ? "OK" : "ECHEC"));
+        return ok;
+    }
+
+    // =========================================================================
+    // Croissance des tableaux
+    // =========================================================================
+
+    private void growCommands() {
+        int cap = cmdColor.length * 2;
+        cmdEdgeStart = Arrays.copyOf(cmdEdgeStart, cap);
+        cmdEdgeEnd   = Arrays.copyOf(cmdEdgeEnd, cap);
+        cmdColor     = Arrays.copyOf(cmdColor, cap);
+        cmdEvenOdd   = Arrays.copyOf(cmdEvenOdd, cap);
+        cmdMinX      = Arrays.copyOf(cmdMinX, cap);
+        cmdMinY      = Arrays.copyOf(cmdMinY, cap);
+        cmdMaxX      = Arrays.copyOf(cmdMaxX, cap);
+        cmdMaxY      = Arrays.copyOf(cmdMaxY, cap);
+        cmdGradient  = Arrays.copyOf(cmdGradient, cap);
+        cmdImage     = Arrays.copyOf(cmdImage, cap);
+        cmdImageW    = Arrays.copyOf(cmdImageW, cap);
+        cmdBlit      = Arrays.copyOf(cmdBlit, cap * 8);
+    }
+
+    private void growEdges() {
+        int cap = ex0.length * 2;
+        ex0    = Arrays.copyOf(ex0, cap);
+        ey0    = Arrays.copyOf(ey0, cap);
+        ey1    = Arrays.copyOf(ey1, cap);
+        eslope = Arrays.copyOf(eslope, cap);
+        edir   = Arrays.copyOf(edir, cap);
+    }
+}
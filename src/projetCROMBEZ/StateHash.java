@@ -0,0 +1,199 @@
+package projetCROMBEZ;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Empreinte (hash 64 bits) de l'etat de la simulation, calculee a chaque
+ * tick : detection des desynchronisations de rejeu et des changements de
+ * comportement (deplacement, collisions, apparitions).
+ *
+ * Couvre le joueur, les compteurs d'EnemyManager (vague, minuteurs, flux
+ * aleatoire), chaque ennemi et chaque projectile, dans l'ordre des listes.
+ * Les champs sont ceux des writeState (WorldSnapshot) : cette classe est
+ * un DataOutput qui melange chaque valeur ecrite au lieu de la stocker.
+ * Un seul passage, sans allocation : quelques microsecondes par tick
+ * avec des centaines d'entites, calcul laisse actif en permanence.
+ *
+ * Chaque entite a aussi sa propre empreinte : diff() designe l'entite qui
+ * differe entre deux parties (rejeu contre image cle enregistree).
+ *
+ * Thread de jeu uniquement (etat interne).
+ */
+final class StateHash implements DataOutput {
+
+    private static final long SEED = 0x5356534800000001L;
+    private static final long MUL  = 0x9e3779b97f4a7c15L;
+
+    private long h;
+
+    // =========================================================================
+    // Empreintes
+    // =========================================================================
+
+    /** Empreinte de tout l'etat simule de gp. */
+    long world(GamePanel gp) {
+        long w = SEED;
+        w = combine(w, gp.survivalTicks);
+        w = combine(w, player(gp.player));
+        w = combine(w, counters(gp.enemyManager));
+        List<Enemy> enemies = gp.enemyManager.enemies;
+        w = combine(w, enemies.size());
+        for (int i = 0; i < enemies.size(); i++) w = combine(w, enemy(enemies.get(i)));
+        w = combine(w, gp.projectiles.size());
+        for (int i = 0; i < gp.projectiles.size(); i++) w = combine(w, projectile(gp.projectiles.get(i)));
+        return w;
+    }
+
+    long player(Player p) {
+        h = SEED;
+        try {
+            p.writeState(this);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // aucune entree/sortie ici
+        }
+        return finish();
+    }
+
+    long counters(EnemyManager m) {
+        h = SEED;
+        try {
+            m.writeState(this);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return finish();
+    }
+
+    long enemy(Enemy e) {
+        h = SEED;
+        writeLong(EnemyManager.typeIndex(e));
+        try {
+            e.writeState(this);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return finish();
+    }
+
+    long projectile(Projectile p) {
+        h = SEED;
+        writeDouble(p.x);  writeDouble(p.y);
+        writeDouble(p.dx); writeDouble(p.dy);
+        writeLong(p.damage);
+        writeLong(p.size);
+        writeLong((p.fromPlayer ? 1 : 0) | (p.isCrit ? 2 : 0) | (p.alive ? 4 : 0));
+        return finish();
+    }
+
+    /** Empreinte courte (16 bits) enregistree dans les rejeux. */
+    static int fold16(long w) {
+        w ^= w >>> 32;
+        return (int) (w ^ (w >>> 16)) & 0xFFFF;
+    }
+
+    // =========================================================================
+    // Comparaison
+    // =========================================================================
+
+    /**
+     * Premiere difference entre l'etat attendu et l'etat obtenu, dans
+     * l'ordre joueur, compteurs, ennemis, projectiles.
+     *
+     * @return description de l'entite et du nombre d'entites differentes,
+     *         ou null si les deux etats sont identiques
+     */
+    String diff(GamePanel expected, GamePanel actual) {
+        String first = null;
+        int count = 0;
+        if (player(expected.player) != player(actual.player)) {
+            first = "joueur (attendu " + describe(expected.player) + ", obtenu " + describe(actual.player) + ")";
+            count++;
+        }
+        if (counters(expected.enemyManager) != counters(actual.enemyManager)) {
+            if (first == null) first = "compteurs de vague (attendu vague " + expected.enemyManager.getWave()
+                                       + ", obtenu vague " + actual.enemyManager.getWave() + ")";
+            count++;
+        }
+
+        List<Enemy> ea = expected.enemyManager.enemies, eb = actual.enemyManager.enemies;
+        for (int i = 0; i < Math.max(ea.size(), eb.size()); i++) {
+            Enemy a = i < ea.size() ? ea.get(i) : null, b = i < eb.size() ? eb.get(i) : null;
+            if (a != null && b != null && enemy(a) == enemy(b)) continue;
+            if (first == null) first = "ennemi #" + i + " (attendu " + describe(a) + ", obtenu " + describe(b) + ")";
+            count++;
+        }
+
+        List<Projectile> pa = expected.projectiles, pb = actual.projectiles;
+        for (int i = 0; i < Math.max(pa.size(), pb.size()); i++) {
+            Projectile a = i < pa.size() ? pa.get(i) : null, b = i < pb.size() ? pb.get(i) : null;
+            if (a != null && b != null && projectile(a) == projectile(b)) continue;
+            if (first == null) first = "projectile #" + i + " (attendu " + describe(a) + ", obtenu " + describe(b) + ")";
+            count++;
+        }
+
+        if (first == null) return null;
+        return count == 1 ? first : first + " et " + (count - 1) + " autre(s) entite(s)";
+    }
+
+    private static String describe(Player p) {
+        return String.format("%.2f,%.2f pv %d", p.x, p.y, p.hp);
+    }
+
+    private static String describe(Enemy e) {
+        if (e == null) return "aucun";
+        return String.format("%s %.2f,%.2f pv %d", e.getClass().getSimpleName(), e.x, e.y, e.hp);
+    }
+
+    private static String describe(Projectile p) {
+        if (p == null) return "aucun";
+        return String.format("%.2f,%.2f", p.x, p.y);
+    }
+
+    // =========================================================================
+    // Melange
+    // =========================================================================
+
+    private static long combine(long w, long v) {
+        w = (w ^ v) * MUL;
+        return w ^ (w >>> 29);
+    }
+
+    private long finish() {
+        long z = h;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // =========================================================================
+    // DataOutput : chaque valeur ecrite est melangee a l'empreinte
+    // =========================================================================
+
+    @Override public void writeLong(long v)       { h = combine(h, v); }
+    @Override public void writeInt(int v)         { writeLong(v); }
+    @Override public void writeShort(int v)       { writeLong((short) v); }
+    @Override public void writeChar(int v)        { writeLong((char) v); }
+    @Override public void writeByte(int v)        { writeLong((byte) v); }
+    @Override public void write(int b)            { writeLong((byte) b); }
+    @Override public void writeBoolean(boolean v) { writeLong(v ? 1 : 0); }
+    @Override public void writeFloat(float v)     { writeLong(Float.floatToIntBits(v)); }
+    @Override public void writeDouble(double v)   { writeLong(Double.doubleToLongBits(v)); }
+
+    @Override public void write(byte[] b) { write(b, 0, b.length); }
+
+    @Override public void write(byte[] b, int off, int len) {
+        for (int i = off; i < off + len; i++) writeLong(b[i]);
+    }
+
+    @Override public void writeBytes(String s) {
+        for (int i = 0; i < s.length(); i++) writeLong((byte) s.charAt(i));
+    }
+
+    @Override public void writeChars(String s) {
+        for (int i = 0; i < s.length(); i++) writeLong(s.charAt(i));
+    }
+
+    @Override public void writeUTF(String s) { writeChars(s); }
+}
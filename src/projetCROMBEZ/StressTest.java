@@ -0,0 +1,321 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scenarios de charge synthetiques et rapport de capacite : combien
+ * d'ennemis et de projectiles simultanes tiennent dans le budget d'un tick
+ * et d'une frame a 60 FPS, sur la machine courante.
+ *
+ * =========================================================================
+ * SCENARIO (--scenario, plusieurs separes par ';')
+ * =========================================================================
+ *  melee=N ranged=N tank=N  ennemis de chaque type par unite d'echelle
+ *  bullets=N                tirs ennemis en vol par unite d'echelle
+ *  boss                     un boss en plus (hors echelle)
+ *  arena=LxH                taille de l'arene (defaut : l'ecran du jeu)
+ *  ex. "melee=6,ranged=3,tank=1,bullets=10,boss,arena=1920x1080"
+ *
+ * Le monde a l'echelle k contient k fois chaque effectif, places au hasard
+ * (graine fixe) dans l'arene. Il est maintenu pendant toute la mesure :
+ * ennemis tues et tirs perdus remplaces entre deux ticks, joueur immobile
+ * et increvable (il tire normalement), aucune vague ni apparition.
+ *
+ * =========================================================================
+ * MESURE
+ * =========================================================================
+ * Chaque echelle est jouee --stress-seconds secondes de jeu (apres une
+ * courte chauffe), sans rendu ou avec rendu hors ecran (renderOffscreen
+ * dans une image de la taille de l'arene). Un budget tient si le 95e
+ * centile des ticks le respecte. Recherche : echelle doublee jusqu'au
+ * premier echec, puis dichotomie.
+ *
+ * Rapport, par sous-systeme :
+ *  simulation  : tick sans rendu          <= --tick-budget  (1000/FPS ms)
+ *  rendu       : frame (liste + Java2D)   <= --frame-budget (1000/FPS ms)
+ *  tick + rendu: les deux sur un coeur    <= 1000/FPS ms
+ *
+ * Rien n'est enregistre ni sauvegarde (GamePanel.offline).
+ */
+final class StressTest {
+
+    /** Scenarios par defaut : un par type d'entite, puis un melange. */
+    static final String DEFAULT_SCENARIOS = "melee=1;ranged=1;tank=1;bullets=1;melee=6,ranged=3,tank=1,bullets=10,boss";
+
+    private static final long SEED         = 42;
+    private static final int  WARMUP_TICKS = 30;
+    private static final int  MAX_ENTITIES = 100_000;
+
+    // =========================================================================
+    // Scenario
+    // =========================================================================
+
+    static final class Scenario {
+        final String text;
+        int melee, ranged, tank, bullets;
+        boolean boss;
+        int width, height; // 0 : taille de l'ecran
+
+        private Scenario(String text) { this.text = text; }
+
+        /** Lit "cle=valeur,..." ; IllegalArgumentException si invalide. */
+        static Scenario parse(String text) {
+            Scenario s = new Scenario(text.trim());
+            for (String part : s.text.split(",")) {
+                String[] kv = part.trim().split("=", 2);
+                String key = kv[0].trim(), value = kv.length > 1 ? kv[1].trim() : null;
+                try {
+                    switch (key) {
+                        case "melee":   s.melee   = count(value); break;
+                        case "ranged":  s.ranged  = count(value); break;
+                        case "tank":    s.tank    = count(value); break;
+                        case "bullets": s.bullets = count(value); break;
+                        case "boss":    s.boss = value == null || Boolean.parseBoolean(value) || value.equals("1"); break;
+                        case "arena": {
+                            String[] wh = value.split("x");
+                            s.width  = Integer.parseInt(wh[0].trim());
+                            s.height = Integer.parseInt(wh[1].trim());
+                            if (s.width < 64 || s.height < 64) throw new IllegalArgumentException("arene trop petite");
+                            break;
+                        }
+                        default: throw new IllegalArgumentException("cle inconnue '" + key + "'");
+                    }
+                } catch (NumberFormatException | NullPointerException | ArrayIndexOutOfBoundsException e) {
+                    throw new IllegalArgumentException("valeur invalide pour '" + key + "'");
+                }
+            }
+            if (s.perScale() == 0) throw new IllegalArgumentException("aucune entite a l'echelle");
+            return s;
+        }
+
+        private static int count(String value) {
+            int n = Integer.parseInt(value);
+            if (n < 0) throw new NumberFormatException();
+            return n;
+        }
+
+        /** Entites ajoutees par unite d'echelle. */
+        int perScale() { return melee + ranged + tank + bullets; }
+    }
+
+    // =========================================================================
+    // Mesure d'une echelle
+    // =========================================================================
+
+    /** Temps d'une echelle, en ms (95e centile et moyenne). */
+    private static final class Sample {
+        double tickMean, tickP95, frameMean, frameP95, totalP95;
+    }
+
+    /** Condition de budget d'un sous-systeme. */
+    private interface Budget {
+        boolean holds(Sample s);
+    }
+
+    private final Scenario scenario;
+    private final int ticks;
+    private final GamePanel gp;
+    private final int maxScale;
+    private final BufferedImage image;
+    private final Map<Integer, Sample> headless = new HashMap<>(), rendered = new HashMap<>();
+
+    private int scale;
+    private SimRandom rand;
+
+    private StressTest(Scenario scenario, int seconds) {
+        this.scenario = scenario;
+        gp = new GamePanel();
+        gp.offline = true;
+        if (scenario.width > 0) {
+            gp.screenWidth  = scenario.width;
+            gp.screenHeight = scenario.height;
+        }
+        ticks = Math.max(1, seconds * gp.FPS);
+        maxScale = Math.max(1, MAX_ENTITIES / scenario.perScale());
+        image = new BufferedImage(gp.screenWidth, gp.screenHeight, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private Sample sample(int k, boolean render) {
+        Map<Integer, Sample> cache = render ? rendered : headless;
+        Sample s = cache.get(k);
+        if (s == null) {
+            s = measure(k, render);
+            cache.put(k, s);
+        }
+        return s;
+    }
+
+    private Sample measure(int k, boolean render) {
+        build(k);
+        long[] tick = new long[ticks], frame = new long[ticks], total = new long[ticks];
+        Graphics2D g2 = image.createGraphics();
+        try {
+            for (int i = -WARMUP_TICKS; i < ticks; i++) {
+                long t0 = System.nanoTime();
+                gp.updateGame();
+                long t1 = System.nanoTime();
+                if (render) gp.renderOffscreen(g2);
+                long t2 = System.nanoTime();
+                if (i >= 0) { tick[i] = t1 - t0; frame[i] = t2 - t1; total[i] = t2 - t0; }
+                maintain();
+            }
+        } finally {
+            g2.dispose();
+        }
+
+        Sample s = new Sample();
+        s.tickMean  = mean(tick);  s.tickP95  = p95(tick);
+        s.frameMean = mean(frame); s.frameP95 = p95(frame);
+        s.totalP95  = p95(total);
+        return s;
+    }
+
+    private static double mean(long[] ns) {
+        long sum = 0;
+        for (long t : ns) sum += t;
+        return sum / 1e6 / ns.length;
+    }
+
+    private static double p95(long[] ns) {
+        long[] sorted = ns.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.95))] / 1e6;
+    }
+
+    // =========================================================================
+    // Monde
+    // =========================================================================
+
+    /** Partie neuve a l'echelle k (meme placement pour une meme echelle). */
+    private void build(int k) {
+        scale = k;
+        rand  = new SimRandom(SEED + k);
+        gp.gameState = GameState.PLAYING;
+        gp.resetGame();
+        gp.seedRun(SEED);
+        gp.enemyManager.spawning = false;
+        Player p = gp.player;
+        p.x = gp.screenWidth  / 2.0;
+        p.y = gp.screenHeight / 2.0;
+        maintain();
+    }
+
+    /**
+     * Ramene le monde au scenario : joueur en vie, ennemis tues et tirs
+     * ennemis perdus remplaces. Hors mesure (entre deux ticks).
+     */
+    private void maintain() {
+        Player p = gp.player;
+        p.maxHp = p.hp = 1_000_000_000; // les degats d'un tick ne le tuent pas
+        p.alive = true;
+
+        int melee = 0, ranged = 0, tank = 0, boss = 0, bullets = 0;
+        for (Enemy e : gp.enemyManager.enemies) {
+            if (!e.alive) continue;
+            switch (EnemyManager.typeIndex(e)) {
+                case EnemyManager.TYPE_MELEE:  melee++;  break;
+                case EnemyManager.TYPE_RANGED: ranged++; break;
+                case EnemyManager.TYPE_TANK:   tank++;   break;
+                default:                       boss++;   break;
+            }
+        }
+        for (Projectile b : gp.projectiles) if (b.alive && !b.fromPlayer) bullets++;
+
+        int w = gp.screenWidth, h = gp.screenHeight;
+        for (; melee  < scenario.melee  * scale; melee++)  gp.enemyManager.enemies.add(new MeleeEnemy(x(), y()));
+        for (; ranged < scenario.ranged * scale; ranged++) gp.enemyManager.enemies.add(new RangedEnemy(x(), y()));
+        for (; tank   < scenario.tank   * scale; tank++)   gp.enemyManager.enemies.add(new TankEnemy(x(), y()));
+        if (scenario.boss && boss == 0) gp.enemyManager.enemies.add(new BossEnemy(w / 2.0, h / 4.0));
+        for (; bullets < scenario.bullets * scale; bullets++) {
+            double a = rand.nextDouble() * 2 * Math.PI, x = x(), y = y();
+            gp.projectiles.add(new Projectile(x, y, x + Math.cos(a), y + Math.sin(a), 10, false));
+        }
+    }
+
+    private double x() { return rand.nextDouble() * gp.screenWidth; }
+    private double y() { return rand.nextDouble() * gp.screenHeight; }
+
+    // =========================================================================
+    // Recherche et rapport
+    // =========================================================================
+
+    /**
+     * Plus grande echelle qui tient le budget (0 si meme l'echelle 1 le
+     * depasse) : doublement puis dichotomie.
+     */
+    private int search(boolean render, Budget budget) {
+        int lo = 0, hi = 1;
+        while (hi <= maxScale && budget.holds(sample(hi, render))) {
+            lo = hi;
+            hi *= 2;
+        }
+        if (hi > maxScale) {
+            if (lo == maxScale || budget.holds(sample(maxScale, render))) return maxScale;
+            hi = maxScale;
+        }
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (budget.holds(sample(mid, render))) lo = mid;
+            else                                    hi = mid;
+        }
+        return lo;
+    }
+
+    private void report(String name, boolean render, int k) {
+        if (k == 0) {
+            Sample s = sample(1, render);
+            System.out.println(String.format("  %-14s  hors budget des l'echelle 1 (tick p95 %.2f ms, frame p95 %.2f ms)",
+                                             name, s.tickP95, s.frameP95));
+            return;
+        }
+        Sample s = sample(k, render);
+        int entities = k * scenario.perScale() + (scenario.boss ? 1 : 0);
+        String frame = render ? String.format("%6.2f / %6.2f", s.frameMean, s.frameP95) : "      -        ";
+        System.out.println(String.format("  %-14s  %6d  %8d  %6.2f / %6.2f  %s%s", name, k, entities,
+                                         s.tickMean, s.tickP95, frame,
+                                         k == maxScale ? "  (plafond)" : ""));
+    }
+
+    /**
+     * Mesure chaque scenario (separes par ';') et affiche son rapport de
+     * capacite.
+     *
+     * @return false si un scenario est invalide
+     */
+    static boolean run(String scenarios, int seconds, double tickBudgetMs, double frameBudgetMs) {
+        Scenario[] list;
+        try {
+            String[] parts = scenarios.split(";");
+            list = new Scenario[parts.length];
+            for (int i = 0; i < parts.length; i++) list[i] = Scenario.parse(parts[i]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("[StressTest] Scenario invalide : " + e.getMessage());
+            return false;
+        }
+
+        for (Scenario sc : list) {
+            StressTest t = new StressTest(sc, seconds);
+            double frameMs = 1000.0 / t.gp.FPS;
+            System.out.println(String.format("[StressTest] %s : arene %dx%d, %d s par mesure, budgets tick %.2f ms"
+                                             + " / frame %.2f ms / total %.2f ms (p95)",
+                                             sc.text, t.gp.screenWidth, t.gp.screenHeight, seconds,
+                                             tickBudgetMs, frameBudgetMs, frameMs));
+            long start = System.nanoTime();
+            int sim    = t.search(false, s -> s.tickP95  <= tickBudgetMs);
+            int render = t.search(true,  s -> s.frameP95 <= frameBudgetMs);
+            int total  = t.search(true,  s -> s.totalP95 <= frameMs);
+
+            System.out.println("  sous-systeme    echelle  entites   tick moy/p95 ms  frame moy/p95 ms");
+            t.report("simulation", false, sim);
+            t.report("rendu", true, render);
+            t.report("tick + rendu", true, total);
+            System.out.println(String.format("[StressTest] %d mesure(s) en %.1f s", t.headless.size() + t.rendered.size(),
+                                             (System.nanoTime() - start) / 1e9));
+        }
+        return true;
+    }
+}
@@ -1,6 +1,9 @@
 package projetCROMBEZ;
 
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -48,7 +51,7 @@ public class TankEnemy extends Enemy {
     public TankEnemy(double x, double y) {
         // HP=200 | damage=20 | speed=0.8 | size=44 | vert sombre
         super(x, y, 200, 20, 0.8, 44, new Color(40, 130, 60));
-        this.hpBarColor = new Color(80, 200, 100);
+        setHpBarColor(new Color(80, 200, 100));
     }
 
     // -------------------------------------------------------------------------
@@ -69,36 +72,64 @@ public class TankEnemy extends Enemy {
         }
     }
 
+    // -------------------------------------------------------------------------
+    // Sauvegarde (WorldSnapshot)
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(attackCooldown);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        attackCooldown = in.readInt();
+    }
+
     // -------------------------------------------------------------------------
     // Rendu
     // -------------------------------------------------------------------------
 
+    /** Contour pais et rivets. */
+    private static final int MAT_OUTLINE = Material.stroke(new Color(20, 70, 30), 3f);
+    private static final int MAT_RIVET   = Material.fill(new Color(180, 220, 180));
+
+    /** Cosinus / sinus des 6 sommets (dcalage de 30 degrs pour hexagone "plat"). */
+    private static final double[] COS = new double[6], SIN = new double[6];
+    static {
+        for (int i = 0; i < 6; i++) {
+            double angle = Math.PI / 6 + i * Math.PI / 3;
+            COS[i] = Math.cos(angle);
+            SIN[i] = Math.sin(angle);
+        }
+    }
+
+    /** Sommets de l'hexagone, rutiliss d'un tick  l'autre. */
+    private final int[] px = new int[6], py = new int[6];
+
     @Override
-    public void draw(Graphics2D g2) {
+    public void emit(DisplayList dl) {
         // --- Hexagone rgulier centr sur (x, y) ---
-        Polygon hex = buildHexagon((int) x, (int) y, size / 2);
+        int radius = size / 2;
+        buildHexagon((int) x, (int) y, radius);
+        int v = dl.addVertices(px, py, 6);
 
         // Corps (flash blanc si hit)
-        g2.setColor(getDrawColor(color));
-        g2.fillPolygon(hex);
+        dl.fillPolygon(DisplayList.LAYER_BODY, getDrawMaterial(bodyMaterial), v, 6);
 
         // Contour pais pour accentuer la robustesse
-        g2.setColor(new Color(20, 70, 30));
-        g2.setStroke(new BasicStroke(3f));
-        g2.drawPolygon(hex);
-        g2.setStroke(new BasicStroke(1f));
+        dl.drawPolygon(DisplayList.LAYER_OUTLINE, MAT_OUTLINE, v, 6);
 
         // Rivets dcoratifs aux coins de l'hexagone
-        g2.setColor(new Color(180, 220, 180));
-        int radius = size / 2;
         for (int i = 0; i < 6; i++) {
-            double a = Math.PI / 6 + i * Math.PI / 3; // dcalage de 30° pour hexagone "plat"
-            int rx = (int) (x + radius * Math.cos(a));
-            int ry = (int) (y + radius * Math.sin(a));
-            g2.fillOval(rx - 3, ry - 3, 6, 6);
+            int rx = (int) (x + radius * COS[i]);
+            int ry = (int) (y + radius * SIN[i]);
+            dl.fillOval(DisplayList.LAYER_DETAIL, MAT_RIVET, rx - 3, ry - 3, 6, 6);
         }
 
-        drawHpBar(g2);
+        emitHpBar(dl);
     }
 
     // -------------------------------------------------------------------------
@@ -106,21 +137,16 @@ public class TankEnemy extends Enemy {
     // -------------------------------------------------------------------------
 
     /**
-     * Construit un hexagone rgulier (pointe en haut) centr sur (cx, cy).
+     * Remplit px/py avec un hexagone rgulier centr sur (cx, cy).
      *
      * @param cx     Centre X
      * @param cy     Centre Y
-     * @param radius Rayon circumscrit (de centre  sommet)
-     * @return       Polygone hexagonal
+     * @param radius Rayon circumscrit (de centre  sommet)
      */
-    private Polygon buildHexagon(int cx, int cy, int radius) {
-        int[] xp = new int[6];
-        int[] yp = new int[6];
+    private void buildHexagon(int cx, int cy, int radius) {
         for (int i = 0; i < 6; i++) {
-            double angle = Math.PI / 6 + i * Math.PI / 3; // hex " plat"
-            xp[i] = cx + (int) (radius * Math.cos(angle));
-            yp[i] = cy + (int) (radius * Math.sin(angle));
+            px[i] = cx + (int) (radius * COS[i]);
+            py[i] = cy + (int) (radius * SIN[i]);
         }
-        return new Polygon(xp, yp, 6);
     }
 }
@@ -0,0 +1,108 @@
+package projetCROMBEZ;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Bouton arrondi : fond et bordure qui changent au survol, libelle centre.
+ *
+ * Un bouton peut aussi contenir des enfants (labels) quand son contenu
+ * ne se resume pas a un libelle centre (ex : boutons de difficulte).
+ * Seul le fond est alors regenere au survol.
+ */
+public class UiButton extends UiPanel {
+
+    protected String text;
+    protected Font   font;
+    protected Color  textColor = Color.white;
+
+    protected Color bgHover, borderHover;
+
+    /** Decalage vertical du libelle (ajuste a l'oeil selon les ecrans). */
+    protected int textDy = -2;
+
+    /**
+     * @param text   Libelle centre (null = aucun)
+     * @param action Action declenchee au clic
+     */
+    public UiButton(Rectangle bounds, String text, Font font, Runnable action) {
+        super(bounds, null, null, 2f, 15);
+        this.text   = text;
+        this.font   = font;
+        this.action = action;
+    }
+
+    // =========================================================================
+    // Style
+    // =========================================================================
+
+    /**
+     * Definit les couleurs du bouton. Invalide seulement si elles changent.
+     *
+     * @param bg          Fond normal
+     * @param bgHover     Fond au survol
+     * @param border      Bordure normale
+     * @param borderHover Bordure au survol
+     */
+    public void setColors(Color bg, Color bgHover, Color border, Color borderHover) {
+        if (bg.equals(background) && bgHover.equals(this.bgHover)
+                && border.equals(this.border) && borderHover.equals(this.borderHover)) return;
+        this.background  = bg;
+        this.bgHover     = bgHover;
+        this.border      = border;
+        this.borderHover = borderHover;
+        invalidate();
+    }
+
+    /** Arrondi et epaisseur de bordure. */
+    public void setShape(int arc, float borderWidth) {
+        this.arc         = arc;
+        this.borderWidth = borderWidth;
+        invalidate();
+    }
+
+    public void setText(String t) {
+        if (t == null ? text == null : t.equals(text)) return;
+        text = t;
+        invalidate();
+    }
+
+    public void setTextColor(Color c) {
+        if (c.equals(textColor)) return;
+        textColor = c;
+        invalidate();
+    }
+
+    public void setTextDy(int dy) { this.textDy = dy; }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    @Override
+    protected void render(Graphics2D g) {
+        renderFrame(g);
+        if (text != null) {
+            g.setFont(font);
+            g.setColor(textColor);
+            FontMetrics fm = g.getFontMetrics();
+            g.drawString(text, bounds.x + bounds.width / 2 - fm.stringWidth(text) / 2,
+                         bounds.y + bounds.height / 2 + fm.getAscent() / 2 + textDy);
+        }
+    }
+
+    /** Fond et bordure selon l'etat de survol. */
+    protected void renderFrame(Graphics2D g) {
+        Rectangle b = bounds;
+        g.setPaint(hovered && bgHover != null ? bgHover : background);
+        g.fillRoundRect(b.x, b.y, b.width, b.height, arc, arc);
+        g.setColor(hovered && borderHover != null ? borderHover : border);
+        g.setStroke(Material.strokeOf(borderWidth));
+        g.drawRoundRect(b.x, b.y, b.width, b.height, arc, arc);
+        g.setStroke(new BasicStroke(1f));
+    }
+}
@@ -0,0 +1,63 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Ligne d'option a valeurs multiples : libelle a gauche, valeur courante
+ * a droite dans une pastille. Chaque clic passe a la valeur suivante
+ * (l'action se charge de modifier le parametre puis d'appeler setValue).
+ */
+public class UiChoice extends UiButton {
+
+    private static final Color PILL = new Color(60, 90, 160);
+
+    private final Font valueFont;
+    private String value;
+
+    /**
+     * @param valueFont Police de la valeur dans la pastille
+     */
+    public UiChoice(Rectangle bounds, String label, Font font, Font valueFont,
+                    String value, Runnable action) {
+        super(bounds, label, font, action);
+        this.valueFont = valueFont;
+        this.value     = value;
+        setShape(14, 2f);
+        setColors(new Color(30, 30, 55), new Color(50, 50, 80),
+                  new Color(70, 70, 110), new Color(120, 120, 200));
+    }
+
+    public void setValue(String v) {
+        if (v.equals(value)) return;
+        value = v;
+        invalidate();
+    }
+
+    @Override
+    protected void render(Graphics2D g) {
+        renderFrame(g);
+        Rectangle b = bounds;
+
+        // Libelle
+        g.setFont(font);
+        g.setColor(textColor);
+        g.drawString(text, b.x + 20, b.y + b.height / 2 + 6);
+
+        // Valeur a droite
+        g.setFont(valueFont);
+        FontMetrics fm = g.getFontMetrics();
+        int pillW = Math.max(60, fm.stringWidth(value) + 20), pillH = 30;
+        int pillX = b.x + b.width - pillW - 15;
+        int pillY = b.y + (b.height - pillH) / 2;
+
+        g.setColor(PILL);
+        g.fillRoundRect(pillX, pillY, pillW, pillH, pillH, pillH);
+        g.setColor(Color.white);
+        g.drawString(value, pillX + pillW / 2 - fm.stringWidth(value) / 2,
+                     pillY + pillH / 2 + fm.getAscent() / 2 - 2);
+    }
+}
@@ -0,0 +1,97 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Texte sur une ligne, aligne a gauche ou centre sur x, avec ombre optionnelle.
+ *
+ * Les bornes suivent la taille du texte : quand le texte change, l'ancienne
+ * et la nouvelle zone sont toutes deux redessinees.
+ */
+public class UiLabel extends UiWidget {
+
+    public static final int LEFT = 0, CENTER = 1;
+
+    private String text;
+    private final Font font;
+    private Color color;
+    private final int x, baseline, align;
+
+    private Color shadow;
+    private int   shadowOffset;
+
+    /**
+     * @param x        Bord gauche (LEFT) ou centre (CENTER) du texte
+     * @param baseline Ligne de base (meme convention que drawString)
+     */
+    public UiLabel(String text, Font font, Color color, int x, int baseline, int align) {
+        super(new Rectangle());
+        this.text     = text;
+        this.font     = font;
+        this.color    = color;
+        this.x        = x;
+        this.baseline = baseline;
+        this.align    = align;
+        layout();
+    }
+
+    /** Ombre portee decalee de offset px (titres). */
+    public void setShadow(Color c, int offset) {
+        this.shadow       = c;
+        this.shadowOffset = offset;
+        relayout();
+    }
+
+    public void setText(String t) {
+        if (t.equals(text)) return;
+        text = t;
+        relayout();
+    }
+
+    public void setColor(Color c) {
+        if (c.equals(color)) return;
+        color = c;
+        invalidate();
+    }
+
+    public String getText() { return text; }
+
+    // =========================================================================
+    // Mise en page
+    // =========================================================================
+
+    private void layout() {
+        FontMetrics fm = metrics(font);
+        int w  = fm.stringWidth(text);
+        int x0 = (align == CENTER) ? x - w / 2 : x;
+        bounds.setBounds(x0, baseline - fm.getAscent(),
+                         w + shadowOffset, fm.getAscent() + fm.getDescent() + shadowOffset);
+    }
+
+    /** Recalcule les bornes en invalidant l'ancienne zone et la nouvelle. */
+    private void relayout() {
+        if (root != null && visible) root.markDirty(bounds);
+        layout();
+        invalidate();
+    }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    @Override
+    protected void render(Graphics2D g) {
+        g.setFont(font);
+        int tx = bounds.x;
+        if (shadow != null) {
+            g.setColor(shadow);
+            g.drawString(text, tx + shadowOffset, baseline + shadowOffset);
+        }
+        g.setColor(color);
+        g.drawString(text, tx, baseline);
+    }
+}
@@ -0,0 +1,109 @@
+package projetCROMBEZ;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Panneau : fond (uni ou degrade), bordure arrondie optionnelle et enfants.
+ *
+ * Le fond est mis en cache comme n'importe quel widget ; les enfants ont
+ * chacun leur propre cache et sont dessines par-dessus. Invalider un
+ * enfant (survol d'un bouton) ne regenere donc pas le fond du panneau.
+ */
+public class UiPanel extends UiWidget {
+
+    protected final List<UiWidget> children = new ArrayList<>();
+
+    protected Paint background;
+    protected Color border;
+    protected float borderWidth;
+    protected int   arc;
+
+    /** Panneau sans fond (contenu dessine par une sous-classe). */
+    public UiPanel(Rectangle bounds) {
+        this(bounds, null, null, 0f, 0);
+    }
+
+    /** Panneau plein ecran ou rectangulaire avec un simple fond. */
+    public UiPanel(Rectangle bounds, Paint background) {
+        this(bounds, background, null, 0f, 0);
+    }
+
+    /**
+     * @param background Fond (Color ou GradientPaint en coordonnees ecran, null = aucun)
+     * @param border     Couleur de bordure (null = aucune)
+     * @param arc        Arrondi des coins (0 = rectangle)
+     */
+    public UiPanel(Rectangle bounds, Paint background, Color border, float borderWidth, int arc) {
+        super(bounds);
+        this.background  = background;
+        this.border      = border;
+        this.borderWidth = borderWidth;
+        this.arc         = arc;
+    }
+
+    /** Ajoute un enfant (dessine apres le fond et les enfants precedents). */
+    public <W extends UiWidget> W add(W w) {
+        children.add(w);
+        if (root != null) w.attach(root);
+        return w;
+    }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    @Override
+    protected void render(Graphics2D g) {
+        if (background != null) {
+            g.setPaint(background);
+            if (arc > 0) g.fillRoundRect(bounds.x, bounds.y, bounds.width, bounds.height, arc, arc);
+            else         g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        }
+        if (border != null) {
+            g.setColor(border);
+            g.setStroke(Material.strokeOf(borderWidth));
+            g.drawRoundRect(bounds.x, bounds.y, bounds.width, bounds.height, arc, arc);
+            g.setStroke(new BasicStroke(1f));
+        }
+    }
+
+    @Override
+    public void paint(Graphics2D g2, Rectangle clip) {
+        if (!visible) return;
+        super.paint(g2, clip);
+        for (UiWidget c : children) c.paint(g2, clip);
+    }
+
+    // =========================================================================
+    // Arbre
+    // =========================================================================
+
+    @Override
+    void attach(UiRoot r) {
+        super.attach(r);
+        for (UiWidget c : children) c.attach(r);
+    }
+
+    @Override
+    void invalidateAll() {
+        super.invalidateAll();
+        for (UiWidget c : children) c.invalidateAll();
+    }
+
+    @Override
+    UiWidget pick(Point p) {
+        if (!visible) return null;
+        for (int i = children.size() - 1; i >= 0; i--) {
+            UiWidget w = children.get(i).pick(p);
+            if (w != null) return w;
+        }
+        return super.pick(p);
+    }
+}
@@ -0,0 +1,51 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Jauge de progression en cases (ex : niveaux d'amelioration 3/5).
+ * Les cases remplies prennent la couleur d'accent.
+ */
+public class UiPips extends UiWidget {
+
+    private static final Color EMPTY  = new Color(40, 40, 60);
+    private static final Color BORDER = new Color(60, 60, 80);
+
+    private final int count, pipW, pipH, gap;
+    private final Color accent;
+    private int filled;
+
+    /**
+     * @param x, y   Coin superieur gauche de la premiere case
+     * @param count  Nombre total de cases
+     * @param filled Nombre de cases remplies
+     */
+    public UiPips(int x, int y, int count, int pipW, int pipH, int gap, Color accent, int filled) {
+        super(new Rectangle(x, y, count * (pipW + gap) - gap, pipH));
+        this.count  = count;
+        this.pipW   = pipW;
+        this.pipH   = pipH;
+        this.gap    = gap;
+        this.accent = accent;
+        this.filled = filled;
+    }
+
+    public void setFilled(int n) {
+        if (n == filled) return;
+        filled = n;
+        invalidate();
+    }
+
+    @Override
+    protected void render(Graphics2D g) {
+        for (int k = 0; k < count; k++) {
+            int px = bounds.x + k * (pipW + gap);
+            g.setColor(k < filled ? accent : EMPTY);
+            g.fillRoundRect(px, bounds.y, pipW, pipH, 4, 4);
+            g.setColor(BORDER);
+            g.drawRoundRect(px, bounds.y, pipW, pipH, 4, 4);
+        }
+    }
+}
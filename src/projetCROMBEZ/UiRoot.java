@@ -0,0 +1,117 @@
+package projetCROMBEZ;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Racine d'un arbre de widgets (un par ecran).
+ *
+ * Centralise :
+ *  - l'ordre de dessin des widgets de premier niveau,
+ *  - le survol et le clic (recherche du widget interactif sous la souris),
+ *  - les zones sales : chaque invalidation se traduit par un
+ *    repaint(rectangle) limite au widget concerne.
+ */
+public class UiRoot {
+
+    private final GamePanel gp;
+    private final List<UiWidget> widgets = new ArrayList<>();
+
+    /** Widget actuellement survole (null = aucun). */
+    private UiWidget hovered;
+
+    public UiRoot(GamePanel gp) { this.gp = gp; }
+
+    // =========================================================================
+    // Construction
+    // =========================================================================
+
+    /** Ajoute un widget de premier niveau (dessine apres les precedents). */
+    public <W extends UiWidget> W add(W w) {
+        widgets.add(w);
+        w.attach(this);
+        return w;
+    }
+
+    /** Retire tous les widgets (reconstruction d'un ecran). */
+    public void clear() {
+        widgets.clear();
+        hovered = null;
+        gp.repaint();
+    }
+
+    // =========================================================================
+    // Zones sales
+    // =========================================================================
+
+    /** Demande le rafraichissement d'une zone (coordonnees ecran). */
+    void markDirty(Rectangle r) {
+        gp.repaintArea(r.x - UiWidget.PAD, r.y - UiWidget.PAD,
+                       r.width + 2 * UiWidget.PAD, r.height + 2 * UiWidget.PAD);
+    }
+
+    /** Invalide tous les widgets (ex : a l'affichage de l'ecran). */
+    public void invalidateAll() {
+        for (UiWidget w : widgets) w.invalidateAll();
+    }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    /** Dessine les widgets qui intersectent la zone de clip de g2. */
+    public void paint(Graphics2D g2) {
+        Rectangle clip = g2.getClipBounds();
+        for (UiWidget w : widgets) w.paint(g2, clip);
+    }
+
+    // =========================================================================
+    // Evenements
+    // =========================================================================
+
+    /**
+     * Met a jour le survol. Seuls l'ancien et le nouveau widget survoles
+     * sont invalides.
+     *
+     * @return le widget survole (ou null)
+     */
+    public UiWidget hover(Point p) {
+        UiWidget found = pick(p);
+        if (found != hovered) {
+            if (hovered != null) hovered.setHovered(false);
+            if (found   != null) found.setHovered(true);
+            hovered = found;
+        }
+        return found;
+    }
+
+    /** Declenche l'action du widget sous p. @return true si un widget a reagi */
+    public boolean click(Point p) {
+        UiWidget w = pick(p);
+        if (w == null) return false;
+        w.action.run();
+        return true;
+    }
+
+    /**
+     * Oublie le survol courant. Le widget survole repasse a l'etat normal
+     * (il s'invalide et sera redessine) : panneau d'info ouvert, retour
+     * sur l'ecran ou widgets reconstruits.
+     */
+    public void resetHover() {
+        if (hovered != null) hovered.setHovered(false);
+        hovered = null;
+    }
+
+    private UiWidget pick(Point p) {
+        // Parcours inverse : le widget dessine en dernier est au-dessus
+        for (int i = widgets.size() - 1; i >= 0; i--) {
+            UiWidget w = widgets.get(i).pick(p);
+            if (w != null) return w;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package projetCROMBEZ;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Ligne d'option : libelle a gauche, interrupteur ON/OFF a droite.
+ */
+public class UiToggle extends UiButton {
+
+    private static final Color ON  = new Color(50, 180, 80);
+    private static final Color OFF = new Color(120, 50, 50);
+
+    private final Font stateFont;
+    private boolean active;
+
+    /**
+     * @param stateFont Police du texte ON/OFF dans la pastille
+     */
+    public UiToggle(Rectangle bounds, String label, Font font, Font stateFont,
+                    boolean active, Runnable action) {
+        super(bounds, label, font, action);
+        this.stateFont = stateFont;
+        this.active    = active;
+        setShape(14, 2f);
+        setColors(new Color(30, 30, 55), new Color(50, 50, 80),
+                  new Color(70, 70, 110), new Color(120, 120, 200));
+    }
+
+    public void setActive(boolean a) {
+        if (a == active) return;
+        active = a;
+        invalidate();
+    }
+
+    @Override
+    protected void render(Graphics2D g) {
+        renderFrame(g);
+        Rectangle b = bounds;
+
+        // Libelle
+        g.setFont(font);
+        g.setColor(textColor);
+        g.drawString(text, b.x + 20, b.y + b.height / 2 + 6);
+
+        // Indicateur ON/OFF a droite
+        int toggleW = 60, toggleH = 30;
+        int toggleX = b.x + b.width - toggleW - 15;
+        int toggleY = b.y + (b.height - toggleH) / 2;
+
+        g.setColor(active ? ON : OFF);
+        g.fillRoundRect(toggleX, toggleY, toggleW, toggleH, toggleH, toggleH);
+
+        // Pastille blanche (a droite si ON, a gauche si OFF)
+        int knobSize = toggleH - 6;
+        int knobX    = active ? toggleX + toggleW - knobSize - 3 : toggleX + 3;
+        g.setColor(Color.white);
+        g.fillOval(knobX, toggleY + 3, knobSize, knobSize);
+
+        g.setFont(stateFont);
+        FontMetrics fm = g.getFontMetrics();
+        String state = active ? "ON" : "OFF";
+        g.drawString(state, toggleX + toggleW / 2 - fm.stringWidth(state) / 2,
+                     toggleY + toggleH / 2 + fm.getAscent() / 2 - 2);
+    }
+}
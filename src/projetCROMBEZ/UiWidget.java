@@ -0,0 +1,179 @@
+package projetCROMBEZ;
+
+import java.awt.AlphaComposite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Element de base de l'interface en mode "retenu".
+ *
+ * Chaque widget garde une image en cache de son propre rendu. Le cache
+ * n'est redessine que lorsque le widget est invalide (survol, changement
+ * de texte, achat...). Le reste du temps, dessiner le widget se limite a
+ * un drawImage. L'invalidation signale aussi la zone modifiee a
+ * {@link UiRoot}, qui ne redemande a Swing que ces rectangles.
+ *
+ * Les coordonnees sont celles de l'ecran de jeu (1216x832), comme pour
+ * le dessin immediat des anciens ecrans. Le cache, lui, est a la
+ * resolution du contexte de destination (resolution interne de
+ * GamePanel) : il est regenere si l'echelle change, puis copie pixel
+ * pour pixel, sans flou d'agrandissement.
+ */
+public abstract class UiWidget {
+
+    /**
+     * Marge autour des bornes dans le cache : les contours epais
+     * (BasicStroke 2f) debordent legerement du rectangle du widget.
+     */
+    static final int PAD = 3;
+
+    /** Contexte de mesure partage pour calculer la taille des textes. */
+    private static final Graphics2D MEASURE;
+    static {
+        MEASURE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        MEASURE.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    // =========================================================================
+    // Etat
+    // =========================================================================
+
+    /** Bornes du widget en coordonnees ecran. */
+    protected final Rectangle bounds;
+
+    /** Racine a prevenir lors d'une invalidation (null tant que non attache). */
+    protected UiRoot root;
+
+    /** Action declenchee au clic (null = widget non interactif). */
+    protected Runnable action;
+
+    protected boolean hovered = false;
+    protected boolean visible = true;
+
+    private BufferedImage cache;
+    private boolean dirty = true;
+
+    /** Echelle et origine (pixels de destination) du cache. */
+    private double cacheScaleX, cacheScaleY;
+    private int    cacheX, cacheY;
+
+    protected UiWidget(Rectangle bounds) {
+        this.bounds = bounds;
+    }
+
+    // =========================================================================
+    // Rendu
+    // =========================================================================
+
+    /**
+     * Dessine le widget dans g (coordonnees ecran, antialiasing actif).
+     * Appele uniquement pour regenerer le cache.
+     */
+    protected abstract void render(Graphics2D g);
+
+    /**
+     * Dessine le widget depuis son cache s'il intersecte la zone de clip.
+     *
+     * @param clip Zone a redessiner (null = tout l'ecran)
+     */
+    public void paint(Graphics2D g2, Rectangle clip) {
+        if (!visible) return;
+        if (clip != null && !intersectsPadded(clip)) return;
+
+        AffineTransform t = g2.getTransform();
+        double sx = t.getScaleX(), sy = t.getScaleY();
+        if (dirty || cache == null || sx != cacheScaleX || sy != cacheScaleY) renderCache(sx, sy);
+
+        g2.setTransform(AffineTransform.getTranslateInstance(t.getTranslateX(), t.getTranslateY()));
+        g2.drawImage(cache, cacheX, cacheY, null);
+        g2.setTransform(t);
+    }
+
+    private boolean intersectsPadded(Rectangle clip) {
+        return clip.x < bounds.x + bounds.width + PAD && clip.x + clip.width > bounds.x - PAD
+            && clip.y < bounds.y + bounds.height + PAD && clip.y + clip.height > bounds.y - PAD;
+    }
+
+    private void renderCache(double sx, double sy) {
+        cacheX = (int) Math.floor((bounds.x - PAD) * sx);
+        cacheY = (int) Math.floor((bounds.y - PAD) * sy);
+        int w = (int) Math.ceil((bounds.x + bounds.width + PAD) * sx) - cacheX;
+        int h = (int) Math.ceil((bounds.y + bounds.height + PAD) * sy) - cacheY;
+        cacheScaleX = sx;
+        cacheScaleY = sy;
+        if (cache == null || cache.getWidth() != w || cache.getHeight() != h) {
+            cache = new BufferedImage(Math.max(1, w), Math.max(1, h), BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        Graphics2D g = cache.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, w, h);
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.translate(-cacheX, -cacheY);
+        g.scale(sx, sy);
+        render(g);
+        g.dispose();
+        dirty = false;
+    }
+
+    // =========================================================================
+    // Invalidation
+    // =========================================================================
+
+    /** Marque le cache comme perime et demande le rafraichissement de sa zone. */
+    public void invalidate() {
+        dirty = true;
+        if (root != null && visible) root.markDirty(bounds);
+    }
+
+    /** Affiche / masque le widget (la zone est redessinee). */
+    public void setVisible(boolean v) {
+        if (visible == v) return;
+        visible = v;
+        if (root != null) root.markDirty(bounds);
+    }
+
+    /** Attache le widget (et ses enfants) a une racine. */
+    void attach(UiRoot r) { this.root = r; }
+
+    /** Invalide le widget et ses enfants (changement d'ecran, police...). */
+    void invalidateAll() { invalidate(); }
+
+    // =========================================================================
+    // Interaction
+    // =========================================================================
+
+    public boolean contains(Point p) { return visible && bounds.contains(p); }
+
+    public boolean isInteractive() { return action != null; }
+
+    public void setAction(Runnable r) { this.action = r; }
+
+    /** Change l'etat de survol ; n'invalide que si l'etat change reellement. */
+    void setHovered(boolean h) {
+        if (hovered == h) return;
+        hovered = h;
+        onHoverChanged();
+    }
+
+    /** Par defaut, le survol change l'apparence du widget. */
+    protected void onHoverChanged() { invalidate(); }
+
+    /** Retourne le widget interactif le plus profond sous p (ou null). */
+    UiWidget pick(Point p) {
+        return (isInteractive() && contains(p)) ? this : null;
+    }
+
+    // =========================================================================
+    // Utilitaires
+    // =========================================================================
+
+    /** Metriques d'une police (contexte de mesure partage, EDT). */
+    static FontMetrics metrics(Font f) { return MEASURE.getFontMetrics(f); }
+}
@@ -0,0 +1,153 @@
+package projetCROMBEZ;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Instantane binaire complet d'une partie en cours.
+ *
+ * =========================================================================
+ * CONTENU
+ * =========================================================================
+ *  - en-tete      : MAGIC, VERSION
+ *  - partie       : survivalTicks, graine, RunStats (tues, or gagne, degats)
+ *  - joueur       : Player.writeState (flux aleatoire, position, vie, minuteurs)
+ *  - vague        : EnemyManager.writeState (flux aleatoire, vague, minuteurs
+ *                   de spawn, boss)
+ *  - ennemis      : nombre, puis type + Enemy.writeState (champs communs
+ *                   puis champs propres au type : phase et charge du boss...)
+ *  - projectiles  : nombre, puis position, vitesse, degats, origine, crit
+ *
+ * Les stats du joueur (maxHp, degats...) ne sont pas dans l'instantane :
+ * elles decoulent des niveaux d'amelioration, sauvegardes a part.
+ * Les effets purement visuels (particules, chiffres de degats) sont omis.
+ *
+ * =========================================================================
+ * COUT
+ * =========================================================================
+ * La capture se fait sur le thread de jeu, entre deux mises a jour, dans
+ * un tableau d'octets en memoire (quelques Ko, pas d'acces disque) ;
+ * l'ecriture du fichier est confiee au thread d'ecriture de SaveManager.
+ */
+public final class WorldSnapshot {
+
+    /** "SVWS" */
+    private static final int MAGIC   = 0x53565753;
+    private static final int VERSION = 3;
+
+    /** Garde-fou contre un fichier corrompu (ennemis ou projectiles). */
+    private static final int MAX_ENTITIES = 100_000;
+
+    private WorldSnapshot() {}
+
+    // =========================================================================
+    // Capture (thread de jeu)
+    // =========================================================================
+
+    /** Serialise la partie en cours. */
+    public static byte[] capture(GamePanel gp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(gp.survivalTicks);
+            out.writeLong(gp.runSeed);
+            gp.runStats.writeState(out);
+
+            gp.player.writeState(out);
+            gp.enemyManager.writeState(out);
+
+            List<Enemy> enemies = gp.enemyManager.enemies;
+            out.writeInt(enemies.size());
+            for (Enemy e : enemies) {
+                out.writeByte(EnemyManager.typeIndex(e));
+                e.writeState(out);
+            }
+
+            out.writeInt(gp.projectiles.size());
+            for (Projectile p : gp.projectiles) {
+                out.writeDouble(p.x);  out.writeDouble(p.y);
+                out.writeDouble(p.dx); out.writeDouble(p.dy);
+                out.writeInt(p.damage);
+                out.writeInt(p.size);
+                out.writeBoolean(p.fromPlayer);
+                out.writeBoolean(p.isCrit);
+                out.writeBoolean(p.alive);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream ne leve pas d'IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // =========================================================================
+    // Restauration (monde a l'arret : menu)
+    // =========================================================================
+
+    /**
+     * Remplace la partie en cours par le contenu de l'instantane.
+     * En cas d'erreur, la partie est laissee reinitialisee (resetGame).
+     *
+     * @throws IOException instantane tronque, d'une autre version ou corrompu
+     */
+    public static void restore(GamePanel gp, byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC)   throw new IOException("format inconnu");
+        if (in.readInt() != VERSION) throw new IOException("version non supportee");
+
+        gp.resetGame();
+        try {
+            gp.survivalTicks = in.readInt();
+            gp.runSeed       = in.readLong();
+            gp.runStats.readState(in);
+            gp.player.readState(in);
+            gp.enemyManager.readState(in);
+
+            int n = in.readInt();
+            if (n < 0 || n > MAX_ENTITIES) throw new IOException("nombre d'ennemis invalide : " + n);
+            List<Enemy> enemies = gp.enemyManager.enemies;
+            for (int i = 0; i < n; i++) {
+                Enemy e = create(in.readByte());
+                e.readState(in);
+                enemies.add(e);
+            }
+
+            n = in.readInt();
+            if (n < 0 || n > MAX_ENTITIES) throw new IOException("nombre de projectiles invalide : " + n);
+            for (int i = 0; i < n; i++) {
+                double x = in.readDouble(), y = in.readDouble();
+                Projectile p = new Projectile(x, y, x, y, 0, true);
+                p.dx         = in.readDouble();
+                p.dy         = in.readDouble();
+                p.damage     = in.readInt();
+                p.size       = in.readInt();
+                p.fromPlayer = in.readBoolean();
+                p.isCrit     = in.readBoolean();
+                p.alive      = in.readBoolean();
+                gp.projectiles.add(p);
+            }
+        } catch (IOException e) {
+            gp.resetGame();
+            throw e;
+        }
+    }
+
+    // =========================================================================
+    // Utilitaires
+    // =========================================================================
+
+    static Enemy create(byte type) throws IOException {
+        switch (type) {
+            case EnemyManager.TYPE_MELEE:  return new MeleeEnemy(0, 0);
+            case EnemyManager.TYPE_RANGED: return new RangedEnemy(0, 0);
+            case EnemyManager.TYPE_TANK:   return new TankEnemy(0, 0);
+            case EnemyManager.TYPE_BOSS:   return new BossEnemy(0, 0);
+            default:     throw new IOException("type d'ennemi inconnu : " + type);
+        }
+    }
+}